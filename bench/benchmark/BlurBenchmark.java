@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.ImageImpl;
+import model.Pixel;
+import model.effects.BlurFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the BlurFilter effect. Blurring depends on constant time neighbor lookups through
+ * ImageImpl.getPixelAt, so a 4K frame (3840x2160) should finish in a few seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class BlurBenchmark {
+
+  @Param({"1000x1000", "3840x2160"})
+  public String size;
+
+  private ImageImpl image;
+  private BlurFilter blur;
+
+  /**
+   * Builds a noisy test image of the requested size.
+   */
+  @Setup
+  public void setUp() {
+    int width = Integer.parseInt(size.substring(0, size.indexOf('x')));
+    int height = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    List<Pixel> pixels = new ArrayList<>(width * height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels.add(new Pixel(x, y, (x * 7) & 255, (y * 3) & 255, (x ^ y) & 255));
+      }
+    }
+    image = new ImageImpl(pixels, width, height);
+    blur = new BlurFilter();
+  }
+
+  @Benchmark
+  public ImageImpl blur() {
+    return blur.apply(image);
+  }
+}
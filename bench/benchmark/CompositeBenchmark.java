@@ -0,0 +1,88 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import model.BlendMode;
+import model.ImageEditorModel;
+import model.ImageImpl;
+import model.PackedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for compositing the visible layers of an ImageEditorModel: three full size layers
+ * blended with multiply, screen and add, under a small layer in the top left corner. "full"
+ * composites every pixel of a new model, and "toggle" hides or shows the small layer, which
+ * should only recomposite its own area.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class CompositeBenchmark {
+
+  @Param({"1000", "2000"})
+  public int dimension;
+
+  private ImageImpl rainbow;
+  private ImageImpl checkerboard;
+  private ImageImpl small;
+  private ImageEditorModel model;
+  private boolean hidden;
+
+  /**
+   * Builds the layers once for every size.
+   */
+  @Setup
+  public void setUp() {
+    rainbow = Fixtures.image("rainbow", dimension);
+    checkerboard = Fixtures.image("checkerboard", dimension);
+    small = Fixtures.image("checkerboard", 64);
+    model = newModel();
+    model.setVisibility(3, false);
+    model.getComposite(1);
+    hidden = true;
+  }
+
+  /**
+   * Returns a model with the benchmark layers and blend modes.
+   *
+   * @return ImageEditorModel, the model
+   */
+  private ImageEditorModel newModel() {
+    ImageEditorModel layers = new ImageEditorModel(Arrays.asList(rainbow, checkerboard,
+        rainbow, small));
+    layers.setBlend(1, BlendMode.MULTIPLY, 100);
+    layers.setBlend(2, BlendMode.SCREEN, 60);
+    layers.setBlend(3, BlendMode.ADD, 100);
+    return layers;
+  }
+
+  @Benchmark
+  public PackedImage full() {
+    return newModel().getComposite(1);
+  }
+
+  @Benchmark
+  public PackedImage toggle() {
+    //undoing and redoing the hide keeps the history from growing
+    if (hidden) {
+      model.undo();
+    } else {
+      model.redo();
+    }
+    hidden = !hidden;
+    return model.getComposite(1);
+  }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import model.ImageImpl;
+import model.effects.BlurFilter;
+import model.effects.Downscale;
+import model.effects.GaussianBlur;
+import model.effects.Greyscale;
+import model.effects.IEffect;
+import model.effects.Mosaic;
+import model.effects.ResampleFilter;
+import model.effects.Sepia;
+import model.effects.SharpenFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for every effect, on rainbow and checkerboard images from 64x64 up to 8192x8192.
+ * Reports throughput; run with -prof gc to also report the allocation rate of each effect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g", "-Djava.awt.headless=true"})
+public class EffectBenchmark {
+
+  @Param({"64", "512", "2048", "8192"})
+  public int size;
+
+  @Param({"rainbow", "checkerboard"})
+  public String fixture;
+
+  @Param({"blur", "sharpen", "gaussian", "greyscale", "sepia", "mosaic", "downscale",
+      "downscale-box", "downscale-lanczos3"})
+  public String effect;
+
+  private ImageImpl image;
+  private IEffect<ImageImpl> applied;
+
+  /**
+   * Builds the image and the effect to apply to it.
+   */
+  @Setup
+  public void setUp() {
+    image = Fixtures.image(fixture, size);
+    switch (effect) {
+      case "blur":
+        applied = new BlurFilter();
+        break;
+      case "sharpen":
+        applied = new SharpenFilter();
+        break;
+      case "gaussian":
+        applied = new GaussianBlur(5);
+        break;
+      case "greyscale":
+        applied = new Greyscale();
+        break;
+      case "sepia":
+        applied = new Sepia();
+        break;
+      case "mosaic":
+        applied = new Mosaic();
+        break;
+      case "downscale":
+        applied = new Downscale();
+        break;
+      case "downscale-box":
+        applied = new Downscale(ResampleFilter.BOX);
+        break;
+      case "downscale-lanczos3":
+        applied = new Downscale(ResampleFilter.LANCZOS3);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown effect " + effect);
+    }
+  }
+
+  @Benchmark
+  public ImageImpl apply() {
+    return applied.apply(image);
+  }
+}
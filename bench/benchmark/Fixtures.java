@@ -0,0 +1,37 @@
+package benchmark;
+
+import model.ImageImpl;
+
+/**
+ * Class that builds the synthetic images the benchmarks run on, using the rainbow and
+ * checkerboard constructors of ImageImpl. Every benchmark names its image size with a single
+ * dimension parameter, since both constructors build square images.
+ */
+final class Fixtures {
+
+  /**
+   * Private constructor, as this class only has static methods.
+   */
+  private Fixtures() {
+  }
+
+  /**
+   * Builds the named synthetic image.
+   *
+   * @param fixture   String, "rainbow" or "checkerboard"
+   * @param dimension Integer, the width and height of the image
+   * @return ImageImpl, the synthetic image
+   * @throws IllegalArgumentException if the fixture is not known
+   */
+  static ImageImpl image(String fixture, int dimension) throws IllegalArgumentException {
+    switch (fixture) {
+      case "rainbow":
+        return new ImageImpl(dimension);
+      case "checkerboard":
+        //squares of 8 pixels, so that every size has edges for the filters to work on
+        return new ImageImpl(dimension, Math.max(1, dimension / 8));
+      default:
+        throw new IllegalArgumentException("unknown fixture " + fixture);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import controller.Codec;
+import controller.CodecRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import model.PackedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for importing and exporting every supported filetype, on rainbow and checkerboard
+ * images from 64x64 up to 8192x8192. Uses the same codecs as IOHandlerImpl, but on files in a
+ * temporary directory instead of res. Reports throughput; run with -prof gc to also report the
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g", "-Djava.awt.headless=true"})
+public class IOBenchmark {
+
+  @Param({"64", "512", "2048", "8192"})
+  public int size;
+
+  @Param({"rainbow", "checkerboard"})
+  public String fixture;
+
+  @Param({"ppm", "p6", "pgm", "png", "jpg", "qoi"})
+  public String filetype;
+
+  private Codec codec;
+  private PackedImage image;
+  private File input;
+  private File output;
+
+  /**
+   * Builds the image and writes it once with the codec of the filetype, so that there is a file
+   * to import.
+   *
+   * @throws IOException if the temporary files can not be created
+   */
+  @Setup
+  public void setUp() throws IOException {
+    image = new PackedImage(Fixtures.image(fixture, size));
+    input = File.createTempFile("import", "." + filetype);
+    output = File.createTempFile("export", "." + filetype);
+    codec = new CodecRegistry().get(filetype);
+    codec.encode(input.getPath(), filetype, image, Codec.DEFAULT_QUALITY);
+  }
+
+  /**
+   * Deletes the temporary files.
+   */
+  @TearDown
+  public void tearDown() {
+    input.delete();
+    output.delete();
+  }
+
+  @Benchmark
+  public PackedImage importFile() {
+    return codec.decode(input.getPath(), filetype);
+  }
+
+  @Benchmark
+  public File exportFile() {
+    codec.encode(output.getPath(), filetype, image, Codec.DEFAULT_QUALITY);
+    return output;
+  }
+}
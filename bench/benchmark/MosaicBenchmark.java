@@ -0,0 +1,53 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import model.ImageImpl;
+import model.effects.Mosaic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the scaling of the Mosaic effect. Each size has four times the pixels of the one
+ * before it, and the number of seeds is a fixed fraction of the pixels, so a linear mosaic takes
+ * about four times longer, and allocates about four times more (with -prof gc), at each step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MosaicBenchmark {
+
+  @Param({"256", "512", "1024", "2048"})
+  public int size;
+
+  @Param({"100"})
+  public int pixelsPerSeed;
+
+  private ImageImpl image;
+  private Mosaic mosaic;
+
+  /**
+   * Builds the rainbow image to apply the mosaic to.
+   */
+  @Setup
+  public void setUp() {
+    image = Fixtures.image("rainbow", size);
+    mosaic = new Mosaic();
+  }
+
+  @Benchmark
+  public ImageImpl mosaic() {
+    return mosaic.applySpecific(image, image.getNumPixels() / pixelsPerSeed);
+  }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import controller.PPMReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import model.PackedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark comparing the streaming PPMReader with the Scanner based reader it replaced, on a
+ * plain PPM file of about 50 MB (2048x2048 pixels with three digit values and comments).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class PPMReadBenchmark {
+
+  private static final int SIZE = 2048;
+
+  private File file;
+
+  /**
+   * Writes the test file.
+   *
+   * @throws IOException if the file can not be written
+   */
+  @Setup
+  public void setUp() throws IOException {
+    file = File.createTempFile("bench", ".ppm");
+    try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+      out.write("P3\n# benchmark image\n" + SIZE + " " + SIZE + "\n255\n");
+      for (int y = 0; y < SIZE; y++) {
+        out.write("# row " + y + "\n");
+        for (int x = 0; x < SIZE; x++) {
+          out.write(100 + (x * 7) % 156 + " " + (100 + (y * 3) % 156) + " "
+              + (100 + (x ^ y) % 156) + "\n");
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the test file.
+   */
+  @TearDown
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  public PackedImage streaming() {
+    return PPMReader.read(file.getPath());
+  }
+
+  @Benchmark
+  public PackedImage legacyScanner() throws FileNotFoundException {
+    return legacyRead(file.getPath());
+  }
+
+  /**
+   * The reader used before PPMReader: the file is copied line by line into a String without its
+   * comment lines, which is then parsed again with a second Scanner.
+   *
+   * @param filename String, the path of the file
+   * @return PackedImage, the image in the file
+   * @throws FileNotFoundException if the file is not found
+   */
+  private static PackedImage legacyRead(String filename) throws FileNotFoundException {
+    Scanner sc = new Scanner(new FileInputStream(filename));
+    StringBuilder builder = new StringBuilder();
+    while (sc.hasNextLine()) {
+      String s = sc.nextLine();
+      if (s.isEmpty() || s.charAt(0) != '#') {
+        builder.append(s + System.lineSeparator());
+      }
+    }
+    sc = new Scanner(builder.toString());
+    sc.next();
+    int width = sc.nextInt();
+    int height = sc.nextInt();
+    sc.nextInt();
+    int[] raster = new int[width * height];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = PackedImage.pack(sc.nextInt(), sc.nextInt(), sc.nextInt());
+    }
+    return new PackedImage(raster, width, height);
+  }
+}
@@ -0,0 +1,391 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import model.ImageEditorModel;
+import model.ImageImpl;
+import model.PackedImage;
+
+/**
+ * Class that runs one script on every image matching a glob, headless. The script is compiled
+ * once, and each image gets its own ImageEditorModel and controller, so images never share any
+ * state.
+ *
+ * <p>Images flow through three stages, each with its own worker threads: decode reads an image
+ * into a packed raster, transform loads it into its model, runs the script and composites the
+ * result, and encode writes the composite. Stages hand images on through bounded queues, so
+ * while one image is being transformed the next ones are already decoding and the previous ones
+ * encoding, and a batch takes about as long as its slowest stage rather than all three added up.
+ * A stage that gets ahead blocks once the queue after it is full, which bounds the number of
+ * images held in memory at once.
+ *
+ * <p>The composite is saved to the output directory with the name and file type of the image,
+ * under the same subdirectories as the image has below the fixed part of the glob, unless any
+ * command of the script fails on the image, in which case the image fails. Files the
+ * script itself loads, saves or includes are relative to the directory of the script. A line
+ * with the time each stage took on an image is written as the image finishes, and a summary with
+ * the total time of each stage once all of them have, which shows the stage to give threads to.
+ */
+public final class BatchRunner {
+
+  /**
+   * Class representing one image as it moves through the stages.
+   */
+  private static final class Job {
+
+    private final Path input;
+    private final String name;
+    private final String type;
+    private final Path target;
+    private PackedImage image;
+    private String error;
+    private final long[] nanos = new long[3];
+
+    /**
+     * General Constructor.
+     *
+     * @param input  Path, the image to process
+     * @param name   String, the name of the image, without its extension
+     * @param type   String, the file type of the image
+     * @param target Path, the directory to save the result to
+     */
+    Job(Path input, String name, String type, Path target) {
+      this.input = input;
+      this.name = name;
+      this.type = type;
+      this.target = target;
+    }
+  }
+
+  /**
+   * The job that tells a worker there are no more jobs coming.
+   */
+  private static final Job DONE = new Job(null, null, null, null);
+
+  private static final String[] STAGES = {"decode", "transform", "encode"};
+
+  private final String script;
+  private final String inputGlob;
+  private final Path outDir;
+  private final int[] threads;
+  private final Appendable out;
+
+  /**
+   * Constructor for a batch that gives each stage the same number of threads.
+   *
+   * @param script    String, the path of the script to run, with or without .txt
+   * @param inputGlob String, a glob matching the images to process, such as photos/*.png
+   * @param outDir    String, the directory to save the processed images to
+   * @param threads   Integer, the number of images each stage processes at once
+   * @param out       Appendable, where the timings and summary are written
+   * @throws IllegalArgumentException if an argument is null or threads is not positive
+   */
+  public BatchRunner(String script, String inputGlob, String outDir, int threads,
+      Appendable out) throws IllegalArgumentException {
+    this(script, inputGlob, outDir, threads, threads, threads, out);
+  }
+
+  /**
+   * General Constructor.
+   *
+   * @param script       String, the path of the script to run, with or without .txt
+   * @param inputGlob    String, a glob matching the images to process, such as photos/*.png
+   * @param outDir       String, the directory to save the processed images to
+   * @param decoders     Integer, the number of images decoded at once
+   * @param transformers Integer, the number of images the script runs on at once
+   * @param encoders     Integer, the number of images encoded at once
+   * @param out          Appendable, where the timings and summary are written
+   * @throws IllegalArgumentException if an argument is null or a thread count is not positive
+   */
+  public BatchRunner(String script, String inputGlob, String outDir, int decoders,
+      int transformers, int encoders, Appendable out) throws IllegalArgumentException {
+    if (script == null || inputGlob == null || outDir == null || out == null) {
+      throw new IllegalArgumentException("null script, glob, directory or appendable");
+    }
+    if (decoders < 1 || transformers < 1 || encoders < 1) {
+      throw new IllegalArgumentException("threads must be positive");
+    }
+    this.script = script;
+    this.inputGlob = inputGlob;
+    this.outDir = Paths.get(outDir);
+    this.threads = new int[] {decoders, transformers, encoders};
+    this.out = out;
+  }
+
+  /**
+   * Processes every image matching the glob, and returns once all of them are done.
+   *
+   * @return Integer, the number of images that could not be processed
+   * @throws IllegalArgumentException if the script can not be compiled, the images can not be
+   *                                  listed, or the batch is interrupted
+   */
+  public int run() throws IllegalArgumentException {
+    Path scriptPath = Paths.get(script);
+    String scriptName = scriptPath.getFileName().toString();
+    if (scriptName.endsWith(".txt")) {
+      scriptName = scriptName.substring(0, scriptName.length() - 4);
+    }
+    IOHandler<ImageImpl> scriptHandler = new IOHandlerImpl(directory(scriptPath.getParent()));
+    ScriptPlan plan = new ScriptCompiler(scriptHandler).compile(scriptName);
+    Path root = globRoot();
+    List<Path> inputs = find(root);
+    long start = System.nanoTime();
+    //the inputs are all known up front, every other queue holds two jobs per worker taking them
+    List<BlockingQueue<Job>> queues = List.of(new LinkedBlockingQueue<>(),
+        new ArrayBlockingQueue<>(2 * threads[1]), new ArrayBlockingQueue<>(2 * threads[2]),
+        new LinkedBlockingQueue<>());
+    for (Path input : inputs) {
+      queues.get(0).add(job(root, input));
+    }
+    for (int i = 0; i < threads[0]; i++) {
+      queues.get(0).add(DONE);
+    }
+    List<Consumer<Job>> work = List.of(
+        job -> job.image = new IOHandlerImpl(directory(job.input.getParent()))
+            .importRaster(job.name, job.type),
+        job -> job.image = transform(plan, scriptHandler, job.image),
+        job -> encode(job));
+    List<Thread> workers = new ArrayList<>();
+    for (int stage = 0; stage < STAGES.length; stage++) {
+      workers.addAll(startStage(stage, queues.get(stage), queues.get(stage + 1),
+          work.get(stage)));
+    }
+    int failed = 0;
+    long[] totals = new long[STAGES.length];
+    try {
+      for (int i = 0; i < inputs.size(); i++) {
+        Job job = queues.get(STAGES.length).take();
+        for (int stage = 0; stage < STAGES.length; stage++) {
+          totals[stage] += job.nanos[stage];
+        }
+        if (job.error == null) {
+          write(job.input + " -> " + job.target.resolve(job.name + "." + job.type) + " ("
+              + timings(job.nanos) + ")");
+        } else {
+          failed++;
+          write(job.input + " failed: " + job.error);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalArgumentException("Batch interrupted");
+    } finally {
+      for (Thread worker : workers) {
+        worker.interrupt();
+      }
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    write("Processed " + (inputs.size() - failed) + " of " + inputs.size() + " images in "
+        + millis + " ms with " + threads[0] + " decode, " + threads[1] + " transform and "
+        + threads[2] + " encode threads (" + (inputs.isEmpty() ? 0 : millis / inputs.size())
+        + " ms per image), " + failed + " failed.");
+    write("Time spent in each stage: " + timings(totals) + ".");
+    return failed;
+  }
+
+  /**
+   * Starts the workers of a stage. Each worker takes jobs from the queue before the stage until
+   * it takes DONE, and hands every job on to the queue after it, failed or not, so that each job
+   * is reported once. Jobs that failed in an earlier stage are handed on untouched. The last
+   * worker of the stage to finish tells every worker of the next stage that it is done.
+   *
+   * @param stage Integer, the index of the stage
+   * @param from  BlockingQueue of Jobs, the queue before the stage
+   * @param to    BlockingQueue of Jobs, the queue after the stage
+   * @param work  Consumer of Jobs, what the stage does to each job
+   * @return List of Threads, the started workers
+   */
+  private List<Thread> startStage(int stage, BlockingQueue<Job> from, BlockingQueue<Job> to,
+      Consumer<Job> work) {
+    int next = stage + 1 < STAGES.length ? threads[stage + 1] : 0;
+    AtomicInteger running = new AtomicInteger(threads[stage]);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < threads[stage]; i++) {
+      Thread worker = new Thread(() -> {
+        try {
+          for (Job job = from.take(); job != DONE; job = from.take()) {
+            if (job.error == null) {
+              long start = System.nanoTime();
+              try {
+                work.accept(job);
+              } catch (Throwable e) {
+                //an image that can not be processed, even for running out of memory or stack,
+                //fails on its own, freeing its memory, so the batch still finishes
+                job.error = e.getMessage() == null ? e.toString() : e.getMessage();
+                job.image = null;
+              }
+              job.nanos[stage] = System.nanoTime() - start;
+            }
+            to.put(job);
+          }
+          if (running.decrementAndGet() == 0) {
+            for (int j = 0; j < next; j++) {
+              to.put(DONE);
+            }
+          }
+        } catch (InterruptedException e) {
+          //the batch was abandoned
+        }
+      }, "batch-" + STAGES[stage] + "-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+    return workers;
+  }
+
+  /**
+   * Returns the job for the given image.
+   *
+   * @param root  Path, the fixed part of the glob
+   * @param input Path, the image to process
+   * @return Job, the job, not yet decoded
+   */
+  private Job job(Path root, Path input) {
+    String fileName = input.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot < 0 ? fileName : fileName.substring(0, dot);
+    String type = dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase();
+    Path relative = root.relativize(input).getParent();
+    return new Job(input, name, type, relative == null ? outDir : outDir.resolve(relative));
+  }
+
+  /**
+   * Loads the given image as the only layer of a new model, runs the plan on it and returns the
+   * composite.
+   *
+   * @param plan          ScriptPlan, the compiled script
+   * @param scriptHandler IOHandler, used by the script to read and write its own files
+   * @param image         PackedImage, the decoded image
+   * @return PackedImage, the composite of the model once the script has run
+   * @throws IllegalArgumentException if any command of the script fails on the image
+   */
+  private static PackedImage transform(ScriptPlan plan, IOHandler<ImageImpl> scriptHandler,
+      PackedImage image) throws IllegalArgumentException {
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(image.toImageImpl());
+    //what the script reports about each command is not kept, only whether any failed
+    ImageAppendableController controller = new ImageAppendableController(model,
+        new StringBuilder(), scriptHandler);
+    controller.execute(plan);
+    if (controller.getFailureCount() > 0) {
+      throw new IllegalArgumentException(controller.getFailureCount()
+          + " command(s) of the script failed");
+    }
+    //the model is dropped, so nothing recomposites over the composite it returns
+    return model.getComposite(1);
+  }
+
+  /**
+   * Saves the composite of the given job, and lets go of it.
+   *
+   * @param job Job, the transformed job
+   * @throws IllegalArgumentException if the directory can not be created or the image written
+   */
+  private static void encode(Job job) throws IllegalArgumentException {
+    try {
+      Files.createDirectories(job.target);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not create " + job.target);
+    }
+    new IOHandlerImpl(job.target.toString()).exportRaster(job.name, job.type, job.image);
+    job.image = null;
+  }
+
+  /**
+   * Returns the leading directories of the glob that contain no wildcards, which every match is
+   * below.
+   *
+   * @return Path, the fixed part of the glob, empty if the glob starts with a wildcard
+   */
+  private Path globRoot() {
+    Path glob = Paths.get(inputGlob);
+    Path root = glob.isAbsolute() ? glob.getRoot() : Paths.get("");
+    for (int i = 0; i < glob.getNameCount() - 1; i++) {
+      String part = glob.getName(i).toString();
+      if (part.matches(".*[*?\\[{].*")) {
+        break;
+      }
+      root = root.resolve(part);
+    }
+    return root;
+  }
+
+  /**
+   * Returns the files below the given directory that match the glob, in order.
+   *
+   * @param root Path, the fixed part of the glob
+   * @return List of Paths, the matching files
+   * @throws IllegalArgumentException if the directory can not be listed
+   */
+  private List<Path> find(Path root) throws IllegalArgumentException {
+    Path dir = Paths.get(directory(root));
+    Path glob = Paths.get(inputGlob);
+    int fixed = root.toString().isEmpty() ? 0 : root.getNameCount();
+    String pattern = glob.subpath(fixed, glob.getNameCount()).toString();
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    //a single * never matches across directories, so only ** needs to look deeper
+    int depth = pattern.contains("**") ? Integer.MAX_VALUE : Paths.get(pattern).getNameCount();
+    try (Stream<Path> files = Files.walk(dir, depth)) {
+      return files.filter(Files::isRegularFile)
+          .filter(file -> matcher.matches(dir.relativize(file)))
+          .map(file -> root.resolve(dir.relativize(file)))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not list " + dir);
+    }
+  }
+
+  /**
+   * Returns the given directory as a path for an IOHandlerImpl.
+   *
+   * @param dir Path, the directory, or null for the current one
+   * @return String, the path of the directory
+   */
+  private static String directory(Path dir) {
+    return dir == null || dir.toString().isEmpty() ? "." : dir.toString();
+  }
+
+  /**
+   * Returns the given time of each stage in milliseconds.
+   *
+   * @param nanos Long array, the nanoseconds spent in each stage
+   * @return String, the time of each stage, such as "decode 3 ms, transform 9 ms, encode 4 ms"
+   */
+  private static String timings(long[] nanos) {
+    StringBuilder timings = new StringBuilder();
+    for (int stage = 0; stage < STAGES.length; stage++) {
+      timings.append(stage == 0 ? "" : ", ").append(STAGES[stage]).append(' ')
+          .append(nanos[stage] / 1_000_000).append(" ms");
+    }
+    return timings.toString();
+  }
+
+  /**
+   * Writes the given line to the appendable.
+   *
+   * @param line String, the line to write
+   * @throws IllegalArgumentException if appendable fails (throws IOException)
+   */
+  private void write(String line) throws IllegalArgumentException {
+    try {
+      out.append(line + "\n");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed writing to appendable.");
+    }
+  }
+}
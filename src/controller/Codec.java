@@ -0,0 +1,156 @@
+package controller;
+
+import java.awt.Rectangle;
+import java.util.Set;
+import model.PackedImage;
+
+/**
+ * Interface representing a codec, which reads and writes the files of one or more filetypes as
+ * PackedImages. Codecs are found by a CodecRegistry, either built in or listed in a
+ * META-INF/services/controller.Codec file on the class path, so a new image format can be added
+ * without changing the controller. When more than one codec handles a filetype, the one with the
+ * highest priority is used, so a faster codec for a format only needs a higher priority than the
+ * one it replaces.
+ *
+ * <p>Every codec can decode a region of a file, or every few pixels of it, but by default does so
+ * by decoding the whole file first. A codec lists the capabilities it actually has, such as
+ * decoding only the region asked for, for each of its filetypes.
+ */
+public interface Codec {
+
+  /**
+   * Enumeration representing what a codec can do beyond decoding and encoding whole files.
+   */
+  enum Capability {
+    /**
+     * Decodes the file as it reads it, without holding the encoded file in memory.
+     */
+    STREAMING_DECODE,
+    /**
+     * Decodes a region of the file without decoding the rest of it.
+     */
+    REGION_DECODE,
+    /**
+     * Decodes every few pixels of the file without decoding the others.
+     */
+    SUBSAMPLED_DECODE,
+    /**
+     * Encodes with a quality from 0 to 1, losing less detail the higher it is.
+     */
+    QUALITY,
+    /**
+     * Encodes with a compression from 0 to 1, writing smaller files the lower it is.
+     */
+    COMPRESSION
+  }
+
+  /**
+   * The quality that tells a codec to encode with its own default quality or compression.
+   */
+  float DEFAULT_QUALITY = -1;
+
+  /**
+   * Returns the filetypes this codec reads and writes, such as "png".
+   *
+   * @return Set of Strings, the filetypes
+   */
+  Set<String> getFiletypes();
+
+  /**
+   * Returns the extension of the files of the given filetype.
+   *
+   * @param filetype String, one of the filetypes of this codec
+   * @return String, the extension, without the dot
+   */
+  String getExtension(String filetype);
+
+  /**
+   * Returns what this codec can do with the given filetype beyond decoding and encoding.
+   *
+   * @param filetype String, one of the filetypes of this codec
+   * @return Set of Capabilities, the capabilities
+   */
+  Set<Capability> getCapabilities(String filetype);
+
+  /**
+   * Returns the priority of this codec over other codecs for the same filetypes. Built in codecs
+   * have a priority of 0.
+   *
+   * @return Integer, the priority, higher for codecs that should be preferred
+   */
+  int getPriority();
+
+  /**
+   * Decodes the file at the given path.
+   *
+   * @param path     String, the path of the file
+   * @param filetype String, the filetype of the file
+   * @return PackedImage, the image in the file
+   * @throws IllegalArgumentException if the file can not be read or is not a valid file
+   */
+  PackedImage decode(String path, String filetype) throws IllegalArgumentException;
+
+  /**
+   * Encodes the given image to a file at the given path.
+   *
+   * @param path     String, the path of the file
+   * @param filetype String, the filetype of the file
+   * @param image    PackedImage, the image to encode
+   * @param quality  Float, the quality or compression from 0 to 1 for codecs capable of either,
+   *                 or DEFAULT_QUALITY
+   * @throws IllegalArgumentException if the file can not be written
+   */
+  void encode(String path, String filetype, PackedImage image, float quality)
+      throws IllegalArgumentException;
+
+  /**
+   * Decodes the given region of the file at the given path.
+   *
+   * @param path     String, the path of the file
+   * @param filetype String, the filetype of the file
+   * @param region   Rectangle, the region to decode, which must lie within the image
+   * @return PackedImage, the region of the image
+   * @throws IllegalArgumentException if the file can not be read or the region is not in it
+   */
+  default PackedImage decodeRegion(String path, String filetype, Rectangle region)
+      throws IllegalArgumentException {
+    PackedImage image = decode(path, filetype);
+    if (region == null || region.isEmpty()
+        || !new Rectangle(image.getWidth(), image.getHeight()).contains(region)) {
+      throw new IllegalArgumentException("region is not in the image");
+    }
+    int[] raster = new int[region.width * region.height];
+    for (int y = 0; y < region.height; y++) {
+      System.arraycopy(image.getRaster(), (region.y + y) * image.getWidth() + region.x, raster,
+          y * region.width, region.width);
+    }
+    return new PackedImage(raster, region.width, region.height);
+  }
+
+  /**
+   * Decodes every given number of pixels across and down the file at the given path, starting
+   * with the top left one.
+   *
+   * @param path     String, the path of the file
+   * @param filetype String, the filetype of the file
+   * @param step     Integer, the distance between decoded pixels
+   * @return PackedImage, the subsampled image
+   * @throws IllegalArgumentException if the file can not be read or the step is not positive
+   */
+  default PackedImage decodeSubsampled(String path, String filetype, int step)
+      throws IllegalArgumentException {
+    if (step < 1) {
+      throw new IllegalArgumentException("step must be positive");
+    }
+    PackedImage image = decode(path, filetype);
+    int width = (image.getWidth() + step - 1) / step;
+    int height = (image.getHeight() + step - 1) / step;
+    int[] raster = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        raster[y * width + x] = image.getRaster()[y * step * image.getWidth() + x * step];
+      }
+    }
+    return new PackedImage(raster, width, height);
+  }
+}
@@ -0,0 +1,95 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Class that keeps the codecs an IOHandlerImpl can use and chooses one for each filetype. The
+ * default registry holds the built in codecs (PPM, PGM, JPG, PNG and QOI) and every codec found
+ * by a ServiceLoader on the class path. For each filetype, the codec with the highest priority
+ * wins, and of codecs with the same priority, the one registered last.
+ */
+public final class CodecRegistry {
+
+  private static CodecRegistry defaults;
+
+  private final List<Codec> codecs;
+
+  /**
+   * Constructor for a registry of only the built in codecs.
+   */
+  public CodecRegistry() {
+    this.codecs = new ArrayList<>();
+    codecs.add(new PpmCodec());
+    codecs.add(new ImageIOCodec());
+    codecs.add(new QoiCodec());
+  }
+
+  /**
+   * Returns the registry of the built in codecs and those found on the class path, which is
+   * shared by every IOHandlerImpl not given a registry of its own.
+   *
+   * @return CodecRegistry, the default registry
+   */
+  public static synchronized CodecRegistry getDefault() {
+    if (defaults == null) {
+      defaults = new CodecRegistry();
+      for (Codec codec : ServiceLoader.load(Codec.class)) {
+        defaults.register(codec);
+      }
+    }
+    return defaults;
+  }
+
+  /**
+   * Adds the given codec, which takes over its filetypes from codecs of the same or a lower
+   * priority.
+   *
+   * @param codec Codec, the codec to add
+   * @throws IllegalArgumentException if codec is null
+   */
+  public synchronized void register(Codec codec) throws IllegalArgumentException {
+    if (codec == null) {
+      throw new IllegalArgumentException("null codec");
+    }
+    codecs.add(codec);
+  }
+
+  /**
+   * Returns the codec to read and write the given filetype with.
+   *
+   * @param filetype String, the filetype
+   * @return Codec, the codec with the highest priority for the filetype
+   * @throws IllegalArgumentException if no codec handles the filetype
+   */
+  public synchronized Codec get(String filetype) throws IllegalArgumentException {
+    Codec best = null;
+    for (Codec codec : codecs) {
+      if (codec.getFiletypes().contains(filetype)
+          && (best == null || codec.getPriority() >= best.getPriority())) {
+        best = codec;
+      }
+    }
+    if (best == null) {
+      throw new IllegalArgumentException("filetype not supported or does not exist");
+    }
+    return best;
+  }
+
+  /**
+   * Returns every filetype some codec handles.
+   *
+   * @return Set of Strings, the filetypes in alphabetical order, which can not be changed
+   */
+  public synchronized Set<String> getFiletypes() {
+    Set<String> filetypes = new TreeSet<>();
+    for (Codec codec : codecs) {
+      filetypes.addAll(codec.getFiletypes());
+    }
+    return Collections.unmodifiableSet(filetypes);
+  }
+}
@@ -26,6 +26,13 @@ public interface IController<T> {
    */
   void save(String filename, String filetype);
 
+  /**
+   * Saves the composite of every visible layer with the given file name and file type.
+   * @param filename String, name of the file once saved
+   * @param filetype String, extension of the file once saved
+   */
+  void saveComposite(String filename, String filetype);
+
   /**
    * Loads the given file into the model.
    * @param filename String, name of the file to be loaded
@@ -64,12 +71,42 @@ public interface IController<T> {
    */
   void visible(int index);
 
+  /**
+   * Sets how the top visible layer is blended with the layers below it.
+   * @param mode String, name of the blend mode (normal, multiply, screen or add)
+   * @param opacity Integer, the opacity of the layer, from 0 to 100
+   */
+  void blend(String mode, int opacity);
+
+  /**
+   * Undoes the last edit to the model.
+   */
+  void undo();
+
+  /**
+   * Redoes the last undone edit to the model.
+   */
+  void redo();
+
+  /**
+   * Stops the command running in the background, if there is one, leaving the model as it was
+   * before the command.
+   */
+  void cancel();
+
   /**
    * Initiates a multi-image export from the model.
    * @param filename String, name used for the images and the script file
    */
   void exportAll(String filename);
 
+  /**
+   * Initiates a multi-image export from the model, saving every layer as the given file type.
+   * @param filename String, name used for the images and the script file
+   * @param filetype String, the file type of the images, which the script loads them as
+   */
+  void exportAll(String filename, String filetype);
+
   /**
    * Updates the output (View, Appendable, etc.).
    */
@@ -1,98 +1,136 @@
 package controller;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
-import javax.imageio.ImageIO;
 import model.ImageImpl;
-import model.Pixel;
+import model.PackedImage;
 
 /**
- * Class representing a handler that imports and exports images.
+ * Class representing a handler that imports and exports images. Each filetype is read and written
+ * by the codec a CodecRegistry chooses for it. The built in filetypes are "ppm" (exported as
+ * plain P3, imported as either P3 or binary P6), "p6" (binary P6 with the .ppm extension), "pgm"
+ * (binary P5 greyscale with the .pgm extension), "jpg" and "png". File names are relative to a
+ * base directory, the res folder unless given otherwise.
  */
 public class IOHandlerImpl implements IOHandler<ImageImpl> {
 
+  private final String directory;
+  private final CodecRegistry codecs;
+
+  /**
+   * Constructor for a handler that reads and writes files in the res folder.
+   */
+  public IOHandlerImpl() {
+    this("res");
+  }
+
+  /**
+   * Constructor for a handler that reads and writes files in the given directory.
+   *
+   * @param directory String, the path of the base directory
+   * @throws IllegalArgumentException if directory is null
+   */
+  public IOHandlerImpl(String directory) throws IllegalArgumentException {
+    this(directory, CodecRegistry.getDefault());
+  }
+
+  /**
+   * Constructor for a handler that reads and writes files in the given directory with the codecs
+   * of the given registry.
+   *
+   * @param directory String, the path of the base directory
+   * @param codecs    CodecRegistry, the codecs to read and write images with
+   * @throws IllegalArgumentException if directory or codecs is null
+   */
+  public IOHandlerImpl(String directory, CodecRegistry codecs) throws IllegalArgumentException {
+    if (directory == null || codecs == null) {
+      throw new IllegalArgumentException("null directory or codecs");
+    }
+    this.directory = directory;
+    this.codecs = codecs;
+  }
+
   @Override
   public ImageImpl importItem(String filename, String filetype) throws IllegalArgumentException {
-    if (filename == null || filetype == null || filetype.equals("")
-        || filename.equals("")) {
-      throw new IllegalArgumentException("Invalid filename or filetype.");
-    }
-    switch (filetype) {
-      case "ppm":
-        return readPPM("res/" + filename + ".ppm");
-      case "jpg":
-        try {
-          BufferedImage img = ImageIO.read(new File("res/" + filename + ".jpg"));
-          return bufferedToImage(img);
-        } catch (IOException e) {
-          throw new IllegalArgumentException("Import failed");
-        }
-      case "png":
-        try {
-          BufferedImage img = ImageIO.read(new File("res/" + filename + ".png"));
-          return bufferedToImage(img);
-        } catch (IOException e) {
-          throw new IllegalArgumentException("Import failed");
-        }
-      default:
-        throw new IllegalArgumentException("filetype not supported or does not exist");
-    }
+    return importRaster(filename, filetype).toImageImpl();
   }
 
   @Override
   public void exportItem(String filename, String filetype, ImageImpl imageImpl) throws
       IllegalArgumentException {
-    //create BufferedImage for exporting
-    BufferedImage export = new BufferedImage(imageImpl.getWidth(), imageImpl.getHeight(),
-        BufferedImage.TYPE_INT_RGB);
-    //adds all pixel information to the BufferedImage
-    for (Pixel x : imageImpl.getPixels()) {
-      export.setRGB(x.getX(), x.getY(), x.getRGB());
+    if (imageImpl == null) {
+      throw new IllegalArgumentException("null image");
     }
-    //exports BufferedImage as given filetype
-    switch (filetype) {
-      case "png":
-        // Save as PNG
-        File file = new File("res/" + filename + ".png");
-        try {
-          ImageIO.write(export, "png", file);
-        } catch (IOException io) {
-          throw new IllegalArgumentException("export failed.");
-        }
-        break;
-      case "jpg":
-        // Save as JPEG
-        file = new File("res/" + filename + ".jpg");
-        try {
-          ImageIO.write(export, "jpg", file);
-        } catch (IOException io) {
-          throw new IllegalArgumentException("export failed.");
-        }
-        break;
-      case "ppm":
-        // Save as PPM
-        writePPM("res/" + filename + ".ppm", imageImpl);
-        break;
-      default:
-        throw new IllegalArgumentException("filetype not supported or does not exist");
+    exportRaster(filename, filetype, new PackedImage(imageImpl));
+  }
+
+  /**
+   * Imports the specified file directly into a packed raster, without creating any Pixels.
+   *
+   * @param filename String, name of the file
+   * @param filetype String, extension of the file
+   * @return PackedImage, the file as a packed image
+   * @throws IllegalArgumentException if the file can not be read or the filetype is invalid
+   */
+  public PackedImage importRaster(String filename, String filetype)
+      throws IllegalArgumentException {
+    if (filename == null || filetype == null || filetype.equals("")
+        || filename.equals("")) {
+      throw new IllegalArgumentException("Invalid filename or filetype.");
     }
+    Codec codec = codecs.get(filetype);
+    return codec.decode(path(filename, codec.getExtension(filetype)), filetype);
+  }
+
+  /**
+   * Exports the given packed image with the given name as the given file type.
+   *
+   * @param filename String, name of the file once exported
+   * @param filetype String, extension of the file once exported
+   * @param image    PackedImage, the image to be exported
+   * @throws IllegalArgumentException if the export fails or the filetype is invalid
+   */
+  public void exportRaster(String filename, String filetype, PackedImage image)
+      throws IllegalArgumentException {
+    exportRaster(filename, filetype, image, Codec.DEFAULT_QUALITY);
+  }
+
+  /**
+   * Exports the given packed image with the given name as the given file type, with the given
+   * quality or compression if the codec of the file type supports either.
+   *
+   * @param filename String, name of the file once exported
+   * @param filetype String, extension of the file once exported
+   * @param image    PackedImage, the image to be exported
+   * @param quality  Float, the quality or compression from 0 to 1, or Codec.DEFAULT_QUALITY
+   * @throws IllegalArgumentException if the export fails or the filetype is invalid
+   */
+  public void exportRaster(String filename, String filetype, PackedImage image, float quality)
+      throws IllegalArgumentException {
+    if (filename == null || filetype == null || image == null) {
+      throw new IllegalArgumentException("Invalid filename, filetype or image.");
+    }
+    Codec codec = codecs.get(filetype);
+    codec.encode(path(filename, codec.getExtension(filetype)), filetype, image, quality);
+  }
+
+  /**
+   * Returns the registry this handler chooses the codec of each filetype from.
+   *
+   * @return CodecRegistry, the codecs of this handler
+   */
+  public CodecRegistry getCodecs() {
+    return codecs;
   }
 
   @Override
   public void exportText(String filename, String text) throws IllegalArgumentException {
     PrintWriter out = null;
     try {
-      out = new PrintWriter("res/" + filename + ".txt");
+      out = new PrintWriter(path(filename, "txt"));
       out.println(text);
       out.close();
     } catch (FileNotFoundException e) {
@@ -103,7 +141,7 @@ public class IOHandlerImpl implements IOHandler<ImageImpl> {
   @Override
   public Readable importText(String filename) throws IllegalArgumentException {
     try {
-      File file = new File("res/" + filename + ".txt");
+      File file = new File(path(filename, "txt"));
       return new FileReader(file);
     } catch (IOException e) {
       throw new IllegalArgumentException("Import failed");
@@ -111,99 +149,13 @@ public class IOHandlerImpl implements IOHandler<ImageImpl> {
   }
 
   /**
-   * Creates an ImageImpl object from a BufferedImage.
-   *
-   * @param img BufferedImage, the image to read data from
-   * @return ImageImpl, created using the data of the BufferedImage
-   */
-  private ImageImpl bufferedToImage(BufferedImage img) {
-    int height = img.getHeight();
-    int width = img.getWidth();
-    List<Pixel> list = new ArrayList<>();
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        int rgb = img.getRGB(x, y);
-        int r = (rgb >> 16) & 0xff;
-        int g = (rgb >>  8) & 0xff;
-        int b = (rgb) & 0xff;
-        list.add(new Pixel(x, y, r, g, b));
-      }
-    }
-    return new ImageImpl(list, width, height);
-  }
-
-  /**
-   * Read an image file in the PPM format and return an ImageImpl instance.
-   *
-   * @param filename the path of the file.
-   * @throws IllegalArgumentException if file is not found or the ppm file is invalid.
-   */
-  private ImageImpl readPPM(String filename) throws IllegalArgumentException {
-    Scanner sc;
-    try {
-      sc = new Scanner(new FileInputStream(filename));
-    } catch (FileNotFoundException e) {
-      throw new IllegalArgumentException("File not found.");
-    }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
-      }
-    }
-    //now set up the scanner to read from the string we just built
-    sc = new Scanner(builder.toString());
-    String token;
-    token = sc.next();
-    if (!token.equals("P3")) {
-      throw new IllegalArgumentException("Invalid PPM file: plain RAW file should begin with P3");
-    }
-    //reads starting values of ppm
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    int maxValue = sc.nextInt();
-    //create list of pixels for image
-    List<Pixel> pixels = new ArrayList<Pixel>();
-    //creates pixels in list
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        pixels.add(new Pixel(j, i, r, g, b));
-      }
-    }
-    //create model.ImageImpl instance with imported image data and return
-    ImageImpl result = new ImageImpl(pixels, width, height);
-    return result;
-  }
-
-  /**
-   * Creates a new PPM file containing the data of the imageImpl.
+   * Returns the path of the file with the given name and extension in the base directory.
    *
-   * @param filename String, the name of the file to be written to
-   * @param imageImpl    ImageImpl, the imageImpl to convert
-   * @throws IllegalArgumentException if the file is not found.
+   * @param filename  String, name of the file
+   * @param extension String, extension of the file
+   * @return String, the path of the file
    */
-  private void writePPM(String filename, ImageImpl imageImpl) throws IllegalArgumentException {
-    int width = imageImpl.getWidth();
-    int height = imageImpl.getHeight();
-    StringBuilder ppm = new StringBuilder();
-    ppm.append("P3\n").append(width).append(" ").append(height).append("\n255\n");
-    for (Pixel pixel : imageImpl.getPixels()) {
-      int r = pixel.getR();
-      int g = pixel.getG();
-      int b = pixel.getB();
-      ppm.append(r).append(" ").append(g).append(" ").append(b).append("\n");
-    }
-    try {
-      FileOutputStream fos = new FileOutputStream(filename);
-      fos.write(new String(ppm).getBytes(StandardCharsets.UTF_8));
-      fos.close();
-    } catch (IOException io) {
-      throw new IllegalArgumentException("file not found.");
-    }
+  private String path(String filename, String extension) {
+    return directory + File.separator + filename + "." + extension;
   }
 }
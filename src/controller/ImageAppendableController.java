@@ -1,29 +1,31 @@
 package controller;
 
 
+import java.awt.Dimension;
 import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
+import model.BlendMode;
 import model.IEditorModel;
 import model.ImageImpl;
-import model.effects.BlurFilter;
-import model.effects.Downscale;
-import model.effects.Greyscale;
 import model.effects.IEffect;
-import model.effects.Mosaic;
-import model.effects.Sepia;
-import model.effects.SharpenFilter;
 
 /**
  * Class representing a controller for an ImageImpl Editor. Supports user input commands that
  * execute various functions such as loading in an image, applying image processing effect, saving
- * images, and removing layers.
+ * images, and removing layers. Commands are read one at a time, while scripts run with the file
+ * command are compiled in full by a ScriptCompiler first, so that a script that can not be run
+ * as a whole is rejected before it changes anything.
  */
 public class ImageAppendableController implements IController<ImageImpl> {
 
   private final IEditorModel<ImageImpl> model;
   private final Appendable ap;
   private final IOHandler<ImageImpl> handler;
+  private final ScriptCompiler compiler;
+  private int failures;
+  //the size the top visible layer would have after the effects reported but not applied so far
+  private Dimension skipped;
 
   /**
    * General Constructor.
@@ -33,11 +35,24 @@ public class ImageAppendableController implements IController<ImageImpl> {
    */
   public ImageAppendableController(IEditorModel<ImageImpl> model, Appendable ap)
       throws IllegalArgumentException {
-    if (model == null || ap == null) {
-      throw new IllegalArgumentException("null model or appendable");
+    this(model, ap, new IOHandlerImpl());
+  }
+
+  /**
+   * Constructor for a controller that reads and writes files with the given handler.
+   * @param model IEditorModel, the model that is being controlled
+   * @param ap Appendable, where the output will appear
+   * @param handler IOHandler, used to read and write images and scripts
+   * @throws IllegalArgumentException if model, appendable or handler is null
+   */
+  public ImageAppendableController(IEditorModel<ImageImpl> model, Appendable ap,
+      IOHandler<ImageImpl> handler) throws IllegalArgumentException {
+    if (model == null || ap == null || handler == null) {
+      throw new IllegalArgumentException("null model, appendable or handler");
     }
     this.model = model;
-    this.handler = new IOHandlerImpl();
+    this.handler = handler;
+    this.compiler = new ScriptCompiler(handler);
     this.ap = ap;
   }
 
@@ -47,84 +62,110 @@ public class ImageAppendableController implements IController<ImageImpl> {
       throw new IllegalArgumentException("null input");
     }
     Scanner master = new Scanner(input);
-    while (master.hasNext()) {
-      String in = master.next();
-      switch (in) {
-        case "file":
-          if (master.hasNext()) {
-            file(master.next());
-          }
-          break;
-        case "quit":
-          appendCatchIO("Program quitting..");
-          return;
-        case "load":
-          if (master.hasNext()) {
-            String filenameLoad = master.next();
-            if (master.hasNext()) {
-              String filetypeLoad = master.next();
-              if (master.hasNextBoolean()) {
-                load(filenameLoad, filetypeLoad, master.nextBoolean());
-              }
-            }
-          }
-          break;
-        case "save":
-          if (master.hasNext()) {
-            String filenameSave = master.next();
-            if (master.hasNext()) {
-              String filetypeSave = master.next();
-              save(filenameSave, filetypeSave);
-            }
-          }
-          break;
-        case "blur":
-          applyEffect(new BlurFilter());
-          break;
-        case "sharpen":
-          applyEffect(new SharpenFilter());
-          break;
-        case "greyscale":
-          applyEffect(new Greyscale());
-          break;
-        case "sepia":
-          applyEffect(new Sepia());
-          break;
-        case "mosaic":
-          applyEffect(new Mosaic());
-          break;
-        case "downscale":
-          applyEffect(new Downscale());
-          break;
-        case "remove":
-          remove();
-          break;
-        case "invisible":
-          if (master.hasNextInt()) {
-            invisible(master.nextInt());
-          }
-          break;
-        case "visible":
-          if (master.hasNextInt()) {
-            visible(master.nextInt());
-          }
-          break;
-        case "toTop":
-          if (master.hasNextInt()) {
-            toTop(master.nextInt());
-          }
-          break;
-        case "exportAll":
-          if (master.hasNext()) {
-            exportAll(master.next());
-          }
-          break;
-        default:
-          //if not a valid command, do nothing
+    for (ScriptCommand command = compiler.next(master); command != null;
+        command = compiler.next(master)) {
+      if (!execute(command)) {
+        return;
       }
     }
   }
 
+  /**
+   * Runs every command of the given compiled script, stopping at a quit command. A plan may be
+   * run any number of times, so a script compiled once can be run on many models.
+   *
+   * @param plan ScriptPlan, the compiled script to run
+   * @throws IllegalArgumentException if plan is null
+   */
+  public void execute(ScriptPlan plan) throws IllegalArgumentException {
+    if (plan == null) {
+      throw new IllegalArgumentException("null plan");
+    }
+    for (ScriptCommand command : plan.getCommands()) {
+      if (!execute(command)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Runs the given command.
+   *
+   * @param command ScriptCommand, the command to run
+   * @return Boolean, should the script the command belongs to go on?
+   */
+  private boolean execute(ScriptCommand command) {
+    if (command.getKind() != ScriptCommand.Kind.EFFECT || command.applies()) {
+      skipped = null;
+    }
+    switch (command.getKind()) {
+      case FILE:
+        if (command.getInclude() == null) {
+          //later commands may undo the edits of the script, so it is run as written
+          file(command.getName(), false);
+        } else {
+          execute(command.getInclude());
+          appendCatchIO("Script " + command.getName() + ".txt loaded");
+          updateOutput();
+        }
+        return true;
+      case QUIT:
+        appendCatchIO("Program quitting..");
+        return false;
+      case LOAD:
+        load(command.getName(), command.getType(), command.getFlag(), command.getMode(),
+            command.getNumber());
+        return true;
+      case SAVE:
+        save(command.getName(), command.getType());
+        return true;
+      case SAVE_COMPOSITE:
+        saveComposite(command.getName(), command.getType());
+        return true;
+      case BLEND:
+        blend(command.getName(), command.getNumber());
+        return true;
+      case EFFECT:
+        if (command.applies()) {
+          applyEffect(command.getEffect());
+        } else {
+          //applied as part of another command, or to a layer that is removed right after
+          report(command.getEffect());
+        }
+        return true;
+      case INVALID_EFFECT:
+        fail("Effect could not be applied.");
+        updateOutput();
+        return true;
+      case REMOVE:
+        remove();
+        return true;
+      case INVISIBLE:
+        invisible(command.getNumber());
+        return true;
+      case VISIBLE:
+        visible(command.getNumber());
+        return true;
+      case TO_TOP:
+        toTop(command.getNumber());
+        return true;
+      case EXPORT_ALL:
+        exportAll(command.getName(), command.getType() == null ? "ppm" : command.getType());
+        return true;
+      case UNDO:
+        undo();
+        return true;
+      case REDO:
+        redo();
+        return true;
+      case ZOOM:
+        //there is no view to zoom
+        return true;
+      default:
+        return true;
+    }
+  }
+
   @Override
   public void updateOutput() {
     if (model.getLayerCount() != 0) {
@@ -150,12 +191,21 @@ public class ImageAppendableController implements IController<ImageImpl> {
 
   @Override
   public void file(String filename) {
+    file(filename, true);
+  }
+
+  /**
+   * Compiles and runs the script with the given name.
+   *
+   * @param filename String, the name of the script
+   * @param optimize Boolean, should the script be optimized before it runs?
+   */
+  private void file(String filename, boolean optimize) {
     try {
-      Readable script = handler.importText(filename);
-      run(script);
+      execute(compiler.compile(filename, optimize));
       appendCatchIO("Script " + filename + ".txt loaded");
     } catch (Exception e) {
-      appendCatchIO("Script load unsuccessful.");
+      fail("Script load unsuccessful.");
     }
     updateOutput();
   }
@@ -167,20 +217,53 @@ public class ImageAppendableController implements IController<ImageImpl> {
       handler.exportItem(filename,filetype,img);
       appendCatchIO("Saved " + filename + "." + filetype);
     } catch (Exception e) {
-      appendCatchIO("Save unsuccessful.");
+      fail("Save unsuccessful.");
+    }
+    updateOutput();
+  }
+
+  @Override
+  public void saveComposite(String filename, String filetype) {
+    try {
+      ImageImpl img = model.exportComposite();
+      handler.exportItem(filename,filetype,img);
+      appendCatchIO("Saved " + filename + "." + filetype);
+    } catch (Exception e) {
+      fail("Save unsuccessful.");
     }
     updateOutput();
   }
 
   @Override
   public void load(String filename, String filetype, Boolean visibility) {
+    load(filename, filetype, visibility, null, 100);
+  }
+
+  /**
+   * Loads an image as a new layer with the given visibility, blend mode and opacity.
+   *
+   * @param filename   String, the name of the file
+   * @param filetype   String, the type of the file
+   * @param visibility Boolean, the visibility of the new layer
+   * @param mode       String, the blend mode of the new layer, or null to leave it as is
+   * @param opacity    Integer, the opacity of the new layer, if a blend mode is given
+   */
+  private void load(String filename, String filetype, Boolean visibility, String mode,
+      int opacity) {
     try {
       ImageImpl img = handler.importItem(filename,filetype);
+      BlendMode blend = mode == null ? null : BlendMode.valueOf(mode.toUpperCase());
+      if (blend != null && (opacity < 0 || opacity > 100)) {
+        throw new IllegalArgumentException("invalid opacity");
+      }
       model.importItem(img);
       model.setVisibility(model.getLayerCount() - 1,visibility);
+      if (blend != null) {
+        model.setBlend(model.getLayerCount() - 1, blend, opacity);
+      }
       appendCatchIO("Loaded " + filename + "." + filetype);
     } catch (Exception e) {
-      appendCatchIO("Load unsuccessful.");
+      fail("Load unsuccessful.");
     }
     updateOutput();
   }
@@ -191,7 +274,45 @@ public class ImageAppendableController implements IController<ImageImpl> {
       model.applyEffect(effect, model.getTopVisibleLayerIndex());
       appendCatchIO("Effect applied.");
     } catch (Exception e) {
-      appendCatchIO("Effect could not be applied.");
+      fail("Effect could not be applied.");
+    }
+    updateOutput();
+  }
+
+  /**
+   * Returns the number of commands this controller could not run, such as effects that could not
+   * be applied and files that could not be read or written.
+   *
+   * @return Integer, the number of failed commands
+   */
+  public int getFailureCount() {
+    return failures;
+  }
+
+  /**
+   * Reports a command that could not be run, and counts it.
+   *
+   * @param output String, what to report
+   */
+  private void fail(String output) {
+    failures++;
+    appendCatchIO(output);
+  }
+
+  /**
+   * Reports an effect that is not applied as if it had been, checking that it could have been
+   * applied to the top visible layer after the other effects reported in the same way.
+   *
+   * @param effect IEffect, the effect
+   */
+  private void report(IEffect<ImageImpl> effect) {
+    try {
+      Dimension size = skipped != null ? skipped
+          : model.getSize(model.getTopVisibleLayerIndex());
+      skipped = effect.getResultSize(size.width, size.height);
+      appendCatchIO("Effect applied.");
+    } catch (Exception e) {
+      fail("Effect could not be applied.");
     }
     updateOutput();
   }
@@ -202,7 +323,7 @@ public class ImageAppendableController implements IController<ImageImpl> {
       model.removeLayer(model.getTopVisibleLayerIndex());
       appendCatchIO("Layer removed.");
     } catch (Exception e) {
-      appendCatchIO("Layer could not be removed.");
+      fail("Layer could not be removed.");
     }
     updateOutput();
   }
@@ -213,7 +334,7 @@ public class ImageAppendableController implements IController<ImageImpl> {
       model.moveToTop(index);
       appendCatchIO("Layer " + (index + 1) + " moved to top.");
     } catch (Exception e) {
-      appendCatchIO("Layer could not be moved.");
+      fail("Layer could not be moved.");
     }
     updateOutput();
   }
@@ -224,7 +345,7 @@ public class ImageAppendableController implements IController<ImageImpl> {
       model.setVisibility(index, false);
       appendCatchIO("Layer " + (index + 1) + " made invisible.");
     } catch (Exception e) {
-      appendCatchIO("Layer could not be made invisible.");
+      fail("Layer could not be made invisible.");
     }
     updateOutput();
   }
@@ -235,25 +356,73 @@ public class ImageAppendableController implements IController<ImageImpl> {
       model.setVisibility(index, true);
       appendCatchIO("Layer " + (index + 1) + " made visible.");
     } catch (Exception e) {
-      appendCatchIO("Layer could not be made visible.");
+      fail("Layer could not be made visible.");
+    }
+    updateOutput();
+  }
+
+  @Override
+  public void blend(String mode, int opacity) {
+    try {
+      model.setBlend(model.getTopVisibleLayerIndex(), BlendMode.valueOf(mode.toUpperCase()),
+          opacity);
+      appendCatchIO("Blend set.");
+    } catch (Exception e) {
+      fail("Blend could not be set.");
+    }
+    updateOutput();
+  }
+
+  @Override
+  public void undo() {
+    try {
+      model.undo();
+      appendCatchIO("Undone.");
+    } catch (Exception e) {
+      appendCatchIO("Nothing to undo.");
     }
     updateOutput();
   }
 
+  @Override
+  public void redo() {
+    try {
+      model.redo();
+      appendCatchIO("Redone.");
+    } catch (Exception e) {
+      appendCatchIO("Nothing to redo.");
+    }
+    updateOutput();
+  }
+
+  /**
+   * Does nothing, since this controller runs every command before it returns.
+   */
+  @Override
+  public void cancel() {
+    //no command runs in the background
+  }
+
   @Override
   public void exportAll(String filename) {
+    exportAll(filename, "ppm");
+  }
+
+  @Override
+  public void exportAll(String filename, String filetype) {
     try {
       String text = "";
       List<ImageImpl> layers = model.exportAll();
       for (int i = 0; i < layers.size(); i++) {
-        text = text + "load " + filename + Integer.toString(i) + " ppm "
-            + model.getVisibilities().get(i) + "\n";
-        handler.exportItem(filename + Integer.toString(i), "ppm", layers.get(i));
+        text = text + "load " + filename + Integer.toString(i) + " " + filetype + " "
+            + model.getVisibilities().get(i) + " "
+            + model.getBlendMode(i).name().toLowerCase() + " " + model.getOpacity(i) + "\n";
+        handler.exportItem(filename + Integer.toString(i), filetype, layers.get(i));
       }
       handler.exportText(filename, text);
       appendCatchIO("Exported all layers.");
     } catch (Exception e) {
-      appendCatchIO("Could not export all layers.");
+      fail("Could not export all layers.");
     }
     updateOutput();
   }
@@ -0,0 +1,139 @@
+package controller;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import model.PackedImage;
+
+/**
+ * Class representing the built in codec for "jpg" and "png" files, which are read and written by
+ * ImageIO and moved in and out of PackedImages by RasterTransfer. ImageIO decodes regions and
+ * subsamples of both formats without decoding every pixel, writes JPG files with a quality, and
+ * PNG files with a compression.
+ */
+final class ImageIOCodec implements Codec {
+
+  @Override
+  public Set<String> getFiletypes() {
+    return Set.of("jpg", "png");
+  }
+
+  @Override
+  public String getExtension(String filetype) {
+    return filetype;
+  }
+
+  @Override
+  public Set<Capability> getCapabilities(String filetype) {
+    return EnumSet.of(Capability.REGION_DECODE, Capability.SUBSAMPLED_DECODE,
+        filetype.equals("jpg") ? Capability.QUALITY : Capability.COMPRESSION);
+  }
+
+  @Override
+  public int getPriority() {
+    return 0;
+  }
+
+  @Override
+  public PackedImage decode(String path, String filetype) throws IllegalArgumentException {
+    return read(path, null);
+  }
+
+  @Override
+  public PackedImage decodeRegion(String path, String filetype, Rectangle region)
+      throws IllegalArgumentException {
+    if (region == null || region.isEmpty()) {
+      throw new IllegalArgumentException("region is not in the image");
+    }
+    ImageReadParam param = new ImageReadParam();
+    param.setSourceRegion(region);
+    PackedImage image = read(path, param);
+    if (image.getWidth() != region.width || image.getHeight() != region.height) {
+      //ImageIO clips the region to the image rather than rejecting it
+      throw new IllegalArgumentException("region is not in the image");
+    }
+    return image;
+  }
+
+  @Override
+  public PackedImage decodeSubsampled(String path, String filetype, int step)
+      throws IllegalArgumentException {
+    if (step < 1) {
+      throw new IllegalArgumentException("step must be positive");
+    }
+    ImageReadParam param = new ImageReadParam();
+    param.setSourceSubsampling(step, step, 0, 0);
+    return read(path, param);
+  }
+
+  @Override
+  public void encode(String path, String filetype, PackedImage image, float quality)
+      throws IllegalArgumentException {
+    //create a BufferedImage that shares the raster of the image for exporting
+    BufferedImage export = RasterTransfer.toBuffered(image);
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(filetype);
+    if (!writers.hasNext()) {
+      throw new IllegalArgumentException("export failed.");
+    }
+    ImageWriter writer = writers.next();
+    File file = new File(path);
+    file.delete();
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+      if (out == null) {
+        throw new IllegalArgumentException("export failed.");
+      }
+      ImageWriteParam param = null;
+      if (quality != DEFAULT_QUALITY && writer.getDefaultWriteParam().canWriteCompressed()) {
+        param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(Math.max(0, Math.min(1, quality)));
+      }
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(export, null, null), param);
+    } catch (IOException io) {
+      throw new IllegalArgumentException("export failed.");
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Reads the file at the given path with the given parameters.
+   *
+   * @param path  String, the path of the file
+   * @param param ImageReadParam, the region and subsampling to read, or null for all of it
+   * @return PackedImage, the image read
+   * @throws IllegalArgumentException if the file can not be read
+   */
+  private static PackedImage read(String path, ImageReadParam param)
+      throws IllegalArgumentException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new File(path))) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        throw new IllegalArgumentException("Import failed");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        BufferedImage img = reader.read(0, param == null ? reader.getDefaultReadParam() : param);
+        return RasterTransfer.fromBuffered(img);
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException | IllegalStateException e) {
+      throw new IllegalArgumentException("Import failed");
+    }
+  }
+}
@@ -1,29 +1,58 @@
 package controller;
 
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingUtilities;
+import model.BlendMode;
 import model.IEditorModel;
 import model.ImageImpl;
-import model.effects.BlurFilter;
-import model.effects.Downscale;
-import model.effects.Greyscale;
+import model.PackedImage;
+import model.Progress;
 import model.effects.IEffect;
-import model.effects.Mosaic;
-import model.effects.Sepia;
-import model.effects.SharpenFilter;
+import model.effects.ResampleFilter;
+import model.effects.Resampler;
 import view.ImageViewImpl;
 
 /**
  * Class representing a controller for an ImageImpl Editor. Supports user input commands that
  * execute various functions such as loading in an image, applying image processing effect, saving
- * images, and removing layers. Outputs to an ImageViewImpl.
+ * images, and removing layers. Commands are parsed by a ScriptCompiler, and scripts run with the
+ * file command are compiled in full first, just as by the ImageAppendableController, so a script
+ * that can not be run as a whole, such as one that includes itself, is rejected before it changes
+ * anything. Outputs to an ImageViewImpl, which shows the composite of the visible layers. The
+ * model keeps the composite between updates and reports the region that changed, and only that
+ * region is copied to the view. When the view is zoomed out, only the pixels of the scaled
+ * composite that read from that region are scaled again.
+ *
+ * <p>Commands that come from the window run one at a time on a background thread, so that the
+ * window stays responsive while effects are computed. The view shows how many rows of images the
+ * running command has finished, and the command can be cancelled, in which case it stops between
+ * two bands of rows and the model goes back to exactly how it was before the command. Commands
+ * given on any other thread run on that thread before the method returns.
  */
 public class ImageViewController implements IController<ImageImpl> {
 
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
   private final IEditorModel<ImageImpl> model;
   private final ImageViewImpl view;
   private final IOHandler<ImageImpl> handler;
+  private final ScriptCompiler compiler;
+  private final ExecutorService jobs;
+  private volatile Progress running;
+  private int zoom;
+  //the zoom level of the image the view shows, or -1 if it shows no composite
+  private int shown;
+  //the composite scaled to the zoom level the view shows, or null at zoom level 0
+  private PackedImage zoomed;
+  //the size the top visible layer would have after the effects reported but not applied so far
+  private Dimension skipped;
 
   /**
    * General Constructor.
@@ -37,10 +66,17 @@ public class ImageViewController implements IController<ImageImpl> {
     }
     this.model = model;
     this.handler = new IOHandlerImpl();
+    this.compiler = new ScriptCompiler(handler);
+    this.jobs = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "image-editor-jobs");
+      thread.setDaemon(true);
+      return thread;
+    });
     this.view = new ImageViewImpl(this);
+    this.shown = -1;
     view.setVisible(true);
     if (model.getLayerCount() != 0) {
-      view.updateView(model.exportTopLayer());
+      updateOutput();
     }
   }
 
@@ -50,91 +86,166 @@ public class ImageViewController implements IController<ImageImpl> {
     if (input == null) {
       throw new IllegalArgumentException("null input");
     }
-    Scanner master = new Scanner(input);
-    while (master.hasNext()) {
-      String in = master.next();
-      switch (in) {
-        case "file":
-          if (master.hasNext()) {
-            file(master.next());
-          }
-          break;
-        case "quit":
+    submit(() -> {
+      Scanner master = new Scanner(input);
+      for (ScriptCommand command = compiler.next(master); command != null;
+          command = compiler.next(master)) {
+        if (!execute(command)) {
           return;
-        case "load":
-          if (master.hasNext()) {
-            String filenameLoad = master.next();
-            if (master.hasNext()) {
-              String filetypeLoad = master.next();
-              if (master.hasNextBoolean()) {
-                load(filenameLoad, filetypeLoad, master.nextBoolean());
-              }
-            }
-          }
-          break;
-        case "save":
-          if (master.hasNext()) {
-            String filenameSave = master.next();
-            if (master.hasNext()) {
-              String filetypeSave = master.next();
-              save(filenameSave, filetypeSave);
-            }
-          }
-          break;
-        case "blur":
-          applyEffect(new BlurFilter());
-          break;
-        case "sharpen":
-          applyEffect(new SharpenFilter());
-          break;
-        case "greyscale":
-          applyEffect(new Greyscale());
-          break;
-        case "sepia":
-          applyEffect(new Sepia());
-          break;
-        case "mosaic":
-          applyEffect(new Mosaic());
-          break;
-        case "downscale":
-          applyEffect(new Downscale());
-          break;
-        case "remove":
-          remove();
-          break;
-        case "invisible":
-          if (master.hasNextInt()) {
-            invisible(master.nextInt());
-          }
-          break;
-        case "visible":
-          if (master.hasNextInt()) {
-            visible(master.nextInt());
-          }
-          break;
-        case "toTop":
-          if (master.hasNextInt()) {
-            toTop(master.nextInt());
-          }
-          break;
-        case "exportAll":
-          if (master.hasNext()) {
-            exportAll(master.next());
-          }
-          break;
-        default:
-          //if not a valid command, do nothing
+        }
+        updateOutput();
+      }
+    });
+  }
+
+  /**
+   * Runs every command of the given compiled script, stopping at a quit command.
+   * @param plan ScriptPlan, the compiled script to run
+   */
+  private void execute(ScriptPlan plan) {
+    for (ScriptCommand command : plan.getCommands()) {
+      if (!execute(command)) {
+        return;
       }
-      updateOutput();
+    }
+  }
+
+  /**
+   * Runs the given command.
+   * @param command ScriptCommand, the command to run
+   * @return Boolean, should the script the command belongs to go on?
+   */
+  private boolean execute(ScriptCommand command) {
+    if (command.getKind() != ScriptCommand.Kind.EFFECT || command.applies()) {
+      skipped = null;
+    }
+    switch (command.getKind()) {
+      case FILE:
+        if (command.getInclude() == null) {
+          //later commands may undo the edits of the script, so it is run as written
+          file(command.getName(), false);
+        } else {
+          execute(command.getInclude());
+          view.showOutput("Script " + command.getName() + ".txt loaded");
+          updateOutput();
+        }
+        return true;
+      case QUIT:
+        return false;
+      case LOAD:
+        load(command.getName(), command.getType(), command.getFlag(), command.getMode(),
+            command.getNumber());
+        return true;
+      case SAVE:
+        save(command.getName(), command.getType());
+        return true;
+      case SAVE_COMPOSITE:
+        saveComposite(command.getName(), command.getType());
+        return true;
+      case BLEND:
+        blend(command.getName(), command.getNumber());
+        return true;
+      case EFFECT:
+        if (command.applies()) {
+          applyEffect(command.getEffect());
+        } else {
+          //applied as part of another command, or to a layer that is removed right after
+          report(command.getEffect());
+        }
+        return true;
+      case INVALID_EFFECT:
+        view.showOutput("Effect could not be applied.");
+        updateOutput();
+        return true;
+      case REMOVE:
+        remove();
+        return true;
+      case INVISIBLE:
+        invisible(command.getNumber());
+        return true;
+      case VISIBLE:
+        visible(command.getNumber());
+        return true;
+      case TO_TOP:
+        toTop(command.getNumber());
+        return true;
+      case EXPORT_ALL:
+        exportAll(command.getName(), command.getType() == null ? "ppm" : command.getType());
+        return true;
+      case UNDO:
+        undo();
+        return true;
+      case REDO:
+        redo();
+        return true;
+      case ZOOM:
+        zoom(command.getNumber());
+        return true;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Runs the given command. On the event dispatch thread, the command is queued to run on the
+   * background thread with a progress the view shows, as a single change to the model; on any
+   * other thread it runs straight away.
+   * @param command Runnable, the command to run
+   */
+  private void submit(Runnable command) {
+    if (!SwingUtilities.isEventDispatchThread()) {
+      command.run();
+      return;
+    }
+    jobs.execute(() -> {
+      Progress progress = new Progress(view::showJobProgress);
+      running = progress;
+      view.showJobProgress(0);
+      try {
+        progress.runWith(() -> model.atomically(command));
+      } catch (CancellationException e) {
+        view.showOutput("Cancelled.");
+        updateOutput();
+      } catch (RuntimeException e) {
+        view.showOutput("Command failed: " + e.getMessage());
+      } finally {
+        running = null;
+        view.showJobDone();
+      }
+    });
+  }
+
+  @Override
+  public void cancel() {
+    Progress progress = running;
+    if (progress != null) {
+      progress.cancel();
     }
   }
 
   @Override
   public void updateOutput() {
     try {
-      view.updateView(model.exportTopLayer());
+      PackedImage composite = model.getComposite(PARALLELISM);
+      Rectangle changed = model.getCompositeChanges();
+      if (zoom != shown || zoom > 0 && (zoomed.getWidth() != scaledSize(composite.getWidth())
+          || zoomed.getHeight() != scaledSize(composite.getHeight()))) {
+        zoomed = scale(composite);
+        view.updateView(zoomed == null ? composite : zoomed);
+      } else if (!changed.isEmpty()) {
+        if (zoom > 0) {
+          //only the scaled pixels that read from the changed region are scaled again
+          view.updateRegion(zoomed, Resampler.resample(composite, zoomed, changed,
+              ResampleFilter.BOX, PARALLELISM));
+        } else {
+          view.updateRegion(composite, changed);
+        }
+      }
+      shown = zoom;
     } catch (IllegalArgumentException e) {
       view.updateView(new ImageImpl(100,10));
+      zoomed = null;
+      shown = -1;
     }
     if (model.getLayerCount() != 0) {
       view.showCurrentLayerIndex(model.getTopVisibleLayerIndex() + 1,model.getLayerCount());
@@ -145,10 +256,20 @@ public class ImageViewController implements IController<ImageImpl> {
 
   @Override
   public void file(String filename) {
+    submit(() -> file(filename, true));
+  }
+
+  /**
+   * Compiles and runs the script with the given name.
+   * @param filename String, the name of the script
+   * @param optimize Boolean, should the script be optimized before it runs?
+   */
+  private void file(String filename, boolean optimize) {
     try {
-      Readable script = handler.importText(filename);
-      run(script);
+      execute(compiler.compile(filename, optimize));
       view.showOutput("Script " + filename + ".txt loaded");
+    } catch (CancellationException e) {
+      throw e;
     } catch (Exception e) {
       view.showOutput("Script load unsuccessful.");
     }
@@ -157,33 +278,130 @@ public class ImageViewController implements IController<ImageImpl> {
 
   @Override
   public void save(String filename, String filetype) {
-    try {
-      ImageImpl img = model.exportTopLayer();
-      handler.exportItem(filename,filetype,img);
-      view.showOutput("Saved " + filename + "." + filetype);
-    } catch (Exception e) {
-      view.showOutput("Save unsuccessful.");
-    }
-    updateOutput();
+    submit(() -> {
+      try {
+        ImageImpl img = model.exportTopLayer();
+        handler.exportItem(filename,filetype,img);
+        view.showOutput("Saved " + filename + "." + filetype);
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Save unsuccessful.");
+      }
+      updateOutput();
+    });
+  }
+
+  @Override
+  public void saveComposite(String filename, String filetype) {
+    submit(() -> {
+      try {
+        ImageImpl img = model.exportComposite();
+        handler.exportItem(filename,filetype,img);
+        view.showOutput("Saved " + filename + "." + filetype);
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Save unsuccessful.");
+      }
+      updateOutput();
+    });
   }
 
   @Override
   public void load(String filename, String filetype, Boolean visibility) {
-    try {
-      ImageImpl img = handler.importItem(filename,filetype);
-      model.importItem(img);
-      model.setVisibility(model.getLayerCount() - 1,visibility);
-      view.showOutput("Loaded " + filename + "." + filetype);
-    } catch (Exception e) {
-      view.showOutput("Load unsuccessful.");
+    load(filename, filetype, visibility, null, 100);
+  }
+
+  /**
+   * Loads an image as a new layer with the given visibility, blend mode and opacity.
+   * @param filename String, the name of the file
+   * @param filetype String, the type of the file
+   * @param visibility Boolean, the visibility of the new layer
+   * @param mode String, the blend mode of the new layer, or null to leave it as is
+   * @param opacity Integer, the opacity of the new layer, if a blend mode is given
+   */
+  private void load(String filename, String filetype, Boolean visibility, String mode,
+      int opacity) {
+    submit(() -> {
+      try {
+        ImageImpl img = handler.importItem(filename,filetype);
+        BlendMode blend = mode == null ? null : BlendMode.valueOf(mode.toUpperCase());
+        if (blend != null && (opacity < 0 || opacity > 100)) {
+          throw new IllegalArgumentException("invalid opacity");
+        }
+        model.importItem(img);
+        model.setVisibility(model.getLayerCount() - 1,visibility);
+        if (blend != null) {
+          model.setBlend(model.getLayerCount() - 1, blend, opacity);
+        }
+        view.showOutput("Loaded " + filename + "." + filetype);
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Load unsuccessful.");
+      }
+      updateOutput();
+    });
+  }
+
+  /**
+   * Sets how far the view is zoomed out. Level k shows the composite at 1/2^k of its size.
+   * @param level Integer, the zoom level, where 0 shows the layer at full size
+   */
+  private void zoom(int level) {
+    zoom = Math.max(0, Math.min(level, 30));
+    view.showOutput("Zoom set to 1/" + (1L << zoom) + ".");
+  }
+
+  /**
+   * Returns the given composite scaled down to the zoom level of the view.
+   * @param composite PackedImage, the composite of the visible layers
+   * @return PackedImage, a new image holding the composite at 1/2^zoom of its size, or null if
+   *         the view is not zoomed out
+   */
+  private PackedImage scale(PackedImage composite) {
+    if (zoom == 0) {
+      return null;
     }
-    updateOutput();
+    return Resampler.resample(composite, scaledSize(composite.getWidth()),
+        scaledSize(composite.getHeight()), ResampleFilter.BOX, PARALLELISM);
+  }
+
+  /**
+   * Returns the given length of the composite at the zoom level of the view.
+   * @param length Integer, the width or height of the composite
+   * @return Integer, the length at 1/2^zoom, never less than one pixel
+   */
+  private int scaledSize(int length) {
+    return Math.max(1, length >> zoom);
   }
 
   @Override
   public void applyEffect(IEffect<ImageImpl> effect) {
+    submit(() -> {
+      try {
+        model.applyEffect(effect, model.getTopVisibleLayerIndex());
+        view.showOutput("Effect applied.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Effect could not be applied.");
+      }
+      updateOutput();
+    });
+  }
+
+  /**
+   * Reports an effect that is not applied as if it had been, checking that it could have been
+   * applied to the top visible layer after the other effects reported in the same way.
+   * @param effect IEffect, the effect
+   */
+  private void report(IEffect<ImageImpl> effect) {
     try {
-      model.applyEffect(effect, model.getTopVisibleLayerIndex());
+      Dimension size = skipped != null ? skipped
+          : model.getSize(model.getTopVisibleLayerIndex());
+      skipped = effect.getResultSize(size.width, size.height);
       view.showOutput("Effect applied.");
     } catch (Exception e) {
       view.showOutput("Effect could not be applied.");
@@ -193,64 +411,136 @@ public class ImageViewController implements IController<ImageImpl> {
 
   @Override
   public void remove() {
-    try {
-      model.removeLayer(model.getTopVisibleLayerIndex());
-      view.showOutput("Layer removed.");
-    } catch (Exception e) {
-      view.showOutput("Layer could not be removed.");
-    }
-    updateOutput();
+    submit(() -> {
+      try {
+        model.removeLayer(model.getTopVisibleLayerIndex());
+        view.showOutput("Layer removed.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Layer could not be removed.");
+      }
+      updateOutput();
+    });
   }
 
   @Override
   public void toTop(int index) {
-    try {
-      model.moveToTop(index);
-      view.showOutput("Layer " + (index + 1) + " moved to top.");
-    } catch (Exception e) {
-      view.showOutput("Layer could not be moved.");
-    }
-    updateOutput();
+    submit(() -> {
+      try {
+        model.moveToTop(index);
+        view.showOutput("Layer " + (index + 1) + " moved to top.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Layer could not be moved.");
+      }
+      updateOutput();
+    });
   }
 
   @Override
   public void invisible(int index) {
-    try {
-      model.setVisibility(index, false);
-      view.showOutput("Layer " + (index + 1) + " made invisible.");
-    } catch (Exception e) {
-      view.showOutput("Layer could not be made invisible.");
-    }
-    updateOutput();
+    submit(() -> {
+      try {
+        model.setVisibility(index, false);
+        view.showOutput("Layer " + (index + 1) + " made invisible.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Layer could not be made invisible.");
+      }
+      updateOutput();
+    });
   }
 
   @Override
   public void visible(int index) {
-    try {
-      model.setVisibility(index, true);
-      view.showOutput("Layer " + (index + 1) + " made visible.");
-    } catch (Exception e) {
-      view.showOutput("Layer could not be made visible.");
-    }
-    updateOutput();
+    submit(() -> {
+      try {
+        model.setVisibility(index, true);
+        view.showOutput("Layer " + (index + 1) + " made visible.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Layer could not be made visible.");
+      }
+      updateOutput();
+    });
+  }
+
+  @Override
+  public void blend(String mode, int opacity) {
+    submit(() -> {
+      try {
+        model.setBlend(model.getTopVisibleLayerIndex(), BlendMode.valueOf(mode.toUpperCase()),
+            opacity);
+        view.showOutput("Blend set.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Blend could not be set.");
+      }
+      updateOutput();
+    });
+  }
+
+  @Override
+  public void undo() {
+    submit(() -> {
+      try {
+        model.undo();
+        view.showOutput("Undone.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Nothing to undo.");
+      }
+      updateOutput();
+    });
+  }
+
+  @Override
+  public void redo() {
+    submit(() -> {
+      try {
+        model.redo();
+        view.showOutput("Redone.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Nothing to redo.");
+      }
+      updateOutput();
+    });
   }
 
   @Override
   public void exportAll(String filename) {
-    try {
-      String text = "";
-      List<ImageImpl> layers = model.exportAll();
-      for (int i = 0; i < layers.size(); i++) {
-        text = text + "load " + filename + Integer.toString(i) + " ppm "
-            + model.getVisibilities().get(i) + "\n";
-        handler.exportItem(filename + Integer.toString(i), "ppm", layers.get(i));
+    exportAll(filename, "ppm");
+  }
+
+  @Override
+  public void exportAll(String filename, String filetype) {
+    submit(() -> {
+      try {
+        String text = "";
+        List<ImageImpl> layers = model.exportAll();
+        for (int i = 0; i < layers.size(); i++) {
+          text = text + "load " + filename + Integer.toString(i) + " " + filetype + " "
+              + model.getVisibilities().get(i) + " "
+              + model.getBlendMode(i).name().toLowerCase() + " " + model.getOpacity(i) + "\n";
+          handler.exportItem(filename + Integer.toString(i), filetype, layers.get(i));
+        }
+        handler.exportText(filename, text);
+        view.showOutput("Exported all layers.");
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        view.showOutput("Could not export all layers.");
       }
-      handler.exportText(filename, text);
-      view.showOutput("Exported all layers.");
-    } catch (Exception e) {
-      view.showOutput("Could not export all layers.");
-    }
-    updateOutput();
+      updateOutput();
+    });
   }
 
 }
@@ -30,6 +30,11 @@ public class MockController implements IController<ImageImpl> {
     command = "save " + filename + " " + filetype;
   }
 
+  @Override
+  public void saveComposite(String filename, String filetype) {
+    command = "saveComposite " + filename + " " + filetype;
+  }
+
   @Override
   public void load(String filename, String filetype, Boolean visibility) {
     command = "load " + filename + " " + filetype + " " + visibility;
@@ -60,11 +65,36 @@ public class MockController implements IController<ImageImpl> {
     command = "visible " + index;
   }
 
+  @Override
+  public void blend(String mode, int opacity) {
+    command = "blend " + mode + " " + opacity;
+  }
+
+  @Override
+  public void undo() {
+    command = "undo";
+  }
+
+  @Override
+  public void redo() {
+    command = "redo";
+  }
+
+  @Override
+  public void cancel() {
+    command = "cancel";
+  }
+
   @Override
   public void exportAll(String filename) {
     command = "export " + filename;
   }
 
+  @Override
+  public void exportAll(String filename, String filetype) {
+    command = "export " + filename + " " + filetype;
+  }
+
   @Override
   public void updateOutput() {
     command = "updateOutput";
@@ -0,0 +1,360 @@
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import model.Image;
+import model.PackedImage;
+import model.TiledImage;
+
+/**
+ * Class that reads PPM and PGM files, in both their plain (P3, P2) and binary (P6, P5) forms.
+ * The file is streamed through a fixed size byte buffer and every value is parsed straight into
+ * a packed raster, so no text copy of the file is ever held in memory. Comments start with '#'
+ * and run to the end of the line; they may appear anywhere whitespace may in the header, and
+ * anywhere in the values of a plain file. Grey images are expanded to equal red, green and blue.
+ * Plain values are clamped to 0-255 rather than scaled by the maximum value of the file, as they
+ * always have been; binary values are scaled when the maximum value is not 255, since a binary
+ * file with a maximum value above 255 stores two bytes per value. Files too large for memory may
+ * be read into a TiledImage instead, one row at a time.
+ */
+public final class PPMReader {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ReadableByteChannel in;
+  private final byte[] buffer;
+  private final ByteBuffer wrapped;
+  private int position;
+  private int limit;
+
+  /**
+   * Constructor for a reader over the given channel.
+   *
+   * @param in ReadableByteChannel, the channel to read
+   */
+  private PPMReader(ReadableByteChannel in) {
+    this.in = in;
+    this.buffer = new byte[BUFFER_SIZE];
+    this.wrapped = ByteBuffer.wrap(buffer);
+    this.position = 0;
+    this.limit = 0;
+  }
+
+  /**
+   * Reads the PPM or PGM file at the given path.
+   *
+   * @param filename String, the path of the file
+   * @return PackedImage, the image in the file
+   * @throws IllegalArgumentException if the file is not found or is not a valid file
+   */
+  public static PackedImage read(String filename) throws IllegalArgumentException {
+    return (PackedImage) read(filename, false);
+  }
+
+  /**
+   * Reads the PPM or PGM file at the given path into a TiledImage, one row at a time, so that
+   * files larger than memory may be read.
+   *
+   * @param filename String, the path of the file
+   * @return TiledImage, the image in the file, which the caller must close
+   * @throws IllegalArgumentException if the file is not found or is not a valid file
+   */
+  public static TiledImage readTiled(String filename) throws IllegalArgumentException {
+    return (TiledImage) read(filename, true);
+  }
+
+  /**
+   * Reads the PPM or PGM file at the given path.
+   *
+   * @param filename String, the path of the file
+   * @param tiled    Boolean, should the image be read into a TiledImage?
+   * @return Image, the image in the file
+   * @throws IllegalArgumentException if the file is not found or is not a valid file
+   */
+  private static Image read(String filename, boolean tiled) throws IllegalArgumentException {
+    if (filename == null) {
+      throw new IllegalArgumentException("File not found.");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      return new PPMReader(channel).readImage(tiled);
+    } catch (NoSuchFileException e) {
+      throw new IllegalArgumentException("File not found.");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Import failed");
+    }
+  }
+
+  /**
+   * Reads a PPM or PGM image from the given stream. The stream is not closed.
+   *
+   * @param in InputStream, the stream to read
+   * @return PackedImage, the image in the stream
+   * @throws IllegalArgumentException if the stream can not be read or is not a valid file
+   */
+  public static PackedImage read(InputStream in) throws IllegalArgumentException {
+    if (in == null) {
+      throw new IllegalArgumentException("null stream");
+    }
+    return (PackedImage) new PPMReader(Channels.newChannel(in)).readImage(false);
+  }
+
+  /**
+   * Reads the header and the values of the file, either into a single raster or, one row at a
+   * time, into a TiledImage.
+   *
+   * @param tiled Boolean, should the image be read into a TiledImage?
+   * @return Image, the image in the file, a PackedImage or a TiledImage
+   * @throws IllegalArgumentException if the file is not valid
+   */
+  private Image readImage(boolean tiled) throws IllegalArgumentException {
+    int c = skipWhitespace(next());
+    int format = c == 'P' ? next() : -1;
+    if ((format != '2' && format != '3' && format != '5' && format != '6')
+        || !endToken(next())) {
+      throw new IllegalArgumentException("Invalid PPM file: should begin with P2, P3, P5 or P6");
+    }
+    int width = nextInt();
+    int height = nextInt();
+    int maxValue = nextInt();
+    if (width <= 0 || height <= 0
+        || (!tiled && (long) width * height > Integer.MAX_VALUE)) {
+      throw new IllegalArgumentException("Invalid PPM file: bad dimensions");
+    }
+    if ((format == '5' || format == '6') && (maxValue <= 0 || maxValue > 65535)) {
+      throw new IllegalArgumentException("Invalid PPM file: bad maximum value");
+    }
+    //a tiled image is read through a single row, which is copied into the image as it fills
+    TiledImage tiles = tiled ? new TiledImage(width, height) : null;
+    int[] raster = new int[tiled ? width : width * height];
+    try {
+      if (format == '5' || format == '6') {
+        readBinary(raster, width, height, format == '6' ? 3 : 1, maxValue, tiles);
+      } else {
+        for (int y = 0; y < height; y++) {
+          int start = tiled ? 0 : y * width;
+          for (int i = start; i < start + width; i++) {
+            if (format == '3') {
+              int r = nextInt();
+              int g = nextInt();
+              int b = nextInt();
+              raster[i] = PackedImage.pack(r, g, b);
+            } else {
+              int v = nextInt();
+              raster[i] = PackedImage.pack(v, v, v);
+            }
+          }
+          if (tiled) {
+            tiles.setRow(y, raster, 0);
+          }
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      if (tiled) {
+        tiles.close();
+      }
+      throw e;
+    }
+    return tiled ? tiles : new PackedImage(raster, width, height);
+  }
+
+  /**
+   * Reads the values of a binary file, one row at a time.
+   *
+   * @param raster   Integer array, the raster to fill, or a single row if the image is tiled
+   * @param width    Integer, the width of the image
+   * @param height   Integer, the height of the image
+   * @param channels Integer, the number of values per pixel (3 for P6, 1 for P5)
+   * @param maxValue Integer, the maximum value of the file
+   * @param tiles    TiledImage, the image to copy each row into, or null to fill the raster
+   * @throws IllegalArgumentException if the file ends early or holds a value that is too large
+   */
+  private void readBinary(int[] raster, int width, int height, int channels, int maxValue,
+      TiledImage tiles) throws IllegalArgumentException {
+    int bytes = maxValue > 255 ? 2 : 1;
+    byte[] row = new byte[width * channels * bytes];
+    int[] scale = null;
+    if (maxValue != 255) {
+      scale = new int[maxValue + 1];
+      for (int v = 0; v <= maxValue; v++) {
+        scale[v] = (v * 255 + maxValue / 2) / maxValue;
+      }
+    }
+    for (int y = 0; y < height; y++) {
+      int start = tiles == null ? y * width : 0;
+      readFully(row);
+      if (scale == null && channels == 3) {
+        for (int x = 0, i = 0; x < width; x++, i += 3) {
+          raster[start + x] = ((row[i] & 0xff) << 16) | ((row[i + 1] & 0xff) << 8)
+              | (row[i + 2] & 0xff);
+        }
+      } else {
+        for (int x = 0, i = 0; x < width; x++) {
+          int r = value(row, i, bytes, scale);
+          i += bytes;
+          if (channels == 1) {
+            raster[start + x] = (r << 16) | (r << 8) | r;
+            continue;
+          }
+          int g = value(row, i, bytes, scale);
+          i += bytes;
+          int b = value(row, i, bytes, scale);
+          i += bytes;
+          raster[start + x] = (r << 16) | (g << 8) | b;
+        }
+      }
+      if (tiles != null) {
+        tiles.setRow(y, raster, 0);
+      }
+    }
+  }
+
+  /**
+   * Returns the value at the given offset of a row of a binary file, scaled to 0-255.
+   *
+   * @param row   Byte array, the row
+   * @param i     Integer, the offset of the value in the row
+   * @param bytes Integer, the number of bytes per value
+   * @param scale Integer array, the scaled value of each value, or null to not scale
+   * @return Integer, the scaled value
+   * @throws IllegalArgumentException if the value is above the maximum value of the file
+   */
+  private static int value(byte[] row, int i, int bytes, int[] scale)
+      throws IllegalArgumentException {
+    int v = bytes == 1 ? row[i] & 0xff : ((row[i] & 0xff) << 8) | (row[i + 1] & 0xff);
+    if (scale == null) {
+      return v;
+    }
+    if (v >= scale.length) {
+      throw new IllegalArgumentException("Invalid PPM file: value above maximum value");
+    }
+    return scale[v];
+  }
+
+  /**
+   * Fills the given array with the next bytes of the file, first from the buffer and then
+   * straight from the channel.
+   *
+   * @param dst Byte array, the array to fill
+   * @throws IllegalArgumentException if the file ends before the array is filled
+   */
+  private void readFully(byte[] dst) throws IllegalArgumentException {
+    int n = Math.min(limit - position, dst.length);
+    System.arraycopy(buffer, position, dst, 0, n);
+    position += n;
+    if (n == dst.length) {
+      return;
+    }
+    ByteBuffer target = ByteBuffer.wrap(dst, n, dst.length - n);
+    try {
+      while (target.hasRemaining()) {
+        if (in.read(target) < 0) {
+          throw new IllegalArgumentException("Invalid PPM file: unexpected end of file");
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Import failed");
+    }
+  }
+
+  /**
+   * Returns the next byte of the file.
+   *
+   * @return Integer, the next byte, or -1 at the end of the file
+   * @throws IllegalArgumentException if the file can not be read
+   */
+  private int next() throws IllegalArgumentException {
+    if (position < limit) {
+      return buffer[position++] & 0xff;
+    }
+    wrapped.clear();
+    try {
+      limit = in.read(wrapped);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Import failed");
+    }
+    if (limit <= 0) {
+      limit = 0;
+      position = 0;
+      return -1;
+    }
+    position = 1;
+    return buffer[0] & 0xff;
+  }
+
+  /**
+   * Skips whitespace and comments, starting at the given byte.
+   *
+   * @param c Integer, the byte to start at
+   * @return Integer, the first byte that is not whitespace or part of a comment, or -1
+   */
+  private int skipWhitespace(int c) {
+    while (true) {
+      if (c == '#') {
+        while (c != '\n' && c != '\r' && c != -1) {
+          c = next();
+        }
+      } else if (c != ' ' && c != '\n' && c != '\r' && c != '\t' && c != '\f' && c != 0x0b) {
+        return c;
+      }
+      c = next();
+    }
+  }
+
+  /**
+   * Checks that the given byte, which follows a token and has already been read, may end the
+   * token. If it starts a comment, the rest of the comment is skipped so that it is not mistaken
+   * for the next token.
+   *
+   * @param c Integer, the byte after the token
+   * @return Boolean, is the byte whitespace, the start of a comment, or the end of the file?
+   */
+  private boolean endToken(int c) {
+    if (c == '#') {
+      while (c != '\n' && c != '\r' && c != -1) {
+        c = next();
+      }
+      return true;
+    }
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0b
+        || c == -1;
+  }
+
+  /**
+   * Parses the next decimal integer of the file, consuming the byte that ends it.
+   *
+   * @return Integer, the parsed value
+   * @throws IllegalArgumentException if the next token is not an integer
+   */
+  private int nextInt() throws IllegalArgumentException {
+    int c = skipWhitespace(next());
+    if (c == -1) {
+      throw new IllegalArgumentException("Invalid PPM file: unexpected end of file");
+    }
+    boolean negative = c == '-';
+    if (negative) {
+      c = next();
+    }
+    if (c < '0' || c > '9') {
+      throw new IllegalArgumentException("Invalid PPM file: expected a number");
+    }
+    int value = 0;
+    do {
+      if (value > (Integer.MAX_VALUE - 9) / 10) {
+        throw new IllegalArgumentException("Invalid PPM file: number too large");
+      }
+      value = value * 10 + (c - '0');
+      c = next();
+    } while (c >= '0' && c <= '9');
+    if (!endToken(c)) {
+      throw new IllegalArgumentException("Invalid PPM file: expected a number");
+    }
+    return negative ? -value : value;
+  }
+}
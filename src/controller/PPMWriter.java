@@ -0,0 +1,208 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import model.Image;
+import model.PackedImage;
+import model.TiledImage;
+
+/**
+ * Class that writes PPM and PGM files: plain PPM (P3), binary PPM (P6) and binary PGM (P5). The
+ * image is written one row at a time from its packed raster, or from its tiles for a TiledImage.
+ * A PGM file holds the luma of each pixel, using the same weights as the Greyscale effect but
+ * rounded to the nearest level where the effect truncates, so that a pixel that is already grey
+ * keeps its level. A level may therefore be one above that of the same pixel after greyscale.
+ */
+public final class PPMWriter {
+
+  /**
+   * The PPM and PGM formats that may be written.
+   */
+  public enum Format {
+    PLAIN, BINARY, GREY
+  }
+
+  private static final int[] RED_LUMA = new int[256];
+  private static final int[] GREEN_LUMA = new int[256];
+  private static final int[] BLUE_LUMA = new int[256];
+
+  static {
+    for (int v = 0; v < 256; v++) {
+      RED_LUMA[v] = (int) Math.round(0.2126 * v * 1024);
+      GREEN_LUMA[v] = (int) Math.round(0.7152 * v * 1024);
+      BLUE_LUMA[v] = (int) Math.round(0.0722 * v * 1024);
+    }
+  }
+
+  /**
+   * Private constructor, as this class only has static methods.
+   */
+  private PPMWriter() {
+  }
+
+  /**
+   * Writes the given image to the file at the given path, replacing any file already there.
+   *
+   * @param filename String, the path of the file
+   * @param image    PackedImage, the image to write
+   * @param format   Format, the format of the file
+   * @throws IllegalArgumentException if a parameter is null or the file can not be written
+   */
+  public static void write(String filename, PackedImage image, Format format)
+      throws IllegalArgumentException {
+    writeFile(filename, image, format);
+  }
+
+  /**
+   * Writes the given tiled image to the file at the given path, replacing any file already there.
+   * Only one row of the image is held in memory at a time, beyond the tiles of the image.
+   *
+   * @param filename String, the path of the file
+   * @param image    TiledImage, the image to write
+   * @param format   Format, the format of the file
+   * @throws IllegalArgumentException if a parameter is null or the file can not be written
+   */
+  public static void write(String filename, TiledImage image, Format format)
+      throws IllegalArgumentException {
+    writeFile(filename, image, format);
+  }
+
+  /**
+   * Writes the given packed or tiled image to the file at the given path.
+   *
+   * @param filename String, the path of the file
+   * @param image    Image, the image to write, a PackedImage or a TiledImage
+   * @param format   Format, the format of the file
+   * @throws IllegalArgumentException if a parameter is null or the file can not be written
+   */
+  private static void writeFile(String filename, Image image, Format format)
+      throws IllegalArgumentException {
+    if (filename == null || image == null || format == null) {
+      throw new IllegalArgumentException("Invalid filename, image or format.");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      write(channel, image, format);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("file not found.");
+    }
+  }
+
+  /**
+   * Writes the given image to the given stream. The stream is not closed.
+   *
+   * @param out    OutputStream, the stream to write to
+   * @param image  PackedImage, the image to write
+   * @param format Format, the format to write
+   * @throws IllegalArgumentException if a parameter is null or the stream can not be written
+   */
+  public static void write(OutputStream out, PackedImage image, Format format)
+      throws IllegalArgumentException {
+    if (out == null || image == null || format == null) {
+      throw new IllegalArgumentException("Invalid stream, image or format.");
+    }
+    try {
+      write(Channels.newChannel(out), image, format);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("export failed.");
+    }
+  }
+
+  /**
+   * Writes the header and the rows of the image to the given channel.
+   *
+   * @param out    WritableByteChannel, the channel to write to
+   * @param image  Image, the image to write, a PackedImage or a TiledImage
+   * @param format Format, the format to write
+   * @throws IOException if the channel can not be written
+   */
+  private static void write(WritableByteChannel out, Image image, Format format)
+      throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    String magic = format == Format.PLAIN ? "P3" : format == Format.BINARY ? "P6" : "P5";
+    writeAll(out, ByteBuffer.wrap((magic + "\n" + width + " " + height + "\n255\n")
+        .getBytes(StandardCharsets.US_ASCII)));
+    //a plain row is at most 12 characters per pixel ("255 255 255\n")
+    int rowSize = width * (format == Format.PLAIN ? 12 : format == Format.BINARY ? 3 : 1);
+    ByteBuffer row = ByteBuffer.allocate(rowSize);
+    byte[] bytes = row.array();
+    TiledImage tiles = image instanceof TiledImage ? (TiledImage) image : null;
+    int[] raster = tiles == null ? ((PackedImage) image).getRaster() : new int[width];
+    for (int y = 0; y < height; y++) {
+      int start = 0;
+      if (tiles == null) {
+        start = y * width;
+      } else {
+        tiles.getRow(y, raster, 0);
+      }
+      int n = 0;
+      for (int i = start; i < start + width; i++) {
+        int rgb = raster[i];
+        int r = (rgb >> 16) & 0xff;
+        int g = (rgb >> 8) & 0xff;
+        int b = rgb & 0xff;
+        switch (format) {
+          case PLAIN:
+            n = appendDecimal(bytes, n, r);
+            bytes[n++] = ' ';
+            n = appendDecimal(bytes, n, g);
+            bytes[n++] = ' ';
+            n = appendDecimal(bytes, n, b);
+            bytes[n++] = '\n';
+            break;
+          case BINARY:
+            bytes[n++] = (byte) r;
+            bytes[n++] = (byte) g;
+            bytes[n++] = (byte) b;
+            break;
+          default:
+            bytes[n++] = (byte) ((RED_LUMA[r] + GREEN_LUMA[g] + BLUE_LUMA[b] + 512) >> 10);
+        }
+      }
+      row.clear();
+      row.limit(n);
+      writeAll(out, row);
+    }
+  }
+
+  /**
+   * Writes the given value in decimal into the given array.
+   *
+   * @param bytes Byte array, the array to write to
+   * @param n     Integer, the offset to write at
+   * @param v     Integer, the value to write, from 0 to 255
+   * @return Integer, the offset after the written digits
+   */
+  private static int appendDecimal(byte[] bytes, int n, int v) {
+    if (v >= 100) {
+      bytes[n++] = (byte) ('0' + v / 100);
+      v %= 100;
+      bytes[n++] = (byte) ('0' + v / 10);
+    } else if (v >= 10) {
+      bytes[n++] = (byte) ('0' + v / 10);
+    }
+    bytes[n++] = (byte) ('0' + v % 10);
+    return n;
+  }
+
+  /**
+   * Writes every remaining byte of the buffer to the channel.
+   *
+   * @param out    WritableByteChannel, the channel to write to
+   * @param buffer ByteBuffer, the bytes to write
+   * @throws IOException if the channel can not be written
+   */
+  private static void writeAll(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+}
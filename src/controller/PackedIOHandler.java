@@ -0,0 +1,41 @@
+package controller;
+
+import model.PackedImage;
+
+/**
+ * Class representing a handler that imports and exports images as PackedImages. Images are decoded
+ * straight into a packed raster, so loading an image does not allocate an object per pixel.
+ */
+public class PackedIOHandler implements IOHandler<PackedImage> {
+
+  private final IOHandlerImpl handler;
+
+  /**
+   * General Constructor.
+   */
+  public PackedIOHandler() {
+    this.handler = new IOHandlerImpl();
+  }
+
+  @Override
+  public PackedImage importItem(String filename, String filetype)
+      throws IllegalArgumentException {
+    return handler.importRaster(filename, filetype);
+  }
+
+  @Override
+  public void exportItem(String filename, String filetype, PackedImage input)
+      throws IllegalArgumentException {
+    handler.exportRaster(filename, filetype, input);
+  }
+
+  @Override
+  public void exportText(String filename, String text) throws IllegalArgumentException {
+    handler.exportText(filename, text);
+  }
+
+  @Override
+  public Readable importText(String filename) throws IllegalArgumentException {
+    return handler.importText(filename);
+  }
+}
@@ -0,0 +1,53 @@
+package controller;
+
+import java.util.EnumSet;
+import java.util.Set;
+import model.PackedImage;
+
+/**
+ * Class representing the built in codec for the netpbm formats: "ppm" (written as plain P3, read
+ * as either P3 or binary P6), "p6" (binary P6 with the .ppm extension) and "pgm" (binary P5
+ * greyscale). Files are streamed through PPMReader and PPMWriter.
+ */
+final class PpmCodec implements Codec {
+
+  @Override
+  public Set<String> getFiletypes() {
+    return Set.of("ppm", "p6", "pgm");
+  }
+
+  @Override
+  public String getExtension(String filetype) {
+    return filetype.equals("pgm") ? "pgm" : "ppm";
+  }
+
+  @Override
+  public Set<Capability> getCapabilities(String filetype) {
+    return EnumSet.of(Capability.STREAMING_DECODE);
+  }
+
+  @Override
+  public int getPriority() {
+    return 0;
+  }
+
+  @Override
+  public PackedImage decode(String path, String filetype) throws IllegalArgumentException {
+    return PPMReader.read(path);
+  }
+
+  @Override
+  public void encode(String path, String filetype, PackedImage image, float quality)
+      throws IllegalArgumentException {
+    switch (filetype) {
+      case "p6":
+        PPMWriter.write(path, image, PPMWriter.Format.BINARY);
+        break;
+      case "pgm":
+        PPMWriter.write(path, image, PPMWriter.Format.GREY);
+        break;
+      default:
+        PPMWriter.write(path, image, PPMWriter.Format.PLAIN);
+    }
+  }
+}
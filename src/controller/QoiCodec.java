@@ -0,0 +1,255 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+import model.PackedImage;
+
+/**
+ * Class representing the built in codec for "qoi" files, in the Quite OK Image format. QOI is
+ * lossless like PNG and about as small, but encodes each pixel as a reference to a recently seen
+ * color, a small difference from the previous pixel, a run of the previous pixel or the pixel
+ * itself, in a single pass with no compression stage, so it is written and read many times faster.
+ * Files are streamed through a fixed size byte buffer in both directions. Images are written with
+ * three channels; files with four are read with their alpha channel dropped.
+ */
+final class QoiCodec implements Codec {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final byte[] END = {0, 0, 0, 0, 0, 0, 0, 1};
+  //the reference decoder refuses images of more pixels than this
+  private static final long MAX_PIXELS = 400_000_000L;
+
+  private static final int OP_INDEX = 0x00;
+  private static final int OP_DIFF = 0x40;
+  private static final int OP_LUMA = 0x80;
+  private static final int OP_RUN = 0xc0;
+  private static final int OP_RGB = 0xfe;
+  private static final int OP_RGBA = 0xff;
+  private static final int MASK = 0xc0;
+  private static final int MAX_RUN = 62;
+
+  @Override
+  public Set<String> getFiletypes() {
+    return Set.of("qoi");
+  }
+
+  @Override
+  public String getExtension(String filetype) {
+    return "qoi";
+  }
+
+  @Override
+  public Set<Capability> getCapabilities(String filetype) {
+    return EnumSet.of(Capability.STREAMING_DECODE);
+  }
+
+  @Override
+  public int getPriority() {
+    return 0;
+  }
+
+  @Override
+  public PackedImage decode(String path, String filetype) throws IllegalArgumentException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+      in.flip();
+      if (next(channel, in) != 'q' || next(channel, in) != 'o' || next(channel, in) != 'i'
+          || next(channel, in) != 'f') {
+        throw new IllegalArgumentException("not a QOI file");
+      }
+      long width = readUnsigned(channel, in);
+      long height = readUnsigned(channel, in);
+      int channels = next(channel, in);
+      next(channel, in);
+      if (width == 0 || height == 0 || width * height > MAX_PIXELS
+          || (channels != 3 && channels != 4)) {
+        throw new IllegalArgumentException("invalid QOI header");
+      }
+      int[] raster = new int[(int) (width * height)];
+      int[] index = new int[64];
+      //pixels are kept as argb, since the alpha of a four channel file affects the hashes
+      int px = 0xff000000;
+      int run = 0;
+      for (int i = 0; i < raster.length; i++) {
+        if (run > 0) {
+          run--;
+        } else {
+          int b1 = next(channel, in);
+          if (b1 == OP_RGB) {
+            px = (px & 0xff000000) | (next(channel, in) << 16) | (next(channel, in) << 8)
+                | next(channel, in);
+          } else if (b1 == OP_RGBA) {
+            px = (next(channel, in) << 16) | (next(channel, in) << 8) | next(channel, in)
+                | (next(channel, in) << 24);
+          } else if ((b1 & MASK) == OP_INDEX) {
+            px = index[b1];
+          } else if ((b1 & MASK) == OP_DIFF) {
+            px = add(px, ((b1 >> 4) & 3) - 2, ((b1 >> 2) & 3) - 2, (b1 & 3) - 2);
+          } else if ((b1 & MASK) == OP_LUMA) {
+            int b2 = next(channel, in);
+            int vg = (b1 & 0x3f) - 32;
+            px = add(px, vg - 8 + ((b2 >> 4) & 0x0f), vg, vg - 8 + (b2 & 0x0f));
+          } else {
+            run = b1 & 0x3f;
+          }
+          index[hash(px)] = px;
+        }
+        raster[i] = px & 0xffffff;
+      }
+      return new PackedImage(raster, (int) width, (int) height);
+    } catch (NoSuchFileException e) {
+      throw new IllegalArgumentException("file not found.");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Import failed");
+    }
+  }
+
+  @Override
+  public void encode(String path, String filetype, PackedImage image, float quality)
+      throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+      out.put(new byte[] {'q', 'o', 'i', 'f'}).putInt(image.getWidth())
+          .putInt(image.getHeight()).put((byte) 3).put((byte) 0);
+      int[] raster = image.getRaster();
+      int[] index = new int[64];
+      int prev = 0xff000000;
+      int run = 0;
+      for (int i = 0; i < raster.length; i++) {
+        //a pixel can end a run right before the longest op, of four bytes
+        if (out.remaining() < 5) {
+          flush(channel, out);
+        }
+        int px = 0xff000000 | raster[i];
+        if (px == prev) {
+          run++;
+          if (run == MAX_RUN || i == raster.length - 1) {
+            out.put((byte) (OP_RUN | (run - 1)));
+            run = 0;
+          }
+          continue;
+        }
+        if (run > 0) {
+          out.put((byte) (OP_RUN | (run - 1)));
+          run = 0;
+        }
+        int hash = hash(px);
+        if (index[hash] == px) {
+          out.put((byte) (OP_INDEX | hash));
+        } else {
+          index[hash] = px;
+          int vr = (byte) ((px >> 16) - (prev >> 16));
+          int vg = (byte) ((px >> 8) - (prev >> 8));
+          int vb = (byte) (px - prev);
+          int vgr = vr - vg;
+          int vgb = vb - vg;
+          if (vr >= -2 && vr <= 1 && vg >= -2 && vg <= 1 && vb >= -2 && vb <= 1) {
+            out.put((byte) (OP_DIFF | (vr + 2) << 4 | (vg + 2) << 2 | (vb + 2)));
+          } else if (vg >= -32 && vg <= 31 && vgr >= -8 && vgr <= 7 && vgb >= -8 && vgb <= 7) {
+            out.put((byte) (OP_LUMA | (vg + 32))).put((byte) ((vgr + 8) << 4 | (vgb + 8)));
+          } else {
+            out.put((byte) OP_RGB).put((byte) (px >> 16)).put((byte) (px >> 8)).put((byte) px);
+          }
+        }
+        prev = px;
+      }
+      if (out.remaining() < END.length) {
+        flush(channel, out);
+      }
+      out.put(END);
+      flush(channel, out);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("export failed.");
+    }
+  }
+
+  /**
+   * Returns the position of the given pixel in the index of recently seen pixels.
+   *
+   * @param px Integer, the pixel as argb
+   * @return Integer, the position, from 0 to 63
+   */
+  private static int hash(int px) {
+    return (((px >> 16) & 0xff) * 3 + ((px >> 8) & 0xff) * 5 + (px & 0xff) * 7
+        + ((px >>> 24) * 11)) % 64;
+  }
+
+  /**
+   * Returns the given pixel with the given differences added to its channels, wrapping around.
+   *
+   * @param px Integer, the pixel as argb
+   * @param dr Integer, the difference in red
+   * @param dg Integer, the difference in green
+   * @param db Integer, the difference in blue
+   * @return Integer, the new pixel, with the same alpha
+   */
+  private static int add(int px, int dr, int dg, int db) {
+    return (px & 0xff000000) | ((((px >> 16) + dr) & 0xff) << 16)
+        | ((((px >> 8) + dg) & 0xff) << 8) | ((px + db) & 0xff);
+  }
+
+  /**
+   * Returns the next byte of the file, refilling the buffer from the channel when it runs out.
+   *
+   * @param channel FileChannel, the file
+   * @param in      ByteBuffer, the buffer, ready to be read from
+   * @return Integer, the byte, from 0 to 255
+   * @throws IOException if the file can not be read
+   * @throws IllegalArgumentException if the file ends early
+   */
+  private static int next(FileChannel channel, ByteBuffer in) throws IOException {
+    if (!in.hasRemaining()) {
+      in.clear();
+      int read = 0;
+      while (read == 0) {
+        read = channel.read(in);
+      }
+      in.flip();
+      if (read < 0) {
+        throw new IllegalArgumentException("QOI file ends early");
+      }
+    }
+    return in.get() & 0xff;
+  }
+
+  /**
+   * Reads a big endian unsigned 32 bit integer.
+   *
+   * @param channel FileChannel, the file
+   * @param in      ByteBuffer, the buffer, ready to be read from
+   * @return Long, the integer
+   * @throws IOException if the file can not be read
+   */
+  private static long readUnsigned(FileChannel channel, ByteBuffer in) throws IOException {
+    long value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = (value << 8) | next(channel, in);
+    }
+    return value;
+  }
+
+  /**
+   * Writes everything in the buffer to the channel and empties the buffer.
+   *
+   * @param channel FileChannel, the file
+   * @param out     ByteBuffer, the buffer, ready to be written to
+   * @throws IOException if the file can not be written
+   */
+  private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    out.clear();
+  }
+}
@@ -0,0 +1,163 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import model.PackedImage;
+
+/**
+ * Class that moves pixels between BufferedImages and PackedImages in bulk. The common layouts
+ * (packed int rgb or argb, and interleaved bytes such as the bgr of a decoded JPG or the abgr of
+ * a decoded PNG) are copied straight out of the backing array of the BufferedImage, without a
+ * color model conversion per pixel. Any other layout falls back to a single bulk getRGB call.
+ */
+public final class RasterTransfer {
+
+  private static final int[] RGB_MASKS = {0xff0000, 0xff00, 0xff};
+
+  /**
+   * Private constructor, as this class only has static methods.
+   */
+  private RasterTransfer() {
+  }
+
+  /**
+   * Creates a BufferedImage of type TYPE_INT_RGB that shares the raster of the given image. The
+   * raster is not copied, so changes to either image are reflected in the other.
+   *
+   * @param image PackedImage, the image to wrap
+   * @return BufferedImage, a BufferedImage backed by the raster of the image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static BufferedImage toBuffered(PackedImage image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    DataBufferInt data = new DataBufferInt(image.getRaster(), width * height);
+    WritableRaster raster = Raster.createPackedRaster(data, width, height, width, RGB_MASKS,
+        null);
+    ColorModel model = new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+    return new BufferedImage(model, raster, false, null);
+  }
+
+  /**
+   * Copies the given BufferedImage into a new PackedImage. Any alpha channel is dropped.
+   *
+   * @param img BufferedImage, the image to copy
+   * @return PackedImage, a copy of the rgb values of the image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static PackedImage fromBuffered(BufferedImage img) throws IllegalArgumentException {
+    if (img == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    int width = img.getWidth();
+    int height = img.getHeight();
+    int[] raster = new int[width * height];
+    if (!copyInts(img, raster) && !copyBytes(img, raster)) {
+      img.getRGB(0, 0, width, height, raster, 0, width);
+      for (int i = 0; i < raster.length; i++) {
+        raster[i] &= 0xffffff;
+      }
+    }
+    return new PackedImage(raster, width, height);
+  }
+
+  /**
+   * Copies an image stored as one rgb or argb integer per pixel, if the image is stored that way.
+   *
+   * @param img    BufferedImage, the image to copy
+   * @param raster Integer array, the raster to fill
+   * @return Boolean, was the image copied?
+   */
+  private static boolean copyInts(BufferedImage img, int[] raster) {
+    int type = img.getType();
+    if (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB) {
+      return false;
+    }
+    Raster source = img.getRaster();
+    SampleModel sampleModel = source.getSampleModel();
+    if (!(sampleModel instanceof SinglePixelPackedSampleModel)
+        || !(source.getDataBuffer() instanceof DataBufferInt)) {
+      return false;
+    }
+    int width = img.getWidth();
+    int stride = ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride();
+    int offset = firstElement(source, 1, stride);
+    int[] data = ((DataBufferInt) source.getDataBuffer()).getData();
+    for (int y = 0; y < img.getHeight(); y++) {
+      int from = offset + y * stride;
+      int to = y * width;
+      for (int x = 0; x < width; x++) {
+        raster[to + x] = data[from + x] & 0xffffff;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copies an image stored as interleaved 8 bit sRGB samples, if the image is stored that way.
+   * Alpha, if any, must not be premultiplied.
+   *
+   * @param img    BufferedImage, the image to copy
+   * @param raster Integer array, the raster to fill
+   * @return Boolean, was the image copied?
+   */
+  private static boolean copyBytes(BufferedImage img, int[] raster) {
+    ColorModel colorModel = img.getColorModel();
+    Raster source = img.getRaster();
+    SampleModel sampleModel = source.getSampleModel();
+    if (!(colorModel instanceof ComponentColorModel)
+        || !colorModel.getColorSpace().isCS_sRGB()
+        || colorModel.isAlphaPremultiplied()
+        || !(sampleModel instanceof PixelInterleavedSampleModel)
+        || !(source.getDataBuffer() instanceof DataBufferByte)
+        || sampleModel.getDataType() != DataBuffer.TYPE_BYTE
+        || sampleModel.getNumBands() < 3
+        || colorModel.getPixelSize() != 8 * colorModel.getNumComponents()) {
+      return false;
+    }
+    PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+    int[] bands = interleaved.getBandOffsets();
+    int pixelStride = interleaved.getPixelStride();
+    int stride = interleaved.getScanlineStride();
+    int offset = firstElement(source, pixelStride, stride);
+    byte[] data = ((DataBufferByte) source.getDataBuffer()).getData();
+    int width = img.getWidth();
+    for (int y = 0; y < img.getHeight(); y++) {
+      int from = offset + y * stride;
+      int to = y * width;
+      for (int x = 0; x < width; x++, from += pixelStride) {
+        raster[to + x] = ((data[from + bands[0]] & 0xff) << 16)
+            | ((data[from + bands[1]] & 0xff) << 8) | (data[from + bands[2]] & 0xff);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index in the backing array of the first element of the top left pixel of the
+   * raster, which is not zero when the raster is a region of a larger one.
+   *
+   * @param source      Raster, the raster
+   * @param pixelStride Integer, the number of elements per pixel
+   * @param stride      Integer, the number of elements per row
+   * @return Integer, the index of the top left pixel
+   */
+  private static int firstElement(Raster source, int pixelStride, int stride) {
+    int x = source.getMinX() - source.getSampleModelTranslateX();
+    int y = source.getMinY() - source.getSampleModelTranslateY();
+    return source.getDataBuffer().getOffset() + y * stride + x * pixelStride;
+  }
+}
@@ -0,0 +1,263 @@
+package controller;
+
+import model.ImageImpl;
+import model.effects.IEffect;
+
+/**
+ * Class representing one command of a script, with its arguments already parsed. A command never
+ * changes once created. Effect commands hold the effect they apply, and may be marked as reported
+ * only, in which case running them reports the effect as applied without applying it, because
+ * the script plan they belong to has already applied it as part of another command or found its
+ * result to be unused.
+ */
+final class ScriptCommand {
+
+  /**
+   * Enumeration representing the kinds of commands a script may contain.
+   */
+  enum Kind {
+    FILE, QUIT, LOAD, SAVE, SAVE_COMPOSITE, BLEND, EFFECT, INVALID_EFFECT, REMOVE, INVISIBLE,
+    VISIBLE, TO_TOP, EXPORT_ALL, UNDO, REDO, ZOOM
+  }
+
+  private final Kind kind;
+  private final String name;
+  private final String type;
+  private final String mode;
+  private final boolean flag;
+  private final int number;
+  private final IEffect<ImageImpl> effect;
+  private final boolean applies;
+  private final ScriptPlan include;
+
+  /**
+   * Constructor for a command, where each argument the kind of command does not use is null,
+   * false or 0.
+   *
+   * @param kind    Kind, the kind of command
+   * @param name    String, the file name or blend mode the command is given
+   * @param type    String, the file type the command is given
+   * @param mode    String, the blend mode a loaded image is given, or null to leave it as is
+   * @param flag    Boolean, the visibility a loaded image is given
+   * @param number  Integer, the index, opacity or zoom level the command is given
+   * @param effect  IEffect, the effect the command applies
+   * @param applies Boolean, does running the command apply its effect?
+   * @param include ScriptPlan, the compiled script a file command runs, or null if the script is
+   *                compiled when the command runs
+   */
+  private ScriptCommand(Kind kind, String name, String type, String mode, boolean flag,
+      int number, IEffect<ImageImpl> effect, boolean applies, ScriptPlan include) {
+    this.kind = kind;
+    this.name = name;
+    this.type = type;
+    this.mode = mode;
+    this.flag = flag;
+    this.number = number;
+    this.effect = effect;
+    this.applies = applies;
+    this.include = include;
+  }
+
+  /**
+   * Creates a command that takes no arguments.
+   *
+   * @param kind Kind, the kind of command
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand of(Kind kind) {
+    return new ScriptCommand(kind, null, null, null, false, 0, null, true, null);
+  }
+
+  /**
+   * Creates a command that takes a file name, such as file or exportAll.
+   *
+   * @param kind Kind, the kind of command
+   * @param name String, the file name
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand of(Kind kind, String name) {
+    return new ScriptCommand(kind, name, null, null, false, 0, null, true, null);
+  }
+
+  /**
+   * Creates a command that takes a layer index, such as visible or toTop.
+   *
+   * @param kind  Kind, the kind of command
+   * @param index Integer, the index of the layer
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand of(Kind kind, int index) {
+    return new ScriptCommand(kind, null, null, null, false, index, null, true, null);
+  }
+
+  /**
+   * Creates a command that takes a file name and type, such as save or exportAll.
+   *
+   * @param kind Kind, the kind of command
+   * @param name String, the file name
+   * @param type String, the file type, or null for the default of an optional type
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand of(Kind kind, String name, String type) {
+    return new ScriptCommand(kind, name, type, null, false, 0, null, true, null);
+  }
+
+  /**
+   * Creates a load command.
+   *
+   * @param name       String, the file name
+   * @param type       String, the file type
+   * @param visibility Boolean, the visibility of the loaded layer
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand load(String name, String type, boolean visibility) {
+    return new ScriptCommand(Kind.LOAD, name, type, null, visibility, 0, null, true, null);
+  }
+
+  /**
+   * Creates a load command that also sets how the loaded layer is blended.
+   *
+   * @param name       String, the file name
+   * @param type       String, the file type
+   * @param visibility Boolean, the visibility of the loaded layer
+   * @param mode       String, the blend mode of the loaded layer
+   * @param opacity    Integer, the opacity of the loaded layer
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand load(String name, String type, boolean visibility, String mode,
+      int opacity) {
+    return new ScriptCommand(Kind.LOAD, name, type, mode, visibility, opacity, null, true, null);
+  }
+
+  /**
+   * Creates a blend command.
+   *
+   * @param mode    String, the name of the blend mode
+   * @param opacity Integer, the opacity
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand blend(String mode, int opacity) {
+    return new ScriptCommand(Kind.BLEND, mode, null, null, false, opacity, null, true, null);
+  }
+
+  /**
+   * Creates a command that applies the given effect.
+   *
+   * @param effect IEffect, the effect
+   * @return ScriptCommand, the command
+   */
+  static ScriptCommand effect(IEffect<ImageImpl> effect) {
+    return new ScriptCommand(Kind.EFFECT, null, null, null, false, 0, effect, true, null);
+  }
+
+  /**
+   * Returns a copy of this effect command that applies the given effect instead.
+   *
+   * @param replacement IEffect, the effect to apply
+   * @return ScriptCommand, the new command
+   */
+  ScriptCommand withEffect(IEffect<ImageImpl> replacement) {
+    return new ScriptCommand(kind, name, type, mode, flag, number, replacement, true, include);
+  }
+
+  /**
+   * Returns a copy of this effect command that only reports its effect as applied.
+   *
+   * @return ScriptCommand, the new command
+   */
+  ScriptCommand reportedOnly() {
+    return new ScriptCommand(kind, name, type, mode, flag, number, effect, false, include);
+  }
+
+  /**
+   * Returns a copy of this file command that runs the given compiled script.
+   *
+   * @param plan ScriptPlan, the compiled script named by this command
+   * @return ScriptCommand, the new command
+   */
+  ScriptCommand withInclude(ScriptPlan plan) {
+    return new ScriptCommand(kind, name, type, mode, flag, number, effect, applies, plan);
+  }
+
+  /**
+   * Returns the kind of this command.
+   *
+   * @return Kind, the kind of command
+   */
+  Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the file name or blend mode of this command.
+   *
+   * @return String, the name, or null if the command has none
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the file type of this command.
+   *
+   * @return String, the file type, or null if the command has none
+   */
+  String getType() {
+    return type;
+  }
+
+  /**
+   * Returns the blend mode a load command gives the loaded layer.
+   *
+   * @return String, the blend mode, or null if the load leaves it as is
+   */
+  String getMode() {
+    return mode;
+  }
+
+  /**
+   * Returns the visibility a load command gives the loaded layer.
+   *
+   * @return Boolean, is the loaded layer visible?
+   */
+  boolean getFlag() {
+    return flag;
+  }
+
+  /**
+   * Returns the layer index, opacity or zoom level of this command, or the opacity a load command
+   * with a blend mode gives the loaded layer.
+   *
+   * @return Integer, the number
+   */
+  int getNumber() {
+    return number;
+  }
+
+  /**
+   * Returns the effect of this command.
+   *
+   * @return IEffect, the effect, or null if the command applies none
+   */
+  IEffect<ImageImpl> getEffect() {
+    return effect;
+  }
+
+  /**
+   * Returns whether running this command applies its effect, rather than only reporting it.
+   *
+   * @return Boolean, is the effect applied?
+   */
+  boolean applies() {
+    return applies;
+  }
+
+  /**
+   * Returns the compiled script this file command runs.
+   *
+   * @return ScriptPlan, the script, or null if it is compiled when the command runs
+   */
+  ScriptPlan getInclude() {
+    return include;
+  }
+}
@@ -0,0 +1,364 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import model.ImageImpl;
+import model.effects.BlurFilter;
+import model.effects.ColorMatrixEffect;
+import model.effects.Downscale;
+import model.effects.Greyscale;
+import model.effects.Mosaic;
+import model.effects.ResampleFilter;
+import model.effects.Resize;
+import model.effects.Sepia;
+import model.effects.SharpenFilter;
+
+/**
+ * Class that compiles scripts into ScriptPlans. A script is parsed in full before any of it runs,
+ * together with every script it includes with the file command, so a script that includes a
+ * missing script or includes itself, directly or not, is rejected without running anything.
+ * Words that are not commands, and commands missing arguments, are skipped just as when commands
+ * are typed one at a time.
+ *
+ * <p>Once a script and every script it includes are known in full, each of their plans is
+ * optimized, unless any of them undoes or redoes anything (which would see the edits that are
+ * skipped or merged, even in another script):
+ * <ul>
+ *   <li>effects applied to a layer right before it is removed are not applied at all</li>
+ *   <li>runs of color effects (greyscale and sepia) are merged into one effect, applied once</li>
+ * </ul>
+ * Every command still reports what it did, so the output of an optimized plan is the same as
+ * that of the script, and so are the layers it leaves. Only the undo history differs: the skipped
+ * and merged effects are not separate edits. A script run in the middle of other commands, which
+ * may undo its edits afterwards, should be compiled without optimizing it.
+ */
+public final class ScriptCompiler {
+
+  private static final String FILTERS = "box|bilinear|bicubic|lanczos3";
+  private static final String MODES = "normal|multiply|screen|add";
+
+  private final IOHandler<ImageImpl> handler;
+
+  /**
+   * General Constructor.
+   *
+   * @param handler IOHandler, used to read the scripts
+   * @throws IllegalArgumentException if handler is null
+   */
+  public ScriptCompiler(IOHandler<ImageImpl> handler) throws IllegalArgumentException {
+    if (handler == null) {
+      throw new IllegalArgumentException("null handler");
+    }
+    this.handler = handler;
+  }
+
+  /**
+   * Compiles the script with the given name and every script it includes.
+   *
+   * @param filename String, the name of the script (without .txt)
+   * @return ScriptPlan, the compiled script
+   * @throws IllegalArgumentException if the script or a script it includes can not be read, or
+   *                                  the scripts include each other in a cycle
+   */
+  public ScriptPlan compile(String filename) throws IllegalArgumentException {
+    return compile(filename, true);
+  }
+
+  /**
+   * Compiles the script with the given name and every script it includes, optimizing them only
+   * if asked to and none of them undoes or redoes anything.
+   *
+   * @param filename String, the name of the script (without .txt)
+   * @param optimize Boolean, should the plans be optimized?
+   * @return ScriptPlan, the compiled script
+   * @throws IllegalArgumentException if the script or a script it includes can not be read, or
+   *                                  the scripts include each other in a cycle
+   */
+  ScriptPlan compile(String filename, boolean optimize) throws IllegalArgumentException {
+    ScriptPlan plan = compile(filename, new ArrayDeque<>(), new HashMap<>());
+    if (!optimize || undoes(plan.getCommands())) {
+      return plan;
+    }
+    return optimize(plan, new HashMap<>());
+  }
+
+  /**
+   * Parses the next command from the given input, skipping anything that is not a command. File
+   * commands are not compiled; the script they name is left to be compiled when they run.
+   *
+   * @param input Scanner, the input to read from
+   * @return ScriptCommand, the next command, or null if the input has no more commands
+   */
+  ScriptCommand next(Scanner input) {
+    while (input.hasNext()) {
+      ScriptCommand command = parse(input.next(), input);
+      if (command != null) {
+        return command;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compiles the script with the given name, without optimizing it.
+   *
+   * @param filename String, the name of the script
+   * @param open     Deque of Strings, the scripts being compiled that include this one
+   * @param compiled Map of Strings to ScriptPlans, the scripts already compiled
+   * @return ScriptPlan, the compiled script
+   * @throws IllegalArgumentException if a script can not be read or includes itself
+   */
+  private ScriptPlan compile(String filename, Deque<String> open,
+      Map<String, ScriptPlan> compiled) throws IllegalArgumentException {
+    if (open.contains(filename)) {
+      throw new IllegalArgumentException("Script " + filename + " includes itself");
+    }
+    if (compiled.containsKey(filename)) {
+      return compiled.get(filename);
+    }
+    open.push(filename);
+    List<ScriptCommand> commands = new ArrayList<>();
+    Readable script = handler.importText(filename);
+    try {
+      Scanner input = new Scanner(script);
+      for (ScriptCommand command = next(input); command != null; command = next(input)) {
+        if (command.getKind() == ScriptCommand.Kind.FILE) {
+          command = command.withInclude(compile(command.getName(), open, compiled));
+        }
+        commands.add(command);
+      }
+    } finally {
+      close(script);
+    }
+    open.pop();
+    ScriptPlan plan = new ScriptPlan(filename, commands);
+    compiled.put(filename, plan);
+    return plan;
+  }
+
+  /**
+   * Parses the command starting with the given word.
+   *
+   * @param word  String, the first word of the command
+   * @param input Scanner, the rest of the input
+   * @return ScriptCommand, the command, or null if the word does not start a complete command
+   */
+  private ScriptCommand parse(String word, Scanner input) {
+    switch (word) {
+      case "file":
+        return input.hasNext() ? ScriptCommand.of(ScriptCommand.Kind.FILE, input.next()) : null;
+      case "quit":
+        return ScriptCommand.of(ScriptCommand.Kind.QUIT);
+      case "load":
+        if (input.hasNext()) {
+          String filename = input.next();
+          if (input.hasNext()) {
+            String filetype = input.next();
+            if (input.hasNextBoolean()) {
+              boolean visibility = input.nextBoolean();
+              if (input.hasNext(MODES)) {
+                String mode = input.next();
+                return ScriptCommand.load(filename, filetype, visibility, mode,
+                    input.hasNextInt() ? input.nextInt() : 100);
+              }
+              return ScriptCommand.load(filename, filetype, visibility);
+            }
+          }
+        }
+        return null;
+      case "save":
+      case "saveComposite":
+        if (input.hasNext()) {
+          String filename = input.next();
+          if (input.hasNext()) {
+            return ScriptCommand.of(word.equals("save") ? ScriptCommand.Kind.SAVE
+                : ScriptCommand.Kind.SAVE_COMPOSITE, filename, input.next());
+          }
+        }
+        return null;
+      case "blend":
+        if (input.hasNext(MODES)) {
+          String mode = input.next();
+          return ScriptCommand.blend(mode, input.hasNextInt() ? input.nextInt() : 100);
+        }
+        return null;
+      case "blur":
+        return ScriptCommand.effect(new BlurFilter());
+      case "sharpen":
+        return ScriptCommand.effect(new SharpenFilter());
+      case "greyscale":
+        return ScriptCommand.effect(new Greyscale());
+      case "sepia":
+        return ScriptCommand.effect(new Sepia());
+      case "mosaic":
+        if (!input.hasNextInt()) {
+          return ScriptCommand.effect(new Mosaic());
+        }
+        int seeds = input.nextInt();
+        Long rngSeed = input.hasNextLong() ? input.nextLong() : null;
+        if (seeds < 0) {
+          return ScriptCommand.of(ScriptCommand.Kind.INVALID_EFFECT);
+        }
+        return ScriptCommand.effect(rngSeed == null ? new Mosaic(seeds)
+            : new Mosaic(seeds, rngSeed));
+      case "downscale":
+        return ScriptCommand.effect(new Downscale());
+      case "resize":
+        if (input.hasNextInt()) {
+          int width = input.nextInt();
+          if (input.hasNextInt()) {
+            int height = input.nextInt();
+            String filter = input.hasNext(FILTERS) ? input.next() : "bicubic";
+            if (width <= 0 || height <= 0) {
+              return ScriptCommand.of(ScriptCommand.Kind.INVALID_EFFECT);
+            }
+            return ScriptCommand.effect(new Resize(width, height,
+                ResampleFilter.valueOf(filter.toUpperCase())));
+          }
+        }
+        return null;
+      case "remove":
+        return ScriptCommand.of(ScriptCommand.Kind.REMOVE);
+      case "invisible":
+      case "visible":
+      case "toTop":
+        if (input.hasNextInt()) {
+          return ScriptCommand.of(word.equals("invisible") ? ScriptCommand.Kind.INVISIBLE
+              : word.equals("visible") ? ScriptCommand.Kind.VISIBLE : ScriptCommand.Kind.TO_TOP,
+              input.nextInt());
+        }
+        return null;
+      case "exportAll":
+        if (input.hasNext()) {
+          String filename = input.next();
+          return ScriptCommand.of(ScriptCommand.Kind.EXPORT_ALL, filename,
+              input.hasNext(filetypes()) ? input.next() : null);
+        }
+        return null;
+      case "undo":
+        return ScriptCommand.of(ScriptCommand.Kind.UNDO);
+      case "redo":
+        return ScriptCommand.of(ScriptCommand.Kind.REDO);
+      case "zoom":
+        return input.hasNextInt() ? ScriptCommand.of(ScriptCommand.Kind.ZOOM, input.nextInt())
+            : null;
+      default:
+        //if not a valid command, skip it
+        return null;
+    }
+  }
+
+  /**
+   * Returns the given plan with its commands, and those of every script it includes, optimized.
+   *
+   * @param plan      ScriptPlan, the plan, which must not undo or redo anything
+   * @param optimized Map of Strings to ScriptPlans, the scripts already optimized
+   * @return ScriptPlan, the optimized plan
+   */
+  private static ScriptPlan optimize(ScriptPlan plan, Map<String, ScriptPlan> optimized) {
+    if (optimized.containsKey(plan.getName())) {
+      return optimized.get(plan.getName());
+    }
+    List<ScriptCommand> commands = new ArrayList<>();
+    for (ScriptCommand command : plan.getCommands()) {
+      commands.add(command.getInclude() == null ? command
+          : command.withInclude(optimize(command.getInclude(), optimized)));
+    }
+    ScriptPlan result = new ScriptPlan(plan.getName(), optimize(commands));
+    optimized.put(plan.getName(), result);
+    return result;
+  }
+
+  /**
+   * Returns the given commands with effects on layers that are about to be removed reported
+   * only, and runs of color effects merged into their first command.
+   *
+   * @param commands List of ScriptCommands, the commands of a script
+   * @return List of ScriptCommands, the optimized commands
+   */
+  private static List<ScriptCommand> optimize(List<ScriptCommand> commands) {
+    List<ScriptCommand> optimized = new ArrayList<>(commands);
+    //effects right before a remove apply to the layer it removes
+    for (int i = optimized.size() - 1; i > 0; i--) {
+      if (optimized.get(i).getKind() == ScriptCommand.Kind.REMOVE) {
+        int j = i - 1;
+        while (j >= 0 && optimized.get(j).getKind() == ScriptCommand.Kind.EFFECT) {
+          optimized.set(j, optimized.get(j).reportedOnly());
+          j--;
+        }
+        i = j + 1;
+      }
+    }
+    //runs of color effects apply to the same layer one after the other
+    int i = 0;
+    while (i < optimized.size()) {
+      ScriptCommand first = optimized.get(i);
+      int j = i + 1;
+      if (first.applies() && first.getEffect() instanceof ColorMatrixEffect) {
+        ColorMatrixEffect fused = (ColorMatrixEffect) first.getEffect();
+        while (j < optimized.size() && optimized.get(j).applies()
+            && optimized.get(j).getEffect() instanceof ColorMatrixEffect) {
+          fused = fused.then((ColorMatrixEffect) optimized.get(j).getEffect());
+          optimized.set(j, optimized.get(j).reportedOnly());
+          j++;
+        }
+        if (j > i + 1) {
+          optimized.set(i, first.withEffect(fused));
+        }
+      }
+      i = j;
+    }
+    return optimized;
+  }
+
+  /**
+   * Returns a pattern matching every filetype a codec handles, which exportAll may be given.
+   *
+   * @return String, the filetypes separated by |
+   */
+  static String filetypes() {
+    return CodecRegistry.getDefault().getFiletypes().stream().map(Pattern::quote)
+        .collect(Collectors.joining("|"));
+  }
+
+  /**
+   * Returns whether the given commands, or the scripts they include, undo or redo anything.
+   *
+   * @param commands List of ScriptCommands, the commands
+   * @return Boolean, is there an undo or redo command?
+   */
+  private static boolean undoes(List<ScriptCommand> commands) {
+    for (ScriptCommand command : commands) {
+      if (command.getKind() == ScriptCommand.Kind.UNDO
+          || command.getKind() == ScriptCommand.Kind.REDO
+          || (command.getInclude() != null && undoes(command.getInclude().getCommands()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Closes the given script if it can be closed.
+   *
+   * @param script Readable, the script that was read
+   */
+  private static void close(Readable script) {
+    if (script instanceof Closeable) {
+      try {
+        ((Closeable) script).close();
+      } catch (IOException e) {
+        //the script has been read in full already
+      }
+    }
+  }
+}
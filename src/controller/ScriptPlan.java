@@ -0,0 +1,52 @@
+package controller;
+
+import java.util.List;
+
+/**
+ * Class representing a compiled script: the commands of the script in order, with every file
+ * command it includes compiled as well. A plan is made by a ScriptCompiler, never changes, and
+ * may be run any number of times, on any number of models.
+ */
+public final class ScriptPlan {
+
+  private final String name;
+  private final List<ScriptCommand> commands;
+
+  /**
+   * Constructor for a plan of the given commands.
+   *
+   * @param name     String, the name of the script
+   * @param commands List of ScriptCommands, the commands, which are copied
+   */
+  ScriptPlan(String name, List<ScriptCommand> commands) {
+    this.name = name;
+    this.commands = List.copyOf(commands);
+  }
+
+  /**
+   * Returns the name of the script this plan was compiled from.
+   *
+   * @return String, the name of the script
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of commands in this plan, not counting those of included scripts.
+   *
+   * @return Integer, the number of commands
+   */
+  public int size() {
+    return commands.size();
+  }
+
+  /**
+   * Returns the commands of this plan.
+   *
+   * @return List of ScriptCommands, the commands in order, which can not be changed
+   */
+  List<ScriptCommand> getCommands() {
+    return commands;
+  }
+}
@@ -0,0 +1,31 @@
+package model;
+
+/**
+ * Enumeration representing the ways a layer can be blended with the layers below it. Each mode
+ * combines one channel of the layer (above) with the same channel of what is below it, and the
+ * opacity of the layer then mixes that result with what is below. The Compositor blends whole
+ * rows of pixels with each mode.
+ */
+public enum BlendMode {
+
+  /**
+   * The layer covers what is below it.
+   */
+  NORMAL,
+
+  /**
+   * The channels are multiplied, as fractions of 255, which darkens.
+   */
+  MULTIPLY,
+
+  /**
+   * The inverses of the channels are multiplied, as fractions of 255, and inverted again, which
+   * lightens.
+   */
+  SCREEN,
+
+  /**
+   * The channels are added, up to 255.
+   */
+  ADD
+}
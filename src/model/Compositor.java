@@ -0,0 +1,300 @@
+package model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class that flattens the visible layers of an ImageEditorModel into one image. The composite
+ * is the size of the bottom layer, every layer is placed at its top left corner, and each layer
+ * is blended over the layers below it with its blend mode and opacity. Pixels past the edges of a
+ * layer are left as the layers below it made them.
+ *
+ * <p>Each row of the composite is written in a single pass, blending every layer into it in turn
+ * while the row is still in cache, with one tight loop of primitive operations per blend mode.
+ * The compositor remembers the layers it last composited, and only recomposites the region that
+ * can have changed since: the union of the bounds of the layers between the first and last ones
+ * that differ. Hiding, showing, reordering or changing a small layer over a large image thus only
+ * recomposites the area of that layer.
+ */
+final class Compositor {
+
+  /**
+   * Class representing one visible layer as it was last composited.
+   */
+  private static final class Entry {
+
+    private final Layer layer;
+    private final BlendMode mode;
+    private final int opacity;
+    private final PackedImage image;
+
+    /**
+     * General Constructor.
+     *
+     * @param layer   Layer, the layer
+     * @param mode    BlendMode, how the layer was blended
+     * @param opacity Integer, the opacity of the layer, from 0 to 100
+     * @param image   PackedImage, the image of the layer
+     */
+    Entry(Layer layer, BlendMode mode, int opacity, PackedImage image) {
+      this.layer = layer;
+      this.mode = mode;
+      this.opacity = opacity;
+      this.image = image;
+    }
+
+    /**
+     * Returns whether the given entry blends the same layer in the same way.
+     *
+     * @param other Entry, the entry to compare to
+     * @return Boolean, does the other entry composite the same?
+     */
+    boolean sameAs(Entry other) {
+      return layer == other.layer && mode == other.mode && opacity == other.opacity;
+    }
+
+    /**
+     * Returns the bounds of the layer on the composite.
+     *
+     * @return Rectangle, the area the layer covers
+     */
+    Rectangle bounds() {
+      return new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    }
+  }
+
+  //bottom first
+  private List<Entry> stack;
+  private PackedImage image;
+  private Rectangle changed;
+
+  /**
+   * Constructor for a compositor that has not composited anything yet.
+   */
+  Compositor() {
+    this.stack = Collections.emptyList();
+    this.changed = new Rectangle();
+  }
+
+  /**
+   * Brings the composite up to date with the given layers, recompositing only the region that
+   * can differ from the last composite. The bottom layer is always blended, whatever its
+   * visibility.
+   *
+   * @param layers       List of Layers, the layers, bottom first
+   * @param visibilities List of Booleans, the visibility of each layer
+   * @param modes        List of BlendModes, the blend mode of each layer
+   * @param opacities    List of Integers, the opacity of each layer, from 0 to 100
+   * @param parallelism  Integer, the largest number of threads to composite with
+   * @return Rectangle, the region that was recomposited, empty if nothing changed
+   * @throws IllegalArgumentException if there are no layers or an effect pending on a layer
+   *                                  could not be applied
+   */
+  synchronized Rectangle update(List<Layer> layers, List<Boolean> visibilities,
+      List<BlendMode> modes, List<Integer> opacities, int parallelism)
+      throws IllegalArgumentException {
+    if (layers.isEmpty()) {
+      throw new IllegalArgumentException("No visible layers.");
+    }
+    Map<Layer, PackedImage> images = new IdentityHashMap<>();
+    for (Entry entry : stack) {
+      images.put(entry.layer, entry.image);
+    }
+    List<Entry> next = new ArrayList<>();
+    for (int i = 0; i < layers.size(); i++) {
+      if (i == 0 || visibilities.get(i)) {
+        Layer layer = layers.get(i);
+        PackedImage packed = images.get(layer);
+        if (packed == null) {
+          packed = new PackedImage(layer.getImage());
+          images.put(layer, packed);
+        }
+        next.add(new Entry(layer, modes.get(i), opacities.get(i), packed));
+      }
+    }
+    PackedImage bottom = next.get(0).image;
+    Rectangle dirty;
+    if (image == null || image.getWidth() != bottom.getWidth()
+        || image.getHeight() != bottom.getHeight()) {
+      image = new PackedImage(bottom.getWidth(), bottom.getHeight());
+      dirty = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    } else {
+      dirty = changedBounds(stack, next)
+          .intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+    }
+    stack = next;
+    changed = dirty.isEmpty() ? new Rectangle() : dirty;
+    if (!changed.isEmpty()) {
+      Rectangle area = changed;
+      try {
+        TileExecutor.forEachBand(area.height, parallelism, (start, end) ->
+            composite(area.x, area.y + start, area.width, end - start));
+      } catch (RuntimeException e) {
+        //part of the area is stale, and comparing to no layers recomposites all of it next time
+        stack = Collections.emptyList();
+        throw e;
+      }
+    }
+    return new Rectangle(changed);
+  }
+
+  /**
+   * Returns the composite as of the last update. The image is changed in place by later updates,
+   * and must not be changed otherwise.
+   *
+   * @return PackedImage, the composite, or null if nothing has been composited yet
+   */
+  synchronized PackedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Returns the region the last update recomposited.
+   *
+   * @return Rectangle, the recomposited region, empty if nothing changed
+   */
+  synchronized Rectangle getChanged() {
+    return new Rectangle(changed);
+  }
+
+  /**
+   * Returns the union of the bounds of the layers that differ between two stacks. Layers before
+   * the first difference and after the last one are blended the same way in the same order, and
+   * outside of the bounds of every layer in between, only those layers are blended, so nothing
+   * else can have changed.
+   *
+   * @param before List of Entries, the layers last composited
+   * @param after  List of Entries, the layers to composite
+   * @return Rectangle, the region that may have changed
+   */
+  private static Rectangle changedBounds(List<Entry> before, List<Entry> after) {
+    int shorter = Math.min(before.size(), after.size());
+    int prefix = 0;
+    while (prefix < shorter && before.get(prefix).sameAs(after.get(prefix))) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < shorter - prefix && before.get(before.size() - 1 - suffix)
+        .sameAs(after.get(after.size() - 1 - suffix))) {
+      suffix++;
+    }
+    Rectangle bounds = new Rectangle();
+    for (List<Entry> entries : List.of(before, after)) {
+      for (int i = prefix; i < entries.size() - suffix; i++) {
+        Rectangle layer = entries.get(i).bounds();
+        bounds = bounds.isEmpty() ? layer : bounds.union(layer);
+      }
+    }
+    return bounds;
+  }
+
+  /**
+   * Recomposites the given rows of the given columns, blending every layer into each row before
+   * moving on to the next.
+   *
+   * @param x      Integer, the first column
+   * @param y      Integer, the first row
+   * @param width  Integer, the number of columns
+   * @param height Integer, the number of rows
+   */
+  private void composite(int x, int y, int width, int height) {
+    int[] dst = image.getRaster();
+    for (int row = y; row < y + height; row++) {
+      int to = row * image.getWidth() + x;
+      Arrays.fill(dst, to, to + width, 0);
+      for (Entry entry : stack) {
+        int length = Math.min(x + width, entry.image.getWidth()) - x;
+        if (row >= entry.image.getHeight() || length <= 0) {
+          continue;
+        }
+        blendRow(entry.mode, (entry.opacity * 255 + 50) / 100, entry.image.getRaster(),
+            row * entry.image.getWidth() + x, dst, to, length);
+      }
+    }
+  }
+
+  /**
+   * Blends a run of pixels of a layer into a run of pixels of the composite.
+   *
+   * @param mode   BlendMode, how the layer is blended
+   * @param alpha  Integer, the opacity of the layer, from 0 to 255
+   * @param src    Integer array, the raster of the layer
+   * @param from   Integer, the index of the first pixel of the layer
+   * @param dst    Integer array, the raster of the composite
+   * @param to     Integer, the index of the first pixel of the composite
+   * @param length Integer, the number of pixels
+   */
+  private static void blendRow(BlendMode mode, int alpha, int[] src, int from, int[] dst, int to,
+      int length) {
+    if (alpha == 0) {
+      return;
+    }
+    switch (mode) {
+      case NORMAL:
+        if (alpha == 255) {
+          System.arraycopy(src, from, dst, to, length);
+          return;
+        }
+        for (int i = 0; i < length; i++) {
+          dst[to + i] = mix(dst[to + i], src[from + i], alpha);
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < length; i++) {
+          int b = dst[to + i];
+          int s = src[from + i];
+          int r = (((b >> 16) & 0xff) * ((s >> 16) & 0xff) + 127) / 255;
+          int g = (((b >> 8) & 0xff) * ((s >> 8) & 0xff) + 127) / 255;
+          int bl = ((b & 0xff) * (s & 0xff) + 127) / 255;
+          dst[to + i] = mix(b, (r << 16) | (g << 8) | bl, alpha);
+        }
+        break;
+      case SCREEN:
+        for (int i = 0; i < length; i++) {
+          int b = dst[to + i];
+          int s = src[from + i];
+          int r = 255 - ((255 - ((b >> 16) & 0xff)) * (255 - ((s >> 16) & 0xff)) + 127) / 255;
+          int g = 255 - ((255 - ((b >> 8) & 0xff)) * (255 - ((s >> 8) & 0xff)) + 127) / 255;
+          int bl = 255 - ((255 - (b & 0xff)) * (255 - (s & 0xff)) + 127) / 255;
+          dst[to + i] = mix(b, (r << 16) | (g << 8) | bl, alpha);
+        }
+        break;
+      case ADD:
+        for (int i = 0; i < length; i++) {
+          int b = dst[to + i];
+          int s = src[from + i];
+          int r = Math.min(255, ((b >> 16) & 0xff) + ((s >> 16) & 0xff));
+          int g = Math.min(255, ((b >> 8) & 0xff) + ((s >> 8) & 0xff));
+          int bl = Math.min(255, (b & 0xff) + (s & 0xff));
+          dst[to + i] = mix(b, (r << 16) | (g << 8) | bl, alpha);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Blend mode not supported");
+    }
+  }
+
+  /**
+   * Mixes a blended pixel with the pixel below it by the given opacity.
+   *
+   * @param below   Integer, the packed pixel below the layer
+   * @param blended Integer, the packed pixel the blend mode gave
+   * @param alpha   Integer, the opacity of the layer, from 0 to 255
+   * @return Integer, the packed mixed pixel
+   */
+  private static int mix(int below, int blended, int alpha) {
+    if (alpha == 255) {
+      return blended;
+    }
+    int keep = 255 - alpha;
+    int r = (((below >> 16) & 0xff) * keep + ((blended >> 16) & 0xff) * alpha + 127) / 255;
+    int g = (((below >> 8) & 0xff) * keep + ((blended >> 8) & 0xff) * alpha + 127) / 255;
+    int b = ((below & 0xff) * keep + (blended & 0xff) * alpha + 127) / 255;
+    return (r << 16) | (g << 8) | b;
+  }
+}
@@ -0,0 +1,429 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class representing the undo and redo history of an ImageEditorModel. Each version of the model
+ * is a snapshot of its lists of layers, visibilities, blend modes and opacities. Since a layer
+ * never changes once created, a snapshot only holds references to layers, and every layer an edit
+ * did not touch is shared between the versions before and after it; only the images of changed
+ * layers cost memory. The images that only the history holds on to, including the levels of the
+ * pyramids its layers keep, are counted against a memory budget, and the oldest versions are
+ * dropped whenever the history goes over it. The bytes of the images the versions hold are kept
+ * as a running total that each version added or dropped updates, so staying within the budget
+ * does not walk the whole history again for every version it drops.
+ */
+final class History {
+
+  /**
+   * The rough number of bytes an ImageImpl takes per pixel: a Pixel object and its reference.
+   */
+  static final long BYTES_PER_PIXEL = 40;
+
+  /**
+   * The number of bytes a PackedImage, such as a pyramid level, takes per pixel.
+   */
+  static final long BYTES_PER_PACKED_PIXEL = 4;
+
+  /**
+   * The number of bytes of images the history may hold on to, unless set otherwise.
+   */
+  static final long DEFAULT_BUDGET = 512L << 20;
+
+  /**
+   * Class representing one version of the model.
+   */
+  static final class Snapshot {
+
+    private final List<Layer> layers;
+    private final List<Boolean> visibilities;
+    private final List<BlendMode> modes;
+    private final List<Integer> opacities;
+
+    /**
+     * Constructor for a snapshot of the given lists, which are copied.
+     *
+     * @param layers       List of Layers, the layers of the model
+     * @param visibilities List of Booleans, the visibilities of the layers
+     * @param modes        List of BlendModes, the blend modes of the layers
+     * @param opacities    List of Integers, the opacities of the layers
+     */
+    Snapshot(List<Layer> layers, List<Boolean> visibilities, List<BlendMode> modes,
+        List<Integer> opacities) {
+      this.layers = List.copyOf(layers);
+      this.visibilities = List.copyOf(visibilities);
+      this.modes = List.copyOf(modes);
+      this.opacities = List.copyOf(opacities);
+    }
+
+    /**
+     * Returns the layers of this version.
+     *
+     * @return List of Layers, the layers, which can not be changed
+     */
+    List<Layer> getLayers() {
+      return layers;
+    }
+
+    /**
+     * Returns the visibilities of this version.
+     *
+     * @return List of Booleans, the visibilities, which can not be changed
+     */
+    List<Boolean> getVisibilities() {
+      return visibilities;
+    }
+
+    /**
+     * Returns the blend modes of this version.
+     *
+     * @return List of BlendModes, the blend modes, which can not be changed
+     */
+    List<BlendMode> getModes() {
+      return modes;
+    }
+
+    /**
+     * Returns the opacities of this version.
+     *
+     * @return List of Integers, the opacities, which can not be changed
+     */
+    List<Integer> getOpacities() {
+      return opacities;
+    }
+  }
+
+  /**
+   * Class representing a layer held by the versions in the history.
+   */
+  private static final class Entry {
+
+    private int references;
+    private List<Image> images;
+
+    /**
+     * Constructor for a layer with the given images, not yet held by any version.
+     *
+     * @param images List of Images, the images the layer holds on to
+     */
+    private Entry(List<Image> images) {
+      this.images = images;
+    }
+  }
+
+  //newest first
+  private final Deque<Snapshot> undos;
+  private final Deque<Snapshot> redos;
+  //every layer the versions hold, with the number of versions that hold it
+  private final Map<Layer, Entry> entries;
+  //every image those layers hold, with the number of them that hold it
+  private final Map<Image, Integer> holders;
+  //the bytes of every image in holders
+  private long bytes;
+  private long budget;
+
+  /**
+   * Constructor for an empty history with the default budget.
+   */
+  History() {
+    this.undos = new ArrayDeque<>();
+    this.redos = new ArrayDeque<>();
+    this.entries = new IdentityHashMap<>();
+    this.holders = new IdentityHashMap<>();
+    this.budget = DEFAULT_BUDGET;
+  }
+
+  /**
+   * Constructor for a copy of another history, which shares its versions.
+   *
+   * @param other History, the history to copy
+   */
+  History(History other) {
+    this();
+    revert(other);
+  }
+
+  /**
+   * Makes this history hold the same versions and budget as the given copy again.
+   *
+   * @param saved History, a copy of this history made earlier
+   */
+  void revert(History saved) {
+    undos.clear();
+    undos.addAll(saved.undos);
+    redos.clear();
+    redos.addAll(saved.redos);
+    entries.clear();
+    for (Map.Entry<Layer, Entry> entry : saved.entries.entrySet()) {
+      Entry copy = new Entry(entry.getValue().images);
+      copy.references = entry.getValue().references;
+      entries.put(entry.getKey(), copy);
+    }
+    holders.clear();
+    holders.putAll(saved.holders);
+    bytes = saved.bytes;
+    budget = saved.budget;
+  }
+
+  /**
+   * Records the version of the model before an edit, and forgets every version that could have
+   * been redone.
+   *
+   * @param before  Snapshot, the version before the edit
+   * @param current List of Layers, the layers after the edit
+   */
+  void record(Snapshot before, List<Layer> current) {
+    for (Snapshot snapshot : redos) {
+      release(snapshot);
+    }
+    redos.clear();
+    undos.push(before);
+    hold(before);
+    trim(current);
+  }
+
+  /**
+   * Returns the version before the last edit, remembering the current version so that it can be
+   * redone.
+   *
+   * @param current Snapshot, the current version
+   * @return Snapshot, the version to go back to
+   * @throws IllegalArgumentException if there is nothing to undo
+   */
+  Snapshot undo(Snapshot current) throws IllegalArgumentException {
+    if (undos.isEmpty()) {
+      throw new IllegalArgumentException("Nothing to undo.");
+    }
+    redos.push(current);
+    hold(current);
+    Snapshot version = undos.pop();
+    release(version);
+    return version;
+  }
+
+  /**
+   * Returns the version the last undo went back from, remembering the current version so that it
+   * can be undone again.
+   *
+   * @param current Snapshot, the current version
+   * @return Snapshot, the version to go forward to
+   * @throws IllegalArgumentException if there is nothing to redo
+   */
+  Snapshot redo(Snapshot current) throws IllegalArgumentException {
+    if (redos.isEmpty()) {
+      throw new IllegalArgumentException("Nothing to redo.");
+    }
+    undos.push(current);
+    hold(current);
+    Snapshot version = redos.pop();
+    release(version);
+    return version;
+  }
+
+  /**
+   * Returns the number of edits that can be undone.
+   *
+   * @return Integer, the number of versions before the current one
+   */
+  int getUndoCount() {
+    return undos.size();
+  }
+
+  /**
+   * Returns the number of undone edits that can be redone.
+   *
+   * @return Integer, the number of versions after the current one
+   */
+  int getRedoCount() {
+    return redos.size();
+  }
+
+  /**
+   * Sets the number of bytes of images the history may hold on to, dropping the oldest versions
+   * if it now holds more.
+   *
+   * @param budget  Long, the budget in bytes
+   * @param current List of Layers, the current layers of the model
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  void setBudget(long budget, List<Layer> current) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("budget can't be negative");
+    }
+    this.budget = budget;
+    trim(current);
+  }
+
+  /**
+   * Returns the number of bytes of images the history may hold on to.
+   *
+   * @return Long, the budget in bytes
+   */
+  long getBudget() {
+    return budget;
+  }
+
+  /**
+   * Returns roughly how many bytes of images only the history holds on to, that is the images of
+   * past and undone versions that the current version does not share.
+   *
+   * @param current List of Layers, the current layers of the model
+   * @return Long, the estimated bytes held by the history
+   */
+  long getRetainedBytes(List<Layer> current) {
+    refresh(current);
+    return retainedBytes(current);
+  }
+
+  /**
+   * Returns how many bytes of the images the versions hold the current version does not share,
+   * going by the images the versions held when they were last counted.
+   *
+   * @param current List of Layers, the current layers of the model
+   * @return Long, the estimated bytes held by the history
+   */
+  private long retainedBytes(List<Layer> current) {
+    Set<Image> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+    long sharedBytes = 0;
+    for (Layer layer : current) {
+      for (Image image : layer.getRetainedImages()) {
+        if (holders.containsKey(image) && shared.add(image)) {
+          sharedBytes += bytesOf(image);
+        }
+      }
+    }
+    return bytes - sharedBytes;
+  }
+
+  /**
+   * Drops the oldest undoable versions, and then the furthest redoable ones, until the history
+   * is within its budget.
+   *
+   * @param current List of Layers, the current layers of the model
+   */
+  private void trim(List<Layer> current) {
+    refresh(current);
+    Iterator<Deque<Snapshot>> stacks = List.of(undos, redos).iterator();
+    Deque<Snapshot> stack = stacks.next();
+    while (retainedBytes(current) > budget) {
+      while (stack.isEmpty()) {
+        if (!stacks.hasNext()) {
+          return;
+        }
+        stack = stacks.next();
+      }
+      release(stack.removeLast());
+    }
+  }
+
+  /**
+   * Counts the layers of a version that has been added to the history.
+   *
+   * @param snapshot Snapshot, the version
+   */
+  private void hold(Snapshot snapshot) {
+    for (Layer layer : snapshot.getLayers()) {
+      Entry entry = entries.get(layer);
+      if (entry == null) {
+        entry = new Entry(layer.getRetainedImages());
+        hold(entry.images);
+        entries.put(layer, entry);
+      } else {
+        refresh(layer, entry);
+      }
+      entry.references++;
+    }
+  }
+
+  /**
+   * Stops counting the layers of a version that has left the history.
+   *
+   * @param snapshot Snapshot, the version
+   */
+  private void release(Snapshot snapshot) {
+    for (Layer layer : snapshot.getLayers()) {
+      Entry entry = entries.get(layer);
+      entry.references--;
+      if (entry.references == 0) {
+        entries.remove(layer);
+        release(entry.images);
+      }
+    }
+  }
+
+  /**
+   * Counts the images the given layers hold now, for those of them the history holds, since a
+   * layer may have computed its image or built pyramid levels since it was last counted.
+   *
+   * @param layers List of Layers, the layers
+   */
+  private void refresh(List<Layer> layers) {
+    for (Layer layer : layers) {
+      Entry entry = entries.get(layer);
+      if (entry != null) {
+        refresh(layer, entry);
+      }
+    }
+  }
+
+  /**
+   * Counts the images the given layer holds now instead of those it held when last counted.
+   *
+   * @param layer Layer, the layer
+   * @param entry Entry, the entry of the layer
+   */
+  private void refresh(Layer layer, Entry entry) {
+    List<Image> images = layer.getRetainedImages();
+    hold(images);
+    release(entry.images);
+    entry.images = images;
+  }
+
+  /**
+   * Counts one more holder of each of the given images.
+   *
+   * @param images List of Images, the images
+   */
+  private void hold(List<Image> images) {
+    for (Image image : images) {
+      if (holders.merge(image, 1, Integer::sum) == 1) {
+        bytes += bytesOf(image);
+      }
+    }
+  }
+
+  /**
+   * Counts one less holder of each of the given images.
+   *
+   * @param images List of Images, the images
+   */
+  private void release(List<Image> images) {
+    for (Image image : images) {
+      int count = holders.get(image) - 1;
+      if (count == 0) {
+        holders.remove(image);
+        bytes -= bytesOf(image);
+      } else {
+        holders.put(image, count);
+      }
+    }
+  }
+
+  /**
+   * Returns roughly how many bytes the given image takes.
+   *
+   * @param image Image, the image
+   * @return Long, the estimated bytes of the image
+   */
+  private static long bytesOf(Image image) {
+    return image.getNumPixels()
+        * (image instanceof PackedImage ? BYTES_PER_PACKED_PIXEL : BYTES_PER_PIXEL);
+  }
+}
@@ -1,7 +1,10 @@
 package model;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.util.List;
 import model.effects.IEffect;
+import model.effects.ResampleFilter;
 
 /**
  * Interface representing a model that handles and applies effects to multiple things of type T.
@@ -13,10 +16,24 @@ public interface IEditorModel<T> {
    *
    * @param effect IEffect, applied to the specified item
    * @param index  int, the index of the specified item
-   * @throws IllegalArgumentException if index is out of bounds
+   * @throws IllegalArgumentException if index is out of bounds or the effect can not be applied
+   *                                  to the item
    */
   void applyEffect(IEffect<T> effect, int index) throws IllegalArgumentException;
 
+  /**
+   * Applies the given effect to the specified item, splitting the work of the effect across up
+   * to the given number of threads. The result is the same as applying it on one thread.
+   *
+   * @param effect      IEffect, applied to the specified item
+   * @param index       int, the index of the specified item
+   * @param parallelism int, the largest number of threads the effect may use
+   * @throws IllegalArgumentException if index is out of bounds, parallelism is not positive or
+   *                                  the effect can not be applied to the item
+   */
+  void applyEffect(IEffect<T> effect, int index, int parallelism)
+      throws IllegalArgumentException;
+
   /**
    * Imports the given item into the model's collection.
    *
@@ -25,13 +42,40 @@ public interface IEditorModel<T> {
   void importItem(T input);
 
   /**
-   * Returns the item at the given index.
+   * Returns the item at the given index. Any effects applied to the item that have not yet been
+   * computed are computed first.
    *
    * @param index int, the index of the specified image
    * @return Generic, returns the specified Item
+   * @throws IllegalArgumentException if index is out of bounds or a pending effect failed
    */
   T exportItem(int index);
 
+  /**
+   * Returns the size of the item at the given index, without computing any effect applied to it.
+   *
+   * @param index int, the index of the specified item
+   * @return Dimension, the size of the item once every effect applied to it is computed
+   * @throws IllegalArgumentException if index is out of bounds
+   */
+  Dimension getSize(int index) throws IllegalArgumentException;
+
+  /**
+   * Returns the item at the given index scaled to the given dimensions with the given filter,
+   * without changing the item. A model may scale from a cached smaller copy of the item, so the
+   * result may differ slightly from scaling the item itself.
+   *
+   * @param index  int, the index of the specified item
+   * @param width  int, the width to scale to
+   * @param height int, the height to scale to
+   * @param filter ResampleFilter, the filter to scale with
+   * @return Generic, the scaled item
+   * @throws IllegalArgumentException if index is out of bounds, a dimension is not positive, the
+   *                                  filter is null or a pending effect failed
+   */
+  T exportScaled(int index, int width, int height, ResampleFilter filter)
+      throws IllegalArgumentException;
+
   /**
    * Returns the index of the topmost visible layer.
    * @return
@@ -74,6 +118,103 @@ public interface IEditorModel<T> {
    */
   void moveToTop(int index);
 
+  /**
+   * Sets how the specified layer is blended with the layers below it when they are composited.
+   *
+   * @param index   Integer, index of the specified layer
+   * @param mode    BlendMode, how the layer is blended
+   * @param opacity Integer, the opacity of the layer, from 0 (not blended at all) to 100
+   * @throws IllegalArgumentException if index is invalid, mode is null or opacity is out of range
+   */
+  void setBlend(int index, BlendMode mode, int opacity) throws IllegalArgumentException;
+
+  /**
+   * Returns the blend mode of the specified layer.
+   *
+   * @param index Integer, index of the specified layer
+   * @return BlendMode, how the layer is blended
+   * @throws IllegalArgumentException if index is invalid
+   */
+  BlendMode getBlendMode(int index) throws IllegalArgumentException;
+
+  /**
+   * Returns the opacity of the specified layer.
+   *
+   * @param index Integer, index of the specified layer
+   * @return Integer, the opacity of the layer, from 0 to 100
+   * @throws IllegalArgumentException if index is invalid
+   */
+  int getOpacity(int index) throws IllegalArgumentException;
+
+  /**
+   * Returns every visible layer flattened into one item the size of the bottom layer, each layer
+   * blended over the ones below it with its blend mode and opacity.
+   *
+   * @return Generic, the composite of the visible layers
+   * @throws IllegalArgumentException if there are no layers or a pending effect failed
+   */
+  T exportComposite() throws IllegalArgumentException;
+
+  /**
+   * Returns the composite of the visible layers as a packed image that the model keeps between
+   * calls, recompositing only the region that can have changed since the last call (see
+   * getCompositeChanges).
+   *
+   * @param parallelism Integer, the largest number of threads to composite with
+   * @return PackedImage, the composite, which is changed in place by later calls and must not be
+   *     changed otherwise
+   * @throws IllegalArgumentException if there are no layers, parallelism is not positive or a
+   *                                  pending effect failed
+   */
+  PackedImage getComposite(int parallelism) throws IllegalArgumentException;
+
+  /**
+   * Returns the region of the composite that the last call to getComposite or exportComposite
+   * recomposited, which is the only region that can differ from the composite before it.
+   *
+   * @return Rectangle, the recomposited region, empty if nothing changed
+   */
+  Rectangle getCompositeChanges();
+
+  /**
+   * Undoes the last edit to the items: an applied effect, an import, a removal, a visibility
+   * or blend change or a move.
+   *
+   * @throws IllegalArgumentException if there is nothing to undo
+   */
+  void undo() throws IllegalArgumentException;
+
+  /**
+   * Redoes the last undone edit. Any new edit made after an undo can no longer be redone.
+   *
+   * @throws IllegalArgumentException if there is nothing to redo
+   */
+  void redo() throws IllegalArgumentException;
+
+  /**
+   * Runs the given edits as a single change to the model. If they throw, for example because the
+   * job computing them was cancelled, the model and its undo history go back to exactly how they
+   * were before, and the exception is rethrown.
+   *
+   * @param edits Runnable, the edits to make
+   * @throws IllegalArgumentException if edits is null
+   */
+  void atomically(Runnable edits) throws IllegalArgumentException;
+
+  /**
+   * Returns whether there is an edit to undo.
+   *
+   * @return Boolean, can an edit be undone?
+   */
+  boolean canUndo();
+
+  /**
+   * Returns whether there is an undone edit to redo.
+   *
+   * @return Boolean, can an edit be redone?
+   */
+  boolean canRedo();
+
   /**
    * Removes the specified layer.
    *
@@ -83,10 +224,10 @@ public interface IEditorModel<T> {
   void removeLayer(int index) throws IllegalArgumentException;
 
   /**
-   * Returns the topmost visible layer.
+   * Returns the topmost visible layer, computing any effects still pending on it.
    *
    * @return ImageImpl, the top layer that has a visibility of true.
-   * @throws IllegalArgumentException if all layers are invisible.
+   * @throws IllegalArgumentException if all layers are invisible or a pending effect failed.
    */
   T exportTopLayer() throws IllegalArgumentException;
 
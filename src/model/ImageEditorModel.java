@@ -1,18 +1,49 @@
 package model;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
 import model.effects.IEffect;
+import model.effects.ResampleFilter;
+import model.effects.Resampler;
 
 /**
  * Class representing a model that handles multiple images. A model is represented by a list of
- * images which represent layers and a list of booleans which represent the visibilities of each
- * layer. Has various observer methods to retrieve information from the model.
+ * layers and a list of booleans which represent the visibilities of each layer. Has various
+ * observer methods to retrieve information from the model.
+ *
+ * <p>Effects are not applied when they are requested. Each layer keeps the chain of effects
+ * applied to it and only computes them once its image is exported, so adjacent color matrix
+ * effects run as a single pass and layers removed before they are exported are never computed.
+ * Effects that need a larger layer than they are applied to are still refused straight away.
+ *
+ * <p>The model can also keep a power of two pyramid of each layer (see setPyramidCaching), built
+ * one level at a time as levels are needed. Scaled exports of a layer then start from the nearest
+ * cached level rather than the full image, which makes repeated thumbnails and zoomed out previews
+ * of large layers cheap, at the cost of about a third more memory per layer and previews that are
+ * a close approximation rather than an exact resample. Edits stay exact: only box filtered
+ * halvings reuse a level, the first, which is exactly the halved image.
+ *
+ * <p>Every edit (an effect, an import, a removal, a visibility or blend change or a move) can be
+ * undone and redone. The history keeps whole versions of the lists of layers, but since layers
+ * never change, versions share every layer an edit did not touch, and only the images of changed
+ * layers cost memory. The oldest versions are dropped when those images go over the history
+ * budget.
+ *
+ * <p>Each layer also has a blend mode and an opacity, which decide how it is composited over the
+ * layers below it when the visible layers are flattened (see exportComposite). The composite is
+ * kept between exports, and only the region covered by layers that changed is recomposited.
  */
 public class ImageEditorModel implements IEditorModel<ImageImpl> {
 
-  private List<ImageImpl> layers;
+  private List<Layer> layers;
   private List<Boolean> visibilities;
+  private List<BlendMode> modes;
+  private List<Integer> opacities;
+  private boolean pyramids;
+  private final History history;
+  private final Compositor compositor;
 
   /**
    * Basic Constructor (sets all visibilities to true).
@@ -24,10 +55,17 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
     if (layers == null) {
       throw new IllegalArgumentException("layers can't be null");
     }
-    this.layers = layers;
+    this.layers = new ArrayList<>();
     this.visibilities = new ArrayList<>();
-    for (int i = 0; i < layers.size(); i++) {
+    this.modes = new ArrayList<>();
+    this.opacities = new ArrayList<>();
+    this.history = new History();
+    this.compositor = new Compositor();
+    for (ImageImpl layer : layers) {
+      this.layers.add(new Layer(layer));
       visibilities.add(true);
+      modes.add(BlendMode.NORMAL);
+      opacities.add(100);
     }
   }
 
@@ -37,17 +75,73 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
   public ImageEditorModel() {
     this.layers = new ArrayList<>();
     this.visibilities = new ArrayList<>();
+    this.modes = new ArrayList<>();
+    this.opacities = new ArrayList<>();
+    this.history = new History();
+    this.compositor = new Compositor();
   }
 
   @Override
   public void applyEffect(IEffect<ImageImpl> effect, int index) throws IllegalArgumentException {
+    applyEffect(effect, index, 1);
+  }
+
+  @Override
+  public void applyEffect(IEffect<ImageImpl> effect, int index, int parallelism)
+      throws IllegalArgumentException {
     if (index < 0 || index > layers.size() - 1) {
       throw new IllegalArgumentException("Index out of bounds");
     }
-    ImageImpl imageImpl = layers.get(index);
-    imageImpl = effect.apply(imageImpl);
-    layers.remove(index);
-    layers.add(index, imageImpl);
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    if (effect == null) {
+      throw new IllegalArgumentException("null effect");
+    }
+    Layer layer = layers.get(index);
+    if (pyramids && layer.isEvaluated() && effect.getResampleFilter() == ResampleFilter.BOX) {
+      //start the pyramid so that the new layer can take its first level
+      layer.getPyramid();
+    }
+    History.Snapshot before = snapshot();
+    layers.set(index, layer.withEffect(effect, parallelism));
+    history.record(before, layers);
+  }
+
+  /**
+   * Sets whether the model keeps a pyramid of each layer to scale from. Layers that already have
+   * a pyramid keep it when caching is turned off, but no new pyramids are started.
+   *
+   * @param enabled Boolean, should pyramids be kept?
+   */
+  public void setPyramidCaching(boolean enabled) {
+    this.pyramids = enabled;
+  }
+
+  /**
+   * Returns whether the model keeps a pyramid of each layer to scale from.
+   *
+   * @return Boolean, are pyramids kept?
+   */
+  public boolean isPyramidCaching() {
+    return pyramids;
+  }
+
+  @Override
+  public ImageImpl exportScaled(int index, int width, int height, ResampleFilter filter)
+      throws IllegalArgumentException {
+    if (index < 0 || index > layers.size() - 1) {
+      throw new IllegalArgumentException("Index out of bounds");
+    }
+    if (width <= 0 || height <= 0 || filter == null) {
+      throw new IllegalArgumentException("invalid width, height or filter");
+    }
+    Layer layer = layers.get(index);
+    if (pyramids || layer.hasPyramid()) {
+      return layer.getPyramid().scale(width, height, filter, 1).toImageImpl();
+    }
+    return Resampler.resample(new PackedImage(layer.getImage()), width, height, filter)
+        .toImageImpl();
   }
 
   @Override
@@ -55,8 +149,12 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
     if (imageImpl == null) {
       throw new IllegalArgumentException("null image");
     }
-    layers.add(imageImpl);
+    History.Snapshot before = snapshot();
+    layers.add(new Layer(imageImpl));
     visibilities.add(true);
+    modes.add(BlendMode.NORMAL);
+    opacities.add(100);
+    history.record(before, layers);
   }
 
   @Override
@@ -64,7 +162,7 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
     if (index < 0 || index > layers.size() - 1) {
       throw new IllegalArgumentException("Index out of bounds");
     }
-    return layers.get(index);
+    return layers.get(index).getImage();
   }
 
   @Override
@@ -77,6 +175,14 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
     return 0;
   }
 
+  @Override
+  public Dimension getSize(int index) throws IllegalArgumentException {
+    if (index < 0 || index > layers.size() - 1) {
+      throw new IllegalArgumentException("Index out of bounds");
+    }
+    return layers.get(index).getSize();
+  }
+
   @Override
   public int getLayerCount() {
     return layers.size();
@@ -86,7 +192,7 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
   public ImageImpl exportTopLayer() throws IllegalArgumentException {
     for (int i = layers.size() - 1; i > -1; i--) {
       if (visibilities.get(i)) {
-        return layers.get(i);
+        return layers.get(i).getImage();
       }
     }
     throw new IllegalArgumentException("No visible layers.");
@@ -97,11 +203,15 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
     if (index < 0 || index >= layers.size()) {
       throw new IllegalArgumentException("Index out of bounds");
     }
+    History.Snapshot before = snapshot();
     layers.remove(index);
     visibilities.remove(index);
+    modes.remove(index);
+    opacities.remove(index);
     if (visibilities.size() == 1) {
       visibilities.set(0,true);
     }
+    history.record(before, layers);
   }
 
   @Override
@@ -110,7 +220,11 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
       throw new IllegalArgumentException("Index out of bounds");
     }
     if (index != 0) {
-      visibilities.set(index, b);
+      if (visibilities.get(index) != b) {
+        History.Snapshot before = snapshot();
+        visibilities.set(index, b);
+        history.record(before, layers);
+      }
     } else {
       if (!b) {
         throw new IllegalArgumentException("Bottom layer can not be transparent.");
@@ -120,8 +234,10 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
 
   @Override
   public List<ImageImpl> exportAll() {
-    List list = new ArrayList();
-    list.addAll(layers);
+    List<ImageImpl> list = new ArrayList<>();
+    for (Layer layer : layers) {
+      list.add(layer.getImage());
+    }
     return list;
   }
 
@@ -135,11 +251,149 @@ public class ImageEditorModel implements IEditorModel<ImageImpl> {
     if (index < 0 || index > this.layers.size() - 1) {
       throw new IllegalArgumentException("Index out of bounds");
     }
-    ImageImpl layer = layers.get(index);
-    Boolean vis = visibilities.get(index);
-    removeLayer(index);
-    importItem(layer);
-    setVisibility(this.layers.size() - 1, vis);
+    if (index == layers.size() - 1) {
+      return;
+    }
+    History.Snapshot before = snapshot();
+    Layer layer = layers.remove(index);
+    Boolean vis = visibilities.remove(index);
+    if (visibilities.size() == 1) {
+      visibilities.set(0,true);
+    }
+    layers.add(layer);
+    visibilities.add(vis);
+    modes.add(modes.remove(index));
+    opacities.add(opacities.remove(index));
+    history.record(before, layers);
+  }
+
+  @Override
+  public void setBlend(int index, BlendMode mode, int opacity) throws IllegalArgumentException {
+    if (index < 0 || index >= layers.size()) {
+      throw new IllegalArgumentException("Index out of bounds");
+    }
+    if (mode == null || opacity < 0 || opacity > 100) {
+      throw new IllegalArgumentException("invalid blend mode or opacity");
+    }
+    if (modes.get(index) != mode || opacities.get(index) != opacity) {
+      History.Snapshot before = snapshot();
+      modes.set(index, mode);
+      opacities.set(index, opacity);
+      history.record(before, layers);
+    }
+  }
+
+  @Override
+  public BlendMode getBlendMode(int index) throws IllegalArgumentException {
+    if (index < 0 || index >= layers.size()) {
+      throw new IllegalArgumentException("Index out of bounds");
+    }
+    return modes.get(index);
+  }
+
+  @Override
+  public int getOpacity(int index) throws IllegalArgumentException {
+    if (index < 0 || index >= layers.size()) {
+      throw new IllegalArgumentException("Index out of bounds");
+    }
+    return opacities.get(index);
+  }
+
+  @Override
+  public ImageImpl exportComposite() throws IllegalArgumentException {
+    return getComposite(1).toImageImpl();
+  }
+
+  @Override
+  public PackedImage getComposite(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    compositor.update(layers, visibilities, modes, opacities, parallelism);
+    return compositor.getImage();
+  }
+
+  @Override
+  public Rectangle getCompositeChanges() {
+    return compositor.getChanged();
+  }
+
+  @Override
+  public void undo() throws IllegalArgumentException {
+    restore(history.undo(snapshot()));
+  }
+
+  @Override
+  public void redo() throws IllegalArgumentException {
+    restore(history.redo(snapshot()));
+  }
+
+  @Override
+  public void atomically(Runnable edits) throws IllegalArgumentException {
+    if (edits == null) {
+      throw new IllegalArgumentException("null edits");
+    }
+    History.Snapshot before = snapshot();
+    History saved = new History(history);
+    try {
+      edits.run();
+    } catch (RuntimeException e) {
+      restore(before);
+      history.revert(saved);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean canUndo() {
+    return history.getUndoCount() > 0;
+  }
+
+  @Override
+  public boolean canRedo() {
+    return history.getRedoCount() > 0;
+  }
+
+  /**
+   * Sets roughly how many bytes of images the undo history may hold on to. The oldest versions
+   * are dropped to stay within it, and a budget of 0 keeps no history of edits that change an
+   * image.
+   *
+   * @param bytes Long, the budget in bytes
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public void setHistoryBudget(long bytes) throws IllegalArgumentException {
+    history.setBudget(bytes, layers);
+  }
+
+  /**
+   * Returns roughly how many bytes of images only the undo history holds on to.
+   *
+   * @return Long, the estimated bytes held by the history
+   */
+  public long getHistoryBytes() {
+    return history.getRetainedBytes(layers);
+  }
+
+  /**
+   * Returns a snapshot of the current version of the model.
+   *
+   * @return Snapshot, the current layers, visibilities, blend modes and opacities
+   */
+  private History.Snapshot snapshot() {
+    return new History.Snapshot(layers, visibilities, modes, opacities);
+  }
+
+  /**
+   * Makes the given version the current version of the model.
+   *
+   * @param version Snapshot, the version to go to
+   */
+  private void restore(History.Snapshot version) {
+    layers = new ArrayList<>(version.getLayers());
+    visibilities = new ArrayList<>(version.getVisibilities());
+    modes = new ArrayList<>(version.getModes());
+    opacities = new ArrayList<>(version.getOpacities());
   }
 
 }
@@ -1,24 +1,32 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Class representing an ImageImpl. Each image has a list of pixels, a width and a height.
  * Images may be generated programmatically, such as a checkerboard or rainbow. The width,
  * height, and pixel count of the image may be printed to a string. Values may be observed
- * with various getters and setters. Pixels may be clamped.
+ * with various getters and setters. Pixels may be clamped. Pixels are looked up by coordinate
+ * through a row-major index that is built the first time it is needed. The pixels are handed out
+ * read-only, so the index only has to be rebuilt when pixels are added to or removed from the
+ * list the image was constructed with.
  */
 public class ImageImpl implements Image {
 
   private final List<Pixel> pixels;
+  private final List<Pixel> view;
   private final int width;
   private final int height;
+  private volatile PixelIndex index;
 
   /**
    * Constructor for an image.
    *
-   * @param pixels List, the list of pixels that make up the image.
+   * @param pixels List, the list of pixels that make up the image, which is not copied; pixels
+   *               may be added to or removed from it later, but not replaced.
    * @param width  Integer, the width of the image.
    * @param height Integer, the height of the image.
    * @throws IllegalArgumentException if a parameter is invalid.
@@ -28,6 +36,7 @@ public class ImageImpl implements Image {
       throw new IllegalArgumentException("Invalid parameters");
     }
     this.pixels = pixels;
+    this.view = Collections.unmodifiableList(pixels);
     this.width = width;
     this.height = height;
   }
@@ -45,6 +54,7 @@ public class ImageImpl implements Image {
     this.width = dimension;
     this.height = dimension;
     this.pixels = makeRainbow();
+    this.view = Collections.unmodifiableList(pixels);
   }
 
   /**
@@ -61,6 +71,7 @@ public class ImageImpl implements Image {
     this.width = dimension;
     this.height = dimension;
     this.pixels = makeCheckerBoard(squaresPerLine);
+    this.view = Collections.unmodifiableList(pixels);
   }
 
   /**
@@ -154,20 +165,36 @@ public class ImageImpl implements Image {
   }
 
 
+  /**
+   * Returns a read-only view of the pixels in the image, so the coordinate index can not be left
+   * out of date by replacing a pixel.
+   *
+   * @return List of Pixels, the pixels in the image
+   */
   @Override
   public List<Pixel> getPixels() {
-    return pixels;
+    return view;
   }
 
 
   /**
-   * Retrieves pixel at specified coordinates.
+   * Retrieves pixel at specified coordinates. If more than one pixel has the coordinates, the one
+   * that appears last in the list of pixels is returned. Runs in constant time for coordinates
+   * inside of the image.
    *
    * @param x x coordinate of pixel
    * @param y y coordinate of pixel
-   * @return the specified pixel
+   * @return the specified pixel, or null if the image has no pixel at those coordinates
    */
   public Pixel getPixelAt(int x, int y) {
+    PixelIndex current = getIndex();
+    if (x >= 0 && y >= 0 && x < width && y < height) {
+      int position = current.slots[y * width + x];
+      return position == 0 ? null : pixels.get(position - 1);
+    }
+    if (!current.hasStrayPixels) {
+      return null;
+    }
     Pixel pix = null;
     for (Pixel pixel : pixels) {
       if (pixel.getX() == x && pixel.getY() == y) {
@@ -177,6 +204,64 @@ public class ImageImpl implements Image {
     return pix;
   }
 
+  /**
+   * Returns a new image with a pixel at every coordinate this image has a pixel, in the same
+   * order, colored from the given raster. Pixels that lie outside of the raster keep their color.
+   *
+   * @param colors PackedImage, the raster to read the new colors from
+   * @return ImageImpl, the recolored image
+   * @throws IllegalArgumentException if the raster is null or has different dimensions
+   */
+  public ImageImpl recolor(PackedImage colors) throws IllegalArgumentException {
+    return recolor(colors, 1);
+  }
+
+  /**
+   * Returns a new image with a pixel at every coordinate this image has a pixel, in the same
+   * order, colored from the given raster, creating the new pixels on up to the given number of
+   * threads. Pixels that lie outside of the raster keep their color.
+   *
+   * @param colors      PackedImage, the raster to read the new colors from
+   * @param parallelism Integer, the largest number of threads to use
+   * @return ImageImpl, the recolored image
+   * @throws IllegalArgumentException if the raster is null or has different dimensions
+   */
+  public ImageImpl recolor(PackedImage colors, int parallelism) throws IllegalArgumentException {
+    if (colors == null || colors.getWidth() != width || colors.getHeight() != height) {
+      throw new IllegalArgumentException("raster must match the dimensions of the image");
+    }
+    int[] raster = colors.getRaster();
+    Pixel[] recolored = new Pixel[pixels.size()];
+    TileExecutor.forEachPixelBand(recolored.length, width, height, parallelism, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        Pixel pixel = pixels.get(i);
+        int x = pixel.getX();
+        int y = pixel.getY();
+        if (x < width && y < height) {
+          int rgb = raster[y * width + x];
+          recolored[i] = new Pixel(x, y, (rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff);
+        } else {
+          recolored[i] = new Pixel(x, y, pixel.getR(), pixel.getG(), pixel.getB());
+        }
+      }
+    });
+    return new ImageImpl(new ArrayList<>(Arrays.asList(recolored)), width, height);
+  }
+
+  /**
+   * Returns the coordinate index of this image, rebuilding it if pixels have been added to or
+   * removed from the list since it was last built.
+   *
+   * @return PixelIndex, an up to date index of the pixels in this image
+   */
+  private PixelIndex getIndex() {
+    PixelIndex current = index;
+    if (current == null || current.size != pixels.size()) {
+      current = new PixelIndex(pixels, width, height);
+      index = current;
+    }
+    return current;
+  }
 
   /**
    * Returns the value of the specified color of the pixel at the given x,y coordinates.
@@ -195,5 +280,37 @@ public class ImageImpl implements Image {
     return p.getColor(color);
   }
 
+  /**
+   * Class representing a row-major lookup table from coordinates to positions in a list of
+   * pixels. A slot holds the position of the pixel plus one, or zero if there is no pixel at
+   * those coordinates.
+   */
+  private static final class PixelIndex {
+
+    private final int[] slots;
+    private final int size;
+    private final boolean hasStrayPixels;
 
+    /**
+     * Builds an index over the given pixels.
+     *
+     * @param pixels List of Pixels, the pixels to index
+     * @param width  Integer, the width of the image
+     * @param height Integer, the height of the image
+     */
+    private PixelIndex(List<Pixel> pixels, int width, int height) {
+      this.slots = new int[width * height];
+      this.size = pixels.size();
+      boolean stray = false;
+      for (int i = 0; i < size; i++) {
+        Pixel pixel = pixels.get(i);
+        if (pixel.getX() < width && pixel.getY() < height) {
+          slots[pixel.getY() * width + pixel.getX()] = i + 1;
+        } else {
+          stray = true;
+        }
+      }
+      this.hasStrayPixels = stray;
+    }
+  }
 }
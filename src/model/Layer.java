@@ -0,0 +1,214 @@
+package model;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import model.effects.ColorMatrixEffect;
+import model.effects.IEffect;
+import model.effects.ResampleFilter;
+
+/**
+ * Class representing one layer of an ImageEditorModel. A layer holds an image together with the
+ * effects that have been applied to it but not yet computed. The effects are only run when the
+ * image of the layer is asked for, at which point adjacent color matrix effects are fused into a
+ * single pass. A layer never changes once created; applying an effect returns a new layer that
+ * shares the image and earlier effects of this one. The size of the image is known without
+ * computing it, so an effect that can not be applied to an image of that size, such as a downscale
+ * of a single pixel, is refused when it is applied rather than when the image is computed.
+ *
+ * <p>A layer may also keep the Pyramid of its image once one is asked for, to serve scaled
+ * previews from. Edits never use its approximate deeper levels, only the first one, which is
+ * exactly what halving the image with a box filter gives: a box filtered halving of a layer with a
+ * pyramid takes that level and keeps the lower levels as the pyramid of the new image, so
+ * repeated halvings of a layer only ever build each level once.
+ */
+final class Layer {
+
+  private final ImageImpl base;
+  private final Pyramid basePyramid;
+  private final List<IEffect<ImageImpl>> pending;
+  private final List<Integer> parallelisms;
+  private final int width;
+  private final int height;
+  private ImageImpl result;
+  private Pyramid pyramid;
+
+  /**
+   * Constructor for a layer with no pending effects.
+   *
+   * @param image ImageImpl, the image of the layer
+   */
+  Layer(ImageImpl image) {
+    this(image, null, Collections.emptyList(), Collections.emptyList(), image.getWidth(),
+        image.getHeight());
+  }
+
+  /**
+   * Constructor for a layer with pending effects.
+   *
+   * @param base         ImageImpl, the image the effects are applied to
+   * @param basePyramid  Pyramid, the pyramid of the base image, or null if there is none
+   * @param pending      List of IEffects, the effects to apply, in order
+   * @param parallelisms List of Integers, the parallelism of each effect
+   * @param width        Integer, the width of the image once the effects are applied
+   * @param height       Integer, the height of the image once the effects are applied
+   */
+  private Layer(ImageImpl base, Pyramid basePyramid, List<IEffect<ImageImpl>> pending,
+      List<Integer> parallelisms, int width, int height) {
+    this.base = base;
+    this.basePyramid = basePyramid;
+    this.pending = pending;
+    this.parallelisms = parallelisms;
+    this.width = width;
+    this.height = height;
+    this.result = pending.isEmpty() ? base : null;
+    this.pyramid = pending.isEmpty() ? basePyramid : null;
+  }
+
+  /**
+   * Returns a new layer with the given effect added to the end of the pending effects. Nothing is
+   * computed until the image of the new layer is asked for.
+   *
+   * @param effect      IEffect, the effect to apply
+   * @param parallelism Integer, the largest number of threads the effect may use
+   * @return Layer, the layer with the effect applied
+   * @throws IllegalArgumentException if the effect can not be applied to an image of this size
+   */
+  synchronized Layer withEffect(IEffect<ImageImpl> effect, int parallelism)
+      throws IllegalArgumentException {
+    Dimension size = effect.getResultSize(width, height);
+    if (result != null) {
+      return new Layer(result, pyramid, Collections.singletonList(effect),
+          Collections.singletonList(parallelism), size.width, size.height);
+    }
+    List<IEffect<ImageImpl>> effects = new ArrayList<>(pending);
+    effects.add(effect);
+    List<Integer> levels = new ArrayList<>(parallelisms);
+    levels.add(parallelism);
+    return new Layer(base, basePyramid, Collections.unmodifiableList(effects),
+        Collections.unmodifiableList(levels), size.width, size.height);
+  }
+
+  /**
+   * Returns the size of the image of this layer, without computing any pending effect.
+   *
+   * @return Dimension, the size of the image once every pending effect is applied
+   */
+  Dimension getSize() {
+    return new Dimension(width, height);
+  }
+
+  /**
+   * Returns whether the image of this layer has already been computed.
+   *
+   * @return Boolean, are there no effects left to compute?
+   */
+  synchronized boolean isEvaluated() {
+    return result != null;
+  }
+
+  /**
+   * Returns the number of effects that have been applied to this layer but not yet computed.
+   *
+   * @return Integer, the number of pending effects
+   */
+  synchronized int getPendingCount() {
+    return result == null ? pending.size() : 0;
+  }
+
+  /**
+   * Returns the image of this layer, computing any pending effects first. Runs of adjacent color
+   * matrix effects are fused into one effect. A box filtered halving takes the first level of the
+   * pyramid of the image it is applied to, when there is one. The image is kept once computed,
+   * unless an effect fails, in which case nothing is kept and every later call fails the same way.
+   *
+   * @return ImageImpl, the image with every pending effect applied
+   * @throws IllegalArgumentException if a pending effect could not be applied
+   */
+  synchronized ImageImpl getImage() throws IllegalArgumentException {
+    if (result != null) {
+      return result;
+    }
+    ImageImpl image = base;
+    Pyramid levels = basePyramid;
+    int i = 0;
+    while (i < pending.size()) {
+      IEffect<ImageImpl> effect = pending.get(i);
+      int parallelism = parallelisms.get(i);
+      i++;
+      if (effect instanceof ColorMatrixEffect) {
+        ColorMatrixEffect fused = (ColorMatrixEffect) effect;
+        while (i < pending.size() && pending.get(i) instanceof ColorMatrixEffect) {
+          fused = fused.then((ColorMatrixEffect) pending.get(i));
+          parallelism = Math.max(parallelism, parallelisms.get(i));
+          i++;
+        }
+        effect = fused;
+      }
+      try {
+        Dimension size = effect.getResultSize(image.getWidth(), image.getHeight());
+        //deeper levels are only close to what resampling the image gives, so edits skip them
+        if (levels != null && effect.getResampleFilter() == ResampleFilter.BOX
+            && levels.getLevelCount() > 1 && size.width == levels.getWidth(1)
+            && size.height == levels.getHeight(1)) {
+          image = levels.getLevel(1, parallelism).toImageImpl();
+          levels = levels.from(1);
+        } else {
+          image = effect.apply(image, parallelism);
+          levels = null;
+        }
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Effect could not be applied: " + e.getMessage());
+      }
+    }
+    result = image;
+    pyramid = levels;
+    return result;
+  }
+
+  /**
+   * Returns the images this layer holds on to: the image its pending effects are applied to,
+   * once computed the image with those effects applied, and the levels built so far of the
+   * pyramids of both.
+   *
+   * @return List of Images, the images of this layer
+   */
+  synchronized List<Image> getRetainedImages() {
+    List<Image> images = new ArrayList<>();
+    images.add(base);
+    if (result != null && result != base) {
+      images.add(result);
+    }
+    if (basePyramid != null) {
+      images.addAll(basePyramid.getBuiltLevels());
+    }
+    if (pyramid != null && pyramid != basePyramid) {
+      images.addAll(pyramid.getBuiltLevels());
+    }
+    return images;
+  }
+
+  /**
+   * Returns the pyramid of the image of this layer, computing the image and starting the pyramid
+   * first if needed. Only level 0 exists until lower levels are asked for.
+   *
+   * @return Pyramid, the pyramid of the image of this layer
+   * @throws IllegalArgumentException if a pending effect could not be applied
+   */
+  synchronized Pyramid getPyramid() throws IllegalArgumentException {
+    if (pyramid == null) {
+      pyramid = new Pyramid(new PackedImage(getImage()));
+    }
+    return pyramid;
+  }
+
+  /**
+   * Returns whether this layer keeps the pyramid of its image.
+   *
+   * @return Boolean, has the pyramid been started?
+   */
+  synchronized boolean hasPyramid() {
+    return pyramid != null;
+  }
+}
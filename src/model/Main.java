@@ -1,6 +1,7 @@
 package model;
 
 
+import controller.BatchRunner;
 import controller.ImageAppendableController;
 import controller.ImageViewController;
 import java.io.IOException;
@@ -19,6 +20,7 @@ public class Main {
     ImageEditorModel model = new ImageEditorModel();
     Appendable out = System.out;
     if (args.length == 0) {
+      model.setPyramidCaching(true);
       ImageViewController vcInteract = new ImageViewController(model);
       return;
     }
@@ -29,11 +31,39 @@ public class Main {
         break;
       case "-script":
         ImageAppendableController acScript = new ImageAppendableController(model, out);
-        acScript.run(new StringReader("file " + args[1]));
+        acScript.file(args[1]);
         acScript.run(new StringReader("quit"));
         break;
+      case "-batch":
+        String usage =
+            "usage: -batch script inputGlob outDir [threads | decoders,transformers,encoders]";
+        if (args.length < 4 || args.length > 5) {
+          throw new IllegalArgumentException(usage);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        //decoding and encoding are mostly waiting on the disk, the script is all computing
+        int[] threads = {2, cores, 2};
+        if (args.length > 4) {
+          String[] counts = args[4].split(",", -1);
+          if (counts.length != 1 && counts.length != threads.length) {
+            throw new IllegalArgumentException(usage);
+          }
+          try {
+            for (int i = 0; i < threads.length; i++) {
+              threads[i] = Integer.parseInt(counts[counts.length == 1 ? 0 : i]);
+            }
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(usage);
+          }
+        }
+        if (new BatchRunner(args[1], args[2], args[3], threads[0], threads[1], threads[2], out)
+            .run() > 0) {
+          System.exit(1);
+        }
+        break;
       case "":
       case "-interactive":
+        model.setPyramidCaching(true);
         ImageViewController vcInteract = new ImageViewController(model);
         break;
       default:
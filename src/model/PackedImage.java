@@ -0,0 +1,245 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing an image backed by a single packed integer raster. Each pixel is stored as
+ * one integer in the form 0xRRGGBB, in row-major order (index = y * width + x), so an image costs
+ * roughly four bytes per pixel and no Pixel objects are allocated unless they are asked for.
+ * Pixels may be read and written by coordinate, and the image may be converted to and from an
+ * ImageImpl so that existing effects can run on it.
+ */
+public class PackedImage implements Image {
+
+  private final int[] raster;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructor for a black image of the given dimensions.
+   *
+   * @param width  Integer, the width of the image
+   * @param height Integer, the height of the image
+   * @throws IllegalArgumentException if a dimension is invalid
+   */
+  public PackedImage(int width, int height) throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid parameters");
+    }
+    this.width = width;
+    this.height = height;
+    this.raster = new int[width * height];
+  }
+
+  /**
+   * Constructor for an image that wraps the given raster. The raster is not copied.
+   *
+   * @param raster Integer array, the packed 0xRRGGBB values in row-major order
+   * @param width  Integer, the width of the image
+   * @param height Integer, the height of the image
+   * @throws IllegalArgumentException if a parameter is invalid or the raster is the wrong size
+   */
+  public PackedImage(int[] raster, int width, int height) throws IllegalArgumentException {
+    if (raster == null || width <= 0 || height <= 0 || raster.length != width * height) {
+      throw new IllegalArgumentException("Invalid parameters");
+    }
+    this.raster = raster;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Constructor that copies the pixels of any image into a new raster. Coordinates that have no
+   * pixel in the given image are black, and pixels outside of its dimensions are ignored.
+   *
+   * @param image Image, the image to copy
+   * @throws IllegalArgumentException if the image is null
+   */
+  public PackedImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+    if (image instanceof PackedImage) {
+      this.raster = ((PackedImage) image).raster.clone();
+      return;
+    }
+    this.raster = new int[width * height];
+    for (Pixel pixel : image.getPixels()) {
+      if (pixel.getX() < width && pixel.getY() < height) {
+        raster[pixel.getY() * width + pixel.getX()] = pixel.getRGB();
+      }
+    }
+  }
+
+  /**
+   * Packs the given channel values into a single integer of the form 0xRRGGBB. Each channel is
+   * clamped to the range 0 to 255.
+   *
+   * @param r Integer, the red channel value
+   * @param g Integer, the green channel value
+   * @param b Integer, the blue channel value
+   * @return Integer, the packed rgb value
+   */
+  public static int pack(int r, int g, int b) {
+    return (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+  }
+
+  /**
+   * Returns a clamped version of the given channel value.
+   *
+   * @param x Integer, the value to clamp
+   * @return Integer, the value clamped to the range 0 to 255
+   */
+  private static int clamp(int x) {
+    if (x > 255) {
+      return 255;
+    }
+    if (x < 0) {
+      return 0;
+    }
+    return x;
+  }
+
+  @Override
+  public String toString() {
+    return "Width: " + width + " Height: " + height + " Pixel Count: " + raster.length;
+  }
+
+  @Override
+  public int getNumPixels() {
+    return raster.length;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns a read-only, row-major view of the pixels in the image. Pixels are created as they
+   * are read, so prefer getRGBAt or getRaster for bulk access.
+   *
+   * @return List of Pixels, the pixels in the image
+   */
+  @Override
+  public List<Pixel> getPixels() {
+    return new AbstractList<Pixel>() {
+      @Override
+      public Pixel get(int index) {
+        if (index < 0 || index >= raster.length) {
+          throw new IndexOutOfBoundsException("Index out of bounds");
+        }
+        int rgb = raster[index];
+        return new Pixel(index % width, index / width, (rgb >> 16) & 0xff, (rgb >> 8) & 0xff,
+            rgb & 0xff);
+      }
+
+      @Override
+      public int size() {
+        return raster.length;
+      }
+    };
+  }
+
+  /**
+   * Returns the backing raster of the image. Changes to the array are reflected in the image.
+   *
+   * @return Integer array, the packed 0xRRGGBB values in row-major order
+   */
+  public int[] getRaster() {
+    return raster;
+  }
+
+  /**
+   * Returns the packed rgb value of the pixel at the given coordinates.
+   *
+   * @param x Integer, the x coordinate of the pixel
+   * @param y Integer, the y coordinate of the pixel
+   * @return Integer, the rgb value of the pixel in the form 0xRRGGBB
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  public int getRGBAt(int x, int y) throws IllegalArgumentException {
+    return raster[indexOf(x, y)];
+  }
+
+  /**
+   * Sets the packed rgb value of the pixel at the given coordinates.
+   *
+   * @param x   Integer, the x coordinate of the pixel
+   * @param y   Integer, the y coordinate of the pixel
+   * @param rgb Integer, the new rgb value of the pixel in the form 0xRRGGBB
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  public void setRGBAt(int x, int y, int rgb) throws IllegalArgumentException {
+    raster[indexOf(x, y)] = rgb & 0xffffff;
+  }
+
+  /**
+   * Returns the value of the specified color of the pixel at the given x,y coordinates.
+   *
+   * @param color ColorType, the specified color value to return
+   * @param x     Integer, the x coordinate of the specified pixel
+   * @param y     Integer, the y coordinate of the specified pixel
+   * @return Integer, the specified color value of the specified pixel
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  public int getColorAt(ColorType color, int x, int y) throws IllegalArgumentException {
+    int rgb = getRGBAt(x, y);
+    switch (color) {
+      case RED:
+        return (rgb >> 16) & 0xff;
+      case GREEN:
+        return (rgb >> 8) & 0xff;
+      case BLUE:
+        return rgb & 0xff;
+      default:
+        throw new IllegalArgumentException("Color not supported");
+    }
+  }
+
+  /**
+   * Creates a pixel holding the color at the given coordinates.
+   *
+   * @param x Integer, the x coordinate of the pixel
+   * @param y Integer, the y coordinate of the pixel
+   * @return Pixel, a new pixel with the coordinates and color of the specified pixel
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  public Pixel getPixelAt(int x, int y) throws IllegalArgumentException {
+    int rgb = getRGBAt(x, y);
+    return new Pixel(x, y, (rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff);
+  }
+
+  /**
+   * Converts this image into an ImageImpl with one pixel per coordinate, in row-major order.
+   *
+   * @return ImageImpl, a copy of this image
+   */
+  public ImageImpl toImageImpl() {
+    return new ImageImpl(new ArrayList<>(getPixels()), width, height);
+  }
+
+  /**
+   * Returns the raster index of the given coordinates.
+   *
+   * @param x Integer, the x coordinate
+   * @param y Integer, the y coordinate
+   * @return Integer, the index of the coordinates in the raster
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  private int indexOf(int x, int y) throws IllegalArgumentException {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      throw new IllegalArgumentException("Pixel not contained in Image");
+    }
+    return y * width + x;
+  }
+}
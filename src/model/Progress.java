@@ -0,0 +1,116 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Class representing the progress of a long running job, such as computing the effects pending
+ * on a layer: how many rows of images it has finished, and whether it has been asked to stop. A
+ * job runs with a progress through runWith, and every band of rows the TileExecutor processes for
+ * it is counted once it is done. Cancelling is cooperative: the job stops with a
+ * CancellationException before the next band it would have started, leaving the image it was
+ * computing unfinished and unused.
+ */
+public final class Progress {
+
+  private static final ThreadLocal<Progress> CURRENT = new ThreadLocal<>();
+
+  private final LongConsumer listener;
+  private final AtomicLong rows;
+  private volatile boolean cancelled;
+
+  /**
+   * Constructor for the progress of a job that has not started.
+   *
+   * @param listener LongConsumer, called with the number of rows finished so far every time a
+   *                 band is finished, from whichever thread finished it, or null for no calls
+   */
+  public Progress(LongConsumer listener) {
+    this.listener = listener;
+    this.rows = new AtomicLong();
+  }
+
+  /**
+   * Runs the given job on the calling thread, counting its rows with this progress. Bands the
+   * job hands to other threads are counted as well.
+   *
+   * @param job Runnable, the job to run
+   * @throws CancellationException if the job was cancelled before or while it ran
+   * @throws IllegalArgumentException if the job is null
+   */
+  public void runWith(Runnable job) throws CancellationException, IllegalArgumentException {
+    if (job == null) {
+      throw new IllegalArgumentException("null job");
+    }
+    Progress previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      check();
+      job.run();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Asks the job to stop before the next band of rows it starts.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Returns whether the job has been asked to stop.
+   *
+   * @return Boolean, has the job been cancelled?
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Returns the number of rows the job has finished so far, over every image it has processed.
+   *
+   * @return Long, the number of rows finished
+   */
+  public long getRows() {
+    return rows.get();
+  }
+
+  /**
+   * Returns the progress of the job running on the calling thread.
+   *
+   * @return Progress, the progress, or null if no job with a progress is running
+   */
+  static Progress current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Stops the job if it has been cancelled.
+   *
+   * @throws CancellationException if the job has been cancelled
+   */
+  void check() throws CancellationException {
+    if (cancelled) {
+      throw new CancellationException("Job cancelled");
+    }
+  }
+
+  /**
+   * Counts the given number of finished rows.
+   *
+   * @param done Integer, the number of rows just finished
+   */
+  void advance(int done) {
+    long total = rows.addAndGet(done);
+    if (listener != null) {
+      listener.accept(total);
+    }
+  }
+}
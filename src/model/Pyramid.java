@@ -0,0 +1,189 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.effects.ResampleFilter;
+import model.effects.Resampler;
+
+/**
+ * Class representing the power of two pyramid of an image, used by layers to scale their image
+ * down quickly. Level 0 is the image itself and every further level halves the one before it
+ * with a box filter, down to a single pixel, so level k is 1/2^k of the image in each dimension
+ * (never less than one pixel). Levels are only built when first asked for, one at a time, and
+ * are kept for as long as the pyramid is. The pyramid of one of the levels of another pyramid
+ * starts with the levels the other has already built from that level down, but holds on to none
+ * of the levels above it.
+ */
+final class Pyramid {
+
+  //guarded by itself
+  private final List<PackedImage> levels;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructor for the pyramid of the given image. Only level 0 exists until others are asked
+   * for.
+   *
+   * @param image PackedImage, the image at level 0, which must not be changed afterwards
+   */
+  Pyramid(PackedImage image) {
+    this(List.of(image));
+  }
+
+  /**
+   * Constructor for a pyramid whose first levels are already built.
+   *
+   * @param built List of PackedImages, the levels built so far, starting with level 0
+   */
+  private Pyramid(List<PackedImage> built) {
+    this.levels = new ArrayList<>(built);
+    this.width = built.get(0).getWidth();
+    this.height = built.get(0).getHeight();
+  }
+
+  /**
+   * Returns the width of the given level.
+   *
+   * @param level Integer, the level
+   * @return Integer, the width of the level
+   */
+  int getWidth(int level) {
+    return Math.max(1, width >> Math.min(level, 31));
+  }
+
+  /**
+   * Returns the height of the given level.
+   *
+   * @param level Integer, the level
+   * @return Integer, the height of the level
+   */
+  int getHeight(int level) {
+    return Math.max(1, height >> Math.min(level, 31));
+  }
+
+  /**
+   * Returns the number of levels, the last of which is a single pixel.
+   *
+   * @return Integer, the number of levels
+   */
+  int getLevelCount() {
+    int count = 1;
+    while (getWidth(count - 1) > 1 || getHeight(count - 1) > 1) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the given level, building it and any level above it that has not been built yet.
+   *
+   * @param level       Integer, the level
+   * @param parallelism Integer, the largest number of threads to build missing levels with
+   * @return PackedImage, the level, which must not be changed
+   * @throws IllegalArgumentException if the level does not exist
+   */
+  PackedImage getLevel(int level, int parallelism) throws IllegalArgumentException {
+    if (level < 0 || level >= getLevelCount()) {
+      throw new IllegalArgumentException("Level out of bounds");
+    }
+    synchronized (levels) {
+      while (levels.size() <= level) {
+        PackedImage last = levels.get(levels.size() - 1);
+        levels.add(Resampler.resample(last, Math.max(1, last.getWidth() / 2),
+            Math.max(1, last.getHeight() / 2), ResampleFilter.BOX, parallelism));
+      }
+      return levels.get(level);
+    }
+  }
+
+  /**
+   * Returns the levels that have been built so far.
+   *
+   * @return List of PackedImages, the built levels, starting with level 0
+   */
+  List<PackedImage> getBuiltLevels() {
+    synchronized (levels) {
+      return List.copyOf(levels);
+    }
+  }
+
+  /**
+   * Returns the deepest level that is at least as large as the given dimensions, which is the
+   * level a downscale to those dimensions should start from.
+   *
+   * @param width  Integer, the width to scale to
+   * @param height Integer, the height to scale to
+   * @return Integer, the level, 0 if the dimensions are larger than the image
+   */
+  int levelFor(int width, int height) {
+    int level = 0;
+    while (level + 1 < getLevelCount() && getWidth(level + 1) >= width
+        && getHeight(level + 1) >= height) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Returns the image scaled to the given dimensions with the given filter, starting from the
+   * nearest level that is at least as large. A level that already has the given dimensions is
+   * returned as is when the filter is BOX. Level 1 is exactly what resampling the image with BOX
+   * gives, but deeper levels, other dimensions and other filters are only a close approximation
+   * of resampling the image itself, since every level has already been averaged and rounded.
+   *
+   * @param width       Integer, the width to scale to
+   * @param height      Integer, the height to scale to
+   * @param filter      ResampleFilter, the filter to scale with
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the scaled image, which must not be changed
+   * @throws IllegalArgumentException if the filter is null or a dimension is not positive
+   */
+  PackedImage scale(int width, int height, ResampleFilter filter, int parallelism)
+      throws IllegalArgumentException {
+    if (filter == null || width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("invalid width, height or filter");
+    }
+    int level = levelFor(width, height);
+    PackedImage image = getLevel(level, parallelism);
+    if (filter == ResampleFilter.BOX && image.getWidth() == width
+        && image.getHeight() == height) {
+      return image;
+    }
+    return Resampler.resample(image, width, height, filter, parallelism);
+  }
+
+  /**
+   * Returns the level with exactly the given dimensions, if there is one.
+   *
+   * @param width  Integer, the width of the level
+   * @param height Integer, the height of the level
+   * @return Integer, the level, or -1 if no level has those dimensions
+   */
+  int exactLevel(int width, int height) {
+    int level = levelFor(width, height);
+    return getWidth(level) == width && getHeight(level) == height ? level : -1;
+  }
+
+  /**
+   * Returns the pyramid whose level 0 is the given level of this one, building that level if
+   * needed. The new pyramid starts with the levels this one has built from that level down, and
+   * builds any others itself.
+   *
+   * @param level Integer, the level to start at
+   * @return Pyramid, the pyramid of the given level
+   * @throws IllegalArgumentException if the level does not exist
+   */
+  Pyramid from(int level) throws IllegalArgumentException {
+    if (level < 0 || level >= getLevelCount()) {
+      throw new IllegalArgumentException("Level out of bounds");
+    }
+    if (level == 0) {
+      return this;
+    }
+    getLevel(level, 1);
+    synchronized (levels) {
+      return new Pyramid(levels.subList(level, levels.size()));
+    }
+  }
+}
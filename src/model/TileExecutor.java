@@ -0,0 +1,164 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class that runs the work of an effect over bands of rows (tiles that span the full width of the
+ * image), either on the calling thread or in parallel with the common fork/join pool. The rows are
+ * split into one band for each thread, so no more threads than asked for work on them at once, and
+ * no pool is ever created. Effects read from their unchanged input and write each output row
+ * exactly once, so the neighbors a kernel needs above and below a band (its halo rows) are read
+ * straight from the shared input, and the result is the same whatever the parallelism. When the
+ * calling thread runs a job with a Progress, every few rows of a band are counted once they are
+ * done, and the job is stopped between them once it is cancelled.
+ */
+public final class TileExecutor {
+
+  /**
+   * The smallest number of rows that is worth handing to another thread.
+   */
+  private static final int MIN_BAND = 16;
+
+  /**
+   * The number of rows processed between checks for cancellation.
+   */
+  private static final int PROGRESS_STEP = 64;
+
+  /**
+   * Interface representing the work done for one band of rows.
+   */
+  public interface BandTask {
+
+    /**
+     * Processes the rows from start (inclusive) to end (exclusive).
+     *
+     * @param start Integer, the first row of the band
+     * @param end   Integer, one past the last row of the band
+     */
+    void run(int start, int end);
+  }
+
+  /**
+   * Private constructor, this class only has static methods.
+   */
+  private TileExecutor() {
+  }
+
+  /**
+   * Runs the given task over the rows from 0 to rows, split into as many bands as the parallelism
+   * allows. The calling thread works on the first band and the common fork/join pool on the
+   * others. With a parallelism of 1 or less the task runs once on the calling thread over every
+   * row.
+   *
+   * @param rows        Integer, the number of rows to process
+   * @param parallelism Integer, the number of threads to use
+   * @param task        BandTask, the work to do for each band
+   * @throws IllegalArgumentException if the task is null or the rows are negative
+   * @throws CancellationException if the job running on the calling thread is cancelled
+   */
+  public static void forEachBand(int rows, int parallelism, BandTask task)
+      throws IllegalArgumentException, CancellationException {
+    if (task == null || rows < 0) {
+      throw new IllegalArgumentException("invalid rows or task");
+    }
+    Progress progress = Progress.current();
+    if (parallelism <= 1 || rows <= MIN_BAND) {
+      runBand(task, progress, 0, rows);
+      return;
+    }
+    new BandAction(task, progress, 0, rows, Math.min(parallelism, rows / MIN_BAND)).invoke();
+  }
+
+  /**
+   * Runs the given task over the positions of a list of pixels that holds the rows of an image
+   * one after another, banding by the rows of the image, so a progress counts rows and checks for
+   * cancellation every few rows rather than every few pixels. The task is given the positions from
+   * the start of its first row (inclusive) to the start of the row after its last (exclusive); if
+   * the list holds more or fewer pixels than the image has, the last band ends with the list.
+   *
+   * @param pixels      Integer, the number of pixels in the list
+   * @param width       Integer, the width of the image
+   * @param height      Integer, the height of the image
+   * @param parallelism Integer, the number of threads to use
+   * @param task        BandTask, the work to do for each range of positions
+   * @throws IllegalArgumentException if the task is null, the pixels are negative or a dimension
+   *                                  is not positive
+   * @throws CancellationException if the job running on the calling thread is cancelled
+   */
+  public static void forEachPixelBand(int pixels, int width, int height, int parallelism,
+      BandTask task) throws IllegalArgumentException, CancellationException {
+    if (task == null || pixels < 0 || width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("invalid pixels, dimensions or task");
+    }
+    forEachBand(height, parallelism, (start, end) -> task.run(
+        (int) Math.min(pixels, (long) start * width),
+        end == height ? pixels : (int) Math.min(pixels, (long) end * width)));
+  }
+
+  /**
+   * Runs the given task over one band of rows, a few rows at a time if they are counted by a
+   * progress.
+   *
+   * @param task     BandTask, the work to do for the band
+   * @param progress Progress, the progress of the job, or null if it has none
+   * @param start    Integer, the first row of the band
+   * @param end      Integer, one past the last row of the band
+   * @throws CancellationException if the job is cancelled
+   */
+  private static void runBand(BandTask task, Progress progress, int start, int end)
+      throws CancellationException {
+    if (progress == null) {
+      task.run(start, end);
+      return;
+    }
+    for (int row = start; row < end; row += PROGRESS_STEP) {
+      progress.check();
+      task.run(row, Math.min(end, row + PROGRESS_STEP));
+      progress.advance(Math.min(end, row + PROGRESS_STEP) - row);
+    }
+  }
+
+  /**
+   * Class representing a range of rows that splits itself in two until it is a single band.
+   */
+  private static final class BandAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BandTask task;
+    private final Progress progress;
+    private final int start;
+    private final int end;
+    private final int bands;
+
+    /**
+     * General Constructor.
+     *
+     * @param task     BandTask, the work to do for each band
+     * @param progress Progress, the progress of the job, or null if it has none
+     * @param start    Integer, the first row of the range
+     * @param end      Integer, one past the last row of the range
+     * @param bands    Integer, the number of bands to split the range into
+     */
+    private BandAction(BandTask task, Progress progress, int start, int end, int bands) {
+      this.task = task;
+      this.progress = progress;
+      this.start = start;
+      this.end = end;
+      this.bands = bands;
+    }
+
+    @Override
+    protected void compute() {
+      if (bands <= 1) {
+        runBand(task, progress, start, end);
+        return;
+      }
+      int half = bands / 2;
+      int middle = start + (int) ((long) (end - start) * half / bands);
+      invokeAll(new BandAction(task, progress, start, middle, half),
+          new BandAction(task, progress, middle, end, bands - half));
+    }
+  }
+}
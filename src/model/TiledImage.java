@@ -0,0 +1,513 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class representing an image too large to keep on the heap. The pixels are split into square
+ * tiles (256x256 by default) that are stored in a scratch file, and only the most recently used
+ * tiles are kept in memory, so the memory an image uses grows with its width but not with its
+ * height. Each tile is a packed 0xRRGGBB raster in row-major order; tiles on the right and bottom
+ * edges may be smaller than the others. A tile that has never been written is black and takes up
+ * no space.
+ *
+ * <p>Pixels may be read and written one at a time, one row at a time or one tile at a time.
+ * Working through the image in tile order, or in row order, keeps every tile in memory for as
+ * long as it is needed, since the cache holds at least two rows of tiles. The scratch file is
+ * deleted when the image is closed.
+ */
+public final class TiledImage implements Image, Closeable {
+
+  public static final int DEFAULT_TILE_SIZE = 256;
+  private static final int MIN_CACHED_TILES = 16;
+
+  private final int width;
+  private final int height;
+  private final int tileSize;
+  private final int columns;
+  private final int rows;
+  private final int cachedTiles;
+  private final FileChannel scratch;
+  private final ByteBuffer buffer;
+  //tiles in memory, least recently used first
+  private final LinkedHashMap<Integer, int[]> cache;
+  private final BitSet dirty;
+  private final BitSet stored;
+  private boolean closed;
+
+  /**
+   * Constructor for a black image with tiles of the default size.
+   *
+   * @param width  Integer, the width of the image
+   * @param height Integer, the height of the image
+   * @throws IllegalArgumentException if a dimension is not positive or the scratch file can not
+   *                                  be created
+   */
+  public TiledImage(int width, int height) throws IllegalArgumentException {
+    this(width, height, DEFAULT_TILE_SIZE, 0);
+  }
+
+  /**
+   * Constructor for a black image with tiles of the given size, keeping up to the given number
+   * of tiles in memory. The cache is never smaller than two rows of tiles.
+   *
+   * @param width       Integer, the width of the image
+   * @param height      Integer, the height of the image
+   * @param tileSize    Integer, the width and height of a tile
+   * @param cachedTiles Integer, the number of tiles to keep in memory, or 0 for the least that
+   *                    keeps reading in tile or row order from rereading tiles
+   * @throws IllegalArgumentException if a parameter is invalid or the scratch file can not be
+   *                                  created
+   */
+  public TiledImage(int width, int height, int tileSize, int cachedTiles)
+      throws IllegalArgumentException {
+    if (width <= 0 || height <= 0 || tileSize <= 0 || tileSize > 4096 || cachedTiles < 0) {
+      throw new IllegalArgumentException("Invalid parameters");
+    }
+    this.width = width;
+    this.height = height;
+    this.tileSize = tileSize;
+    this.columns = (width + tileSize - 1) / tileSize;
+    this.rows = (height + tileSize - 1) / tileSize;
+    if ((long) columns * rows > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid parameters");
+    }
+    this.cachedTiles = Math.max(cachedTiles, Math.max(MIN_CACHED_TILES, 2 * columns + 2));
+    this.buffer = ByteBuffer.allocate(tileSize * tileSize * 4);
+    this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    this.dirty = new BitSet();
+    this.stored = new BitSet();
+    try {
+      Path file = Files.createTempFile("tiles", ".raw");
+      this.scratch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("scratch file could not be created");
+    }
+  }
+
+  /**
+   * Constructor that copies the pixels of any image into a new tiled image with tiles of the
+   * default size. Coordinates that have no pixel in the given image are black.
+   *
+   * @param image Image, the image to copy
+   * @throws IllegalArgumentException if the image is null or the scratch file can not be created
+   */
+  public TiledImage(Image image) throws IllegalArgumentException {
+    this(requireImage(image).getWidth(), image.getHeight());
+    PackedImage packed = image instanceof PackedImage ? (PackedImage) image
+        : new PackedImage(image);
+    for (int y = 0; y < height; y++) {
+      setRow(y, packed.getRaster(), y * width);
+    }
+  }
+
+  /**
+   * Returns the given image, checking that it is not null.
+   *
+   * @param image Image, the image
+   * @return Image, the same image
+   * @throws IllegalArgumentException if the image is null
+   */
+  private static Image requireImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    return image;
+  }
+
+  @Override
+  public String toString() {
+    return "TiledImage{" + "width=" + width + ", height=" + height + ", tileSize=" + tileSize
+        + '}';
+  }
+
+  /**
+   * Returns the number of pixels in the image, or Integer.MAX_VALUE if there are more.
+   *
+   * @return Integer, the number of pixels
+   */
+  @Override
+  public int getNumPixels() {
+    return (int) Math.min(Integer.MAX_VALUE, (long) width * height);
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns a read-only, row-major view of the pixels in the image. Pixels are created as they
+   * are read, so prefer getRGBAt, getRow or readTile for bulk access.
+   *
+   * @return List of Pixels, the pixels in the image
+   * @throws IllegalArgumentException if the image has more pixels than a list can hold
+   */
+  @Override
+  public List<Pixel> getPixels() throws IllegalArgumentException {
+    if ((long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many pixels for a list");
+    }
+    return new AbstractList<Pixel>() {
+      @Override
+      public Pixel get(int index) {
+        if (index < 0 || index >= size()) {
+          throw new IndexOutOfBoundsException("Index out of bounds");
+        }
+        int x = index % width;
+        int y = index / width;
+        int rgb = getRGBAt(x, y);
+        return new Pixel(x, y, (rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff);
+      }
+
+      @Override
+      public int size() {
+        return width * height;
+      }
+    };
+  }
+
+  /**
+   * Returns the width and height of a full tile.
+   *
+   * @return Integer, the size of a tile
+   */
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  /**
+   * Returns the number of columns of tiles.
+   *
+   * @return Integer, the number of tiles across the image
+   */
+  public int getTileColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the number of rows of tiles.
+   *
+   * @return Integer, the number of tiles down the image
+   */
+  public int getTileRows() {
+    return rows;
+  }
+
+  /**
+   * Returns the largest number of tiles kept in memory.
+   *
+   * @return Integer, the size of the tile cache
+   */
+  public int getCachedTiles() {
+    return cachedTiles;
+  }
+
+  /**
+   * Returns the number of tiles currently in memory.
+   *
+   * @return Integer, the number of cached tiles
+   */
+  public synchronized int getResidentTiles() {
+    return cache.size();
+  }
+
+  /**
+   * Returns the packed rgb value of the pixel at the given coordinates.
+   *
+   * @param x Integer, the x coordinate of the pixel
+   * @param y Integer, the y coordinate of the pixel
+   * @return Integer, the rgb value of the pixel in the form 0xRRGGBB
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  public synchronized int getRGBAt(int x, int y) throws IllegalArgumentException {
+    checkPixel(x, y);
+    int tx = x / tileSize;
+    int ty = y / tileSize;
+    return tile(ty * columns + tx)[(y - ty * tileSize) * tileWidth(tx) + x - tx * tileSize];
+  }
+
+  /**
+   * Sets the packed rgb value of the pixel at the given coordinates.
+   *
+   * @param x   Integer, the x coordinate of the pixel
+   * @param y   Integer, the y coordinate of the pixel
+   * @param rgb Integer, the new rgb value of the pixel in the form 0xRRGGBB
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  public synchronized void setRGBAt(int x, int y, int rgb) throws IllegalArgumentException {
+    checkPixel(x, y);
+    int tx = x / tileSize;
+    int ty = y / tileSize;
+    int index = ty * columns + tx;
+    tile(index)[(y - ty * tileSize) * tileWidth(tx) + x - tx * tileSize] = rgb & 0xffffff;
+    dirty.set(index);
+  }
+
+  /**
+   * Copies one row of the image into the given array.
+   *
+   * @param y      Integer, the row
+   * @param dst    Integer array, the array to copy into
+   * @param offset Integer, the index in the array of the first pixel of the row
+   * @throws IllegalArgumentException if the row is outside of the image or the array is too
+   *                                  small
+   */
+  public synchronized void getRow(int y, int[] dst, int offset) throws IllegalArgumentException {
+    checkRow(y, dst, offset);
+    int ty = y / tileSize;
+    int ry = y - ty * tileSize;
+    for (int tx = 0; tx < columns; tx++) {
+      int w = tileWidth(tx);
+      System.arraycopy(tile(ty * columns + tx), ry * w, dst, offset + tx * tileSize, w);
+    }
+  }
+
+  /**
+   * Sets one row of the image from the given array.
+   *
+   * @param y      Integer, the row
+   * @param src    Integer array, the packed 0xRRGGBB values of the row
+   * @param offset Integer, the index in the array of the first pixel of the row
+   * @throws IllegalArgumentException if the row is outside of the image or the array is too
+   *                                  small
+   */
+  public synchronized void setRow(int y, int[] src, int offset) throws IllegalArgumentException {
+    checkRow(y, src, offset);
+    int ty = y / tileSize;
+    int ry = y - ty * tileSize;
+    for (int tx = 0; tx < columns; tx++) {
+      int w = tileWidth(tx);
+      int index = ty * columns + tx;
+      int[] tile = tile(index);
+      for (int i = 0, from = offset + tx * tileSize; i < w; i++) {
+        tile[ry * w + i] = src[from + i] & 0xffffff;
+      }
+      dirty.set(index);
+    }
+  }
+
+  /**
+   * Returns a copy of the given tile.
+   *
+   * @param tx Integer, the column of the tile
+   * @param ty Integer, the row of the tile
+   * @return PackedImage, a copy of the pixels of the tile
+   * @throws IllegalArgumentException if there is no such tile
+   */
+  public synchronized PackedImage readTile(int tx, int ty) throws IllegalArgumentException {
+    checkTile(tx, ty);
+    return new PackedImage(tile(ty * columns + tx).clone(), tileWidth(tx), tileHeight(ty));
+  }
+
+  /**
+   * Replaces the pixels of the given tile.
+   *
+   * @param tx    Integer, the column of the tile
+   * @param ty    Integer, the row of the tile
+   * @param image PackedImage, the new pixels, with the same dimensions as the tile
+   * @throws IllegalArgumentException if there is no such tile or the image does not fit it
+   */
+  public synchronized void writeTile(int tx, int ty, PackedImage image)
+      throws IllegalArgumentException {
+    checkTile(tx, ty);
+    if (image == null || image.getWidth() != tileWidth(tx)
+        || image.getHeight() != tileHeight(ty)) {
+      throw new IllegalArgumentException("tile does not match");
+    }
+    int index = ty * columns + tx;
+    System.arraycopy(image.getRaster(), 0, tile(index), 0, image.getRaster().length);
+    dirty.set(index);
+  }
+
+  /**
+   * Returns the width of the tiles in the given column.
+   *
+   * @param tx Integer, the column of tiles
+   * @return Integer, the width of those tiles
+   */
+  public int tileWidth(int tx) {
+    return Math.min(tileSize, width - tx * tileSize);
+  }
+
+  /**
+   * Returns the height of the tiles in the given row.
+   *
+   * @param ty Integer, the row of tiles
+   * @return Integer, the height of those tiles
+   */
+  public int tileHeight(int ty) {
+    return Math.min(tileSize, height - ty * tileSize);
+  }
+
+  /**
+   * Copies this image into a PackedImage.
+   *
+   * @return PackedImage, a copy of this image
+   * @throws IllegalArgumentException if the image is too large for a single raster
+   */
+  public PackedImage toPackedImage() throws IllegalArgumentException {
+    if ((long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many pixels for a raster");
+    }
+    int[] raster = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      getRow(y, raster, y * width);
+    }
+    return new PackedImage(raster, width, height);
+  }
+
+  /**
+   * Writes every changed tile in memory to the scratch file.
+   *
+   * @throws IllegalArgumentException if the scratch file can not be written
+   */
+  public synchronized void flush() throws IllegalArgumentException {
+    for (Map.Entry<Integer, int[]> entry : cache.entrySet()) {
+      store(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Closes and deletes the scratch file. The image may not be used afterwards.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    cache.clear();
+    try {
+      scratch.close();
+    } catch (IOException e) {
+      //the file is deleted on close regardless
+    }
+  }
+
+  /**
+   * Returns the pixels of the given tile, loading the tile into the cache if needed and evicting
+   * the least recently used tile if the cache is full.
+   *
+   * @param index Integer, the row-major index of the tile
+   * @return Integer array, the pixels of the tile, in the cache
+   * @throws IllegalArgumentException if the image is closed or the scratch file can not be used
+   */
+  private int[] tile(int index) throws IllegalArgumentException {
+    if (closed) {
+      throw new IllegalArgumentException("image is closed");
+    }
+    int[] tile = cache.get(index);
+    if (tile != null) {
+      return tile;
+    }
+    if (cache.size() >= cachedTiles) {
+      Iterator<Map.Entry<Integer, int[]>> eldest = cache.entrySet().iterator();
+      Map.Entry<Integer, int[]> entry = eldest.next();
+      store(entry.getKey(), entry.getValue());
+      eldest.remove();
+    }
+    tile = new int[tileWidth(index % columns) * tileHeight(index / columns)];
+    if (stored.get(index)) {
+      buffer.clear();
+      buffer.limit(tile.length * 4);
+      try {
+        long position = (long) index * buffer.capacity();
+        while (buffer.hasRemaining()) {
+          if (scratch.read(buffer, position + buffer.position()) < 0) {
+            throw new IllegalArgumentException("scratch file is truncated");
+          }
+        }
+      } catch (IOException e) {
+        throw new IllegalArgumentException("scratch file could not be read");
+      }
+      buffer.flip();
+      buffer.asIntBuffer().get(tile);
+    }
+    cache.put(index, tile);
+    return tile;
+  }
+
+  /**
+   * Writes the given tile to the scratch file if it has changed since it was last written.
+   *
+   * @param index Integer, the row-major index of the tile
+   * @param tile  Integer array, the pixels of the tile
+   * @throws IllegalArgumentException if the scratch file can not be written
+   */
+  private void store(int index, int[] tile) throws IllegalArgumentException {
+    if (!dirty.get(index)) {
+      return;
+    }
+    buffer.clear();
+    buffer.asIntBuffer().put(tile);
+    buffer.limit(tile.length * 4);
+    try {
+      long position = (long) index * buffer.capacity();
+      while (buffer.hasRemaining()) {
+        scratch.write(buffer, position + buffer.position());
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("scratch file could not be written");
+    }
+    dirty.clear(index);
+    stored.set(index);
+  }
+
+  /**
+   * Checks that the given coordinates are in the image.
+   *
+   * @param x Integer, the x coordinate
+   * @param y Integer, the y coordinate
+   * @throws IllegalArgumentException if the coordinates are outside of the image
+   */
+  private void checkPixel(int x, int y) throws IllegalArgumentException {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      throw new IllegalArgumentException("Coordinates out of bounds");
+    }
+  }
+
+  /**
+   * Checks that the given row is in the image and fits in the given array.
+   *
+   * @param y      Integer, the row
+   * @param array  Integer array, the array
+   * @param offset Integer, the index in the array of the first pixel of the row
+   * @throws IllegalArgumentException if the row is outside of the image or does not fit
+   */
+  private void checkRow(int y, int[] array, int offset) throws IllegalArgumentException {
+    if (y < 0 || y >= height || array == null || offset < 0 || offset > array.length - width) {
+      throw new IllegalArgumentException("Invalid row");
+    }
+  }
+
+  /**
+   * Checks that the given tile is in the image.
+   *
+   * @param tx Integer, the column of the tile
+   * @param ty Integer, the row of the tile
+   * @throws IllegalArgumentException if there is no such tile
+   */
+  private void checkTile(int tx, int ty) throws IllegalArgumentException {
+    if (tx < 0 || ty < 0 || tx >= columns || ty >= rows) {
+      throw new IllegalArgumentException("Tile out of bounds");
+    }
+  }
+}
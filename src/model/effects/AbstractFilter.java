@@ -1,92 +1,54 @@
 package model.effects;
 
-import java.util.ArrayList;
-import java.util.List;
-import model.ColorType;
 import model.ImageImpl;
-import model.Pixel;
+import model.PackedImage;
 
 /**
- * Abstract class representing a filter effect.
+ * Abstract class representing a filter effect. A filter is described by a kernel and an edge
+ * mode, and is applied by convolving the image with the kernel.
  */
 abstract class AbstractFilter implements IFilter {
 
-  @Override
-  public Pixel helper(ImageImpl img, Pixel centerPixel, double center, double innerCorner,
-      double inner, double outer) {
-    if (img == null) {
-      throw new IllegalArgumentException("null ImageImpl");
-    }
-    if (centerPixel == null) {
-      throw new IllegalArgumentException("null centerPixel");
-    }
-    int x = centerPixel.getX();
-    int y = centerPixel.getY();
-
-    List<Pixel> innerCornerList = new ArrayList<>();
-    innerCornerList.add(img.getPixelAt(x - 1, y - 1));
-    innerCornerList.add(img.getPixelAt(x - 1, y + 1));
-    innerCornerList.add(img.getPixelAt(x + 1, y - 1));
-    innerCornerList.add(img.getPixelAt(x + 1, y + 1));
-
-    List<Pixel> innerList = new ArrayList<>();
-    innerList.add(img.getPixelAt(x - 1, y));
-    innerList.add(img.getPixelAt(x + 1, y));
-    innerList.add(img.getPixelAt(x, y - 1));
-    innerList.add(img.getPixelAt(x, y + 1));
-
-    List<Pixel> outerList = new ArrayList<>();
-    outerList.add(img.getPixelAt(x - 2, y + 2));
-    outerList.add(img.getPixelAt(x - 2, y + 1));
-    outerList.add(img.getPixelAt(x - 2, y));
-    outerList.add(img.getPixelAt(x - 2, y - 1));
-    outerList.add(img.getPixelAt(x - 2, y - 2));
-    outerList.add(img.getPixelAt(x - 1, y - 2));
-    outerList.add(img.getPixelAt(x - 1, y + 2));
-    outerList.add(img.getPixelAt(x, y - 2));
-    outerList.add(img.getPixelAt(x, y + 2));
-    outerList.add(img.getPixelAt(x + 1, y - 2));
-    outerList.add(img.getPixelAt(x + 1, y + 2));
-    outerList.add(img.getPixelAt(x + 2, y + 2));
-    outerList.add(img.getPixelAt(x + 2, y + 1));
-    outerList.add(img.getPixelAt(x + 2, y));
-    outerList.add(img.getPixelAt(x + 2, y - 1));
-    outerList.add(img.getPixelAt(x + 2, y - 2));
+  private final Kernel kernel;
+  private final EdgeMode edges;
 
-    int newRed = (int) (accumulateColor(innerList,ColorType.RED) * inner)
-        + (int) (accumulateColor(innerCornerList,ColorType.RED) * innerCorner)
-        + (int) (accumulateColor(outerList,ColorType.RED) * outer)
-        + (int) (center * centerPixel.getColor(ColorType.RED));
-
-    int newBlue = (int) (accumulateColor(innerList,ColorType.BLUE) * inner)
-        + (int) (accumulateColor(innerCornerList,ColorType.BLUE) * innerCorner)
-        + (int) (accumulateColor(outerList,ColorType.BLUE) * outer)
-        + (int) (center * centerPixel.getColor(ColorType.BLUE));
-
-    int newGreen = (int) (accumulateColor(innerList,ColorType.GREEN) * inner)
-        + (int) (accumulateColor(innerCornerList,ColorType.GREEN) * innerCorner)
-        + (int) (accumulateColor(outerList,ColorType.GREEN) * outer)
-        + (int) (center * centerPixel.getColor(ColorType.GREEN));
+  /**
+   * General Constructor.
+   *
+   * @param kernel Kernel, the weights of the filter
+   * @param edges  EdgeMode, how neighbors outside of the image are treated
+   * @throws IllegalArgumentException if a parameter is null
+   */
+  protected AbstractFilter(Kernel kernel, EdgeMode edges) throws IllegalArgumentException {
+    if (kernel == null || edges == null) {
+      throw new IllegalArgumentException("null kernel or edge mode");
+    }
+    this.kernel = kernel;
+    this.edges = edges;
+  }
 
-    return new Pixel(x,y,newRed,newGreen,newBlue);
+  @Override
+  public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
+    return apply(input, 1);
   }
 
-  /**
-   * Returns an accumulated color value for the given List
-   * of Pixels for the specified color.
-   * @param list List of Pixel, the pixels of which the color
-   *             values will be accumulated. Some may be null.
-   * @param color ColorType, specified color value that is accumulated
-   * @return Integer, accumulated color value
-   */
-  protected int accumulateColor(List<Pixel> list,ColorType color) {
-    int total = 0;
-    for (Pixel x: list) {
-      if (x != null) {
-        total = total + x.getColor(color);
-      }
+  @Override
+  public ImageImpl apply(ImageImpl input, int parallelism) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("null imageImpl");
     }
-    return total;
+    PackedImage result = Convolution.convolve(new PackedImage(input), kernel, edges,
+        parallelism);
+    return input.recolor(result, parallelism);
   }
 
+  @Override
+  public Kernel getKernel() {
+    return kernel;
+  }
+
+  @Override
+  public EdgeMode getEdgeMode() {
+    return edges;
+  }
 }
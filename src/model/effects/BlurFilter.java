@@ -1,25 +1,22 @@
 package model.effects;
 
-import java.util.ArrayList;
-import java.util.List;
-import model.ImageImpl;
-import model.Pixel;
-
 /**
- * Class representing a Blur image effect.
+ * Class representing a Blur image effect. Convolves the image with a 3x3 gaussian kernel, where
+ * neighbors outside of the image contribute nothing. The center, the edge neighbors and the corner
+ * neighbors are summed and truncated separately.
  */
 public class BlurFilter extends AbstractFilter {
 
-  @Override
-  public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
-    if (input == null) {
-      throw new IllegalArgumentException("null imageImpl");
-    }
-    List<Pixel> blurPixels = new ArrayList<>();
-    for (int i = 0; i < input.getNumPixels(); i++) {
-      Pixel pixel = input.getPixels().get(i);
-      blurPixels.add(helper(input,pixel,.25,.0625,.125,0));
-    }
-    return new ImageImpl(blurPixels, input.getWidth(), input.getHeight());
+  /**
+   * General Constructor.
+   */
+  public BlurFilter() {
+    super(new Kernel(new double[][]{
+        {.0625, .125, .0625},
+        {.125, .25, .125},
+        {.0625, .125, .0625}}, new int[][]{
+        {1, 2, 1},
+        {2, 0, 2},
+        {1, 2, 1}}), EdgeMode.ZERO);
   }
 }
@@ -0,0 +1,179 @@
+package model.effects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.ImageImpl;
+import model.PackedImage;
+import model.Pixel;
+import model.TileExecutor;
+
+/**
+ * Class representing a color transformation that multiplies the channels of every pixel by a 3x4
+ * matrix: each new channel is a weighted sum of the old red, green and blue values plus an offset,
+ * truncated to an integer and clamped. Consecutive color matrix effects can be chained with then,
+ * and a chain is applied in a single pass that writes one output image, rather than one pass and
+ * one copy per effect.
+ */
+public class ColorMatrixEffect implements IEffect<ImageImpl> {
+
+  private final double[][] stages;
+  //whether every row of each stage is the same, as in greyscale, so one sum gives all channels
+  private final boolean[] uniform;
+
+  /**
+   * Constructor for a single color matrix.
+   *
+   * @param matrix 2D array of Doubles, three rows (red, green, blue) of three weights, optionally
+   *               followed by an offset
+   * @throws IllegalArgumentException if the matrix is not 3x3 or 3x4
+   */
+  public ColorMatrixEffect(double[][] matrix) throws IllegalArgumentException {
+    if (matrix == null || matrix.length != 3) {
+      throw new IllegalArgumentException("color matrix must have three rows");
+    }
+    double[] stage = new double[12];
+    for (int row = 0; row < 3; row++) {
+      if (matrix[row] == null || (matrix[row].length != 3 && matrix[row].length != 4)) {
+        throw new IllegalArgumentException("color matrix rows must have three or four entries");
+      }
+      System.arraycopy(matrix[row], 0, stage, row * 4, matrix[row].length);
+    }
+    this.stages = new double[][]{stage};
+    this.uniform = uniformStages(stages);
+  }
+
+  /**
+   * Constructor for a chain of color matrices that have already been validated.
+   *
+   * @param stages List of Double arrays, each a 3x4 matrix in row-major order
+   */
+  private ColorMatrixEffect(List<double[]> stages) {
+    this.stages = stages.toArray(new double[0][]);
+    this.uniform = uniformStages(this.stages);
+  }
+
+  /**
+   * Returns which of the given matrices have three identical rows.
+   *
+   * @param stages 2D array of Doubles, each a 3x4 matrix in row-major order
+   * @return Boolean array, whether each matrix has identical rows
+   */
+  private static boolean[] uniformStages(double[][] stages) {
+    boolean[] uniform = new boolean[stages.length];
+    for (int i = 0; i < stages.length; i++) {
+      double[] m = stages[i];
+      uniform[i] = Arrays.equals(m, 0, 4, m, 4, 8) && Arrays.equals(m, 0, 4, m, 8, 12);
+    }
+    return uniform;
+  }
+
+  /**
+   * Returns an effect that applies this effect followed by the given one in a single pass. The
+   * result is the same as applying the two effects one after the other.
+   *
+   * @param next ColorMatrixEffect, the effect to apply after this one
+   * @return ColorMatrixEffect, the combined effect
+   * @throws IllegalArgumentException if the given effect is null
+   */
+  public ColorMatrixEffect then(ColorMatrixEffect next) throws IllegalArgumentException {
+    if (next == null) {
+      throw new IllegalArgumentException("null effect");
+    }
+    List<double[]> chain = new ArrayList<>(Arrays.asList(stages));
+    chain.addAll(Arrays.asList(next.stages));
+    return new ColorMatrixEffect(chain);
+  }
+
+  /**
+   * Returns the number of matrices this effect applies to each pixel.
+   *
+   * @return Integer, the length of the chain
+   */
+  public int getStageCount() {
+    return stages.length;
+  }
+
+  @Override
+  public ImageImpl apply(ImageImpl imageImpl) throws IllegalArgumentException {
+    return apply(imageImpl, 1);
+  }
+
+  @Override
+  public ImageImpl apply(ImageImpl imageImpl, int parallelism) throws IllegalArgumentException {
+    if (imageImpl == null) {
+      throw new IllegalArgumentException("null imageImpl");
+    }
+    List<Pixel> pixels = imageImpl.getPixels();
+    Pixel[] result = new Pixel[pixels.size()];
+    TileExecutor.forEachPixelBand(pixels.size(), imageImpl.getWidth(), imageImpl.getHeight(),
+        parallelism, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        Pixel pixel = pixels.get(i);
+        int rgb = transform(pixel.getR(), pixel.getG(), pixel.getB());
+        result[i] = new Pixel(pixel.getX(), pixel.getY(), (rgb >> 16) & 0xff, (rgb >> 8) & 0xff,
+            rgb & 0xff);
+      }
+    });
+    return new ImageImpl(new ArrayList<>(Arrays.asList(result)), imageImpl.getWidth(),
+        imageImpl.getHeight());
+  }
+
+  /**
+   * Returns a new packed image with this effect applied to every pixel of the given one.
+   *
+   * @param image       PackedImage, the image to transform
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the transformed image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public PackedImage applyRaster(PackedImage image, int parallelism)
+      throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    int width = image.getWidth();
+    int[] src = image.getRaster();
+    int[] dst = new int[src.length];
+    TileExecutor.forEachBand(image.getHeight(), parallelism, (start, end) -> {
+      for (int i = start * width; i < end * width; i++) {
+        int rgb = src[i];
+        dst[i] = transform((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff);
+      }
+    });
+    return new PackedImage(dst, width, image.getHeight());
+  }
+
+  /**
+   * Runs one color through every matrix of the chain, truncating and clamping after each one.
+   * A matrix whose rows are identical gives the same value for every channel, so it is computed
+   * once.
+   *
+   * @param r Integer, the red channel value
+   * @param g Integer, the green channel value
+   * @param b Integer, the blue channel value
+   * @return Integer, the transformed color in the form 0xRRGGBB
+   */
+  private int transform(int r, int g, int b) {
+    int rgb = PackedImage.pack(r, g, b);
+    for (int s = 0; s < stages.length; s++) {
+      double[] m = stages[s];
+      if (uniform[s]) {
+        int v = (int) (m[0] * r + m[1] * g + m[2] * b + m[3]);
+        rgb = PackedImage.pack(v, v, v);
+        r = (rgb >> 16) & 0xff;
+        g = r;
+        b = r;
+        continue;
+      }
+      rgb = PackedImage.pack(
+          (int) (m[0] * r + m[1] * g + m[2] * b + m[3]),
+          (int) (m[4] * r + m[5] * g + m[6] * b + m[7]),
+          (int) (m[8] * r + m[9] * g + m[10] * b + m[11]));
+      r = (rgb >> 16) & 0xff;
+      g = (rgb >> 8) & 0xff;
+      b = rgb & 0xff;
+    }
+    return rgb;
+  }
+}
@@ -0,0 +1,315 @@
+package model.effects;
+
+import java.util.Arrays;
+import model.PackedImage;
+import model.TileExecutor;
+
+/**
+ * Class that convolves packed images with a kernel. The image is walked row by row and every
+ * neighbor is found through precomputed row and column lookup tables, so no objects are allocated
+ * per pixel. Separable kernels run as a horizontal pass followed by a vertical pass, which costs
+ * O(width + height) per pixel instead of O(width * height), and uniform (box) passes keep a
+ * running sum over a sliding window so their cost does not depend on the radius at all. Rows
+ * may be processed in parallel bands through the TileExecutor.
+ */
+public final class Convolution {
+
+  /**
+   * Private constructor, this class only has static methods.
+   */
+  private Convolution() {
+  }
+
+  /**
+   * Returns a new image holding the given image convolved with the given kernel. Every channel of
+   * the result is truncated to an integer and clamped to the range 0 to 255.
+   *
+   * @param image  PackedImage, the image to convolve
+   * @param kernel Kernel, the weights to convolve with
+   * @param edges  EdgeMode, how neighbors outside of the image are treated
+   * @return PackedImage, the convolved image
+   * @throws IllegalArgumentException if a parameter is null
+   */
+  public static PackedImage convolve(PackedImage image, Kernel kernel, EdgeMode edges)
+      throws IllegalArgumentException {
+    return convolve(image, kernel, edges, 1);
+  }
+
+  /**
+   * Returns a new image holding the given image convolved with the given kernel, splitting the
+   * rows across up to the given number of threads. The result does not depend on the parallelism.
+   *
+   * @param image       PackedImage, the image to convolve
+   * @param kernel      Kernel, the weights to convolve with
+   * @param edges       EdgeMode, how neighbors outside of the image are treated
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the convolved image
+   * @throws IllegalArgumentException if a parameter is null
+   */
+  public static PackedImage convolve(PackedImage image, Kernel kernel, EdgeMode edges,
+      int parallelism) throws IllegalArgumentException {
+    if (image == null || kernel == null || edges == null) {
+      throw new IllegalArgumentException("null image, kernel or edge mode");
+    }
+    if (kernel.isSeparable()) {
+      return separable(image, kernel, edges, parallelism);
+    }
+    return direct(image, kernel, edges, parallelism);
+  }
+
+  /**
+   * Convolves the image with an arbitrary kernel. The non-zero cells of the kernel are gathered
+   * into a list of taps ordered by group, and each group's sum is truncated before it is added to
+   * the total.
+   *
+   * @param image  PackedImage, the image to convolve
+   * @param kernel Kernel, the weights to convolve with
+   * @param edges       EdgeMode, how neighbors outside of the image are treated
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the convolved image
+   */
+  private static PackedImage direct(PackedImage image, Kernel kernel, EdgeMode edges,
+      int parallelism) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int kernelWidth = kernel.getWidth();
+    int kernelHeight = kernel.getHeight();
+    int[] cols = lookup(width, kernelWidth / 2, edges);
+    int[] rows = lookup(height, kernelHeight / 2, edges);
+
+    //gather taps, sorted by group
+    int cells = kernelWidth * kernelHeight;
+    int[] tapX = new int[cells];
+    int[] tapY = new int[cells];
+    double[] tapWeight = new double[cells];
+    boolean[] groupEnds = new boolean[cells];
+    int taps = 0;
+    int maxGroup = 0;
+    for (int ky = 0; ky < kernelHeight; ky++) {
+      for (int kx = 0; kx < kernelWidth; kx++) {
+        maxGroup = Math.max(maxGroup, kernel.getGroup(kx, ky));
+      }
+    }
+    for (int group = 0; group <= maxGroup; group++) {
+      int start = taps;
+      for (int ky = 0; ky < kernelHeight; ky++) {
+        for (int kx = 0; kx < kernelWidth; kx++) {
+          if (kernel.getGroup(kx, ky) == group && kernel.getWeight(kx, ky) != 0) {
+            tapX[taps] = kx;
+            tapY[taps] = ky;
+            tapWeight[taps] = kernel.getWeight(kx, ky);
+            taps++;
+          }
+        }
+      }
+      if (taps > start) {
+        groupEnds[taps - 1] = true;
+      }
+    }
+
+    int[] src = image.getRaster();
+    int[] dst = new int[width * height];
+    int tapCount = taps;
+    TileExecutor.forEachBand(height, parallelism, (start, end) -> {
+      for (int y = start; y < end; y++) {
+        for (int x = 0; x < width; x++) {
+          int r = 0;
+          int g = 0;
+          int b = 0;
+          double groupRed = 0;
+          double groupGreen = 0;
+          double groupBlue = 0;
+          for (int t = 0; t < tapCount; t++) {
+            int sy = rows[y + tapY[t]];
+            int sx = cols[x + tapX[t]];
+            if (sy >= 0 && sx >= 0) {
+              int rgb = src[sy * width + sx];
+              groupRed += tapWeight[t] * ((rgb >> 16) & 0xff);
+              groupGreen += tapWeight[t] * ((rgb >> 8) & 0xff);
+              groupBlue += tapWeight[t] * (rgb & 0xff);
+            }
+            if (groupEnds[t]) {
+              r += (int) groupRed;
+              g += (int) groupGreen;
+              b += (int) groupBlue;
+              groupRed = 0;
+              groupGreen = 0;
+              groupBlue = 0;
+            }
+          }
+          dst[y * width + x] = PackedImage.pack(r, g, b);
+        }
+      }
+    });
+    return new PackedImage(dst, width, height);
+  }
+
+  /**
+   * Convolves the image with a separable kernel as a horizontal pass into floating point planes
+   * followed by a vertical pass. Each pass is split into bands of rows.
+   *
+   * @param image       PackedImage, the image to convolve
+   * @param kernel      Kernel, a separable kernel
+   * @param edges       EdgeMode, how neighbors outside of the image are treated
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the convolved image
+   */
+  private static PackedImage separable(PackedImage image, Kernel kernel, EdgeMode edges,
+      int parallelism) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double[] horizontal = kernel.getHorizontal();
+    double[] vertical = kernel.getVertical();
+    boolean uniform = isUniform(horizontal);
+    int[] cols = lookup(width, horizontal.length / 2, edges);
+    int[] rows = lookup(height, vertical.length / 2, edges);
+    int[] src = image.getRaster();
+    float[] red = new float[width * height];
+    float[] green = new float[width * height];
+    float[] blue = new float[width * height];
+
+    //horizontal pass
+    TileExecutor.forEachBand(height, parallelism, (start, end) -> {
+      for (int y = start; y < end; y++) {
+        int rowStart = y * width;
+        if (uniform) {
+          slideRow(src, rowStart, width, cols, horizontal.length, horizontal[0], red, green,
+              blue);
+          continue;
+        }
+        for (int x = 0; x < width; x++) {
+          float r = 0;
+          float g = 0;
+          float b = 0;
+          for (int k = 0; k < horizontal.length; k++) {
+            int sx = cols[x + k];
+            if (sx < 0) {
+              continue;
+            }
+            int rgb = src[rowStart + sx];
+            r += horizontal[k] * ((rgb >> 16) & 0xff);
+            g += horizontal[k] * ((rgb >> 8) & 0xff);
+            b += horizontal[k] * (rgb & 0xff);
+          }
+          red[rowStart + x] = r;
+          green[rowStart + x] = g;
+          blue[rowStart + x] = b;
+        }
+      }
+    });
+
+    //vertical pass, accumulating one output row at a time
+    int[] dst = new int[width * height];
+    TileExecutor.forEachBand(height, parallelism, (start, end) -> {
+      double[] rowRed = new double[width];
+      double[] rowGreen = new double[width];
+      double[] rowBlue = new double[width];
+      for (int y = start; y < end; y++) {
+        Arrays.fill(rowRed, 0);
+        Arrays.fill(rowGreen, 0);
+        Arrays.fill(rowBlue, 0);
+        for (int k = 0; k < vertical.length; k++) {
+          int sy = rows[y + k];
+          if (sy < 0) {
+            continue;
+          }
+          int rowStart = sy * width;
+          double weight = vertical[k];
+          for (int x = 0; x < width; x++) {
+            rowRed[x] += weight * red[rowStart + x];
+            rowGreen[x] += weight * green[rowStart + x];
+            rowBlue[x] += weight * blue[rowStart + x];
+          }
+        }
+        int rowStart = y * width;
+        for (int x = 0; x < width; x++) {
+          dst[rowStart + x] = PackedImage.pack((int) rowRed[x], (int) rowGreen[x],
+              (int) rowBlue[x]);
+        }
+      }
+    });
+    return new PackedImage(dst, width, height);
+  }
+
+  /**
+   * Applies a uniform one dimensional kernel to a row by keeping a running sum over a sliding
+   * window, so the cost per pixel does not depend on the size of the window.
+   *
+   * @param src      Integer array, the packed source raster
+   * @param rowStart Integer, the raster index of the first pixel in the row
+   * @param width    Integer, the width of the image
+   * @param cols     Integer array, the column lookup table
+   * @param size     Integer, the length of the kernel
+   * @param weight   Double, the weight of every cell of the kernel
+   * @param red      Array of Floats, where the red results are written
+   * @param green    Array of Floats, where the green results are written
+   * @param blue     Array of Floats, where the blue results are written
+   */
+  private static void slideRow(int[] src, int rowStart, int width, int[] cols, int size,
+      double weight, float[] red, float[] green, float[] blue) {
+    int r = 0;
+    int g = 0;
+    int b = 0;
+    for (int k = 0; k < size - 1; k++) {
+      int sx = cols[k];
+      if (sx >= 0) {
+        int rgb = src[rowStart + sx];
+        r += (rgb >> 16) & 0xff;
+        g += (rgb >> 8) & 0xff;
+        b += rgb & 0xff;
+      }
+    }
+    for (int x = 0; x < width; x++) {
+      int entering = cols[x + size - 1];
+      if (entering >= 0) {
+        int rgb = src[rowStart + entering];
+        r += (rgb >> 16) & 0xff;
+        g += (rgb >> 8) & 0xff;
+        b += rgb & 0xff;
+      }
+      red[rowStart + x] = (float) (weight * r);
+      green[rowStart + x] = (float) (weight * g);
+      blue[rowStart + x] = (float) (weight * b);
+      int leaving = cols[x];
+      if (leaving >= 0) {
+        int rgb = src[rowStart + leaving];
+        r -= (rgb >> 16) & 0xff;
+        g -= (rgb >> 8) & 0xff;
+        b -= rgb & 0xff;
+      }
+    }
+  }
+
+  /**
+   * Returns whether every weight of a one dimensional kernel is the same.
+   *
+   * @param weights Array of Doubles, the kernel
+   * @return Boolean, are all of the weights equal?
+   */
+  private static boolean isUniform(double[] weights) {
+    for (double weight : weights) {
+      if (weight != weights[0]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds a table that maps every padded coordinate (from -radius to length + radius - 1, stored
+   * at index coordinate + radius) to the coordinate that should be read, or -1 if that neighbor
+   * is ignored.
+   *
+   * @param length Integer, the size of the image along the axis
+   * @param radius Integer, the number of neighbors on each side of the center
+   * @param edges  EdgeMode, how coordinates outside of the image are treated
+   * @return Integer array, the lookup table
+   */
+  private static int[] lookup(int length, int radius, EdgeMode edges) {
+    int[] table = new int[length + 2 * radius];
+    for (int p = 0; p < table.length; p++) {
+      table[p] = edges.resolve(p - radius, length);
+    }
+    return table;
+  }
+}
@@ -1,17 +1,63 @@
 package model.effects;
 
+import java.awt.Dimension;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import model.ColorType;
 import model.ImageImpl;
+import model.PackedImage;
 import model.Pixel;
+import model.TileExecutor;
 
 /**
  * Class representing an image downscale operation. Downscales an image based on the desired width
- * and height, and returns a new Image with these new dimensions.
+ * and height, and returns a new Image with these new dimensions. By default each new pixel is
+ * sampled from the few original pixels nearest to it; a downscale created with a ResampleFilter
+ * instead resamples the image with the Resampler, which averages over every original pixel and
+ * so does not alias at small ratios.
  */
 public class Downscale implements IEffect<ImageImpl> {
 
+  private final ResampleFilter filter;
+
+  /**
+   * Default Constructor, which samples the nearest original pixels.
+   */
+  public Downscale() {
+    this.filter = null;
+  }
+
+  /**
+   * Constructor for a downscale that resamples with the given filter.
+   *
+   * @param filter ResampleFilter, the filter to resample with
+   * @throws IllegalArgumentException if the filter is null
+   */
+  public Downscale(ResampleFilter filter) throws IllegalArgumentException {
+    if (filter == null) {
+      throw new IllegalArgumentException("null filter");
+    }
+    this.filter = filter;
+  }
+
+  /**
+   * Returns the filter this downscale resamples with.
+   *
+   * @return ResampleFilter, the filter, or null if it samples the nearest original pixels
+   */
+  @Override
+  public ResampleFilter getResampleFilter() {
+    return filter;
+  }
+
+  @Override
+  public Dimension getResultSize(int width, int height) throws IllegalArgumentException {
+    if (width / 2 <= 0 || height / 2 <= 0) {
+      throw new IllegalArgumentException("image is too small to downscale");
+    }
+    return new Dimension(width / 2, height / 2);
+  }
+
   /**
    * Applies a downscale effect to the given image with the given desired width and height.
    * @param image ImageImpl, the image to apply the effect to
@@ -22,6 +68,21 @@ public class Downscale implements IEffect<ImageImpl> {
    */
   public ImageImpl applySpecific(ImageImpl image, int desiredWidth, int desiredHeight)
       throws IllegalArgumentException {
+    return applySpecific(image, desiredWidth, desiredHeight, 1);
+  }
+
+  /**
+   * Applies a downscale effect to the given image with the given desired width and height,
+   * computing rows of the new image on up to the given number of threads.
+   * @param image ImageImpl, the image to apply the effect to
+   * @param desiredWidth Integer, the desired width
+   * @param desiredHeight Integer, the desired height
+   * @param parallelism Integer, the largest number of threads to use
+   * @return ImageImpl, the image with the applied effect
+   * @throws IllegalArgumentException when image is null or desired dimensions are invalid
+   */
+  public ImageImpl applySpecific(ImageImpl image, int desiredWidth, int desiredHeight,
+      int parallelism) throws IllegalArgumentException {
     if (image == null) {
       throw new IllegalArgumentException("null image");
     }
@@ -30,14 +91,19 @@ public class Downscale implements IEffect<ImageImpl> {
         .getHeight()) {
       throw new IllegalArgumentException("invalid width and/or height");
     }
-    List<Pixel> pixels = new ArrayList<>();
-    ImageImpl newImage = new ImageImpl(pixels, desiredWidth, desiredHeight);
-    for (int x = 0; x < desiredWidth; x++) {
-      for (int y = 0; y < desiredHeight; y++) {
-        pixels.add(helper(image, x, y, desiredWidth, desiredHeight));
-      }
+    if (filter != null) {
+      return Resampler.resample(new PackedImage(image), desiredWidth, desiredHeight, filter,
+          parallelism).toImageImpl();
     }
-    return newImage;
+    Pixel[] pixels = new Pixel[desiredWidth * desiredHeight];
+    TileExecutor.forEachBand(desiredHeight, parallelism, (start, end) -> {
+      for (int y = start; y < end; y++) {
+        for (int x = 0; x < desiredWidth; x++) {
+          pixels[x * desiredHeight + y] = helper(image, x, y, desiredWidth, desiredHeight);
+        }
+      }
+    });
+    return new ImageImpl(new ArrayList<>(Arrays.asList(pixels)), desiredWidth, desiredHeight);
   }
 
   /**
@@ -133,6 +199,14 @@ public class Downscale implements IEffect<ImageImpl> {
 
   @Override
   public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
-    return applySpecific(input,input.getWidth() / 2,input.getHeight() / 2);
+    return apply(input, 1);
+  }
+
+  @Override
+  public ImageImpl apply(ImageImpl input, int parallelism) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    return applySpecific(input, input.getWidth() / 2, input.getHeight() / 2, parallelism);
   }
 }
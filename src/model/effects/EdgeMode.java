@@ -0,0 +1,31 @@
+package model.effects;
+
+/**
+ * Enumeration representing how a convolution treats neighbors that fall outside of the image.
+ * ZERO ignores them (they contribute nothing), CLAMP repeats the nearest edge pixel, and WRAP
+ * reads from the opposite side of the image.
+ */
+public enum EdgeMode {
+  ZERO, CLAMP, WRAP;
+
+  /**
+   * Maps a possibly out of range coordinate onto the image.
+   *
+   * @param i      Integer, the coordinate to map
+   * @param length Integer, the size of the image along that axis
+   * @return Integer, the coordinate to read from, or -1 if the neighbor should be ignored
+   */
+  int resolve(int i, int length) {
+    if (i >= 0 && i < length) {
+      return i;
+    }
+    switch (this) {
+      case CLAMP:
+        return i < 0 ? 0 : length - 1;
+      case WRAP:
+        return Math.floorMod(i, length);
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package model.effects;
+
+/**
+ * Class representing a Gaussian Blur image effect of any radius. The kernel is separable, so the
+ * cost of the blur grows linearly with the radius.
+ */
+public class GaussianBlur extends AbstractFilter {
+
+  /**
+   * Constructor for a gaussian blur whose standard deviation is a third of the radius.
+   *
+   * @param radius Integer, the number of pixels on each side of the center
+   * @throws IllegalArgumentException if the radius is not positive
+   */
+  public GaussianBlur(int radius) throws IllegalArgumentException {
+    this(radius, radius / 3.0);
+  }
+
+  /**
+   * Constructor for a gaussian blur with the given radius and standard deviation that repeats
+   * the edge pixels of the image.
+   *
+   * @param radius Integer, the number of pixels on each side of the center
+   * @param sigma  Double, the standard deviation of the gaussian
+   * @throws IllegalArgumentException if the radius is not positive or sigma is invalid
+   */
+  public GaussianBlur(int radius, double sigma) throws IllegalArgumentException {
+    this(radius, sigma, EdgeMode.CLAMP);
+  }
+
+  /**
+   * Constructor for a gaussian blur with the given radius and standard deviation.
+   *
+   * @param radius Integer, the number of pixels on each side of the center
+   * @param sigma  Double, the standard deviation of the gaussian
+   * @param edges  EdgeMode, how neighbors outside of the image are treated
+   * @throws IllegalArgumentException if the radius is not positive or sigma is invalid
+   */
+  public GaussianBlur(int radius, double sigma, EdgeMode edges)
+      throws IllegalArgumentException {
+    super(Kernel.gaussian(radius, sigma), edges);
+    if (radius <= 0) {
+      throw new IllegalArgumentException("invalid radius");
+    }
+  }
+}
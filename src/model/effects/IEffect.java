@@ -1,5 +1,7 @@
 package model.effects;
 
+import java.awt.Dimension;
+
 /**
  * Interface representing an effect that can be applied to a generic type.
  */
@@ -13,4 +15,41 @@ public interface IEffect<T> {
    * @throws IllegalArgumentException if given input is null
    */
   T apply(T input) throws IllegalArgumentException;
+
+  /**
+   * Returns a new image with an image processing effect applied to the given image, using up to
+   * the given number of threads. The result is the same as that of apply(input). Effects that
+   * can not split their work run on the calling thread.
+   *
+   * @param input       Generic, the specified input to process
+   * @param parallelism Integer, the largest number of threads to use
+   * @return Generic, the new input after the effect has been applied
+   * @throws IllegalArgumentException if given input is null
+   */
+  default T apply(T input, int parallelism) throws IllegalArgumentException {
+    return apply(input);
+  }
+
+  /**
+   * Returns the size of the result of applying this effect to an input of the given size, without
+   * applying it. Unless overridden, the result is the size of the input.
+   *
+   * @param width  Integer, the width of the input
+   * @param height Integer, the height of the input
+   * @return Dimension, the size of the result
+   * @throws IllegalArgumentException if the effect can not be applied to an input of that size
+   */
+  default Dimension getResultSize(int width, int height) throws IllegalArgumentException {
+    return new Dimension(width, height);
+  }
+
+  /**
+   * Returns the filter this effect resamples with, if all it does is resample its input to the
+   * size of its result.
+   *
+   * @return ResampleFilter, the filter, or null if the effect is not a plain resample
+   */
+  default ResampleFilter getResampleFilter() {
+    return null;
+  }
 }
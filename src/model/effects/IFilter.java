@@ -1,12 +1,23 @@
 package model.effects;
 
 import model.ImageImpl;
-import model.Pixel;
 
 /**
- * Interface representing a subset of Image filters that involve a filter.
+ * Interface representing a subset of Image effects that convolve the image with a kernel.
  */
 public interface IFilter extends IEffect<ImageImpl> {
-  Pixel helper(ImageImpl img,Pixel centerPixel,double center,
-      double innerCorner,double inner,double outer);
+
+  /**
+   * Returns the kernel that this filter convolves images with.
+   *
+   * @return Kernel, the weights of the filter
+   */
+  Kernel getKernel();
+
+  /**
+   * Returns how this filter treats neighbors that fall outside of the image.
+   *
+   * @return EdgeMode, the edge handling of the filter
+   */
+  EdgeMode getEdgeMode();
 }
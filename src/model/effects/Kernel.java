@@ -0,0 +1,233 @@
+package model.effects;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a convolution kernel. A kernel has an odd width and height and a weight for
+ * every cell, with the center cell lying over the pixel being computed. Kernels that are the outer
+ * product of a horizontal and a vertical vector are separable, which lets a convolution run as two
+ * one dimensional passes.
+ *
+ * <p>The cells of a kernel may be split into numbered groups. The weighted sum of each group is
+ * truncated to an integer on its own before the groups are added together, which lets a kernel
+ * reproduce filters that were defined as a sum of separately rounded rings. By default every cell
+ * is in group 0, so the whole weighted sum is truncated once.
+ */
+public final class Kernel {
+
+  private final int width;
+  private final int height;
+  private final double[] weights;
+  private final int[] groups;
+  private final double[] horizontal;
+  private final double[] vertical;
+
+  /**
+   * Constructor for an arbitrary kernel whose cells are all in one group.
+   *
+   * @param weights 2D array of Doubles, the weights indexed as [row][column]
+   * @throws IllegalArgumentException if the weights are null, ragged, or have an even dimension
+   */
+  public Kernel(double[][] weights) throws IllegalArgumentException {
+    this(weights, null);
+  }
+
+  /**
+   * Constructor for an arbitrary kernel whose cells are split into groups that are truncated
+   * separately.
+   *
+   * @param weights 2D array of Doubles, the weights indexed as [row][column]
+   * @param groups  2D array of Integers, the group of each cell indexed as [row][column], or null
+   *                to put every cell in group 0
+   * @throws IllegalArgumentException if the weights are null, ragged, or have an even dimension,
+   *                                  or if the groups do not match the weights
+   */
+  public Kernel(double[][] weights, int[][] groups) throws IllegalArgumentException {
+    if (weights == null || weights.length % 2 == 0 || weights[0] == null
+        || weights[0].length % 2 == 0) {
+      throw new IllegalArgumentException("kernel must have odd dimensions");
+    }
+    this.height = weights.length;
+    this.width = weights[0].length;
+    this.weights = new double[width * height];
+    for (int y = 0; y < height; y++) {
+      if (weights[y] == null || weights[y].length != width) {
+        throw new IllegalArgumentException("kernel rows must all be the same length");
+      }
+      System.arraycopy(weights[y], 0, this.weights, y * width, width);
+    }
+    this.groups = new int[width * height];
+    if (groups != null) {
+      if (groups.length != height) {
+        throw new IllegalArgumentException("groups must match the kernel");
+      }
+      for (int y = 0; y < height; y++) {
+        if (groups[y] == null || groups[y].length != width) {
+          throw new IllegalArgumentException("groups must match the kernel");
+        }
+        for (int x = 0; x < width; x++) {
+          if (groups[y][x] < 0) {
+            throw new IllegalArgumentException("groups can't be negative");
+          }
+          this.groups[y * width + x] = groups[y][x];
+        }
+      }
+    }
+    this.horizontal = null;
+    this.vertical = null;
+  }
+
+  /**
+   * Constructor for a separable kernel.
+   *
+   * @param horizontal Array of Doubles, the weights applied along each row
+   * @param vertical   Array of Doubles, the weights applied along each column
+   */
+  private Kernel(double[] horizontal, double[] vertical) {
+    this.width = horizontal.length;
+    this.height = vertical.length;
+    this.horizontal = horizontal.clone();
+    this.vertical = vertical.clone();
+    this.weights = new double[width * height];
+    this.groups = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        weights[y * width + x] = horizontal[x] * vertical[y];
+      }
+    }
+  }
+
+  /**
+   * Creates a separable kernel from a horizontal and a vertical vector of weights.
+   *
+   * @param horizontal Array of Doubles, the weights applied along each row
+   * @param vertical   Array of Doubles, the weights applied along each column
+   * @return Kernel, the outer product of the two vectors
+   * @throws IllegalArgumentException if either vector is null or has an even length
+   */
+  public static Kernel separable(double[] horizontal, double[] vertical)
+      throws IllegalArgumentException {
+    if (horizontal == null || vertical == null || horizontal.length % 2 == 0
+        || vertical.length % 2 == 0) {
+      throw new IllegalArgumentException("kernel must have odd dimensions");
+    }
+    return new Kernel(horizontal, vertical);
+  }
+
+  /**
+   * Creates a box kernel that averages a square of the given radius.
+   *
+   * @param radius Integer, the number of pixels on each side of the center
+   * @return Kernel, a separable box kernel
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  public static Kernel box(int radius) throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("invalid radius");
+    }
+    double[] line = new double[2 * radius + 1];
+    Arrays.fill(line, 1.0 / line.length);
+    return new Kernel(line, line);
+  }
+
+  /**
+   * Creates a normalized gaussian kernel of the given radius and standard deviation.
+   *
+   * @param radius Integer, the number of pixels on each side of the center
+   * @param sigma  Double, the standard deviation of the gaussian
+   * @return Kernel, a separable gaussian kernel
+   * @throws IllegalArgumentException if the radius is negative or sigma is not positive
+   */
+  public static Kernel gaussian(int radius, double sigma) throws IllegalArgumentException {
+    if (radius < 0 || sigma <= 0) {
+      throw new IllegalArgumentException("invalid radius or sigma");
+    }
+    double[] line = new double[2 * radius + 1];
+    double total = 0;
+    for (int i = -radius; i <= radius; i++) {
+      line[i + radius] = Math.exp(-(i * i) / (2 * sigma * sigma));
+      total += line[i + radius];
+    }
+    for (int i = 0; i < line.length; i++) {
+      line[i] /= total;
+    }
+    return new Kernel(line, line);
+  }
+
+  /**
+   * Returns the width of the kernel.
+   *
+   * @return Integer, the number of columns in the kernel
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the kernel.
+   *
+   * @return Integer, the number of rows in the kernel
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the weight of the given cell.
+   *
+   * @param x Integer, the column of the cell
+   * @param y Integer, the row of the cell
+   * @return Double, the weight of the cell
+   */
+  public double getWeight(int x, int y) {
+    return weights[y * width + x];
+  }
+
+  /**
+   * Returns the group of the given cell.
+   *
+   * @param x Integer, the column of the cell
+   * @param y Integer, the row of the cell
+   * @return Integer, the group whose sum the cell is added to
+   */
+  public int getGroup(int x, int y) {
+    return groups[y * width + x];
+  }
+
+  /**
+   * Returns whether the kernel can be applied as two one dimensional passes. Kernels built from
+   * two vectors are separable, and always have a single group.
+   *
+   * @return Boolean, is the kernel separable?
+   */
+  public boolean isSeparable() {
+    return horizontal != null;
+  }
+
+  /**
+   * Returns the weights applied along each row of a separable kernel.
+   *
+   * @return Array of Doubles, the horizontal weights, or null if the kernel is not separable
+   */
+  public double[] getHorizontal() {
+    return horizontal == null ? null : horizontal.clone();
+  }
+
+  /**
+   * Returns the weights applied along each column of a separable kernel.
+   *
+   * @return Array of Doubles, the vertical weights, or null if the kernel is not separable
+   */
+  public double[] getVertical() {
+    return vertical == null ? null : vertical.clone();
+  }
+
+  /**
+   * Returns all weights of the kernel in row-major order.
+   *
+   * @return Array of Doubles, the weights of the kernel
+   */
+  double[] getWeights() {
+    return weights;
+  }
+}
@@ -1,20 +1,74 @@
 package model.effects;
 
+import java.awt.Dimension;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import model.ColorType;
 import model.ImageImpl;
 import model.Pixel;
+import model.TileExecutor;
 
 /**
- * Class representing a Mosaic image effect.
+ * Class representing a Mosaic image effect. Random pixels are chosen as seeds, every pixel is
+ * labeled with its closest seed, and each pixel takes the average color of the pixels sharing its
+ * label. Labeling, summing the colors of each cluster, and coloring are each a single pass over
+ * the pixels. A mosaic created with a seed for its random number generator always chooses the same
+ * seeds for the same image.
  */
 public class Mosaic implements IEffect<ImageImpl> {
 
+  private final int numSeeds;
+  private final Long rngSeed;
+
+  /**
+   * Default Constructor. Applying the effect uses a tenth of the pixels of the image as seeds,
+   * chosen differently every time.
+   */
+  public Mosaic() {
+    this.numSeeds = -1;
+    this.rngSeed = null;
+  }
+
+  /**
+   * Constructor for a mosaic with the given number of seeds, chosen differently every time.
+   *
+   * @param numSeeds Integer, the number of seeds for the mosaic effect
+   * @throws IllegalArgumentException if the number of seeds is negative
+   */
+  public Mosaic(int numSeeds) throws IllegalArgumentException {
+    if (numSeeds < 0) {
+      throw new IllegalArgumentException("invalid number of seeds");
+    }
+    this.numSeeds = numSeeds;
+    this.rngSeed = null;
+  }
+
+  /**
+   * Constructor for a reproducible mosaic. Applying the effect to the same image always chooses
+   * the same seeds, and so always gives the same result, on any number of threads.
+   *
+   * @param numSeeds Integer, the number of seeds for the mosaic effect
+   * @param rngSeed  Long, the seed of the random number generator that chooses the seeds
+   * @throws IllegalArgumentException if the number of seeds is negative
+   */
+  public Mosaic(int numSeeds, long rngSeed) throws IllegalArgumentException {
+    if (numSeeds < 0) {
+      throw new IllegalArgumentException("invalid number of seeds");
+    }
+    this.numSeeds = numSeeds;
+    this.rngSeed = rngSeed;
+  }
+
+  @Override
+  public Dimension getResultSize(int width, int height) throws IllegalArgumentException {
+    if (numSeeds > width * height) {
+      throw new IllegalArgumentException("invalid number of seeds");
+    }
+    return new Dimension(width, height);
+  }
+
   /**
    * Applies the mosaic effect to the given ImageImpl with the given number of seeds.
    * @param image ImageImpl, the image to have the effect applied to
@@ -22,6 +76,43 @@ public class Mosaic implements IEffect<ImageImpl> {
    * @return ImageImpl, the image with the effect applied
    */
   public ImageImpl applySpecific(ImageImpl image, int numSeeds) {
+    return applySpecific(image, numSeeds, 1);
+  }
+
+  /**
+   * Applies the mosaic effect to the given ImageImpl with the given number of seeds, finding the
+   * closest seed of each pixel on up to the given number of threads.
+   * @param image ImageImpl, the image to have the effect applied to
+   * @param numSeeds Integer, the number of seeds for the mosiac effect
+   * @param parallelism Integer, the largest number of threads to use
+   * @return ImageImpl, the image with the effect applied
+   */
+  public ImageImpl applySpecific(ImageImpl image, int numSeeds, int parallelism) {
+    return applySpecific(image, numSeeds, newRandom(), parallelism);
+  }
+
+  /**
+   * Applies the mosaic effect to the given ImageImpl with the given number of seeds, chosen by a
+   * random number generator with the given seed, on up to the given number of threads.
+   * @param image ImageImpl, the image to have the effect applied to
+   * @param numSeeds Integer, the number of seeds for the mosiac effect
+   * @param rngSeed Long, the seed of the random number generator that chooses the seeds
+   * @param parallelism Integer, the largest number of threads to use
+   * @return ImageImpl, the image with the effect applied
+   */
+  public ImageImpl applySpecific(ImageImpl image, int numSeeds, long rngSeed, int parallelism) {
+    return applySpecific(image, numSeeds, new Random(rngSeed), parallelism);
+  }
+
+  /**
+   * Applies the mosaic effect, choosing the seeds with the given random number generator.
+   * @param image ImageImpl, the image to have the effect applied to
+   * @param numSeeds Integer, the number of seeds for the mosiac effect
+   * @param rand Random, the random number generator that chooses the seeds
+   * @param parallelism Integer, the largest number of threads to use
+   * @return ImageImpl, the image with the effect applied
+   */
+  private ImageImpl applySpecific(ImageImpl image, int numSeeds, Random rand, int parallelism) {
     if (image == null) {
       throw new IllegalArgumentException("image can't be null");
     }
@@ -34,141 +125,93 @@ public class Mosaic implements IEffect<ImageImpl> {
     }
     // pixels in original image
     List<Pixel> pixels = image.getPixels();
-    // copy of pixels
-    List<Pixel> copyPixels = new ArrayList<>(pixels);
     // random seeds
-    List<Pixel> seeds = getRandomPixels(copyPixels, numSeeds);
-    // map of pixels and their seeds
-    Map<Pixel, Pixel> map = new HashMap<>();
-    // list of seeds
-    List<Pixel> newSeeds = new ArrayList<>();
-    // list of clusters
-    List<List<Pixel>> clusters = new ArrayList<>();
-    // new list of pixels
-    List<Pixel> newPixels = new ArrayList<>();
-    // new image
-    ImageImpl mosaicImage = new ImageImpl(newPixels, image.getWidth(), image.getHeight());
-    // puts each pixel and their closest seed into map
-    for (Pixel pixel : pixels) {
-      map.put(pixel, closestSeed(pixel, seeds));
+    int[] seeds = sample(pixels.size(), numSeeds, rand);
+    // labels each pixel with the index of its closest seed
+    int[] seedXs = new int[seeds.length];
+    int[] seedYs = new int[seeds.length];
+    for (int i = 0; i < seeds.length; i++) {
+      seedXs[i] = pixels.get(seeds[i]).getX();
+      seedYs[i] = pixels.get(seeds[i]).getY();
     }
-    // adds each unique seed to list of seeds
-    for (Map.Entry<Pixel, Pixel> entry : map.entrySet()) {
-      if (!newSeeds.contains(entry.getValue())) {
-        newSeeds.add(entry.getValue());
+    SeedGrid grid = new SeedGrid(seedXs, seedYs, image.getWidth(), image.getHeight());
+    int[] labels = new int[pixels.size()];
+    TileExecutor.forEachPixelBand(pixels.size(), image.getWidth(), image.getHeight(), parallelism,
+        (start, end) -> {
+      for (int i = start; i < end; i++) {
+        Pixel pixel = pixels.get(i);
+        labels[i] = grid.nearest(pixel.getX(), pixel.getY());
       }
+    });
+    // sums the colors of the pixels in each cluster
+    long[] red = new long[numSeeds];
+    long[] green = new long[numSeeds];
+    long[] blue = new long[numSeeds];
+    int[] count = new int[numSeeds];
+    for (int i = 0; i < labels.length; i++) {
+      Pixel pixel = pixels.get(i);
+      int seed = labels[i];
+      red[seed] += pixel.getR();
+      green[seed] += pixel.getG();
+      blue[seed] += pixel.getB();
+      count[seed]++;
     }
-    // creates list of clusters
-    for (int i = 0; i < newSeeds.size(); i++) {
-      clusters.add(new ArrayList<>());
-    }
-    // adds pixels to corresponding clusters
-    double num = 0;
-    for (Map.Entry<Pixel, Pixel> set : map.entrySet()) {
-      for (int i = 0; i < newSeeds.size(); i++) {
-        if (newSeeds.get(i) == set.getValue()) {
-          clusters.get(i).add(set.getKey());
-        }
-      }
-    }
-    // computes color values for each cluster and creates new pixels
-    for (List<Pixel> list : clusters) {
-      for (Pixel pix : list) {
-        int clusterColorRed = averageColor(list, ColorType.RED);
-        int clusterColorGreen = averageColor(list, ColorType.GREEN);
-        int clusterColorBlue = averageColor(list, ColorType.BLUE);
-        newPixels.add(new Pixel(pix.getX(), pix.getY(), clusterColorRed, clusterColorGreen,
-            clusterColorBlue));
+    // colors each pixel with the average color of its cluster
+    Pixel[] newPixels = new Pixel[pixels.size()];
+    TileExecutor.forEachPixelBand(pixels.size(), image.getWidth(), image.getHeight(), parallelism,
+        (start, end) -> {
+      for (int i = start; i < end; i++) {
+        Pixel pixel = pixels.get(i);
+        int seed = labels[i];
+        newPixels[i] = new Pixel(pixel.getX(), pixel.getY(), (int) (red[seed] / count[seed]),
+            (int) (green[seed] / count[seed]), (int) (blue[seed] / count[seed]));
       }
-    }
-    return mosaicImage;
+    });
+    return new ImageImpl(new ArrayList<>(Arrays.asList(newPixels)), image.getWidth(),
+        image.getHeight());
   }
 
   /**
-   * Returns the average color for the specified color for the given list of pixels.
-   * @param cluster List of Pixels, the pixels of which to find the average color
-   * @param color ColorType, the color for which to find the average
-   * @return Integer, the average color value for specified color
+   * Returns the given number of distinct random indices below n, using Floyd's sampling
+   * algorithm, which draws exactly one random number per index chosen.
+   * @param n Integer, the number of indices to choose from
+   * @param k Integer, the number of indices to choose
+   * @param rand Random, the random number generator to use
+   * @return Integer array, the chosen indices
    */
-  private int averageColor(List<Pixel> cluster, ColorType color) {
-    double value = 0;
-    switch (color) {
-      case RED:
-        for (Pixel pix : cluster) {
-          value += pix.getR();
-        }
-        break;
-      case GREEN:
-        for (Pixel pix : cluster) {
-          value += pix.getG();
-        }
-        break;
-      case BLUE:
-        for (Pixel pix : cluster) {
-          value += pix.getB();
-        }
-        break;
-      default:
-        throw new IllegalArgumentException("invalid color type.");
+  private static int[] sample(int n, int k, Random rand) {
+    BitSet chosen = new BitSet(n);
+    int[] indices = new int[k];
+    int count = 0;
+    for (int j = n - k; j < n; j++) {
+      int t = rand.nextInt(j + 1);
+      int index = chosen.get(t) ? j : t;
+      chosen.set(index);
+      indices[count++] = index;
     }
-    return (int) (value / cluster.size());
+    return indices;
   }
 
   /**
-   * Finds the closest seed to the given pixel.
-   * @param pixel Pixel, the pixel being analyzed
-   * @param seeds List of Pixels, the list of seeds
-   * @return Pixel, the closest seed to the given pixel
+   * Returns a new random number generator, seeded with the seed of this mosaic if it has one.
+   * @return Random, the random number generator
    */
-  private Pixel closestSeed(Pixel pixel, List<Pixel> seeds) {
-    List<Double> list = new ArrayList<>();
-    Pixel pix = null;
-    for (Pixel seed : seeds) {
-      list.add(distanceBetween(pixel, seed));
-    }
-    double closest = Collections.min(list);
-    for (int i = 0; i < list.size(); i++) {
-      if (list.get(i) == closest) {
-        pix = seeds.get(i);
-      }
-    }
-    return pix;
-  }
-
-  /**
-   * Returns the distance between the two given pixels.
-   * @param pixel Pixel, the first pixel
-   * @param seed Pixel, the second pixel
-   * @return Double, the distance between the two pixels
-   */
-  private double distanceBetween(Pixel pixel, Pixel seed) {
-    double x1 = pixel.getX();
-    double y1 = pixel.getY();
-    double x2 = seed.getX();
-    double y2 = seed.getY();
-    return Math.sqrt((x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2));
+  private Random newRandom() {
+    return rngSeed == null ? new Random() : new Random(rngSeed);
   }
 
-  /**
-   * Returns a list of random pixels with the given length.
-   * @param pixels List of Pixels, the pixels of the image
-   * @param numPixels Integer, the number of random pixels to return
-   * @return List of Pixels, the randomly selected pixels
-   */
-  private List<Pixel> getRandomPixels(List<Pixel> pixels, int numPixels) {
-    Random rand = new Random();
-    List<Pixel> list = new ArrayList<>();
-    for (int i = 0; i < numPixels; i++) {
-      int index = rand.nextInt(pixels.size());
-      list.add(pixels.get(index));
-      pixels.remove(index);
-    }
-    return list;
+  @Override
+  public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
+    return apply(input, 1);
   }
 
   @Override
-  public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
-    return applySpecific(input, input.getNumPixels() / 10);
+  public ImageImpl apply(ImageImpl input, int parallelism) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("image can't be null");
+    }
+    int seeds = numSeeds < 0 ? input.getNumPixels() / 10 : numSeeds;
+    return applySpecific(input, seeds, newRandom(), parallelism);
   }
 }
 
@@ -0,0 +1,62 @@
+package model.effects;
+
+import java.awt.Dimension;
+import model.ImageImpl;
+import model.PackedImage;
+
+/**
+ * Class that adapts an effect written for ImageImpl so that it can be applied to a PackedImage.
+ * Filters are convolved, and color matrices and resizes are applied, directly on the packed
+ * raster. Any other effect is applied by converting the input to an ImageImpl, applying the
+ * wrapped effect, and packing the result back into a new PackedImage.
+ */
+public class PackedEffect implements IEffect<PackedImage> {
+
+  private final IEffect<ImageImpl> effect;
+
+  /**
+   * General Constructor.
+   *
+   * @param effect IEffect, the ImageImpl effect to adapt
+   * @throws IllegalArgumentException if the effect is null
+   */
+  public PackedEffect(IEffect<ImageImpl> effect) throws IllegalArgumentException {
+    if (effect == null) {
+      throw new IllegalArgumentException("null effect");
+    }
+    this.effect = effect;
+  }
+
+  @Override
+  public Dimension getResultSize(int width, int height) throws IllegalArgumentException {
+    return effect.getResultSize(width, height);
+  }
+
+  @Override
+  public ResampleFilter getResampleFilter() {
+    return effect.getResampleFilter();
+  }
+
+  @Override
+  public PackedImage apply(PackedImage input) throws IllegalArgumentException {
+    return apply(input, 1);
+  }
+
+  @Override
+  public PackedImage apply(PackedImage input, int parallelism) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    if (effect instanceof IFilter) {
+      IFilter filter = (IFilter) effect;
+      return Convolution.convolve(input, filter.getKernel(), filter.getEdgeMode(), parallelism);
+    }
+    if (effect instanceof ColorMatrixEffect) {
+      return ((ColorMatrixEffect) effect).applyRaster(input, parallelism);
+    }
+    if (effect instanceof Resize) {
+      return ((Resize) effect).applyRaster(input, parallelism);
+    }
+    return new PackedImage(effect.apply(input.toImageImpl(), parallelism));
+  }
+}
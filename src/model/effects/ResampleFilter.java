@@ -0,0 +1,73 @@
+package model.effects;
+
+/**
+ * Enumeration representing the filters a Resampler may resize an image with. BOX averages the
+ * source pixels each target pixel covers, BILINEAR interpolates linearly between the nearest
+ * pixels, BICUBIC uses the Catmull-Rom cubic over four pixels, and LANCZOS3 uses a windowed sinc
+ * over six pixels, which keeps the most detail. When shrinking, every filter is widened by the
+ * shrink factor so that it averages over the source pixels instead of skipping them.
+ */
+public enum ResampleFilter {
+  BOX(0.5), BILINEAR(1), BICUBIC(2), LANCZOS3(3);
+
+  private final double support;
+
+  /**
+   * Constructor for a filter with the given support.
+   *
+   * @param support Double, the distance from the center past which the filter is zero
+   */
+  ResampleFilter(double support) {
+    this.support = support;
+  }
+
+  /**
+   * Returns the distance from the center past which the filter is zero, in source pixels when
+   * the image is not being shrunk.
+   *
+   * @return Double, the support of the filter
+   */
+  double getSupport() {
+    return support;
+  }
+
+  /**
+   * Returns the weight of the filter at the given distance from its center.
+   *
+   * @param x Double, the distance from the center
+   * @return Double, the weight at that distance
+   */
+  double weight(double x) {
+    x = Math.abs(x);
+    switch (this) {
+      case BOX:
+        return x < 0.5 ? 1 : 0;
+      case BILINEAR:
+        return x < 1 ? 1 - x : 0;
+      case BICUBIC:
+        if (x < 1) {
+          return (1.5 * x - 2.5) * x * x + 1;
+        }
+        return x < 2 ? ((-0.5 * x + 2.5) * x - 4) * x + 2 : 0;
+      default:
+        if (x < 3) {
+          return sinc(x) * sinc(x / 3);
+        }
+        return 0;
+    }
+  }
+
+  /**
+   * Returns the normalized sinc function at the given point.
+   *
+   * @param x Double, the point
+   * @return Double, sin(pi x) / (pi x)
+   */
+  private static double sinc(double x) {
+    if (x == 0) {
+      return 1;
+    }
+    x *= Math.PI;
+    return Math.sin(x) / x;
+  }
+}
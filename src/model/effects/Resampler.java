@@ -0,0 +1,252 @@
+package model.effects;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import model.PackedImage;
+import model.TileExecutor;
+
+/**
+ * Class that resizes packed images to any size, larger or smaller, with a ResampleFilter. The
+ * weights every target column and row takes from the source are computed once into tables, and
+ * the image is then resized in two passes: each row horizontally into a floating point buffer,
+ * then each column of that buffer vertically. This costs O(support) per pixel per pass instead of
+ * O(support squared) for a direct two dimensional filter. Weights that would fall outside of the
+ * image are dropped and the rest scaled up to sum to one, so edges do not darken. Rows may be
+ * processed in parallel bands through the TileExecutor. A resized image can also be brought up
+ * to date after part of its source changed, computing only the pixels that read from that part.
+ */
+public final class Resampler {
+
+  /**
+   * Private constructor, this class only has static methods.
+   */
+  private Resampler() {
+  }
+
+  /**
+   * Returns a new image holding the given image resized to the given dimensions.
+   *
+   * @param image  PackedImage, the image to resize
+   * @param width  Integer, the width of the resized image
+   * @param height Integer, the height of the resized image
+   * @param filter ResampleFilter, the filter to resize with
+   * @return PackedImage, the resized image
+   * @throws IllegalArgumentException if a parameter is null or a dimension is not positive
+   */
+  public static PackedImage resample(PackedImage image, int width, int height,
+      ResampleFilter filter) throws IllegalArgumentException {
+    return resample(image, width, height, filter, 1);
+  }
+
+  /**
+   * Returns a new image holding the given image resized to the given dimensions, splitting the
+   * rows across up to the given number of threads. The result does not depend on the parallelism.
+   *
+   * @param image       PackedImage, the image to resize
+   * @param width       Integer, the width of the resized image
+   * @param height      Integer, the height of the resized image
+   * @param filter      ResampleFilter, the filter to resize with
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the resized image
+   * @throws IllegalArgumentException if a parameter is null or a dimension is not positive
+   */
+  public static PackedImage resample(PackedImage image, int width, int height,
+      ResampleFilter filter, int parallelism) throws IllegalArgumentException {
+    if (image == null || filter == null) {
+      throw new IllegalArgumentException("null image or filter");
+    }
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("invalid width and/or height");
+    }
+    int[] result = new int[width * height];
+    resample(image, new Weights(image.getWidth(), width, filter),
+        new Weights(image.getHeight(), height, filter), result, width,
+        new Rectangle(0, 0, width, height), parallelism);
+    return new PackedImage(result, width, height);
+  }
+
+  /**
+   * Updates an image that was resized from the given image after a region of the given image
+   * changed. Only the pixels of the resized image whose weights read from the changed region are
+   * computed again, and they come out exactly as resizing the whole image would make them.
+   *
+   * @param image       PackedImage, the image that was resized, as it is now
+   * @param target      PackedImage, the resized image, which is changed in place
+   * @param changed     Rectangle, the region of the image that changed since it was resized
+   * @param filter      ResampleFilter, the filter the image was resized with
+   * @param parallelism Integer, the largest number of threads to use
+   * @return Rectangle, the region of the resized image that was computed again, empty if none
+   * @throws IllegalArgumentException if a parameter is null
+   */
+  public static Rectangle resample(PackedImage image, PackedImage target, Rectangle changed,
+      ResampleFilter filter, int parallelism) throws IllegalArgumentException {
+    if (image == null || target == null || changed == null || filter == null) {
+      throw new IllegalArgumentException("null image, target, region or filter");
+    }
+    Weights columns = new Weights(image.getWidth(), target.getWidth(), filter);
+    Weights rows = new Weights(image.getHeight(), target.getHeight(), filter);
+    int[] xs = columns.reading(changed.x, changed.x + changed.width);
+    int[] ys = rows.reading(changed.y, changed.y + changed.height);
+    if (xs[0] >= xs[1] || ys[0] >= ys[1]) {
+      return new Rectangle();
+    }
+    Rectangle region = new Rectangle(xs[0], ys[0], xs[1] - xs[0], ys[1] - ys[0]);
+    resample(image, columns, rows, target.getRaster(), target.getWidth(), region, parallelism);
+    return region;
+  }
+
+  /**
+   * Computes the given region of a resized image from the given image.
+   *
+   * @param image       PackedImage, the image to resize
+   * @param columns     Weights, the weights every target column takes from the source
+   * @param rows        Weights, the weights every target row takes from the source
+   * @param result      Integer array, the raster of the resized image
+   * @param width       Integer, the width of the resized image
+   * @param region      Rectangle, the region of the resized image to compute
+   * @param parallelism Integer, the largest number of threads to use
+   */
+  private static void resample(PackedImage image, Weights columns, Weights rows, int[] result,
+      int width, Rectangle region, int parallelism) {
+    int srcWidth = image.getWidth();
+    int[] src = image.getRaster();
+    //only the source rows the region reads are resized horizontally
+    int firstRow = Integer.MAX_VALUE;
+    int lastRow = 0;
+    for (int y = region.y; y < region.y + region.height; y++) {
+      firstRow = Math.min(firstRow, rows.start[y]);
+      lastRow = Math.max(lastRow, rows.start[y] + rows.count[y]);
+    }
+    int top = firstRow;
+    int across = region.width;
+    //horizontal pass: every source row resized to the width of the region
+    float[] red = new float[across * (lastRow - top)];
+    float[] green = new float[across * (lastRow - top)];
+    float[] blue = new float[across * (lastRow - top)];
+    TileExecutor.forEachBand(lastRow - top, parallelism, (start, end) -> {
+      for (int y = start; y < end; y++) {
+        int row = (top + y) * srcWidth;
+        for (int x = 0; x < across; x++) {
+          int first = columns.start[region.x + x];
+          int w = (region.x + x) * columns.stride;
+          float r = 0;
+          float g = 0;
+          float b = 0;
+          for (int k = 0; k < columns.count[region.x + x]; k++) {
+            int rgb = src[row + first + k];
+            float weight = columns.weights[w + k];
+            r += ((rgb >> 16) & 0xff) * weight;
+            g += ((rgb >> 8) & 0xff) * weight;
+            b += (rgb & 0xff) * weight;
+          }
+          int i = y * across + x;
+          red[i] = r;
+          green[i] = g;
+          blue[i] = b;
+        }
+      }
+    });
+    //vertical pass: every column of the buffer resized to the height of the region
+    TileExecutor.forEachBand(region.height, parallelism, (start, end) -> {
+      float[] r = new float[across];
+      float[] g = new float[across];
+      float[] b = new float[across];
+      for (int y = region.y + start; y < region.y + end; y++) {
+        Arrays.fill(r, 0);
+        Arrays.fill(g, 0);
+        Arrays.fill(b, 0);
+        int first = rows.start[y];
+        int w = y * rows.stride;
+        for (int k = 0; k < rows.count[y]; k++) {
+          float weight = rows.weights[w + k];
+          int row = (first + k - top) * across;
+          for (int x = 0; x < across; x++) {
+            r[x] += red[row + x] * weight;
+            g[x] += green[row + x] * weight;
+            b[x] += blue[row + x] * weight;
+          }
+        }
+        int row = y * width + region.x;
+        for (int x = 0; x < across; x++) {
+          result[row + x] = PackedImage.pack(Math.round(r[x]), Math.round(g[x]),
+              Math.round(b[x]));
+        }
+      }
+    });
+  }
+
+  /**
+   * Class holding the weights every target position takes from the source along one axis.
+   * Target position i reads count[i] source positions starting at start[i], with the weights
+   * weights[i * stride] onwards.
+   */
+  private static final class Weights {
+
+    private final int[] start;
+    private final int[] count;
+    private final float[] weights;
+    private final int stride;
+
+    /**
+     * Computes the weights for resizing an axis of the given length to the given length.
+     *
+     * @param srcLength Integer, the length of the axis in the source
+     * @param dstLength Integer, the length of the axis in the target
+     * @param filter    ResampleFilter, the filter to resize with
+     */
+    private Weights(int srcLength, int dstLength, ResampleFilter filter) {
+      double scale = (double) srcLength / dstLength;
+      //shrinking widens the filter so that it covers every source pixel
+      double filterScale = Math.max(scale, 1);
+      double support = filter.getSupport() * filterScale;
+      this.stride = (int) Math.ceil(support) * 2 + 1;
+      this.start = new int[dstLength];
+      this.count = new int[dstLength];
+      this.weights = new float[dstLength * stride];
+      double[] raw = new double[stride];
+      for (int i = 0; i < dstLength; i++) {
+        double center = (i + 0.5) * scale;
+        int min = Math.max(0, (int) Math.floor(center - support + 0.5));
+        int max = Math.min(srcLength, (int) Math.floor(center + support + 0.5));
+        max = Math.min(max, min + stride);
+        double sum = 0;
+        for (int j = min; j < max; j++) {
+          raw[j - min] = filter.weight((j + 0.5 - center) / filterScale);
+          sum += raw[j - min];
+        }
+        if (sum == 0) {
+          //no source pixel has weight, so take the nearest one
+          min = Math.min(srcLength - 1, (int) center);
+          max = min + 1;
+          raw[0] = 1;
+          sum = 1;
+        }
+        start[i] = min;
+        count[i] = max - min;
+        for (int j = 0; j < max - min; j++) {
+          weights[i * stride + j] = (float) (raw[j] / sum);
+        }
+      }
+    }
+
+    /**
+     * Returns the target positions that read from the given source positions.
+     *
+     * @param from Integer, the first source position (inclusive)
+     * @param to   Integer, the last source position (exclusive)
+     * @return Integer array, the first target position that reads from them (inclusive) and the
+     *     last (exclusive), equal if there are none
+     */
+    private int[] reading(int from, int to) {
+      int first = start.length;
+      int last = 0;
+      for (int i = 0; i < start.length; i++) {
+        if (start[i] < to && start[i] + count[i] > from) {
+          first = Math.min(first, i);
+          last = i + 1;
+        }
+      }
+      return first < last ? new int[] {first, last} : new int[] {0, 0};
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package model.effects;
+
+import java.awt.Dimension;
+import model.ImageImpl;
+import model.PackedImage;
+
+/**
+ * Class representing an image resize operation. Resizes an image to any width and height,
+ * larger or smaller, with the chosen ResampleFilter, and returns a new image with the new
+ * dimensions.
+ */
+public class Resize implements IEffect<ImageImpl> {
+
+  private final int width;
+  private final int height;
+  private final ResampleFilter filter;
+
+  /**
+   * General Constructor.
+   *
+   * @param width  Integer, the width of the resized image
+   * @param height Integer, the height of the resized image
+   * @param filter ResampleFilter, the filter to resize with
+   * @throws IllegalArgumentException if a dimension is not positive or the filter is null
+   */
+  public Resize(int width, int height, ResampleFilter filter) throws IllegalArgumentException {
+    if (width <= 0 || height <= 0 || filter == null) {
+      throw new IllegalArgumentException("invalid width, height or filter");
+    }
+    this.width = width;
+    this.height = height;
+    this.filter = filter;
+  }
+
+  /**
+   * Returns the width this effect resizes to.
+   *
+   * @return Integer, the width of the resized image
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height this effect resizes to.
+   *
+   * @return Integer, the height of the resized image
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public ResampleFilter getResampleFilter() {
+    return filter;
+  }
+
+  @Override
+  public Dimension getResultSize(int width, int height) {
+    return new Dimension(this.width, this.height);
+  }
+
+  /**
+   * Resizes the given packed image.
+   *
+   * @param image       PackedImage, the image to resize
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the resized image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public PackedImage applyRaster(PackedImage image, int parallelism)
+      throws IllegalArgumentException {
+    return Resampler.resample(image, width, height, filter, parallelism);
+  }
+
+  @Override
+  public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
+    return apply(input, 1);
+  }
+
+  @Override
+  public ImageImpl apply(ImageImpl input, int parallelism) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    return applyRaster(new PackedImage(input), parallelism).toImageImpl();
+  }
+}
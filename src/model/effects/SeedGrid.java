@@ -0,0 +1,168 @@
+package model.effects;
+
+/**
+ * Class that finds the closest of a set of seed points to any point, for the Mosaic effect. The
+ * seeds are bucketed into a uniform grid of square cells sized so that each cell holds about one
+ * seed, and a query searches rings of cells outward from the cell of the point until no closer
+ * seed can remain. Distances are compared squared, as integers. When several seeds are equally
+ * close, the one that comes last in the seed order is chosen.
+ */
+final class SeedGrid {
+
+  private final int[] xs;
+  private final int[] ys;
+  private final int width;
+  private final int height;
+  private final int cellSize;
+  private final int columns;
+  private final int rows;
+  //the seeds of cell c are cellSeeds[cellStart[c]] to cellSeeds[cellStart[c + 1] - 1], ascending
+  private final int[] cellStart;
+  private final int[] cellSeeds;
+  //seeds outside of the grid, which every query checks directly
+  private final int[] straySeeds;
+
+  /**
+   * Constructor for a grid over the given seeds.
+   *
+   * @param xs     Integer array, the x coordinate of each seed
+   * @param ys     Integer array, the y coordinate of each seed
+   * @param width  Integer, the width of the area the seeds and most points lie in
+   * @param height Integer, the height of the area the seeds and most points lie in
+   * @throws IllegalArgumentException if there are no seeds or the arrays do not match
+   */
+  SeedGrid(int[] xs, int[] ys, int width, int height) throws IllegalArgumentException {
+    if (xs == null || ys == null || xs.length == 0 || xs.length != ys.length || width <= 0
+        || height <= 0) {
+      throw new IllegalArgumentException("Invalid parameters");
+    }
+    this.xs = xs;
+    this.ys = ys;
+    this.width = width;
+    this.height = height;
+    this.cellSize = Math.max(1, (int) Math.sqrt((double) width * height / xs.length));
+    this.columns = (width + cellSize - 1) / cellSize;
+    this.rows = (height + cellSize - 1) / cellSize;
+    this.cellStart = new int[columns * rows + 1];
+    int strays = 0;
+    for (int i = 0; i < xs.length; i++) {
+      if (inside(xs[i], ys[i])) {
+        cellStart[cellOf(xs[i], ys[i]) + 1]++;
+      } else {
+        strays++;
+      }
+    }
+    for (int c = 0; c < columns * rows; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    this.cellSeeds = new int[xs.length - strays];
+    this.straySeeds = new int[strays];
+    int[] next = new int[columns * rows];
+    strays = 0;
+    for (int i = 0; i < xs.length; i++) {
+      if (inside(xs[i], ys[i])) {
+        int c = cellOf(xs[i], ys[i]);
+        cellSeeds[cellStart[c] + next[c]++] = i;
+      } else {
+        straySeeds[strays++] = i;
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the seed closest to the given point.
+   *
+   * @param x Integer, the x coordinate of the point
+   * @param y Integer, the y coordinate of the point
+   * @return Integer, the index of the closest seed, the last one if several are equally close
+   */
+  int nearest(int x, int y) {
+    int best = -1;
+    long bestDistance = Long.MAX_VALUE;
+    for (int i : straySeeds) {
+      long d = distance(i, x, y);
+      if (d < bestDistance || (d == bestDistance && i > best)) {
+        best = i;
+        bestDistance = d;
+      }
+    }
+    if (!inside(x, y)) {
+      //the ring bounds only hold for points in the grid, so check every seed
+      for (int i : cellSeeds) {
+        long d = distance(i, x, y);
+        if (d < bestDistance || (d == bestDistance && i > best)) {
+          best = i;
+          bestDistance = d;
+        }
+      }
+      return best;
+    }
+    int cx = x / cellSize;
+    int cy = y / cellSize;
+    int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+    for (int ring = 0; ring <= maxRing; ring++) {
+      if (ring > 0) {
+        //cells in this ring are at least this far from the point along x or y
+        long bound = (long) (ring - 1) * cellSize + 1;
+        if (bound * bound > bestDistance) {
+          break;
+        }
+      }
+      for (int gy = Math.max(0, cy - ring); gy <= Math.min(rows - 1, cy + ring); gy++) {
+        boolean edgeRow = gy == cy - ring || gy == cy + ring;
+        int step = edgeRow ? 1 : 2 * ring;
+        for (int gx = cx - ring; gx <= cx + ring; gx += Math.max(1, step)) {
+          if (gx < 0 || gx >= columns) {
+            continue;
+          }
+          int c = gy * columns + gx;
+          for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+            int i = cellSeeds[k];
+            long d = distance(i, x, y);
+            if (d < bestDistance || (d == bestDistance && i > best)) {
+              best = i;
+              bestDistance = d;
+            }
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the squared distance between the given seed and point.
+   *
+   * @param i Integer, the index of the seed
+   * @param x Integer, the x coordinate of the point
+   * @param y Integer, the y coordinate of the point
+   * @return Long, the squared distance
+   */
+  private long distance(int i, int x, int y) {
+    long dx = xs[i] - x;
+    long dy = ys[i] - y;
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * Returns whether the given point lies in the grid.
+   *
+   * @param x Integer, the x coordinate
+   * @param y Integer, the y coordinate
+   * @return Boolean, is the point in the grid?
+   */
+  private boolean inside(int x, int y) {
+    return x >= 0 && y >= 0 && x < width && y < height;
+  }
+
+  /**
+   * Returns the cell containing the given point, which must lie in the grid.
+   *
+   * @param x Integer, the x coordinate
+   * @param y Integer, the y coordinate
+   * @return Integer, the row-major index of the cell
+   */
+  private int cellOf(int x, int y) {
+    return (y / cellSize) * columns + x / cellSize;
+  }
+}
@@ -1,25 +1,27 @@
 package model.effects;
 
-import java.util.ArrayList;
-import java.util.List;
-import model.ImageImpl;
-import model.Pixel;
-
 /**
- * Class representing a Sharpen image effect.
+ * Class representing a Sharpen image effect. Convolves the image with a 5x5 kernel that adds the
+ * inner ring of neighbors and subtracts the outer ring, where neighbors outside of the image
+ * contribute nothing. The center, the inner corners, the inner edges and the outer ring are summed
+ * and truncated separately.
  */
 public class SharpenFilter extends AbstractFilter {
 
-  @Override
-  public ImageImpl apply(ImageImpl input) throws IllegalArgumentException {
-    if (input == null) {
-      throw new IllegalArgumentException("null imageImpl");
-    }
-    List<Pixel> sharpenPixels = new ArrayList<>();
-    for (int i = 0; i < input.getNumPixels(); i++) {
-      Pixel pixel = input.getPixels().get(i);
-      sharpenPixels.add(helper(input,pixel,1,.25,.25,-.125));
-    }
-    return new ImageImpl(sharpenPixels, input.getWidth(), input.getHeight());
+  /**
+   * General Constructor.
+   */
+  public SharpenFilter() {
+    super(new Kernel(new double[][]{
+        {-.125, -.125, -.125, -.125, -.125},
+        {-.125, .25, .25, .25, -.125},
+        {-.125, .25, 1, .25, -.125},
+        {-.125, .25, .25, .25, -.125},
+        {-.125, -.125, -.125, -.125, -.125}}, new int[][]{
+        {3, 3, 3, 3, 3},
+        {3, 1, 2, 1, 3},
+        {3, 2, 0, 2, 3},
+        {3, 1, 2, 1, 3},
+        {3, 3, 3, 3, 3}}), EdgeMode.ZERO);
   }
 }
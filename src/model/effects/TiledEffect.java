@@ -0,0 +1,174 @@
+package model.effects;
+
+import model.ImageImpl;
+import model.PackedImage;
+import model.TiledImage;
+
+/**
+ * Class that adapts an effect written for ImageImpl so that it can be applied to a TiledImage,
+ * one tile at a time. Beyond the caches of the two images, only one row of tiles of the input
+ * with its border and one output tile are held at once, so images larger than memory can be
+ * processed. Color matrices are applied to each tile on its own. Filters convolve each tile
+ * together with a border as wide as the radius of the kernel, read from the neighboring tiles
+ * (or, past the edges of the image, from wherever the edge mode of the filter reads), so the
+ * result is exactly the same as convolving the whole image at once. The rows a row of tiles
+ * reads are read once, in full, before its tiles are filtered, so every input tile is read
+ * about once however tall the border is. Effects that move pixels across the image, such as
+ * mosaic and downscale, can not be applied tile by tile.
+ */
+public class TiledEffect implements IEffect<TiledImage> {
+
+  private final IEffect<ImageImpl> effect;
+
+  /**
+   * General Constructor.
+   *
+   * @param effect IEffect, the ImageImpl effect to adapt, a filter or color matrix effect
+   * @throws IllegalArgumentException if the effect is null or can not be applied tile by tile
+   */
+  public TiledEffect(IEffect<ImageImpl> effect) throws IllegalArgumentException {
+    if (!(effect instanceof IFilter) && !(effect instanceof ColorMatrixEffect)) {
+      throw new IllegalArgumentException("effect can not be applied tile by tile");
+    }
+    this.effect = effect;
+  }
+
+  @Override
+  public TiledImage apply(TiledImage input) throws IllegalArgumentException {
+    return apply(input, 1);
+  }
+
+  /**
+   * Applies the effect to every tile of the given image, in row-major order, writing the result
+   * into a new tiled image with the same tile size. Each tile is split across up to the given
+   * number of threads.
+   *
+   * @param input       TiledImage, the image to apply the effect to
+   * @param parallelism Integer, the largest number of threads to use
+   * @return TiledImage, the new image, which the caller must close
+   * @throws IllegalArgumentException if the image is null
+   */
+  @Override
+  public TiledImage apply(TiledImage input, int parallelism) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("null image");
+    }
+    TiledImage output = new TiledImage(input.getWidth(), input.getHeight(),
+        input.getTileSize(), 0);
+    try {
+      for (int ty = 0; ty < input.getTileRows(); ty++) {
+        if (effect instanceof ColorMatrixEffect) {
+          for (int tx = 0; tx < input.getTileColumns(); tx++) {
+            output.writeTile(tx, ty, ((ColorMatrixEffect) effect)
+                .applyRaster(input.readTile(tx, ty), parallelism));
+          }
+          continue;
+        }
+        IFilter filter = (IFilter) effect;
+        int[][] band = readBand(input, ty, filter.getKernel().getHeight() / 2,
+            filter.getEdgeMode());
+        for (int tx = 0; tx < input.getTileColumns(); tx++) {
+          output.writeTile(tx, ty, filterTile(input, band, tx, ty, parallelism));
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      output.close();
+      throw e;
+    }
+    return output;
+  }
+
+  /**
+   * Returns the rows of the image a convolution of the given row of tiles reads, which are the
+   * rows of the tiles and a border of the given height above and below them. Each row is read
+   * once, in full, so the tiles of the border are not read again for every tile of the row.
+   *
+   * @param input TiledImage, the image
+   * @param ty    Integer, the row of tiles
+   * @param ry    Integer, the height of the top and bottom borders
+   * @param edges EdgeMode, how neighbors outside of the image are treated
+   * @return Integer array of arrays, the rows from the top of the border down, each null if the
+   *     edge mode ignores it
+   */
+  private static int[][] readBand(TiledImage input, int ty, int ry, EdgeMode edges) {
+    int top = ty * input.getTileSize();
+    int[][] band = new int[input.tileHeight(ty) + 2 * ry][];
+    for (int py = 0; py < band.length; py++) {
+      int y = edges.resolve(top + py - ry, input.getHeight());
+      if (y >= 0) {
+        band[py] = new int[input.getWidth()];
+        input.getRow(y, band[py], 0);
+      }
+    }
+    return band;
+  }
+
+  /**
+   * Returns the given tile of the image with the filter applied.
+   *
+   * @param input       TiledImage, the image
+   * @param band        Integer array of arrays, the rows the row of tiles reads (see readBand)
+   * @param tx          Integer, the column of the tile
+   * @param ty          Integer, the row of the tile
+   * @param parallelism Integer, the largest number of threads to use
+   * @return PackedImage, the tile with the filter applied
+   */
+  private PackedImage filterTile(TiledImage input, int[][] band, int tx, int ty,
+      int parallelism) {
+    IFilter filter = (IFilter) effect;
+    Kernel kernel = filter.getKernel();
+    int rx = kernel.getWidth() / 2;
+    int ry = kernel.getHeight() / 2;
+    int width = input.tileWidth(tx);
+    int height = input.tileHeight(ty);
+    PackedImage padded = pad(input, band, tx, rx, filter.getEdgeMode());
+    //every neighbor of the tile is inside of the padded image, so its edge mode never applies
+    int[] convolved = Convolution.convolve(padded, kernel, EdgeMode.CLAMP, parallelism)
+        .getRaster();
+    int[] tile = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(convolved, (y + ry) * padded.getWidth() + rx, tile, y * width, width);
+    }
+    return new PackedImage(tile, width, height);
+  }
+
+  /**
+   * Returns the given tile with a border of the given width on its left and right, and the
+   * border of the band above and below it, holding the pixels a convolution of the whole image
+   * would read there. Neighbors the edge mode ignores are black, which contributes nothing to a
+   * convolution.
+   *
+   * @param input TiledImage, the image
+   * @param band  Integer array of arrays, the rows the row of tiles reads (see readBand)
+   * @param tx    Integer, the column of the tile
+   * @param rx    Integer, the width of the left and right borders
+   * @param edges EdgeMode, how neighbors outside of the image are treated
+   * @return PackedImage, the tile with its borders
+   */
+  private static PackedImage pad(TiledImage input, int[][] band, int tx, int rx,
+      EdgeMode edges) {
+    int width = input.tileWidth(tx);
+    int left = tx * input.getTileSize();
+    int paddedWidth = width + 2 * rx;
+    int[] padded = new int[paddedWidth * band.length];
+    for (int py = 0; py < band.length; py++) {
+      int[] row = band[py];
+      if (row == null) {
+        continue;
+      }
+      //the columns of the tile itself are copied in one go
+      System.arraycopy(row, left, padded, py * paddedWidth + rx, width);
+      for (int px = 0; px < paddedWidth; px++) {
+        if (px == rx) {
+          px += width - 1;
+          continue;
+        }
+        int x = edges.resolve(left + px - rx, input.getWidth());
+        if (x >= 0) {
+          padded[py * paddedWidth + px] = row[x];
+        }
+      }
+    }
+    return new PackedImage(padded, paddedWidth, band.length);
+  }
+}
@@ -0,0 +1,82 @@
+package view;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import javax.swing.JComponent;
+import model.Image;
+import model.PackedImage;
+
+/**
+ * Class representing the component that displays the image of an ImageViewImpl. The component
+ * keeps one BufferedImage for as long as the image shown keeps its dimensions, and an update only
+ * copies the rows of the region that changed into it and repaints that region, so a small change
+ * to a large image costs about as much as the change itself.
+ */
+class ImageCanvas extends JComponent {
+
+  private static final long serialVersionUID = 1L;
+
+  private BufferedImage buffer;
+
+  /**
+   * Constructor for a canvas that shows nothing until its first update.
+   */
+  ImageCanvas() {
+    super();
+    setOpaque(true);
+  }
+
+  /**
+   * Copies the given region of the given image into the image shown. If the image shown does not
+   * have the dimensions of the given image, it is replaced and all of the given image is copied.
+   *
+   * @param image  Image, the image to show
+   * @param region Rectangle, the region of the image that changed since the last update
+   */
+  void update(Image image, Rectangle region) {
+    PackedImage packed = image instanceof PackedImage ? (PackedImage) image
+        : new PackedImage(image);
+    int width = packed.getWidth();
+    int height = packed.getHeight();
+    Rectangle area = region.intersection(new Rectangle(0, 0, width, height));
+    if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+      buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      area = new Rectangle(0, 0, width, height);
+      setPreferredSize(new Dimension(width, height));
+      revalidate();
+    }
+    if (area.isEmpty()) {
+      return;
+    }
+    WritableRaster raster = buffer.getRaster();
+    int[] row = new int[area.width];
+    for (int y = area.y; y < area.y + area.height; y++) {
+      System.arraycopy(packed.getRaster(), y * width + area.x, row, 0, area.width);
+      raster.setDataElements(area.x, y, area.width, 1, row);
+    }
+    repaint(area);
+  }
+
+  /**
+   * Returns the image shown.
+   *
+   * @return BufferedImage, the image shown, or null if there has been no update yet
+   */
+  BufferedImage getImage() {
+    return buffer;
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    g.setColor(getBackground());
+    g.fillRect(0, 0, getWidth(), getHeight());
+    if (buffer != null) {
+      //only the clip, which is the repainted region, is actually drawn
+      g.drawImage(buffer, 0, 0, null);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package view;
 
+import java.awt.Rectangle;
 import model.Image;
 
 /**
@@ -13,6 +14,14 @@ public interface ImageView {
    */
   void updateView(Image newImage);
 
+  /**
+   * Updates only the given region of the image shown, copying it from the given image. If the
+   * given image does not have the dimensions of the image shown, all of it is shown instead.
+   * @param newImage Image, the image to copy the region from
+   * @param region Rectangle, the region that changed since the image shown
+   */
+  void updateRegion(Image newImage, Rectangle region);
+
   /**
    * Returns the filename inputted by the user.
    * @return String, the name of the file
@@ -37,12 +46,29 @@ public interface ImageView {
    */
   String getEffect();
 
+  /**
+   * Returns the zoom level selected by the user.
+   * @return Integer, the zoom level, where level k shows the image at 1/2^k of its size
+   */
+  int getZoom();
+
   /**
    * The view displays the given output.
    * @param output String, the message to display
    */
   void showOutput(String output);
 
+  /**
+   * The view shows that a command is running in the background, and how far it has got.
+   * @param rows Long, the number of rows of images the command has finished so far
+   */
+  void showJobProgress(long rows);
+
+  /**
+   * The view shows that no command is running in the background any more.
+   */
+  void showJobDone();
+
   /**
    * The view displays what layer is being viewed, as well as the total layer count.
    * @param index Integer, index of current layer
@@ -1,30 +1,33 @@
 package view;
 
+import controller.CodecRegistry;
 import controller.IController;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.GridLayout;
-import java.awt.image.BufferedImage;
+import java.awt.Rectangle;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 import javax.swing.text.JTextComponent;
 import model.Image;
 import model.ImageImpl;
-import model.Pixel;
 
 /**
- * Class representing a View for an Image Editor.
+ * Class representing a View for an Image Editor. Commands may run on a background thread, so
+ * every update of the window is made on the event dispatch thread.
  */
 public class ImageViewImpl extends JFrame implements ImageView {
   private final ViewListener listener;
@@ -35,7 +38,12 @@ public class ImageViewImpl extends JFrame implements ImageView {
   private JComboBox<String> filetypeCombo;
   private JComboBox<String> effectsCombo;
   private JSpinner indexSpinner;
-  private final JLabel imageLabel;
+  private JComboBox<String> zoomCombo;
+  private JProgressBar progressBar;
+  private JButton cancelButton;
+  private volatile long jobRows;
+  private final AtomicBoolean progressQueued;
+  private final ImageCanvas canvas;
 
   /**
    * General Constructor.
@@ -44,6 +52,7 @@ public class ImageViewImpl extends JFrame implements ImageView {
   public ImageViewImpl(IController<ImageImpl> controller) {
     super();
     this.listener = new ViewListener(controller,this);
+    this.progressQueued = new AtomicBoolean();
     setTitle("Image Editor");
     setSize(1200, 600);
     setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -67,9 +76,10 @@ public class ImageViewImpl extends JFrame implements ImageView {
     initEffectRemovePanel();
     initIndexOpPanel();
 
-    //IMAGE LABEL
-    imageLabel = new JLabel(new ImageIcon(imageToBuffered(new ImageImpl(100,10))));
-    JScrollPane imgScrollPane = new JScrollPane(imageLabel);
+    //IMAGE CANVAS
+    canvas = new ImageCanvas();
+    canvas.update(new ImageImpl(100,10), new Rectangle(0, 0, 100, 100));
+    JScrollPane imgScrollPane = new JScrollPane(canvas);
     imgScrollPane.setPreferredSize(new Dimension(600,600));
     mainPanel.add(imgScrollPane);
   }
@@ -79,7 +89,7 @@ public class ImageViewImpl extends JFrame implements ImageView {
    */
   private void initInfoPanel() {
     //INFO PANEL
-    JPanel infoPanel = new JPanel(new GridLayout(2, 0));
+    JPanel infoPanel = new JPanel(new GridLayout(3, 0));
     infoPanel.setBackground(Color.YELLOW);
     infoPanel.setBorder(BorderFactory.createTitledBorder("INFO"));
     controlPanel.add(infoPanel);
@@ -93,6 +103,23 @@ public class ImageViewImpl extends JFrame implements ImageView {
     currentLayer = new JTextArea("CURRENT LAYER INDEX: 0");
     currentLayer.setEditable(false);
     infoPanel.add(currentLayer);
+
+    //JOB PANEL
+    JPanel jobPanel = new JPanel(new GridLayout(1, 2));
+    infoPanel.add(jobPanel);
+
+    //PROGRESS BAR
+    progressBar = new JProgressBar();
+    progressBar.setStringPainted(true);
+    progressBar.setString("IDLE");
+    jobPanel.add(progressBar);
+
+    //CANCEL BUTTON
+    cancelButton = new JButton("CANCEL");
+    cancelButton.setEnabled(false);
+    jobPanel.add(cancelButton);
+    cancelButton.addActionListener(listener);
+    cancelButton.setActionCommand("CANCEL");
   }
 
   /**
@@ -109,8 +136,8 @@ public class ImageViewImpl extends JFrame implements ImageView {
     filenameField = new JTextField("FILENAME");
     saveLoadPanel.add(filenameField);
 
-    //TYPE COMBO BOX
-    String[] filetypes = {"jpg","png","ppm"};
+    //TYPE COMBO BOX, listing the filetypes of every codec, including added ones
+    String[] filetypes = CodecRegistry.getDefault().getFiletypes().toArray(new String[0]);
     filetypeCombo = new JComboBox<>(filetypes);
     saveLoadPanel.add(filetypeCombo);
 
@@ -144,7 +171,7 @@ public class ImageViewImpl extends JFrame implements ImageView {
    */
   private void initEffectRemovePanel() {
     //EFFECTS/REMOVE PANEL
-    JPanel effectsRemovePanel = new JPanel(new GridLayout(2, 2));
+    JPanel effectsRemovePanel = new JPanel(new GridLayout(3, 2));
     effectsRemovePanel.setBorder(BorderFactory.createTitledBorder("APPLY TO CURRENT"));
     effectsRemovePanel.setBackground(Color.GREEN);
     controlPanel.add(effectsRemovePanel);
@@ -165,6 +192,18 @@ public class ImageViewImpl extends JFrame implements ImageView {
     removeButton.addActionListener(listener);
     removeButton.setActionCommand("REMOVE");
     effectsRemovePanel.add(removeButton);
+
+    //UNDO BUTTON
+    JButton undoButton = new JButton("UNDO");
+    undoButton.addActionListener(listener);
+    undoButton.setActionCommand("UNDO");
+    effectsRemovePanel.add(undoButton);
+
+    //REDO BUTTON
+    JButton redoButton = new JButton("REDO");
+    redoButton.addActionListener(listener);
+    redoButton.setActionCommand("REDO");
+    effectsRemovePanel.add(redoButton);
   }
 
   /**
@@ -198,12 +237,24 @@ public class ImageViewImpl extends JFrame implements ImageView {
     indexOperationsPanel.add(topButton);
     topButton.addActionListener(listener);
     topButton.setActionCommand("TOP");
+
+    //ZOOM COMBO
+    String[] zooms = {"100%","50%","25%","12.5%","6.25%"};
+    zoomCombo = new JComboBox<>(zooms);
+    indexOperationsPanel.add(zoomCombo);
+    zoomCombo.addActionListener(listener);
+    zoomCombo.setActionCommand("ZOOM");
   }
 
   @Override
   public void updateView(Image newImage) {
-    BufferedImage img = imageToBuffered(newImage);
-    imageLabel.setIcon(new ImageIcon(img));
+    onEdt(() -> canvas.update(newImage,
+        new Rectangle(0, 0, newImage.getWidth(), newImage.getHeight())));
+  }
+
+  @Override
+  public void updateRegion(Image newImage, Rectangle region) {
+    onEdt(() -> canvas.update(newImage, region));
   }
 
   @Override
@@ -226,30 +277,62 @@ public class ImageViewImpl extends JFrame implements ImageView {
     return (String) effectsCombo.getSelectedItem();
   }
 
+  @Override
+  public int getZoom() {
+    return zoomCombo.getSelectedIndex();
+  }
+
   @Override
   public void showOutput(String message) {
-    output.setText(message);
+    onEdt(() -> output.setText(message));
   }
 
   @Override
   public void showCurrentLayerIndex(int index,int total) {
-    currentLayer.setText("CURRENT LAYER INDEX: " + index + " out of " + total);
+    onEdt(() -> currentLayer.setText("CURRENT LAYER INDEX: " + index + " out of " + total));
+  }
+
+  @Override
+  public void showJobProgress(long rows) {
+    jobRows = rows;
+    //progress is reported once per band, so updates that arrive while one is queued are merged
+    if (progressQueued.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(() -> {
+        progressQueued.set(false);
+        progressBar.setIndeterminate(true);
+        progressBar.setString("WORKING: " + jobRows + " ROWS");
+        cancelButton.setEnabled(true);
+      });
+    }
+  }
+
+  @Override
+  public void showJobDone() {
+    SwingUtilities.invokeLater(() -> {
+      progressBar.setIndeterminate(false);
+      progressBar.setString("IDLE");
+      cancelButton.setEnabled(false);
+    });
   }
 
   /**
-   * Converts an ImageImpl to a BufferedImage.
-   * @param imageImpl ImageImpl, the image to convert
-   * @return BufferedImage, the given image as a BufferedImage
+   * Runs the given update of the window on the event dispatch thread and waits for it, so that
+   * an image is copied before the command that made it goes on to change it.
+   * @param update Runnable, the update to make
+   * @throws IllegalArgumentException if the update fails
    */
-  private BufferedImage imageToBuffered(Image imageImpl) {
-    //create BufferedImage
-    BufferedImage result = new BufferedImage(imageImpl.getWidth(), imageImpl.getHeight(),
-        BufferedImage.TYPE_INT_RGB);
-    //adds all pixel information to the BufferedImage
-    for (Pixel x : imageImpl.getPixels()) {
-      result.setRGB(x.getX(), x.getY(), x.getRGB());
+  private void onEdt(Runnable update) throws IllegalArgumentException {
+    if (SwingUtilities.isEventDispatchThread()) {
+      update.run();
+      return;
+    }
+    try {
+      SwingUtilities.invokeAndWait(update);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (InvocationTargetException e) {
+      throw new IllegalArgumentException("View update failed: " + e.getCause().getMessage());
     }
-    return result;
   }
 
 }
@@ -1,5 +1,6 @@
 package view;
 
+import java.awt.Rectangle;
 import model.Image;
 
 /**
@@ -7,6 +8,7 @@ import model.Image;
  */
 public class MockView implements ImageView {
   public Image img;
+  public Rectangle region;
   public String output;
   public String currentLayer;
 
@@ -14,10 +16,19 @@ public class MockView implements ImageView {
   public String filetype;
   public String effect;
   public int index;
+  public int zoom;
+  public long progress = -1;
 
   @Override
   public void updateView(Image newImage) {
     img = newImage;
+    region = null;
+  }
+
+  @Override
+  public void updateRegion(Image newImage, Rectangle region) {
+    img = newImage;
+    this.region = region;
   }
 
   @Override
@@ -40,11 +51,26 @@ public class MockView implements ImageView {
     return effect;
   }
 
+  @Override
+  public int getZoom() {
+    return zoom;
+  }
+
   @Override
   public void showOutput(String output) {
     this.output = output;
   }
 
+  @Override
+  public void showJobProgress(long rows) {
+    progress = rows;
+  }
+
+  @Override
+  public void showJobDone() {
+    progress = -1;
+  }
+
   @Override
   public void showCurrentLayerIndex(int index, int total) {
     currentLayer = index + " out of " + total;
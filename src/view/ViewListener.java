@@ -61,6 +61,18 @@ public class ViewListener implements ActionListener {
       case "FILE":
         this.controller.file(view.getFilename());
         break;
+      case "UNDO":
+        this.controller.undo();
+        break;
+      case "REDO":
+        this.controller.redo();
+        break;
+      case "CANCEL":
+        this.controller.cancel();
+        break;
+      case "ZOOM":
+        sendCommand("zoom " + view.getZoom());
+        break;
       default:
         //if action event not recognized, do nothing
     }
@@ -0,0 +1,135 @@
+package controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import model.ImageEditorModelTest;
+import model.ImageImpl;
+import model.effects.Greyscale;
+import model.effects.Sepia;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing BatchRunner.
+ */
+public class BatchRunnerTest {
+  Path dir;
+  IOHandler<ImageImpl> in;
+  StringBuilder out;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("batch");
+    Files.createDirectories(dir.resolve("in/nested"));
+    in = new IOHandlerImpl(dir.resolve("in").toString());
+    in.exportItem("a", "ppm", new ImageImpl(12, 3));
+    in.exportItem("b", "png", new ImageImpl(8));
+    in.exportItem("nested/c", "ppm", new ImageImpl(5, 2));
+    new IOHandlerImpl(dir.toString()).exportText("script", "greyscale sepia");
+    out = new StringBuilder();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorNoThreads() {
+    new BatchRunner("script", "*.ppm", "out", 0, out);
+  }
+
+  @Test
+  public void run() {
+    BatchRunner runner = new BatchRunner(dir.resolve("script.txt").toString(),
+        dir + "/in/*.ppm", dir.resolve("out").toString(), 2, out);
+    assertEquals(0, runner.run());
+    ImageImpl a = new IOHandlerImpl(dir.resolve("out").toString()).importItem("a", "ppm");
+    assertTrue(ImageEditorModelTest.sameImage(
+        new Sepia().apply(new Greyscale().apply(new ImageImpl(12, 3))), a));
+    //only a.ppm matches, c.ppm is in a subdirectory and b is a png
+    assertEquals(3, out.toString().split("\n").length);
+    assertTrue(out.toString().contains("Processed 1 of 1 images in "));
+    assertTrue(out.toString().contains("with 2 decode, 2 transform and 2 encode threads"));
+  }
+
+  @Test
+  public void runRecursiveKeepsSubdirectories() {
+    BatchRunner runner = new BatchRunner(dir.resolve("script").toString(),
+        dir + "/in/**", dir.resolve("out").toString(), 3, out);
+    assertEquals(0, runner.run());
+    assertTrue(Files.exists(dir.resolve("out/a.ppm")));
+    assertTrue(Files.exists(dir.resolve("out/b.png")));
+    assertTrue(Files.exists(dir.resolve("out/nested/c.ppm")));
+    assertTrue(out.toString().contains("Processed 3 of 3 images"));
+  }
+
+  @Test
+  public void runReportsFailures() throws IOException {
+    Files.write(dir.resolve("in/broken.ppm"), "P3 nonsense".getBytes());
+    BatchRunner runner = new BatchRunner(dir.resolve("script").toString(),
+        dir + "/in/*.ppm", dir.resolve("out").toString(), 2, out);
+    assertEquals(1, runner.run());
+    assertTrue(out.toString().contains("broken.ppm failed: "));
+    assertTrue(out.toString().contains("Processed 1 of 2 images"));
+    assertTrue(out.toString().contains(", 1 failed."));
+  }
+
+  @Test
+  public void runFailsImagesTheScriptFailsOn() {
+    in.exportItem("tiny", "ppm", new ImageImpl(1));
+    new IOHandlerImpl(dir.toString()).exportText("failing", "mosaic 50");
+    BatchRunner runner = new BatchRunner(dir.resolve("failing").toString(),
+        dir + "/in/*.ppm", dir.resolve("out").toString(), 2, out);
+    assertEquals(1, runner.run());
+    assertTrue(out.toString().contains("tiny.ppm failed: 1 command(s) of the script failed"));
+    assertTrue(out.toString().contains("Processed 1 of 2 images"));
+    assertFalse(Files.exists(dir.resolve("out/tiny.ppm")));
+  }
+
+  @Test
+  public void runStagesWithDifferentThreads() {
+    BatchRunner runner = new BatchRunner(dir.resolve("script").toString(),
+        dir + "/in/**", dir.resolve("out").toString(), 1, 3, 2, out);
+    assertEquals(0, runner.run());
+    for (String line : out.toString().split("\n")) {
+      assertTrue(line, line.startsWith("Processed") || line.startsWith("Time spent")
+          || line.matches(".* -> .* \\(decode \\d+ ms, transform \\d+ ms, encode \\d+ ms\\)"));
+    }
+    assertTrue(out.toString().contains("Processed 3 of 3 images"));
+  }
+
+  @Test
+  public void runManyImagesThroughSmallQueues() {
+    for (int i = 0; i < 20; i++) {
+      in.exportItem("many" + i, "ppm", new ImageImpl(3 + i, 2));
+    }
+    BatchRunner runner = new BatchRunner(dir.resolve("script").toString(),
+        dir + "/in/many*.ppm", dir.resolve("out").toString(), 3, 1, 1, out);
+    assertEquals(0, runner.run());
+    assertTrue(out.toString().contains("Processed 20 of 20 images"));
+    assertTrue(Files.exists(dir.resolve("out/many19.ppm")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorNoEncoders() {
+    new BatchRunner("script", "*.ppm", "out", 1, 1, 0, out);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void runMissingScript() {
+    new BatchRunner(dir.resolve("noScript").toString(), dir + "/in/*.ppm",
+        dir.resolve("out").toString(), 1, out).run();
+  }
+}
@@ -0,0 +1,147 @@
+package controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.Set;
+import model.ImageImpl;
+import model.PackedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing CodecRegistry and the built in codecs.
+ */
+public class CodecRegistryTest {
+  CodecRegistry registry;
+  PackedImage img;
+
+  /**
+   * Codec that claims the png filetype and decodes every file to a single black pixel.
+   */
+  private static class FakeCodec implements Codec {
+    private final int priority;
+
+    FakeCodec(int priority) {
+      this.priority = priority;
+    }
+
+    @Override
+    public Set<String> getFiletypes() {
+      return Set.of("png", "fake");
+    }
+
+    @Override
+    public String getExtension(String filetype) {
+      return filetype;
+    }
+
+    @Override
+    public Set<Capability> getCapabilities(String filetype) {
+      return Set.of();
+    }
+
+    @Override
+    public int getPriority() {
+      return priority;
+    }
+
+    @Override
+    public PackedImage decode(String path, String filetype) {
+      return new PackedImage(1, 1);
+    }
+
+    @Override
+    public void encode(String path, String filetype, PackedImage image, float quality) {
+      //writes nothing
+    }
+  }
+
+  @Before
+  public void setUp() {
+    registry = new CodecRegistry();
+    img = new PackedImage(new ImageImpl(40, 3));
+  }
+
+  @Test
+  public void builtInFiletypes() {
+    assertEquals(Set.of("jpg", "p6", "pgm", "png", "ppm", "qoi"), registry.getFiletypes());
+    assertTrue(registry.get("ppm") instanceof PpmCodec);
+    assertTrue(registry.get("png") instanceof ImageIOCodec);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getUnsupported() {
+    registry.get("bmp");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void registerNull() {
+    registry.register(null);
+  }
+
+  @Test
+  public void registerPriority() {
+    Codec lower = new FakeCodec(-1);
+    registry.register(lower);
+    assertTrue(registry.get("png") instanceof ImageIOCodec);
+    assertTrue(registry.get("fake") == lower);
+    Codec higher = new FakeCodec(1);
+    registry.register(higher);
+    assertTrue(registry.get("png") == higher);
+  }
+
+  @Test
+  public void handlerUsesRegistry() {
+    registry.register(new FakeCodec(1));
+    IOHandlerImpl handler = new IOHandlerImpl("res", registry);
+    assertEquals(1, handler.importRaster("anything", "png").getWidth());
+    assertTrue(handler.getCodecs() == registry);
+  }
+
+  @Test
+  public void decodeRegionAndSubsampled() {
+    IOHandlerImpl handler = new IOHandlerImpl("res", registry);
+    for (String type : new String[] {"png", "ppm"}) {
+      handler.exportRaster("codecTest", type, img);
+      Codec codec = registry.get(type);
+      String path = "res" + File.separator + "codecTest." + type;
+      Rectangle region = new Rectangle(5, 1, 20, 2);
+      PackedImage actual = codec.decodeRegion(path, type, region);
+      assertEquals(20, actual.getWidth());
+      assertEquals(2, actual.getHeight());
+      //both formats are lossless, so the region holds the pixels that were written
+      for (int y = 0; y < 2; y++) {
+        for (int x = 0; x < 20; x++) {
+          assertEquals(img.getRaster()[(1 + y) * 40 + 5 + x], actual.getRaster()[y * 20 + x]);
+        }
+      }
+      PackedImage sub = codec.decodeSubsampled(path, type, 3);
+      assertEquals(14, sub.getWidth());
+      assertEquals(14, sub.getHeight());
+      assertEquals(img.getRaster()[3 * 7], sub.getRaster()[7]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void decodeRegionOutside() {
+    IOHandlerImpl handler = new IOHandlerImpl("res", registry);
+    handler.exportRaster("codecTest", "png", img);
+    registry.get("png").decodeRegion("res" + File.separator + "codecTest.png", "png",
+        new Rectangle(30, 0, 20, 2));
+  }
+
+  @Test
+  public void encodeQuality() {
+    IOHandlerImpl handler = new IOHandlerImpl("res", registry);
+    PackedImage big = new PackedImage(new ImageImpl(200, 200));
+    handler.exportRaster("codecLow", "jpg", big, 0.1f);
+    handler.exportRaster("codecHigh", "jpg", big, 1f);
+    assertTrue(new File("res/codecLow.jpg").length() < new File("res/codecHigh.jpg").length());
+    assertTrue(registry.get("jpg").getCapabilities("jpg").contains(Codec.Capability.QUALITY));
+    assertTrue(registry.get("png").getCapabilities("png")
+        .contains(Codec.Capability.COMPRESSION));
+  }
+}
@@ -3,8 +3,11 @@ package controller;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
 import java.util.Scanner;
 import model.ImageImpl;
+import model.PackedImage;
+import model.effects.Greyscale;
 import model.Pixel;
 import org.junit.Before;
 import org.junit.Test;
@@ -58,6 +61,11 @@ public class IOHandlerImplTest {
   }
 
 
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorNullDirectory() {
+    new IOHandlerImpl(null);
+  }
+
   @Test
   public void exportImageAndImportImagePPM() {
     handler.exportItem("test", "ppm", img);
@@ -65,6 +73,39 @@ public class IOHandlerImplTest {
     assertTrue(sameImage(img, img2));
   }
 
+  @Test
+  public void exportImageAndImportImageP6() {
+    handler.exportItem("test", "p6", img);
+    assertTrue(sameImage(img, handler.importItem("test", "p6")));
+    //binary files use the same extension, so "ppm" imports them too
+    assertTrue(sameImage(img, handler.importItem("test", "ppm")));
+  }
+
+  @Test
+  public void exportImageAndImportImagePGM() {
+    ImageImpl grey = new Greyscale().apply(img);
+    handler.exportItem("test", "pgm", grey);
+    assertTrue(sameImage(grey, handler.importItem("test", "pgm")));
+  }
+
+  @Test
+  public void exportColorImageAsPGM() {
+    Random random = new Random(3);
+    int[] raster = new int[64 * 64];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = random.nextInt(0x1000000);
+    }
+    ImageImpl color = new PackedImage(raster, 64, 64).toImageImpl();
+    handler.exportItem("test", "pgm", color);
+    int[] grey = new PackedImage(new Greyscale().apply(color)).getRaster();
+    int[] levels = new PackedImage(handler.importItem("test", "pgm")).getRaster();
+    for (int i = 0; i < grey.length; i++) {
+      //rounded rather than truncated like the effect
+      int difference = (levels[i] & 0xff) - (grey[i] & 0xff);
+      assertTrue(difference == 0 || difference == 1);
+    }
+  }
+
   @Test
   public void exportImageAndImportImagePNG() {
     handler.exportItem("test", "png", img);
@@ -4,11 +4,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.StringReader;
+import model.BlendMode;
 import model.ImageEditorModel;
 import model.ImageEditorModelTest;
 import model.ImageImpl;
 import model.Pixel;
 import model.effects.BlurFilter;
+import model.effects.Mosaic;
+import model.effects.ResampleFilter;
+import model.effects.Resize;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -78,6 +82,72 @@ public class ImageAppendableControllerTest {
     assertTrue(ImageEditorModelTest.sameImage(img, model.exportTopLayer()));
   }
 
+  @Test
+  public void runMosaicWithSeeds() {
+    controller.run(new StringReader("mosaic 30 42"));
+    assertEquals("Effect applied.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(new Mosaic(30, 42).apply(img3),
+        model.exportTopLayer()));
+  }
+
+  @Test
+  public void runMosaicNegativeSeeds() {
+    controller.run(new StringReader("mosaic -3"));
+    assertEquals("Effect could not be applied.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(img3, model.exportTopLayer()));
+  }
+
+  @Test
+  public void runMosaicTooManySeeds() {
+    controller.run(new StringReader("mosaic 401"));
+    assertEquals("Effect could not be applied.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(img3, model.exportTopLayer()));
+  }
+
+  @Test
+  public void runDownscaleSinglePixel() {
+    ImageImpl pixel = new ImageImpl(1);
+    model.importItem(pixel);
+    controller.run(new StringReader("downscale"));
+    assertEquals("Effect could not be applied.\nCURRENT LAYER: 4 of 4\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(pixel, model.exportTopLayer()));
+  }
+
+  @Test
+  public void runResize() {
+    controller.run(new StringReader("resize 7 30 lanczos3"));
+    assertEquals("Effect applied.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(
+        new Resize(7, 30, ResampleFilter.LANCZOS3).apply(img3), model.exportTopLayer()));
+  }
+
+  @Test
+  public void runResizeInvalidSize() {
+    controller.run(new StringReader("resize 0 5"));
+    assertEquals("Effect could not be applied.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(img3, model.exportTopLayer()));
+  }
+
+  @Test
+  public void runUndoRedo() {
+    controller.run(new StringReader("remove undo redo undo redo redo"));
+    assertEquals("Layer removed.\nCURRENT LAYER: 2 of 2\n"
+        + "Undone.\nCURRENT LAYER: 3 of 3\n"
+        + "Redone.\nCURRENT LAYER: 2 of 2\n"
+        + "Undone.\nCURRENT LAYER: 3 of 3\n"
+        + "Redone.\nCURRENT LAYER: 2 of 2\n"
+        + "Nothing to redo.\nCURRENT LAYER: 2 of 2\n", ap.toString());
+    assertTrue(ImageEditorModelTest.sameImage(img2, model.exportTopLayer()));
+  }
+
+  @Test
+  public void runBlend() {
+    controller.run(new StringReader("blend multiply 60 blend overlay"));
+    assertEquals("Blend set.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    assertEquals(BlendMode.MULTIPLY, model.getBlendMode(2));
+    assertEquals(60, model.getOpacity(2));
+  }
+
   @Test
   public void updateOutput() {
     assertEquals("",ap.toString());
@@ -162,4 +232,24 @@ public class ImageAppendableControllerTest {
     controller.file("testExport");
     assertEquals(6,model.getLayerCount());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void runExportAllQoi() {
+    model.setVisibility(1, false);
+    model.setBlend(1, BlendMode.SCREEN, 70);
+    model.setBlend(2, BlendMode.MULTIPLY, 40);
+    controller.run(new StringReader("exportAll testExportQoi qoi"));
+    assertEquals("Exported all layers.\nCURRENT LAYER: 3 of 3\n", ap.toString());
+    ImageEditorModel loaded = new ImageEditorModel();
+    new ImageAppendableController(loaded, new StringBuilder()).file("testExportQoi");
+    assertEquals(3, loaded.getLayerCount());
+    assertEquals(false, loaded.getVisibilities().get(1));
+    assertEquals(BlendMode.SCREEN, loaded.getBlendMode(1));
+    assertEquals(70, loaded.getOpacity(1));
+    assertEquals(BlendMode.MULTIPLY, loaded.getBlendMode(2));
+    assertEquals(40, loaded.getOpacity(2));
+    assertEquals(BlendMode.NORMAL, loaded.getBlendMode(0));
+    assertTrue(ImageEditorModelTest.sameImage(img2, loaded.exportItem(1)));
+    assertTrue(ImageEditorModelTest.sameImage(img3, loaded.exportItem(2)));
+  }
+}
@@ -0,0 +1,185 @@
+package controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import model.PackedImage;
+import model.TiledImage;
+import org.junit.Test;
+
+/**
+ * Class for testing the PPMReader and PPMWriter classes.
+ */
+public class PPMReaderTest {
+
+  /**
+   * Reads an image from the given text.
+   *
+   * @param text String, the contents of a ppm file
+   * @return PackedImage, the image read from the text
+   */
+  private static PackedImage read(String text) {
+    return PPMReader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  /**
+   * Returns the two arrays joined together.
+   *
+   * @param a Byte array, the first array
+   * @param b Byte array, the second array
+   * @return Byte array, the bytes of a followed by the bytes of b
+   */
+  private static byte[] concat(byte[] a, byte[] b) {
+    byte[] both = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, both, a.length, b.length);
+    return both;
+  }
+
+  @Test
+  public void testRead() {
+    PackedImage img = read("P3\n2 1\n255\n1 2 3\n4 5 6\n");
+    assertEquals(2, img.getWidth());
+    assertEquals(1, img.getHeight());
+    assertEquals(0x010203, img.getRGBAt(0, 0));
+    assertEquals(0x040506, img.getRGBAt(1, 0));
+  }
+
+  @Test
+  public void testComments() {
+    PackedImage img = read("# leading\nP3# after magic\n1 # width\n# own line\n2\n255 1 2 3#x\n"
+        + "4 5 6 # trailing");
+    assertEquals(1, img.getWidth());
+    assertEquals(2, img.getHeight());
+    assertEquals(0x010203, img.getRGBAt(0, 0));
+    assertEquals(0x040506, img.getRGBAt(0, 1));
+  }
+
+  @Test
+  public void testValuesAreClamped() {
+    PackedImage img = read("P3 1 1 255 300 -4 17");
+    assertEquals(0xff0011, img.getRGBAt(0, 0));
+  }
+
+  @Test
+  public void testLargerThanBuffer() {
+    int width = 200;
+    int height = 150;
+    StringBuilder text = new StringBuilder("P3\r\n" + width + " " + height + "\r\n255\r\n");
+    for (int i = 0; i < width * height; i++) {
+      text.append(i & 255).append('\t').append((i >> 8) & 255).append(' ').append(7)
+          .append("\r\n");
+    }
+    PackedImage img = read(text.toString());
+    for (int i = 0; i < width * height; i++) {
+      assertEquals(PackedImage.pack(i & 255, (i >> 8) & 255, 7), img.getRaster()[i]);
+    }
+  }
+
+  @Test
+  public void testReadBinary() {
+    byte[] header = "P6\n# binary\n2 1\n255\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] data = {1, 2, 3, (byte) 250, (byte) 128, 0};
+    PackedImage img = PPMReader.read(new ByteArrayInputStream(concat(header, data)));
+    assertEquals(0x010203, img.getRGBAt(0, 0));
+    assertEquals(0xfa8000, img.getRGBAt(1, 0));
+  }
+
+  @Test
+  public void testReadBinaryGrey() {
+    byte[] header = "P5 2 1 255\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] data = {10, (byte) 200};
+    PackedImage img = PPMReader.read(new ByteArrayInputStream(concat(header, data)));
+    assertEquals(0x0a0a0a, img.getRGBAt(0, 0));
+    assertEquals(0xc8c8c8, img.getRGBAt(1, 0));
+  }
+
+  @Test
+  public void testReadBinarySixteenBit() {
+    byte[] header = "P6 1 1 65535\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] data = {(byte) 255, (byte) 255, (byte) 128, 0, 0, 0};
+    PackedImage img = PPMReader.read(new ByteArrayInputStream(concat(header, data)));
+    assertEquals(0xff8000, img.getRGBAt(0, 0));
+  }
+
+  @Test
+  public void testReadPlainGrey() {
+    assertEquals(0x070707, read("P2 1 1 255 7").getRGBAt(0, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBinaryMissingValues() {
+    byte[] header = "P6 2 1 255\n".getBytes(StandardCharsets.US_ASCII);
+    PPMReader.read(new ByteArrayInputStream(concat(header, new byte[4])));
+  }
+
+  @Test
+  public void testWriteAndRead() {
+    PackedImage img = new PackedImage(300, 200);
+    for (int i = 0; i < img.getRaster().length; i++) {
+      img.getRaster()[i] = (i * 7919) & 0xffffff;
+    }
+    for (PPMWriter.Format format : new PPMWriter.Format[]{PPMWriter.Format.PLAIN,
+        PPMWriter.Format.BINARY}) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      PPMWriter.write(out, img, format);
+      PackedImage copy = PPMReader.read(new ByteArrayInputStream(out.toByteArray()));
+      assertArrayEquals(img.getRaster(), copy.getRaster());
+    }
+  }
+
+  @Test
+  public void testReadAndWriteTiled() {
+    PackedImage img = new PackedImage(300, 200);
+    for (int i = 0; i < img.getRaster().length; i++) {
+      img.getRaster()[i] = (i * 7919) & 0xffffff;
+    }
+    for (PPMWriter.Format format : new PPMWriter.Format[]{PPMWriter.Format.PLAIN,
+        PPMWriter.Format.BINARY}) {
+      PPMWriter.write("res/tiled.ppm", img, format);
+      try (TiledImage tiled = PPMReader.readTiled("res/tiled.ppm")) {
+        assertArrayEquals(img.getRaster(), tiled.toPackedImage().getRaster());
+        PPMWriter.write("res/tiled2.ppm", tiled, format);
+      }
+      assertArrayEquals(img.getRaster(), PPMReader.read("res/tiled2.ppm").getRaster());
+    }
+  }
+
+  @Test
+  public void testWriteGrey() {
+    PackedImage img = new PackedImage(new int[]{0x808080, 0xff0000}, 2, 1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PPMWriter.write(out, img, PPMWriter.Format.GREY);
+    PackedImage copy = PPMReader.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(0x808080, copy.getRGBAt(0, 0));
+    assertEquals(0x363636, copy.getRGBAt(1, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongMagic() {
+    read("P7\n1 1\n255\n1 2 3\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingValues() {
+    read("P3\n2 2\n255\n1 2 3\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotANumber() {
+    read("P3\n1 1\n255\n1 2x 3\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadDimensions() {
+    read("P3\n0 1\n255\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingFile() {
+    PPMReader.read("res/doesNotExist.ppm");
+  }
+}
@@ -0,0 +1,145 @@
+package controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import model.ImageImpl;
+import model.PackedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing QoiCodec.
+ */
+public class QoiCodecTest {
+  QoiCodec codec;
+  String path;
+
+  @Before
+  public void setUp() {
+    codec = new QoiCodec();
+    path = "res/qoiTest.qoi";
+  }
+
+  /**
+   * Returns the bytes of the QOI file of the given image, without its header and end marker.
+   *
+   * @param image PackedImage, the image to encode
+   * @return byte array, the encoded pixels
+   * @throws IOException if the file can not be read
+   */
+  private byte[] encodedPixels(PackedImage image) throws IOException {
+    codec.encode(path, "qoi", image, Codec.DEFAULT_QUALITY);
+    byte[] file = Files.readAllBytes(Paths.get(path));
+    byte[] pixels = new byte[file.length - 14 - 8];
+    System.arraycopy(file, 14, pixels, 0, pixels.length);
+    return pixels;
+  }
+
+  @Test
+  public void encodeHeader() throws IOException {
+    codec.encode(path, "qoi", new PackedImage(new int[] {0, 0, 0}, 3, 1),
+        Codec.DEFAULT_QUALITY);
+    byte[] file = Files.readAllBytes(Paths.get(path));
+    assertArrayEquals(new byte[] {'q', 'o', 'i', 'f', 0, 0, 0, 3, 0, 0, 0, 1, 3, 0,
+        //a run of three copies of the starting pixel, then the end marker
+        (byte) 0xc2, 0, 0, 0, 0, 0, 0, 0, 1}, file);
+  }
+
+  @Test
+  public void encodeOps() throws IOException {
+    //luma, diff, index of the first pixel, and rgb
+    PackedImage image = new PackedImage(new int[] {0x010203, 0x000102, 0x010203, 0x805010},
+        4, 1);
+    assertArrayEquals(new byte[] {(byte) 0xa2, 0x79, 0x55, (byte) hash(0x010203),
+        (byte) 0xfe, (byte) 0x80, 0x50, 0x10}, encodedPixels(image));
+  }
+
+  /**
+   * Returns the hash of the given opaque pixel, as the QOI format defines it.
+   *
+   * @param rgb Integer, the pixel
+   * @return Integer, its position in the index
+   */
+  private static int hash(int rgb) {
+    return (((rgb >> 16) & 0xff) * 3 + ((rgb >> 8) & 0xff) * 5 + (rgb & 0xff) * 7 + 255 * 11)
+        % 64;
+  }
+
+  @Test
+  public void roundTrip() {
+    Random random = new Random(7);
+    int[] raster = new int[300 * 200];
+    for (int i = 0; i < raster.length; i++) {
+      //mostly small steps with some runs and jumps, so that every op is used
+      int step = random.nextInt(10);
+      raster[i] = i == 0 || step == 0 ? random.nextInt(0x1000000)
+          : step < 4 ? raster[i - 1]
+          : (raster[i - 1] + random.nextInt(0x030303)) & 0xffffff;
+    }
+    PackedImage image = new PackedImage(raster, 300, 200);
+    codec.encode(path, "qoi", image, Codec.DEFAULT_QUALITY);
+    PackedImage decoded = codec.decode(path, "qoi");
+    assertEquals(300, decoded.getWidth());
+    assertEquals(200, decoded.getHeight());
+    assertArrayEquals(raster, decoded.getRaster());
+  }
+
+  @Test
+  public void roundTripAcrossBuffers() throws IOException {
+    for (int seed = 0; seed < 20; seed++) {
+      Random random = new Random(seed);
+      int[] raster = new int[256 * 256];
+      for (int i = 0; i < raster.length; i++) {
+        //runs ended by new colors, which are written as the longest ops
+        raster[i] = i > 0 && random.nextBoolean() ? raster[i - 1] : random.nextInt(0x1000000);
+      }
+      PackedImage image = new PackedImage(raster, 256, 256);
+      codec.encode(path, "qoi", image, Codec.DEFAULT_QUALITY);
+      assertTrue(Files.size(Paths.get(path)) > 1 << 16);
+      assertArrayEquals(raster, codec.decode(path, "qoi").getRaster());
+    }
+  }
+
+  @Test
+  public void roundTripThroughHandler() {
+    IOHandlerImpl handler = new IOHandlerImpl();
+    ImageImpl img = new ImageImpl(70);
+    handler.exportItem("qoiTest", "qoi", img);
+    assertTrue(IOHandlerImplTest.sameImage(img, handler.importItem("qoiTest", "qoi")));
+  }
+
+  @Test
+  public void decodeFourChannels() throws IOException {
+    //an rgba pixel, then an index of the first pixel and a run, which depend on its alpha
+    Files.write(Paths.get(path), new byte[] {'q', 'o', 'i', 'f', 0, 0, 0, 4, 0, 0, 0, 1, 4, 0,
+        (byte) 0xff, 10, 20, 30, 40, (byte) 0xfe, 1, 2, 3,
+        (byte) ((10 * 3 + 20 * 5 + 30 * 7 + 40 * 11) % 64), (byte) 0xc0,
+        0, 0, 0, 0, 0, 0, 0, 1});
+    assertArrayEquals(new int[] {0x0a141e, 0x010203, 0x0a141e, 0x0a141e},
+        codec.decode(path, "qoi").getRaster());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void decodeNotQoi() throws IOException {
+    Files.write(Paths.get(path), "P3 1 1 255 0 0 0".getBytes());
+    codec.decode(path, "qoi");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void decodeTruncated() throws IOException {
+    Files.write(Paths.get(path), new byte[] {'q', 'o', 'i', 'f', 0, 0, 0, 4, 0, 0, 0, 1, 3, 0,
+        (byte) 0xfe, 1});
+    codec.decode(path, "qoi");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void decodeMissing() {
+    codec.decode("res/noSuchImage.qoi", "qoi");
+  }
+}
@@ -0,0 +1,85 @@
+package controller;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import model.PackedImage;
+import org.junit.Test;
+
+/**
+ * Class for testing the RasterTransfer class.
+ */
+public class RasterTransferTest {
+
+  /**
+   * Creates a BufferedImage of the given type filled with a pattern.
+   *
+   * @param type Integer, the type of the BufferedImage
+   * @return BufferedImage, the filled image
+   */
+  private static BufferedImage pattern(int type) {
+    BufferedImage img = new BufferedImage(37, 23, type);
+    for (int y = 0; y < img.getHeight(); y++) {
+      for (int x = 0; x < img.getWidth(); x++) {
+        img.setRGB(x, y, 0x80000000 | ((x * 7) << 16) | ((y * 11) << 8) | ((x * y) & 0xff));
+      }
+    }
+    return img;
+  }
+
+  /**
+   * Checks that the packed image holds the same colors as the BufferedImage.
+   *
+   * @param expected BufferedImage, the source image
+   * @param actual   PackedImage, the copied image
+   */
+  private static void assertSameColors(BufferedImage expected, PackedImage actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y) & 0xffffff, actual.getRGBAt(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testFromBufferedTypes() {
+    int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+        BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB};
+    for (int type : types) {
+      BufferedImage img = pattern(type);
+      assertSameColors(img, RasterTransfer.fromBuffered(img));
+    }
+  }
+
+  @Test
+  public void testFromBufferedSubimage() {
+    BufferedImage int3 = pattern(BufferedImage.TYPE_INT_RGB).getSubimage(5, 3, 20, 10);
+    assertSameColors(int3, RasterTransfer.fromBuffered(int3));
+    BufferedImage bgr = pattern(BufferedImage.TYPE_3BYTE_BGR).getSubimage(5, 3, 20, 10);
+    assertSameColors(bgr, RasterTransfer.fromBuffered(bgr));
+  }
+
+  @Test
+  public void testToBufferedSharesRaster() {
+    PackedImage img = new PackedImage(4, 3);
+    img.setRGBAt(2, 1, 0x123456);
+    BufferedImage buffered = RasterTransfer.toBuffered(img);
+    assertEquals(BufferedImage.TYPE_INT_RGB, buffered.getType());
+    assertEquals(0x123456, buffered.getRGB(2, 1) & 0xffffff);
+    buffered.setRGB(0, 0, 0xabcdef);
+    assertEquals(0xabcdef, img.getRGBAt(0, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFromBufferedNull() {
+    RasterTransfer.fromBuffered(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToBufferedNull() {
+    RasterTransfer.toBuffered(null);
+  }
+}
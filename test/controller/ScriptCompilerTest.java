@@ -0,0 +1,216 @@
+package controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Scanner;
+import model.ImageEditorModel;
+import model.ImageEditorModelTest;
+import model.ImageImpl;
+import model.effects.ColorMatrixEffect;
+import model.effects.Greyscale;
+import model.effects.Sepia;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing ScriptCompiler.
+ */
+public class ScriptCompilerTest {
+  IOHandler<ImageImpl> handler;
+  ScriptCompiler compiler;
+
+  @Before
+  public void setUp() {
+    handler = new IOHandlerImpl();
+    compiler = new ScriptCompiler(handler);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorNullHandler() {
+    new ScriptCompiler(null);
+  }
+
+  @Test
+  public void next() {
+    Scanner input = new Scanner(new StringReader(
+        "hello load test png true resize 0 5 mosaic -3 blend overlay toTop 1 mosaic"));
+    assertEquals(ScriptCommand.Kind.LOAD, compiler.next(input).getKind());
+    assertEquals(ScriptCommand.Kind.INVALID_EFFECT, compiler.next(input).getKind());
+    assertEquals(ScriptCommand.Kind.INVALID_EFFECT, compiler.next(input).getKind());
+    //overlay is not a blend mode, so the blend is skipped and overlay is not a command either
+    ScriptCommand toTop = compiler.next(input);
+    assertEquals(ScriptCommand.Kind.TO_TOP, toTop.getKind());
+    assertEquals(1, toTop.getNumber());
+    assertEquals(ScriptCommand.Kind.EFFECT, compiler.next(input).getKind());
+    assertNull(compiler.next(input));
+  }
+
+  @Test
+  public void nextLoadBlendAndZoom() {
+    Scanner input = new Scanner(new StringReader(
+        "load a ppm false screen 70 load b ppm true multiply zoom 2 zoom"));
+    ScriptCommand first = compiler.next(input);
+    assertEquals("screen", first.getMode());
+    assertEquals(70, first.getNumber());
+    assertEquals(false, first.getFlag());
+    ScriptCommand second = compiler.next(input);
+    assertEquals("multiply", second.getMode());
+    assertEquals(100, second.getNumber());
+    ScriptCommand zoom = compiler.next(input);
+    assertEquals(ScriptCommand.Kind.ZOOM, zoom.getKind());
+    assertEquals(2, zoom.getNumber());
+    assertNull(compiler.next(input));
+  }
+
+  @Test
+  public void compileIncludes() {
+    handler.exportText("compileInner", "greyscale");
+    handler.exportText("compileOuter", "file compileInner file compileInner");
+    ScriptPlan plan = compiler.compile("compileOuter");
+    assertEquals("compileOuter", plan.getName());
+    assertEquals(2, plan.size());
+    assertEquals(1, plan.getCommands().get(0).getInclude().size());
+    //the same script is only compiled once
+    assertTrue(plan.getCommands().get(0).getInclude()
+        == plan.getCommands().get(1).getInclude());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compileCycle() {
+    handler.exportText("cycleA", "greyscale file cycleB");
+    handler.exportText("cycleB", "sepia file cycleA");
+    compiler.compile("cycleA");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compileMissingInclude() {
+    handler.exportText("compileMissing", "greyscale file noSuchScript");
+    compiler.compile("compileMissing");
+  }
+
+  @Test
+  public void compileFusesColorEffects() {
+    handler.exportText("compileFuse", "greyscale sepia blur");
+    ScriptPlan plan = compiler.compile("compileFuse");
+    assertEquals(3, plan.size());
+    assertTrue(plan.getCommands().get(0).applies());
+    assertEquals(2, ((ColorMatrixEffect) plan.getCommands().get(0).getEffect())
+        .getStageCount());
+    assertFalse(plan.getCommands().get(1).applies());
+    assertTrue(plan.getCommands().get(2).applies());
+  }
+
+  @Test
+  public void compileDoesNotOptimizeUndo() {
+    handler.exportText("compileUndoInner", "undo");
+    handler.exportText("compileUndo", "greyscale sepia blur remove file compileUndoInner");
+    ScriptPlan plan = compiler.compile("compileUndo");
+    for (int i = 0; i < 3; i++) {
+      assertTrue(plan.getCommands().get(i).applies());
+    }
+    assertTrue(plan.getCommands().get(0).getEffect() instanceof Greyscale);
+  }
+
+  @Test
+  public void compileDoesNotOptimizeIncludesUndoneLater() {
+    handler.exportText("compileUndoneInner", "sepia greyscale");
+    handler.exportText("compileUndoneOuter", "file compileUndoneInner undo");
+    ScriptPlan plan = compiler.compile("compileUndoneOuter");
+    ScriptPlan inner = plan.getCommands().get(0).getInclude();
+    assertTrue(inner.getCommands().get(0).getEffect() instanceof Sepia);
+    assertTrue(inner.getCommands().get(1).applies());
+    ImageImpl img = new ImageImpl(20, 2);
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(img);
+    new ImageAppendableController(model, new StringBuilder()).execute(plan);
+    assertTrue(ImageEditorModelTest.sameImage(new Sepia().apply(img), model.exportTopLayer()));
+  }
+
+  @Test
+  public void runDoesNotOptimizeScriptsUndoneLater() {
+    handler.exportText("compileUndoneInner", "sepia greyscale");
+    ImageImpl img = new ImageImpl(20, 2);
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(img);
+    new ImageAppendableController(model, new StringBuilder())
+        .run(new StringReader("file compileUndoneInner undo"));
+    assertTrue(ImageEditorModelTest.sameImage(new Sepia().apply(img), model.exportTopLayer()));
+  }
+
+  @Test
+  public void compileOptimizesIncludes() {
+    handler.exportText("compileUndoneInner", "sepia greyscale");
+    handler.exportText("compileUndoneOuter", "file compileUndoneInner blur");
+    ScriptPlan inner = compiler.compile("compileUndoneOuter").getCommands().get(0).getInclude();
+    assertTrue(inner.getCommands().get(0).getEffect() instanceof ColorMatrixEffect);
+    assertFalse(inner.getCommands().get(1).applies());
+  }
+
+  @Test
+  public void compileSkipsEffectsOnRemovedLayers() {
+    handler.exportText("compileDead", "sepia blur sharpen remove blur");
+    ScriptPlan plan = compiler.compile("compileDead");
+    assertFalse(plan.getCommands().get(0).applies());
+    assertFalse(plan.getCommands().get(1).applies());
+    assertFalse(plan.getCommands().get(2).applies());
+    assertTrue(plan.getCommands().get(4).applies());
+  }
+
+  @Test
+  public void executeReportsLikeTheScript() {
+    ImageImpl img = new ImageImpl(20, 2);
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(new ImageImpl(10));
+    model.importItem(img);
+    StringBuilder ap = new StringBuilder();
+    ImageAppendableController controller = new ImageAppendableController(model, ap);
+    handler.exportText("compileRun", "greyscale sepia load nothing ppm true blur remove");
+    controller.execute(compiler.compile("compileRun"));
+    assertEquals("Effect applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Effect applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Load unsuccessful.\nCURRENT LAYER: 2 of 2\n"
+        + "Effect applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Layer removed.\nCURRENT LAYER: 1 of 1\n", ap.toString());
+    controller.undo();
+    assertTrue(ImageEditorModelTest.sameImage(new Sepia().apply(new Greyscale().apply(img)),
+        model.exportTopLayer()));
+  }
+
+  @Test
+  public void executeReportsSkippedEffectsThatWouldFail() {
+    handler.exportText("compileDead", "mosaic 999 downscale downscale downscale remove");
+    String expected = "Effect could not be applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Effect applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Effect applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Effect could not be applied.\nCURRENT LAYER: 2 of 2\n"
+        + "Layer removed.\nCURRENT LAYER: 1 of 1\n";
+    for (int i = 0; i < 2; i++) {
+      ImageEditorModel model = new ImageEditorModel();
+      model.importItem(new ImageImpl(10));
+      model.importItem(new ImageImpl(4));
+      StringBuilder ap = new StringBuilder();
+      ImageAppendableController controller = new ImageAppendableController(model, ap);
+      if (i == 0) {
+        controller.execute(compiler.compile("compileDead"));
+      } else {
+        controller.run(new StringReader("mosaic 999 downscale downscale downscale remove"));
+      }
+      assertEquals(expected, ap.toString());
+    }
+  }
+
+  @Test
+  public void fileRejectsCycleBeforeRunning() {
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(new ImageImpl(10));
+    StringBuilder ap = new StringBuilder();
+    handler.exportText("cycleA", "remove file cycleA");
+    new ImageAppendableController(model, ap).file("cycleA");
+    assertEquals("Script load unsuccessful.\nCURRENT LAYER: 1 of 1\n", ap.toString());
+    assertEquals(1, model.getLayerCount());
+  }
+}
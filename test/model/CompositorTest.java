@@ -0,0 +1,140 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import model.effects.Greyscale;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the Compositor class and the compositing of the ImageEditorModel class.
+ */
+public class CompositorTest {
+
+  ImageImpl below;
+  ImageImpl above;
+  ImageImpl small;
+  ImageEditorModel model;
+
+  /**
+   * Returns an image of the given dimensions filled with one color.
+   *
+   * @param width  Integer, the width of the image
+   * @param height Integer, the height of the image
+   * @param rgb    Integer, the color in the form 0xRRGGBB
+   * @return ImageImpl, the image
+   */
+  static ImageImpl solid(int width, int height, int rgb) {
+    int[] raster = new int[width * height];
+    Arrays.fill(raster, rgb);
+    return new PackedImage(raster, width, height).toImageImpl();
+  }
+
+  @Before
+  public void setUp() {
+    below = solid(10, 8, 0x804020);
+    above = solid(10, 8, 0x40ff80);
+    small = solid(4, 3, 0x0000ff);
+    model = new ImageEditorModel(Arrays.asList(below, above));
+  }
+
+  @Test
+  public void testBlendModes() {
+    //0x804020 below 0x40ff80, blended channel by channel
+    int[] expected = {0x40ff80, PackedImage.pack(32, 64, 16), PackedImage.pack(160, 255, 144),
+        PackedImage.pack(192, 255, 160)};
+    for (BlendMode mode : BlendMode.values()) {
+      model.setBlend(1, mode, 100);
+      assertEquals(expected[mode.ordinal()],
+          new PackedImage(model.exportComposite()).getRGBAt(3, 5));
+    }
+  }
+
+  @Test
+  public void testOpacity() {
+    model.setBlend(1, BlendMode.NORMAL, 50);
+    assertEquals(PackedImage.pack(0x60, 0xa0, 0x50),
+        new PackedImage(model.exportComposite()).getRGBAt(9, 7));
+    model.setBlend(1, BlendMode.ADD, 0);
+    assertEquals(0x804020, new PackedImage(model.exportComposite()).getRGBAt(0, 0));
+    assertEquals(0, model.getOpacity(1));
+    assertEquals(BlendMode.ADD, model.getBlendMode(1));
+  }
+
+  @Test
+  public void testOpaqueNormalLayersShowTopLayer() {
+    assertTrue(ImageEditorModelTest.sameImage(above, model.exportComposite()));
+    model.setVisibility(1, false);
+    assertTrue(ImageEditorModelTest.sameImage(below, model.exportComposite()));
+  }
+
+  @Test
+  public void testSmallerLayerOnlyCoversItsBounds() {
+    model.importItem(small);
+    PackedImage composite = new PackedImage(model.exportComposite());
+    assertEquals(10, composite.getWidth());
+    assertEquals(8, composite.getHeight());
+    assertEquals(0x0000ff, composite.getRGBAt(3, 2));
+    assertEquals(0x40ff80, composite.getRGBAt(4, 2));
+    assertEquals(0x40ff80, composite.getRGBAt(3, 3));
+  }
+
+  @Test
+  public void testOnlyChangedLayersAreRecomposited() {
+    model.importItem(small);
+    model.getComposite(1);
+    assertEquals(new Rectangle(0, 0, 10, 8), model.getCompositeChanges());
+    model.getComposite(1);
+    assertTrue(model.getCompositeChanges().isEmpty());
+    model.setVisibility(2, false);
+    model.getComposite(1);
+    assertEquals(new Rectangle(0, 0, 4, 3), model.getCompositeChanges());
+    model.setVisibility(2, true);
+    model.setBlend(2, BlendMode.SCREEN, 70);
+    PackedImage composite = model.getComposite(2);
+    assertEquals(new Rectangle(0, 0, 4, 3), model.getCompositeChanges());
+    ImageEditorModel fresh = new ImageEditorModel(Arrays.asList(below, above, small));
+    fresh.setBlend(2, BlendMode.SCREEN, 70);
+    assertArrayEquals(fresh.getComposite(1).getRaster(), composite.getRaster());
+    model.applyEffect(new Greyscale(), 1);
+    model.getComposite(1);
+    assertEquals(new Rectangle(0, 0, 10, 8), model.getCompositeChanges());
+  }
+
+  @Test
+  public void testUndoBlend() {
+    model.setBlend(1, BlendMode.MULTIPLY, 40);
+    model.setBlend(1, BlendMode.MULTIPLY, 40);
+    model.undo();
+    assertEquals(BlendMode.NORMAL, model.getBlendMode(1));
+    assertEquals(100, model.getOpacity(1));
+    assertFalse(model.canUndo());
+    model.redo();
+    assertEquals(40, model.getOpacity(1));
+  }
+
+  @Test
+  public void testMoveToTopKeepsBlend() {
+    model.importItem(small);
+    model.setBlend(0, BlendMode.SCREEN, 30);
+    model.moveToTop(0);
+    assertEquals(BlendMode.SCREEN, model.getBlendMode(2));
+    assertEquals(30, model.getOpacity(2));
+    assertEquals(BlendMode.NORMAL, model.getBlendMode(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidOpacity() {
+    model.setBlend(1, BlendMode.NORMAL, 101);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompositeWithoutLayers() {
+    new ImageEditorModel().exportComposite();
+  }
+}
@@ -0,0 +1,156 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import model.effects.Greyscale;
+import model.effects.ResampleFilter;
+import model.effects.Sepia;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the undo and redo history of the ImageEditorModel class.
+ */
+public class HistoryTest {
+
+  ImageImpl img;
+  ImageImpl img2;
+  ImageEditorModel model;
+
+  @Before
+  public void setUp() {
+    img = new ImageImpl(10);
+    img2 = new ImageImpl(10, 2);
+    model = new ImageEditorModel(Arrays.asList(img, img2));
+  }
+
+  @Test
+  public void testUndoRedoEffect() {
+    assertFalse(model.canUndo());
+    model.applyEffect(new Greyscale(), 1);
+    ImageImpl grey = model.exportItem(1);
+    assertTrue(model.canUndo());
+    model.undo();
+    assertSame(img2, model.exportItem(1));
+    assertTrue(model.canRedo());
+    model.redo();
+    assertSame(grey, model.exportItem(1));
+    assertFalse(model.canRedo());
+  }
+
+  @Test
+  public void testUndoEveryKindOfEdit() {
+    ImageImpl img3 = new ImageImpl(4);
+    model.importItem(img3);
+    model.setVisibility(2, false);
+    model.moveToTop(0);
+    model.removeLayer(1);
+    assertEquals(2, model.getLayerCount());
+    model.undo();
+    assertSame(img2, model.exportItem(0));
+    assertSame(img3, model.exportItem(1));
+    assertSame(img, model.exportItem(2));
+    model.undo();
+    assertSame(img3, model.exportItem(2));
+    assertEquals(Arrays.asList(true, true, false), model.getVisibilities());
+    model.undo();
+    assertEquals(Arrays.asList(true, true, true), model.getVisibilities());
+    model.undo();
+    assertEquals(2, model.getLayerCount());
+    assertFalse(model.canUndo());
+  }
+
+  @Test
+  public void testUnchangedStateNotRecorded() {
+    model.setVisibility(1, true);
+    model.moveToTop(1);
+    assertFalse(model.canUndo());
+  }
+
+  @Test
+  public void testNewEditClearsRedo() {
+    model.applyEffect(new Greyscale(), 0);
+    model.undo();
+    model.applyEffect(new Sepia(), 0);
+    assertFalse(model.canRedo());
+    model.undo();
+    assertSame(img, model.exportItem(0));
+  }
+
+  @Test
+  public void testUnchangedLayersAreShared() {
+    for (int i = 0; i < 20; i++) {
+      model.applyEffect(new Greyscale(), 1);
+      model.exportItem(1);
+    }
+    //every version shares the first layer, and the current layer still holds the image before
+    //the last effect, so only the other 19 images of 100 pixels are held by the history
+    assertEquals(19 * 100 * History.BYTES_PER_PIXEL, model.getHistoryBytes());
+  }
+
+  @Test
+  public void testPyramidLevelsAreCounted() {
+    model.setPyramidCaching(true);
+    model.exportScaled(1, 5, 5, ResampleFilter.BOX);
+    model.applyEffect(new Greyscale(), 1);
+    model.exportItem(1);
+    model.applyEffect(new Greyscale(), 1);
+    //the history holds the first image of the layer and the two levels of its pyramid
+    assertEquals(100 * History.BYTES_PER_PIXEL + (100 + 25) * History.BYTES_PER_PACKED_PIXEL,
+        model.getHistoryBytes());
+  }
+
+  @Test
+  public void testUndoRedoKeepsCount() {
+    for (int i = 0; i < 5; i++) {
+      model.applyEffect(new Greyscale(), 1);
+      model.exportItem(1);
+    }
+    long bytes = model.getHistoryBytes();
+    assertEquals(4 * 100 * History.BYTES_PER_PIXEL, bytes);
+    model.undo();
+    model.undo();
+    model.redo();
+    model.redo();
+    assertEquals(bytes, model.getHistoryBytes());
+    model.setHistoryBudget(0);
+    assertEquals(0, model.getHistoryBytes());
+  }
+
+  @Test
+  public void testBudgetDropsOldestVersions() {
+    for (int i = 0; i < 20; i++) {
+      model.applyEffect(new Greyscale(), 1);
+      model.exportItem(1);
+    }
+    model.setHistoryBudget(5 * 100 * History.BYTES_PER_PIXEL);
+    assertTrue(model.getHistoryBytes() <= 5 * 100 * History.BYTES_PER_PIXEL);
+    int undone = 0;
+    while (model.canUndo()) {
+      model.undo();
+      undone++;
+    }
+    assertTrue(undone < 20);
+    assertTrue(undone >= 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNothingToUndo() {
+    model.undo();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNothingToRedo() {
+    model.applyEffect(new Greyscale(), 0);
+    model.redo();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBudget() {
+    model.setHistoryBudget(-1);
+  }
+}
@@ -1,6 +1,10 @@
 package model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -125,4 +129,48 @@ public class ImageImplTest {
     assertEquals(238, rainbow.getColorAt(ColorType.BLUE, 6, 0));
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testGetPixelAtSparseImage() {
+    List<Pixel> list = new ArrayList<>();
+    list.add(new Pixel(1, 0, 10, 10, 10));
+    list.add(new Pixel(0, 1, 20, 20, 20));
+    ImageImpl sparse = new ImageImpl(list, 10, 10);
+    assertEquals(10, sparse.getPixelAt(1, 0).getR());
+    assertEquals(20, sparse.getPixelAt(0, 1).getR());
+    assertNull(sparse.getPixelAt(5, 5));
+    assertNull(sparse.getPixelAt(-1, 0));
+    assertNull(sparse.getPixelAt(10, 0));
+  }
+
+  @Test
+  public void testGetPixelAtLastPixelWins() {
+    List<Pixel> list = new ArrayList<>();
+    list.add(new Pixel(0, 0, 10, 10, 10));
+    list.add(new Pixel(0, 0, 20, 20, 20));
+    ImageImpl dup = new ImageImpl(list, 2, 2);
+    assertEquals(20, dup.getColorAt(ColorType.RED, 0, 0));
+  }
+
+  @Test
+  public void testGetPixelAtAfterPixelsAdded() {
+    List<Pixel> list = new ArrayList<>();
+    ImageImpl growing = new ImageImpl(list, 2, 2);
+    assertNull(growing.getPixelAt(1, 1));
+    list.add(new Pixel(1, 1, 30, 30, 30));
+    assertEquals(30, growing.getColorAt(ColorType.GREEN, 1, 1));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetPixelsReadOnly() {
+    assertEquals(0, img.getColorAt(ColorType.RED, 0, 0));
+    img.getPixels().set(0, new Pixel(0, 0, 50, 50, 50));
+  }
+
+  @Test
+  public void testGetPixelAtOutsideDimensions() {
+    List<Pixel> list = new ArrayList<>();
+    list.add(new Pixel(4, 0, 40, 40, 40));
+    ImageImpl stray = new ImageImpl(list, 2, 2);
+    assertEquals(40, stray.getColorAt(ColorType.BLUE, 4, 0));
+  }
+}
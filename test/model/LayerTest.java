@@ -0,0 +1,144 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import model.effects.Downscale;
+import model.effects.Greyscale;
+import model.effects.IEffect;
+import model.effects.Mosaic;
+import model.effects.ResampleFilter;
+import model.effects.Resize;
+import model.effects.Sepia;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the deferred evaluation of layers in the ImageEditorModel class.
+ */
+public class LayerTest {
+
+  ImageImpl img;
+  CountingEffect counter;
+
+  /**
+   * Effect that counts how many times it has been applied and returns its input unchanged.
+   */
+  static class CountingEffect implements IEffect<ImageImpl> {
+
+    int count = 0;
+
+    @Override
+    public ImageImpl apply(ImageImpl input) {
+      count++;
+      return input;
+    }
+  }
+
+  /**
+   * Effect that always fails.
+   */
+  static class FailingEffect implements IEffect<ImageImpl> {
+
+    @Override
+    public ImageImpl apply(ImageImpl input) {
+      throw new IllegalArgumentException("fail");
+    }
+  }
+
+  @Before
+  public void setUp() {
+    img = new ImageImpl(14);
+    counter = new CountingEffect();
+  }
+
+  @Test
+  public void testEffectsDeferredUntilExport() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    model.applyEffect(counter, 0);
+    model.applyEffect(counter, 0);
+    assertEquals(0, counter.count);
+    model.exportItem(0);
+    assertEquals(2, counter.count);
+    model.exportTopLayer();
+    model.exportAll();
+    assertEquals(2, counter.count);
+  }
+
+  @Test
+  public void testRemovedLayerNeverComputed() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img, img));
+    model.applyEffect(counter, 1);
+    model.removeLayer(1);
+    model.exportAll();
+    assertEquals(0, counter.count);
+  }
+
+  @Test
+  public void testMoveToTopKeepsPendingEffects() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img, img));
+    model.applyEffect(new Greyscale(), 0);
+    model.moveToTop(0);
+    assertTrue(ImageEditorModelTest.sameImage(new Greyscale().apply(img),
+        model.exportTopLayer()));
+  }
+
+  @Test
+  public void testFusedColorEffects() {
+    Layer layer = new Layer(img).withEffect(new Greyscale(), 1).withEffect(new Sepia(), 1)
+        .withEffect(new Greyscale(), 1);
+    assertEquals(3, layer.getPendingCount());
+    ImageImpl expected = new Greyscale().apply(new Sepia().apply(new Greyscale().apply(img)));
+    assertTrue(ImageEditorModelTest.sameImage(expected, layer.getImage()));
+    assertTrue(layer.isEvaluated());
+    assertEquals(0, layer.getPendingCount());
+  }
+
+  @Test
+  public void testLayersAreNotChanged() {
+    Layer layer = new Layer(img);
+    Layer grey = layer.withEffect(new Greyscale(), 1);
+    assertSame(img, layer.getImage());
+    assertFalse(grey.isEvaluated());
+    assertTrue(ImageEditorModelTest.sameImage(new Greyscale().apply(img), grey.getImage()));
+  }
+
+  @Test
+  public void testFailedImageIsNotKept() {
+    Layer layer = new Layer(img).withEffect(new FailingEffect(), 1).withEffect(counter, 1);
+    for (int i = 0; i < 2; i++) {
+      try {
+        layer.getImage();
+        fail("failing effect should be reported");
+      } catch (IllegalArgumentException e) {
+        assertFalse(layer.isEvaluated());
+      }
+    }
+    assertEquals(0, counter.count);
+  }
+
+  @Test
+  public void testDownscaleRefusedWhenTooSmall() {
+    Layer layer = new Layer(new ImageImpl(3)).withEffect(new Downscale(), 1);
+    try {
+      layer.withEffect(new Downscale(), 1);
+      fail("downscale of a single pixel should be refused");
+    } catch (IllegalArgumentException e) {
+      assertFalse(layer.isEvaluated());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMosaicRefusedWithTooManySeeds() {
+    new Layer(img).withEffect(new Resize(2, 3, ResampleFilter.BOX), 1).withEffect(new Mosaic(7), 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullEffect() {
+    new ImageEditorModel(Arrays.asList(img)).applyEffect(null, 0);
+  }
+}
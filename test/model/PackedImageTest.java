@@ -0,0 +1,100 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.effects.Greyscale;
+import model.effects.PackedEffect;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the PackedImage class.
+ */
+public class PackedImageTest {
+
+  PackedImage img;
+
+  @Before
+  public void setUp() {
+    img = new PackedImage(new ImageImpl(100, 10));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDimensions() {
+    PackedImage image = new PackedImage(0, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRasterWrongSize() {
+    PackedImage image = new PackedImage(new int[5], 2, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullImage() {
+    PackedImage image = new PackedImage(null);
+  }
+
+  @Test
+  public void testToString() {
+    assertEquals("Width: 100 Height: 100 Pixel Count: 10000", img.toString());
+  }
+
+  @Test
+  public void testGetColorAt() {
+    assertEquals(0, img.getColorAt(ColorType.RED, 0, 0));
+    assertEquals(255, img.getColorAt(ColorType.GREEN, 15, 0));
+    assertEquals(255, img.getColorAt(ColorType.BLUE, 0, 15));
+    assertEquals(0, img.getColorAt(ColorType.RED, 15, 15));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetColorAtOutOfBounds() {
+    img.getColorAt(ColorType.RED, 100, 0);
+  }
+
+  @Test
+  public void testSetRGBAt() {
+    img.setRGBAt(3, 4, PackedImage.pack(300, 20, -5));
+    assertEquals(255, img.getColorAt(ColorType.RED, 3, 4));
+    assertEquals(20, img.getColorAt(ColorType.GREEN, 3, 4));
+    assertEquals(0, img.getColorAt(ColorType.BLUE, 3, 4));
+    assertEquals(0xff1400, img.getRaster()[4 * 100 + 3]);
+  }
+
+  @Test
+  public void testSparseImageIsBlackWhereMissing() {
+    List<Pixel> list = new ArrayList<>();
+    list.add(new Pixel(1, 1, 50, 60, 70));
+    PackedImage sparse = new PackedImage(new ImageImpl(list, 3, 3));
+    assertEquals(9, sparse.getNumPixels());
+    assertEquals(0, sparse.getRGBAt(0, 0));
+    assertEquals(60, sparse.getColorAt(ColorType.GREEN, 1, 1));
+  }
+
+  @Test
+  public void testPixelsView() {
+    Pixel p = img.getPixels().get(101);
+    assertEquals(1, p.getX());
+    assertEquals(1, p.getY());
+    assertEquals(img.getRGBAt(1, 1), p.getRGB());
+    assertEquals(10000, img.getPixels().size());
+  }
+
+  @Test
+  public void testRoundTrip() {
+    ImageImpl rainbow = new ImageImpl(14);
+    ImageImpl copy = new PackedImage(rainbow).toImageImpl();
+    assertTrue(ImageEditorModelTest.sameImage(rainbow, copy));
+  }
+
+  @Test
+  public void testPackedEffect() {
+    ImageImpl rainbow = new ImageImpl(14);
+    PackedImage grey = new PackedEffect(new Greyscale()).apply(new PackedImage(rainbow));
+    assertTrue(ImageEditorModelTest.sameImage(new Greyscale().apply(rainbow),
+        grey.toImageImpl()));
+  }
+}
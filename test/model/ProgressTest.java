@@ -0,0 +1,148 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import model.effects.BlurFilter;
+import model.effects.Downscale;
+import model.effects.Greyscale;
+import model.effects.Mosaic;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the Progress class, and the cancelling of effects and model edits with it.
+ */
+public class ProgressTest {
+
+  ImageImpl img;
+  ImageImpl img2;
+
+  @Before
+  public void setUp() {
+    img = new ImageImpl(100);
+    img2 = new ImageImpl(100, 10);
+  }
+
+  @Test
+  public void testCountsEveryRow() {
+    AtomicLong last = new AtomicLong();
+    Progress progress = new Progress(last::set);
+    progress.runWith(() -> {
+      TileExecutor.forEachBand(200, 1, (start, end) -> { });
+      TileExecutor.forEachBand(500, 4, (start, end) -> { });
+    });
+    assertEquals(700, progress.getRows());
+    assertEquals(700, last.get());
+  }
+
+  @Test
+  public void testPixelEffectsCountImageRows() {
+    Progress progress = new Progress(null);
+    progress.runWith(() -> {
+      new Greyscale().apply(img);
+      new Mosaic().applySpecific(img, 10, 1);
+      new Downscale().apply(img);
+      img.recolor(new PackedImage(img));
+    });
+    assertEquals(100 + 2 * 100 + 50 + 100, progress.getRows());
+  }
+
+  @Test
+  public void testWithoutProgressRunsInOneCall() {
+    AtomicInteger calls = new AtomicInteger();
+    TileExecutor.forEachBand(500, 1, (start, end) -> calls.incrementAndGet());
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testCancelStopsBetweenBands() {
+    AtomicInteger rows = new AtomicInteger();
+    Progress progress = new Progress(null);
+    try {
+      progress.runWith(() -> TileExecutor.forEachBand(1000, 1, (start, end) -> {
+        rows.addAndGet(end - start);
+        progress.cancel();
+      }));
+      fail("the job was not cancelled");
+    } catch (CancellationException e) {
+      assertEquals(64, rows.get());
+      assertTrue(progress.isCancelled());
+    }
+  }
+
+  @Test
+  public void testCancelStopsParallelBands() {
+    Progress progress = new Progress(null);
+    AtomicInteger rows = new AtomicInteger();
+    try {
+      progress.runWith(() -> TileExecutor.forEachBand(100000, 4, (start, end) -> {
+        rows.addAndGet(end - start);
+        progress.cancel();
+      }));
+      fail("the job was not cancelled");
+    } catch (CancellationException e) {
+      assertTrue(rows.get() < 100000);
+    }
+  }
+
+  @Test
+  public void testCancelledJobNeverRuns() {
+    Progress progress = new Progress(null);
+    progress.cancel();
+    AtomicInteger runs = new AtomicInteger();
+    try {
+      progress.runWith(runs::incrementAndGet);
+      fail("the job was not cancelled");
+    } catch (CancellationException e) {
+      assertEquals(0, runs.get());
+    }
+  }
+
+  @Test
+  public void testCancelledEditIsRolledBack() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    Progress[] progress = new Progress[1];
+    progress[0] = new Progress(rows -> progress[0].cancel());
+    try {
+      progress[0].runWith(() -> model.atomically(() -> {
+        model.importItem(img2);
+        model.applyEffect(new BlurFilter(), 0);
+        model.exportItem(0);
+      }));
+      fail("the job was not cancelled");
+    } catch (CancellationException e) {
+      assertEquals(1, model.getLayerCount());
+      assertFalse(model.canUndo());
+      assertTrue(ImageEditorModelTest.sameImage(img, model.exportItem(0)));
+    }
+    model.applyEffect(new BlurFilter(), 0);
+    assertTrue(ImageEditorModelTest.sameImage(new BlurFilter().apply(img), model.exportItem(0)));
+  }
+
+  @Test
+  public void testCancelledCompositeIsRedone() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img, img2));
+    model.setBlend(1, model.getBlendMode(1), 50);
+    model.getComposite(1);
+    model.setVisibility(1, false);
+    Progress[] progress = new Progress[1];
+    progress[0] = new Progress(rows -> progress[0].cancel());
+    try {
+      progress[0].runWith(() -> model.getComposite(1));
+      fail("the job was not cancelled");
+    } catch (CancellationException e) {
+      assertEquals(64, progress[0].getRows());
+    }
+    ImageEditorModel fresh = new ImageEditorModel(Arrays.asList(img));
+    PackedImage composite = model.getComposite(1);
+    assertArrayEquals(fresh.getComposite(1).getRaster(), composite.getRaster());
+  }
+}
@@ -0,0 +1,162 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import model.effects.Downscale;
+import model.effects.Greyscale;
+import model.effects.ResampleFilter;
+import model.effects.Resampler;
+import model.effects.Resize;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the Pyramid class and the pyramid caching of the ImageEditorModel class.
+ */
+public class PyramidTest {
+
+  ImageImpl img;
+  PackedImage packed;
+
+  @Before
+  public void setUp() {
+    img = new ImageImpl(40);
+    packed = new PackedImage(img);
+  }
+
+  @Test
+  public void testLevelDimensions() {
+    Pyramid pyramid = new Pyramid(new PackedImage(13, 5));
+    assertEquals(4, pyramid.getLevelCount());
+    assertEquals(6, pyramid.getWidth(1));
+    assertEquals(2, pyramid.getHeight(1));
+    assertEquals(1, pyramid.getWidth(3));
+    assertEquals(1, pyramid.getHeight(3));
+    PackedImage last = pyramid.getLevel(3, 1);
+    assertEquals(1, last.getWidth());
+    assertEquals(1, last.getHeight());
+  }
+
+  @Test
+  public void testLevelsAreBoxHalvings() {
+    Pyramid pyramid = new Pyramid(packed);
+    assertSame(packed, pyramid.getLevel(0, 1));
+    PackedImage half = Resampler.resample(packed, 20, 20, ResampleFilter.BOX);
+    PackedImage quarter = Resampler.resample(half, 10, 10, ResampleFilter.BOX);
+    assertArrayEquals(quarter.getRaster(), pyramid.getLevel(2, 1).getRaster());
+    assertArrayEquals(half.getRaster(), pyramid.getLevel(1, 1).getRaster());
+    assertSame(pyramid.getLevel(2, 1), pyramid.getLevel(2, 2));
+  }
+
+  @Test
+  public void testLevelFor() {
+    Pyramid pyramid = new Pyramid(packed);
+    assertEquals(0, pyramid.levelFor(60, 60));
+    assertEquals(0, pyramid.levelFor(21, 10));
+    assertEquals(1, pyramid.levelFor(20, 20));
+    assertEquals(2, pyramid.levelFor(7, 10));
+    assertEquals(5, pyramid.levelFor(1, 1));
+    assertEquals(2, pyramid.exactLevel(10, 10));
+    assertEquals(-1, pyramid.exactLevel(9, 10));
+  }
+
+  @Test
+  public void testScaleFromNearestLevel() {
+    Pyramid pyramid = new Pyramid(packed);
+    assertSame(pyramid.getLevel(2, 1), pyramid.scale(10, 10, ResampleFilter.BOX, 1));
+    PackedImage expected = Resampler.resample(pyramid.getLevel(2, 1), 7, 9,
+        ResampleFilter.BILINEAR);
+    assertArrayEquals(expected.getRaster(),
+        pyramid.scale(7, 9, ResampleFilter.BILINEAR, 1).getRaster());
+  }
+
+  @Test
+  public void testLowerPyramidKeepsBuiltLevels() {
+    Pyramid pyramid = new Pyramid(packed);
+    PackedImage third = pyramid.getLevel(3, 1);
+    Pyramid lower = pyramid.from(1);
+    assertEquals(20, lower.getWidth(0));
+    assertSame(pyramid.getLevel(1, 1), lower.getLevel(0, 1));
+    assertSame(third, lower.getLevel(2, 1));
+    assertArrayEquals(pyramid.getLevel(4, 1).getRaster(), lower.getLevel(3, 1).getRaster());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLevelOutOfBounds() {
+    new Pyramid(packed).getLevel(6, 1);
+  }
+
+  @Test
+  public void testRepeatedDownscalesUsePyramid() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    model.setPyramidCaching(true);
+    model.applyEffect(new Downscale(ResampleFilter.BOX), 0);
+    model.applyEffect(new Downscale(ResampleFilter.BOX), 0);
+    ImageImpl quarter = model.exportItem(0);
+    PackedImage expected = Resampler.resample(Resampler.resample(packed, 20, 20,
+        ResampleFilter.BOX), 10, 10, ResampleFilter.BOX);
+    assertArrayEquals(expected.getRaster(), new PackedImage(quarter).getRaster());
+    model.applyEffect(new Downscale(ResampleFilter.BOX), 0);
+    assertArrayEquals(Resampler.resample(expected, 5, 5, ResampleFilter.BOX).getRaster(),
+        new PackedImage(model.exportItem(0)).getRaster());
+  }
+
+  @Test
+  public void testCachingKeepsEditsExact() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    model.setPyramidCaching(true);
+    model.exportScaled(0, 5, 5, ResampleFilter.BOX);
+    model.applyEffect(new Resize(7, 9, ResampleFilter.BICUBIC), 0);
+    assertArrayEquals(Resampler.resample(packed, 7, 9, ResampleFilter.BICUBIC).getRaster(),
+        new PackedImage(model.exportItem(0)).getRaster());
+    model.undo();
+    model.applyEffect(new Resize(10, 10, ResampleFilter.BOX), 0);
+    assertArrayEquals(Resampler.resample(packed, 10, 10, ResampleFilter.BOX).getRaster(),
+        new PackedImage(model.exportItem(0)).getRaster());
+  }
+
+  @Test
+  public void testDisabledCachingResamplesFullImage() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    assertFalse(model.isPyramidCaching());
+    model.applyEffect(new Resize(7, 9, ResampleFilter.BICUBIC), 0);
+    assertArrayEquals(Resampler.resample(packed, 7, 9, ResampleFilter.BICUBIC).getRaster(),
+        new PackedImage(model.exportItem(0)).getRaster());
+  }
+
+  @Test
+  public void testOtherEffectsDropPyramid() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    model.setPyramidCaching(true);
+    model.applyEffect(new Downscale(ResampleFilter.BOX), 0);
+    model.applyEffect(new Greyscale(), 0);
+    model.applyEffect(new Downscale(ResampleFilter.BOX), 0);
+    PackedImage grey = new PackedImage(new Greyscale().apply(
+        Resampler.resample(packed, 20, 20, ResampleFilter.BOX).toImageImpl()));
+    assertArrayEquals(Resampler.resample(grey, 10, 10, ResampleFilter.BOX).getRaster(),
+        new PackedImage(model.exportItem(0)).getRaster());
+  }
+
+  @Test
+  public void testExportScaled() {
+    ImageEditorModel model = new ImageEditorModel(Arrays.asList(img));
+    ImageImpl direct = model.exportScaled(0, 10, 10, ResampleFilter.BOX);
+    assertArrayEquals(Resampler.resample(packed, 10, 10, ResampleFilter.BOX).getRaster(),
+        new PackedImage(direct).getRaster());
+    model.setPyramidCaching(true);
+    ImageImpl cached = model.exportScaled(0, 10, 10, ResampleFilter.BOX);
+    assertArrayEquals(new Pyramid(packed).getLevel(2, 1).getRaster(),
+        new PackedImage(cached).getRaster());
+    assertTrue(ImageEditorModelTest.sameImage(img, model.exportItem(0)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testExportScaledInvalidSize() {
+    new ImageEditorModel(Arrays.asList(img)).exportScaled(0, 0, 5, ResampleFilter.BOX);
+  }
+}
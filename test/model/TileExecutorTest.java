@@ -0,0 +1,97 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import model.effects.BlurFilter;
+import model.effects.Downscale;
+import model.effects.GaussianBlur;
+import model.effects.Greyscale;
+import model.effects.IEffect;
+import model.effects.Mosaic;
+import model.effects.Sepia;
+import model.effects.SharpenFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the TileExecutor class and the parallel versions of the effects.
+ */
+public class TileExecutorTest {
+
+  ImageImpl img;
+
+  @Before
+  public void setUp() {
+    img = new GaussianBlur(3).apply(new ImageImpl(120, 7));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullTask() {
+    TileExecutor.forEachBand(10, 4, null);
+  }
+
+  @Test
+  public void testEveryRowVisitedOnce() {
+    AtomicIntegerArray visits = new AtomicIntegerArray(1000);
+    TileExecutor.forEachBand(1000, 8, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        visits.incrementAndGet(i);
+      }
+    });
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(1, visits.get(i));
+    }
+  }
+
+  @Test
+  public void testEveryPixelVisitedOnce() {
+    AtomicIntegerArray visits = new AtomicIntegerArray(1003);
+    TileExecutor.forEachPixelBand(1003, 10, 100, 8, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        visits.incrementAndGet(i);
+      }
+    });
+    for (int i = 0; i < 1003; i++) {
+      assertEquals(1, visits.get(i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPixelBandInvalidWidth() {
+    TileExecutor.forEachPixelBand(10, 0, 10, 4, (start, end) -> { });
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    List<IEffect<ImageImpl>> effects = List.of(new BlurFilter(), new SharpenFilter(),
+        new Greyscale(), new Sepia(), new Downscale(), new GaussianBlur(5));
+    for (IEffect<ImageImpl> effect : effects) {
+      assertTrue(ImageEditorModelTest.sameImage(effect.apply(img), effect.apply(img, 4)));
+    }
+  }
+
+  @Test
+  public void testParallelMosaic() {
+    ImageImpl mosaic = new Mosaic().applySpecific(img, 50, 4);
+    assertEquals(img.getNumPixels(), mosaic.getNumPixels());
+  }
+
+  @Test
+  public void testModelApplyEffectParallel() {
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(img);
+    model.applyEffect(new BlurFilter(), 0, 4);
+    assertTrue(ImageEditorModelTest.sameImage(new BlurFilter().apply(img),
+        model.exportItem(0)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testModelApplyEffectInvalidParallelism() {
+    ImageEditorModel model = new ImageEditorModel();
+    model.importItem(img);
+    model.applyEffect(new BlurFilter(), 0, 0);
+  }
+}
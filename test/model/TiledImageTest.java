@@ -0,0 +1,121 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the TiledImage class.
+ */
+public class TiledImageTest {
+
+  PackedImage packed;
+  TiledImage tiled;
+
+  @Before
+  public void setUp() {
+    packed = new PackedImage(45, 31);
+    for (int i = 0; i < packed.getRaster().length; i++) {
+      packed.getRaster()[i] = (i * 7919) & 0xffffff;
+    }
+    //tiles of 8x8 with the smallest cache, so that tiles are evicted and reloaded
+    tiled = new TiledImage(45, 31, 8, 0);
+    for (int y = 0; y < 31; y++) {
+      tiled.setRow(y, packed.getRaster(), y * 45);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    tiled.close();
+  }
+
+  @Test
+  public void testDimensions() {
+    assertEquals(45, tiled.getWidth());
+    assertEquals(31, tiled.getHeight());
+    assertEquals(45 * 31, tiled.getNumPixels());
+    assertEquals(6, tiled.getTileColumns());
+    assertEquals(4, tiled.getTileRows());
+    assertEquals(5, tiled.tileWidth(5));
+    assertEquals(7, tiled.tileHeight(3));
+    assertEquals(16, tiled.getCachedTiles());
+  }
+
+  @Test
+  public void testRowsSurviveEviction() {
+    assertTrue(tiled.getResidentTiles() <= tiled.getCachedTiles());
+    assertArrayEquals(packed.getRaster(), tiled.toPackedImage().getRaster());
+    for (int y = 30; y >= 0; y -= 3) {
+      for (int x = 44; x >= 0; x -= 4) {
+        assertEquals(packed.getRGBAt(x, y), tiled.getRGBAt(x, y));
+      }
+    }
+    assertTrue(tiled.getResidentTiles() <= tiled.getCachedTiles());
+  }
+
+  @Test
+  public void testTiles() {
+    PackedImage tile = tiled.readTile(5, 3);
+    assertEquals(5, tile.getWidth());
+    assertEquals(7, tile.getHeight());
+    assertEquals(packed.getRGBAt(40, 24), tile.getRGBAt(0, 0));
+    assertEquals(packed.getRGBAt(44, 30), tile.getRGBAt(4, 6));
+    tile.setRGBAt(1, 2, 0x123456);
+    assertEquals(packed.getRGBAt(41, 26), tiled.getRGBAt(41, 26));
+    tiled.writeTile(5, 3, tile);
+    assertEquals(0x123456, tiled.getRGBAt(41, 26));
+  }
+
+  @Test
+  public void testSetRGBAt() {
+    tiled.setRGBAt(0, 0, 0xff123456);
+    tiled.flush();
+    for (int ty = 0; ty < tiled.getTileRows(); ty++) {
+      tiled.readTile(3, ty);
+      tiled.readTile(4, ty);
+    }
+    assertEquals(0x123456, tiled.getRGBAt(0, 0));
+  }
+
+  @Test
+  public void testNewImageIsBlack() {
+    try (TiledImage black = new TiledImage(300, 2)) {
+      assertEquals(0, black.getRGBAt(299, 1));
+      assertEquals(TiledImage.DEFAULT_TILE_SIZE, black.getTileSize());
+    }
+  }
+
+  @Test
+  public void testCopyConstructor() {
+    try (TiledImage copy = new TiledImage(packed)) {
+      assertArrayEquals(packed.getRaster(), copy.toPackedImage().getRaster());
+      assertEquals(packed.getPixels().get(100).getRGB(), copy.getPixels().get(100).getRGB());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOutOfBounds() {
+    tiled.getRGBAt(45, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongTileSize() {
+    tiled.writeTile(0, 0, new PackedImage(5, 7));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testClosed() {
+    tiled.close();
+    tiled.getRGBAt(0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDimensions() {
+    new TiledImage(0, 5);
+  }
+}
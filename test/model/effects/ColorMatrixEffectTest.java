@@ -0,0 +1,90 @@
+package model.effects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import model.ColorType;
+import model.ImageEditorModelTest;
+import model.ImageImpl;
+import model.PackedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the ColorMatrixEffect class.
+ */
+public class ColorMatrixEffectTest {
+
+  ImageImpl img;
+  Greyscale greyscale;
+  Sepia sepia;
+
+  @Before
+  public void setUp() {
+    img = new BlurFilter().apply(new ImageImpl(35));
+    greyscale = new Greyscale();
+    sepia = new Sepia();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooFewRows() {
+    new ColorMatrixEffect(new double[][]{{1, 0, 0}, {0, 1, 0}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongRowLength() {
+    new ColorMatrixEffect(new double[][]{{1, 0}, {0, 1, 0}, {0, 0, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testThenNull() {
+    greyscale.then(null);
+  }
+
+  @Test
+  public void testOffset() {
+    ColorMatrixEffect brighten = new ColorMatrixEffect(new double[][]{
+        {1, 0, 0, 10}, {0, 1, 0, 10}, {0, 0, 1, 300}});
+    ImageImpl result = brighten.apply(new ImageImpl(7));
+    assertEquals(255, result.getColorAt(ColorType.RED, 0, 0));
+    assertEquals(10, result.getColorAt(ColorType.GREEN, 0, 0));
+    assertEquals(255, result.getColorAt(ColorType.BLUE, 0, 0));
+  }
+
+  @Test
+  public void testIdenticalRows() {
+    ColorMatrixEffect luma = new ColorMatrixEffect(new double[][]{
+        {0.3, 0.6, 0.1, 20}, {0.3, 0.6, 0.1, 20}, {0.3, 0.6, 0.1, 20}});
+    ImageImpl result = luma.then(sepia).apply(img);
+    for (int y = 0; y < 35; y += 5) {
+      for (int x = 0; x < 35; x += 5) {
+        int v = Math.min(255, (int) (0.3 * img.getColorAt(ColorType.RED, x, y)
+            + 0.6 * img.getColorAt(ColorType.GREEN, x, y)
+            + 0.1 * img.getColorAt(ColorType.BLUE, x, y) + 20));
+        assertEquals(Math.min(255, (int) (0.393 * v + 0.769 * v + 0.189 * v)),
+            result.getColorAt(ColorType.RED, x, y));
+        assertEquals(Math.min(255, (int) (0.272 * v + 0.534 * v + 0.131 * v)),
+            result.getColorAt(ColorType.BLUE, x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testChainMatchesSequential() {
+    ColorMatrixEffect chain = greyscale.then(sepia);
+    assertEquals(2, chain.getStageCount());
+    assertTrue(ImageEditorModelTest.sameImage(sepia.apply(greyscale.apply(img)),
+        chain.apply(img)));
+    ColorMatrixEffect reverse = sepia.then(greyscale).then(sepia);
+    assertEquals(3, reverse.getStageCount());
+    assertTrue(ImageEditorModelTest.sameImage(sepia.apply(greyscale.apply(sepia.apply(img))),
+        reverse.apply(img)));
+  }
+
+  @Test
+  public void testApplyRasterMatchesApply() {
+    ColorMatrixEffect chain = sepia.then(greyscale);
+    PackedImage packed = chain.applyRaster(new PackedImage(img), 1);
+    assertTrue(ImageEditorModelTest.sameImage(chain.apply(img), packed.toImageImpl()));
+  }
+}
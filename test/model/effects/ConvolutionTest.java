@@ -0,0 +1,122 @@
+package model.effects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import model.ColorType;
+import model.ImageImpl;
+import model.PackedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the Kernel and Convolution classes.
+ */
+public class ConvolutionTest {
+
+  PackedImage img;
+
+  @Before
+  public void setUp() {
+    img = new PackedImage(5, 5);
+    img.setRGBAt(2, 2, PackedImage.pack(90, 180, 255));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testKernelEvenDimensions() {
+    Kernel kernel = new Kernel(new double[][]{{1, 1}, {1, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testKernelRaggedRows() {
+    Kernel kernel = new Kernel(new double[][]{{1, 1, 1}, {1}, {1, 1, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testKernelGroupsMismatch() {
+    Kernel kernel = new Kernel(new double[][]{{1}}, new int[][]{{0, 0}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConvolveNullImage() {
+    Convolution.convolve(null, Kernel.box(1), EdgeMode.ZERO);
+  }
+
+  @Test
+  public void testIdentityKernel() {
+    PackedImage result = Convolution.convolve(img, new Kernel(new double[][]{{1}}),
+        EdgeMode.ZERO);
+    assertEquals(img.getRGBAt(2, 2), result.getRGBAt(2, 2));
+    assertEquals(0, result.getRGBAt(0, 0));
+  }
+
+  @Test
+  public void testSeparableMatchesDirect() {
+    ImageImpl checkerboard = new ImageImpl(20, 4);
+    PackedImage packed = new PackedImage(checkerboard);
+    double[] line = {.25, .5, .25};
+    double[][] full = new double[3][3];
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 3; x++) {
+        full[y][x] = line[x] * line[y];
+      }
+    }
+    for (EdgeMode edges : EdgeMode.values()) {
+      PackedImage separable = Convolution.convolve(packed, Kernel.separable(line, line), edges);
+      PackedImage direct = Convolution.convolve(packed, new Kernel(full), edges);
+      for (int i = 0; i < packed.getNumPixels(); i++) {
+        assertEquals(direct.getRaster()[i], separable.getRaster()[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testBoxBlurSlidingWindow() {
+    PackedImage result = Convolution.convolve(img, Kernel.box(1), EdgeMode.ZERO);
+    assertEquals(10, result.getColorAt(ColorType.RED, 1, 1));
+    assertEquals(20, result.getColorAt(ColorType.GREEN, 3, 3));
+    assertEquals(28, result.getColorAt(ColorType.BLUE, 2, 2));
+    assertEquals(0, result.getRGBAt(0, 0));
+  }
+
+  @Test
+  public void testEdgeModes() {
+    PackedImage corner = new PackedImage(3, 3);
+    corner.setRGBAt(0, 0, PackedImage.pack(90, 90, 90));
+    Kernel left = new Kernel(new double[][]{{0, 0, 1}});
+    //reads the pixel to the right of each pixel
+    assertEquals(0, Convolution.convolve(corner, left, EdgeMode.ZERO).getRGBAt(2, 0));
+    assertEquals(0, Convolution.convolve(corner, left, EdgeMode.CLAMP).getRGBAt(2, 0));
+    assertEquals(90, Convolution.convolve(corner, left, EdgeMode.WRAP)
+        .getColorAt(ColorType.RED, 2, 0));
+  }
+
+  @Test
+  public void testGroupsTruncateSeparately() {
+    PackedImage single = new PackedImage(new int[]{PackedImage.pack(3, 3, 3)}, 1, 1);
+    Kernel together = new Kernel(new double[][]{{.5}});
+    assertEquals(1, Convolution.convolve(single, together, EdgeMode.CLAMP)
+        .getColorAt(ColorType.RED, 0, 0));
+    PackedImage pair = new PackedImage(new int[]{PackedImage.pack(3, 3, 3),
+        PackedImage.pack(3, 3, 3)}, 2, 1);
+    Kernel oneGroup = new Kernel(new double[][]{{.5, .5, 0}});
+    Kernel twoGroups = new Kernel(new double[][]{{.5, .5, 0}}, new int[][]{{0, 1, 0}});
+    assertEquals(3, Convolution.convolve(pair, oneGroup, EdgeMode.ZERO)
+        .getColorAt(ColorType.RED, 1, 0));
+    assertEquals(2, Convolution.convolve(pair, twoGroups, EdgeMode.ZERO)
+        .getColorAt(ColorType.RED, 1, 0));
+  }
+
+  @Test
+  public void testGaussianBlurKeepsFlatImage() {
+    int[] raster = new int[400];
+    Arrays.fill(raster, PackedImage.pack(100, 100, 100));
+    ImageImpl flat = new PackedImage(raster, 20, 20).toImageImpl();
+    ImageImpl blurred = new GaussianBlur(8).apply(flat);
+    assertEquals(400, blurred.getNumPixels());
+    for (int i = 0; i < 400; i++) {
+      assertTrue(Math.abs(blurred.getPixels().get(i).getR() - 100) <= 1);
+    }
+  }
+}
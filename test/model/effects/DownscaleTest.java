@@ -1,5 +1,6 @@
 package model.effects;
 
+import java.awt.Dimension;
 import java.util.ArrayList;
 import java.util.List;
 import model.ColorType;
@@ -281,4 +282,17 @@ public class DownscaleTest {
 
   }
 
+  @Test
+  public void testResultSize() {
+    assertEquals(new Dimension(5, 3), new Downscale().getResultSize(11, 7));
+    assertEquals(new Dimension(2, 1), new Resize(2, 1, ResampleFilter.BOX).getResultSize(9, 9));
+    assertEquals(ResampleFilter.BOX, new Downscale(ResampleFilter.BOX).getResampleFilter());
+    assertEquals(null, new Downscale().getResampleFilter());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testResultSizeTooSmall() {
+    new Downscale().getResultSize(1, 8);
+  }
+
 }
@@ -251,4 +251,35 @@ public class MosaicTest {
     assertEquals(30, mosaicImage.getColorAt(ColorType.GREEN, 1, 1));
     assertEquals(49, mosaicImage.getColorAt(ColorType.BLUE, 1, 1));
   }
+
+  @Test
+  public void testMosaicReproducible() {
+    ImageImpl first = mosaic.applySpecific(img, 30, 42L, 1);
+    assertTrue(compareImages(first, mosaic.applySpecific(img, 30, 42L, 4)));
+    assertTrue(compareImages(first, new Mosaic(30, 42).apply(img)));
+    assertFalse(compareImages(first, mosaic.applySpecific(img, 30, 43L, 1)));
+  }
+
+  @Test
+  public void testMosaicAllSeedsDistinct() {
+    //with as many seeds as pixels, every pixel must be its own seed, for any rng seed
+    for (long rngSeed = 0; rngSeed < 20; rngSeed++) {
+      assertTrue(compareImages(img, mosaic.applySpecific(img, 100, rngSeed, 1)));
+    }
+  }
+
+  @Test
+  public void testMosaicConstructorSeeds() {
+    assertTrue(compareImages(img, new Mosaic(100).apply(img)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMosaicConstructorNegativeSeeds() {
+    new Mosaic(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testResultSizeTooManySeeds() {
+    new Mosaic(13).getResultSize(3, 4);
+  }
 }
@@ -0,0 +1,160 @@
+package model.effects;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import model.ImageImpl;
+import model.PackedImage;
+import org.junit.Test;
+
+/**
+ * Class for testing the Resampler class and the Resize effect.
+ */
+public class ResamplerTest {
+
+  /**
+   * Returns a packed image with a different color at every pixel.
+   *
+   * @param width  Integer, the width of the image
+   * @param height Integer, the height of the image
+   * @return PackedImage, the image
+   */
+  private static PackedImage gradient(int width, int height) {
+    PackedImage image = new PackedImage(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGBAt(x, y, PackedImage.pack(x * 7 % 256, y * 11 % 256, (x + y) * 3 % 256));
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void identityIsExact() {
+    PackedImage image = gradient(13, 9);
+    for (ResampleFilter filter : ResampleFilter.values()) {
+      PackedImage out = Resampler.resample(image, 13, 9, filter);
+      assertArrayEquals(image.getRaster(), out.getRaster());
+    }
+  }
+
+  @Test
+  public void boxHalvesToBlockAverages() {
+    PackedImage image = new PackedImage(4, 2);
+    image.setRGBAt(0, 0, PackedImage.pack(0, 0, 0));
+    image.setRGBAt(1, 0, PackedImage.pack(100, 40, 8));
+    image.setRGBAt(0, 1, PackedImage.pack(200, 80, 16));
+    image.setRGBAt(1, 1, PackedImage.pack(100, 40, 0));
+    image.setRGBAt(2, 0, PackedImage.pack(255, 255, 255));
+    image.setRGBAt(3, 0, PackedImage.pack(255, 255, 255));
+    image.setRGBAt(2, 1, PackedImage.pack(255, 255, 255));
+    image.setRGBAt(3, 1, PackedImage.pack(251, 255, 255));
+    PackedImage out = Resampler.resample(image, 2, 1, ResampleFilter.BOX);
+    assertEquals(PackedImage.pack(100, 40, 6), out.getRGBAt(0, 0));
+    assertEquals(PackedImage.pack(254, 255, 255), out.getRGBAt(1, 0));
+  }
+
+  @Test
+  public void uniformStaysUniform() {
+    PackedImage image = new PackedImage(17, 11);
+    int rgb = PackedImage.pack(12, 200, 99);
+    for (int y = 0; y < 11; y++) {
+      for (int x = 0; x < 17; x++) {
+        image.setRGBAt(x, y, rgb);
+      }
+    }
+    for (ResampleFilter filter : ResampleFilter.values()) {
+      for (int[] size : new int[][]{{5, 3}, {40, 29}, {1, 1}}) {
+        PackedImage out = Resampler.resample(image, size[0], size[1], filter, 2);
+        assertEquals(size[0], out.getWidth());
+        assertEquals(size[1], out.getHeight());
+        for (int v : out.getRaster()) {
+          assertEquals(filter.toString(), rgb, v);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void parallelismDoesNotChangeResult() {
+    PackedImage image = gradient(64, 48);
+    for (ResampleFilter filter : ResampleFilter.values()) {
+      assertArrayEquals(Resampler.resample(image, 23, 71, filter, 1).getRaster(),
+          Resampler.resample(image, 23, 71, filter, 4).getRaster());
+    }
+  }
+
+  @Test
+  public void regionUpdateMatchesFullResize() {
+    for (ResampleFilter filter : ResampleFilter.values()) {
+      PackedImage image = gradient(64, 48);
+      PackedImage target = Resampler.resample(image, 13, 21, filter);
+      for (int y = 20; y < 26; y++) {
+        for (int x = 30; x < 33; x++) {
+          image.setRGBAt(x, y, PackedImage.pack(255, 0, 255));
+        }
+      }
+      Rectangle updated = Resampler.resample(image, target, new Rectangle(30, 20, 3, 6), filter,
+          4);
+      assertArrayEquals(Resampler.resample(image, 13, 21, filter).getRaster(),
+          target.getRaster());
+      assertTrue(updated.width < 13 && updated.height < 21);
+    }
+  }
+
+  @Test
+  public void regionUpdateOutsideImage() {
+    PackedImage image = gradient(8, 8);
+    PackedImage target = Resampler.resample(image, 4, 4, ResampleFilter.BOX);
+    assertTrue(Resampler.resample(image, target, new Rectangle(9, 9, 2, 2), ResampleFilter.BOX,
+        1).isEmpty());
+  }
+
+  @Test
+  public void resizeEffect() {
+    ImageImpl image = new ImageImpl(16, 4);
+    ImageImpl out = new Resize(30, 7, ResampleFilter.LANCZOS3).apply(image);
+    assertEquals(30, out.getWidth());
+    assertEquals(7, out.getHeight());
+    PackedImage packed = new PackedEffect(new Resize(30, 7, ResampleFilter.LANCZOS3))
+        .apply(new PackedImage(image));
+    assertArrayEquals(packed.getRaster(), new PackedImage(out).getRaster());
+  }
+
+  @Test
+  public void downscaleWithFilter() {
+    ImageImpl image = new ImageImpl(16, 4);
+    ImageImpl out = new Downscale(ResampleFilter.BOX).apply(image);
+    assertEquals(8, out.getWidth());
+    assertEquals(8, out.getHeight());
+    assertArrayEquals(Resampler.resample(new PackedImage(image), 8, 8, ResampleFilter.BOX)
+        .getRaster(), new PackedImage(out).getRaster());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullFilter() {
+    Resampler.resample(gradient(2, 2), 1, 1, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullImage() {
+    Resampler.resample(null, 1, 1, ResampleFilter.BOX);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroWidth() {
+    Resampler.resample(gradient(2, 2), 0, 1, ResampleFilter.BOX);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeResize() {
+    new Resize(4, -1, ResampleFilter.BICUBIC);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullDownscaleFilter() {
+    new Downscale(null);
+  }
+}
@@ -0,0 +1,88 @@
+package model.effects;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Class for testing the SeedGrid class.
+ */
+public class SeedGridTest {
+
+  /**
+   * Finds the closest seed by checking every seed, choosing the last of equally close seeds.
+   *
+   * @param xs Integer array, the x coordinates of the seeds
+   * @param ys Integer array, the y coordinates of the seeds
+   * @param x  Integer, the x coordinate of the point
+   * @param y  Integer, the y coordinate of the point
+   * @return Integer, the index of the closest seed
+   */
+  private static int bruteForce(int[] xs, int[] ys, int x, int y) {
+    int best = -1;
+    double closest = Double.MAX_VALUE;
+    for (int i = 0; i < xs.length; i++) {
+      double d = Math.sqrt((double) (xs[i] - x) * (xs[i] - x) + (double) (ys[i] - y) * (ys[i] - y));
+      if (d <= closest) {
+        closest = d;
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Checks the grid against brute force for every point of the given area.
+   *
+   * @param xs     Integer array, the x coordinates of the seeds
+   * @param ys     Integer array, the y coordinates of the seeds
+   * @param width  Integer, the width of the area
+   * @param height Integer, the height of the area
+   */
+  private static void checkAll(int[] xs, int[] ys, int width, int height) {
+    SeedGrid grid = new SeedGrid(xs, ys, width, height);
+    for (int y = -2; y < height + 2; y++) {
+      for (int x = -2; x < width + 2; x++) {
+        assertEquals(bruteForce(xs, ys, x, y), grid.nearest(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testRandomSeeds() {
+    Random rand = new Random(7);
+    for (int seeds : new int[]{1, 3, 40, 400}) {
+      int[] xs = new int[seeds];
+      int[] ys = new int[seeds];
+      for (int i = 0; i < seeds; i++) {
+        xs[i] = rand.nextInt(61);
+        ys[i] = rand.nextInt(37);
+      }
+      checkAll(xs, ys, 61, 37);
+    }
+  }
+
+  @Test
+  public void testTiesChooseLastSeed() {
+    //every point on the middle column and row is equally close to several seeds
+    int[] xs = {0, 10, 0, 10, 5, 5};
+    int[] ys = {0, 0, 10, 10, 5, 5};
+    checkAll(xs, ys, 11, 11);
+    assertEquals(5, new SeedGrid(xs, ys, 11, 11).nearest(5, 5));
+    assertEquals(5, new SeedGrid(xs, ys, 11, 11).nearest(0, 5));
+    assertEquals(1, new SeedGrid(new int[]{0, 2}, new int[]{0, 0}, 3, 1).nearest(1, 0));
+  }
+
+  @Test
+  public void testSeedsOutsideArea() {
+    int[] xs = {-5, 30, 4};
+    int[] ys = {3, 8, 100};
+    checkAll(xs, ys, 20, 20);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoSeeds() {
+    new SeedGrid(new int[0], new int[0], 5, 5);
+  }
+}
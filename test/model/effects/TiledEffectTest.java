@@ -0,0 +1,77 @@
+package model.effects;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import model.PackedImage;
+import model.TiledImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the TiledEffect class.
+ */
+public class TiledEffectTest {
+
+  PackedImage packed;
+
+  @Before
+  public void setUp() {
+    packed = new PackedImage(37, 29);
+    for (int i = 0; i < packed.getRaster().length; i++) {
+      packed.getRaster()[i] = (i * 104729) & 0xffffff;
+    }
+  }
+
+  /**
+   * Checks that applying the effect tile by tile gives the same image as applying it to the
+   * whole packed image.
+   *
+   * @param effect IEffect, the effect to check
+   */
+  private void checkSameAsPacked(IEffect<model.ImageImpl> effect) {
+    PackedImage expected = new PackedEffect(effect).apply(packed);
+    try (TiledImage input = new TiledImage(37, 29, 8, 0)) {
+      for (int y = 0; y < 29; y++) {
+        input.setRow(y, packed.getRaster(), y * 37);
+      }
+      try (TiledImage output = new TiledEffect(effect).apply(input, 2)) {
+        assertArrayEquals(expected.getRaster(), output.toPackedImage().getRaster());
+      }
+    }
+  }
+
+  @Test
+  public void testBlur() {
+    checkSameAsPacked(new BlurFilter());
+  }
+
+  @Test
+  public void testSharpen() {
+    checkSameAsPacked(new SharpenFilter());
+  }
+
+  @Test
+  public void testGaussianEdgeModes() {
+    for (EdgeMode edges : EdgeMode.values()) {
+      //a radius wider than a tile reads from tiles two away
+      checkSameAsPacked(new GaussianBlur(10, 4, edges));
+    }
+  }
+
+  @Test
+  public void testColorEffects() {
+    checkSameAsPacked(new Greyscale());
+    checkSameAsPacked(new Sepia());
+    checkSameAsPacked(new Greyscale().then(new Sepia()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMosaicNotTiled() {
+    new TiledEffect(new Mosaic());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullImage() {
+    new TiledEffect(new Greyscale()).apply(null);
+  }
+}
@@ -0,0 +1,71 @@
+package view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import model.ImageImpl;
+import model.PackedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class for testing the ImageCanvas class.
+ */
+public class ImageCanvasTest {
+
+  ImageCanvas canvas;
+  PackedImage image;
+
+  @Before
+  public void setUp() {
+    canvas = new ImageCanvas();
+    image = new PackedImage(new ImageImpl(20));
+    canvas.update(image, new Rectangle(0, 0, 20, 20));
+  }
+
+  @Test
+  public void testFirstUpdateCopiesEverything() {
+    BufferedImage shown = canvas.getImage();
+    assertEquals(20, shown.getWidth());
+    assertEquals(new Dimension(20, 20), canvas.getPreferredSize());
+    for (int y = 0; y < 20; y++) {
+      for (int x = 0; x < 20; x++) {
+        assertEquals(image.getRGBAt(x, y), shown.getRGB(x, y) & 0xffffff);
+      }
+    }
+  }
+
+  @Test
+  public void testOnlyRegionIsCopied() {
+    BufferedImage shown = canvas.getImage();
+    image.setRGBAt(3, 4, 0x123456);
+    image.setRGBAt(10, 10, 0x654321);
+    canvas.update(image, new Rectangle(2, 3, 5, 5));
+    assertSame(shown, canvas.getImage());
+    assertEquals(0x123456, shown.getRGB(3, 4) & 0xffffff);
+    assertEquals(new PackedImage(new ImageImpl(20)).getRGBAt(10, 10),
+        shown.getRGB(10, 10) & 0xffffff);
+  }
+
+  @Test
+  public void testNewDimensionsReplaceImage() {
+    BufferedImage shown = canvas.getImage();
+    PackedImage smaller = new PackedImage(new ImageImpl(8, 2));
+    canvas.update(smaller, new Rectangle());
+    assertNotSame(shown, canvas.getImage());
+    assertEquals(new Dimension(8, 8), canvas.getPreferredSize());
+    assertEquals(smaller.getRGBAt(7, 7), canvas.getImage().getRGB(7, 7) & 0xffffff);
+  }
+
+  @Test
+  public void testImageImplIsPacked() {
+    ImageImpl checker = new ImageImpl(8, 2);
+    canvas.update(checker, new Rectangle(0, 0, 8, 8));
+    assertEquals(new PackedImage(checker).getRGBAt(0, 5),
+        canvas.getImage().getRGB(0, 5) & 0xffffff);
+  }
+}
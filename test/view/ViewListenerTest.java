@@ -72,6 +72,35 @@ public class ViewListenerTest {
     assertEquals("visible 0",mc.command);
   }
 
+  @Test
+  public void actionPerformedUndoButtonPressed() {
+    ActionEvent action = new ActionEvent(view,0,"UNDO");
+    vl.actionPerformed(action);
+    assertEquals("undo",mc.command);
+  }
+
+  @Test
+  public void actionPerformedRedoButtonPressed() {
+    ActionEvent action = new ActionEvent(view,0,"REDO");
+    vl.actionPerformed(action);
+    assertEquals("redo",mc.command);
+  }
+
+  @Test
+  public void actionPerformedCancelButtonPressed() {
+    ActionEvent action = new ActionEvent(view,0,"CANCEL");
+    vl.actionPerformed(action);
+    assertEquals("cancel",mc.command);
+  }
+
+  @Test
+  public void actionPerformedZoomSelected() {
+    view.zoom = 2;
+    ActionEvent action = new ActionEvent(view,0,"ZOOM");
+    vl.actionPerformed(action);
+    assertEquals("run zoom 2",mc.command);
+  }
+
   @Test
   public void actionPerformedTopButtonPressed() {
     ActionEvent action = new ActionEvent(view,0,"TOP");